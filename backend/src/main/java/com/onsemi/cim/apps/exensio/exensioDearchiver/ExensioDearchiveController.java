@@ -1,8 +1,12 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver;
 
+import com.onsemi.cim.apps.exensio.exensioDearchiver.service.ResourceVersions;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.StageStatus;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto.ReloadFilterOptions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -16,20 +20,32 @@ public class ExensioDearchiveController {
     @Autowired
     private ExensioDearchiveService exensioDearchiveService;
 
+    @Autowired
+    private ResourceVersions versions;
+
     @GetMapping("/sites")
     public List<String> getSites() {
         return exensioDearchiveService.getSites();
     }
 
     @GetMapping("/stage/status")
-    public List<StageStatus> getStageStatus() {
-        return exensioDearchiveService.getStageStatuses();
+    public ResponseEntity<List<StageStatus>> getStageStatus(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        String etag = versions.etag(ResourceVersions.STAGE);
+        if (ResourceVersions.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(exensioDearchiveService.getStageStatuses());
     }
 
     @GetMapping("/stage/status/by")
-    public List<StageStatus> getStageStatusFiltered(@RequestParam(required = false) String site,
-                                                    @RequestParam(required = false) Integer senderId) {
-        return exensioDearchiveService.getStageStatuses(site, senderId);
+    public ResponseEntity<List<StageStatus>> getStageStatusFiltered(@RequestParam(required = false) String site,
+                                                                    @RequestParam(required = false) Integer senderId,
+                                                                    @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        String etag = versions.etag(ResourceVersions.STAGE);
+        if (ResourceVersions.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(exensioDearchiveService.getStageStatuses(site, senderId));
     }
 
     @PostMapping("/reload")
@@ -136,7 +136,7 @@ public class ExensioDearchiveService {
             params.add(testPhase);
         }
 
-        try (Connection connection = externalDbConfig.getConnection(site);
+        try (Connection connection = externalDbConfig.getReadConnection(site, null, com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload.INTERACTIVE);
              PreparedStatement ps = connection.prepareStatement(sql)) {
             for (int i = 0; i < params.size(); i++) {
                 ps.setString(i + 1, params.get(i).toString());
@@ -165,7 +165,7 @@ public class ExensioDearchiveService {
                 "from dtp_simple_client_setting where enabled = 'Y' " +
                 "order by location, data_type, tester_type, data_type_ext, file_type";
 
-        try (Connection connection = externalDbConfig.getConnection(site);
+        try (Connection connection = externalDbConfig.getReadConnection(site, null, com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload.INTERACTIVE);
              PreparedStatement ps = connection.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
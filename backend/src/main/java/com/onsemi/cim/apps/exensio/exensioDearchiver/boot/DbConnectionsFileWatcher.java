@@ -0,0 +1,135 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.boot;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalDbConfig;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the external connection definitions when their file changes (external-db.reload.watch=true).
+ *
+ * Watches the directory holding RELOADER_DBCONN_PATH (or a file-based reloader.dbconn.yaml.path) rather than the
+ * file itself, so editors and mounted secrets that replace the file through a rename or symlink swap are picked
+ * up too. Events are debounced and the file content is compared with the last applied version before calling
+ * {@link ExternalDbConfig#reload()}. Classpath-only configurations have nothing to watch and are reloaded through
+ * the admin endpoint instead.
+ */
+@Component
+public class DbConnectionsFileWatcher {
+    private static final Logger log = LoggerFactory.getLogger(DbConnectionsFileWatcher.class);
+
+    private final ExternalDbConfig externalDbConfig;
+    private final Environment env;
+    private volatile WatchService watchService;
+    private byte[] lastDigest;
+
+    public DbConnectionsFileWatcher(ExternalDbConfig externalDbConfig, Environment env) {
+        this.externalDbConfig = externalDbConfig;
+        this.env = env;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!ConfigUtils.getBooleanFlag(env, "external-db.reload.watch", "EXTERNAL_DB_RELOAD_WATCH", false)) {
+            return;
+        }
+        Path file = externalDbConfig.getDefinitionsPath();
+        if (file == null) {
+            log.info("External DB definitions come from the classpath; file watch disabled");
+            return;
+        }
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            log.warn("Cannot watch external DB definitions at {}: directory not found", file);
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (Exception ex) {
+            log.warn("Cannot watch external DB definitions at {}: {}", file, ex.getMessage());
+            return;
+        }
+        lastDigest = digest(file);
+        long debounceMs = Long.parseLong(ConfigUtils.getString(env, "external-db.reload.debounce-ms", null, "2000"));
+        Thread watcher = new Thread(() -> watch(file, debounceMs), "dbconnections-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Watching {} for external DB definition changes", file);
+    }
+
+    private void watch(Path file, long debounceMs) {
+        WatchService ws = watchService;
+        try {
+            while (true) {
+                WatchKey key = ws.take();
+                // Let a burst of events (write + rename + attribute updates) settle before reading the file
+                Thread.sleep(debounceMs);
+                key.pollEvents();
+                WatchKey extra;
+                while ((extra = ws.poll(0, TimeUnit.MILLISECONDS)) != null) {
+                    extra.pollEvents();
+                    extra.reset();
+                }
+                if (!key.reset()) {
+                    log.warn("Watch on {} is no longer valid; file reload stopped", file.getParent());
+                    return;
+                }
+                reloadIfChanged(file);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ex) {
+            // shutting down
+        }
+    }
+
+    /**
+     * Reload when the file content differs from the last applied version. Visible for tests.
+     */
+    boolean reloadIfChanged(Path file) {
+        byte[] current = digest(file);
+        if (current == null || Arrays.equals(current, lastDigest)) {
+            return false;
+        }
+        try {
+            externalDbConfig.reload();
+            lastDigest = current;
+            return true;
+        } catch (Exception ex) {
+            // Keep the previous digest so a corrected file is retried
+            log.warn("Reload of external DB definitions from {} failed, keeping current pools: {}", file, ex.getMessage());
+            return false;
+        }
+    }
+
+    private static byte[] digest(Path file) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file));
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        WatchService ws = watchService;
+        if (ws != null) {
+            try { ws.close(); } catch (Exception ignored) {}
+        }
+    }
+}
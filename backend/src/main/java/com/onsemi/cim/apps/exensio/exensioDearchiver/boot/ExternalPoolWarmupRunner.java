@@ -0,0 +1,123 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.boot;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalDbConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional startup warm-up of external site pools (external-db.warmup.enabled=true).
+ *
+ * Runs in the background once the application is ready, so startup and readiness never wait on a slow or
+ * unreachable site. Keys come from external-db.warmup.keys (comma separated) or, when empty, every configured
+ * connection key. Each key is warmed in parallel, covering its site, workload and read-replica pools, and the
+ * timing/outcome of every pool is logged and exposed in the pool stats.
+ */
+@Component
+public class ExternalPoolWarmupRunner {
+    private static final Logger log = LoggerFactory.getLogger(ExternalPoolWarmupRunner.class);
+
+    private final ExternalDbConfig externalDbConfig;
+    private final Environment env;
+
+    public ExternalPoolWarmupRunner(ExternalDbConfig externalDbConfig, Environment env) {
+        this.externalDbConfig = externalDbConfig;
+        this.env = env;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (!ConfigUtils.getBooleanFlag(env, "external-db.warmup.enabled", "EXTERNAL_DB_WARMUP_ENABLED", false)) {
+            return;
+        }
+        Thread runner = new Thread(this::warmUpAll, "external-pool-warmup");
+        runner.setDaemon(true);
+        runner.start();
+    }
+
+    /**
+     * Warm up every selected key and return the results by key. Visible for tests and admin use.
+     */
+    public Map<String, ExternalDbConfig.WarmupResult> warmUpAll() {
+        Set<String> keys = resolveKeys();
+        Map<String, ExternalDbConfig.WarmupResult> results = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return results;
+        }
+        String environment = ConfigUtils.getString(env, "external-db.warmup.environment", null, null);
+        int parallelism = Integer.parseInt(ConfigUtils.getString(env, "external-db.warmup.parallelism", null, "4"));
+        long timeoutMs = Long.parseLong(ConfigUtils.getString(env, "external-db.warmup.timeout-ms", null, "30000"));
+
+        AtomicInteger seq = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, keys.size())), r -> {
+            Thread t = new Thread(r, "external-pool-warmup-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        long started = System.nanoTime();
+        try {
+            List<Map.Entry<String, Future<ExternalDbConfig.WarmupResult>>> futures = new ArrayList<>();
+            for (String key : keys) {
+                futures.add(Map.entry(key, pool.submit(() -> externalDbConfig.warmUpPool(key, environment))));
+            }
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            for (Map.Entry<String, Future<ExternalDbConfig.WarmupResult>> entry : futures) {
+                String key = entry.getKey();
+                try {
+                    long remaining = Math.max(0, deadline - System.nanoTime());
+                    ExternalDbConfig.WarmupResult result = entry.getValue().get(remaining, TimeUnit.NANOSECONDS);
+                    results.put(key, result);
+                    for (ExternalDbConfig.PoolWarmup warmed : result.pools()) {
+                        if (warmed.ok()) {
+                            log.info("Warmed external pool {} with {} connection(s) in {}ms", warmed.poolKey(), warmed.connections(), warmed.elapsedMs());
+                        } else {
+                            log.warn("Warm-up of external pool {} failed after {}ms: {}", warmed.poolKey(), warmed.elapsedMs(), warmed.error());
+                        }
+                    }
+                } catch (java.util.concurrent.TimeoutException te) {
+                    entry.getValue().cancel(true);
+                    log.warn("Warm-up of external pool {} did not finish within {}ms", key, timeoutMs);
+                } catch (Exception ex) {
+                    log.warn("Warm-up of external pool {} failed: {}", key, ex.getMessage());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long ok = results.values().stream().filter(ExternalDbConfig.WarmupResult::ok).count();
+        long poolsReady = results.values().stream().flatMap(r -> r.pools().stream()).filter(ExternalDbConfig.PoolWarmup::ok).count();
+        log.info("External pool warm-up finished: {}/{} keys ready ({} pools) in {}ms", ok, keys.size(), poolsReady, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return results;
+    }
+
+    private Set<String> resolveKeys() {
+        Set<String> keys = new LinkedHashSet<>();
+        String configured = ConfigUtils.getString(env, "external-db.warmup.keys", "EXTERNAL_DB_WARMUP_KEYS", null);
+        if (configured != null && !configured.isBlank()) {
+            for (String key : configured.split(",")) {
+                if (!key.isBlank()) {
+                    keys.add(key.trim());
+                }
+            }
+        } else {
+            keys.addAll(externalDbConfig.getConfiguredKeys());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,28 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "app.cluster")
+public class ClusterProperties {
+    // When disabled every replica runs every scheduled job (single-node behaviour)
+    private boolean leaseEnabled = true;
+    // Optional stable node name; defaults to hostname plus a random suffix
+    private String nodeId;
+    private long leaseTtlMs = 90000L;
+    private long heartbeatMs = 30000L;
+    // Spread dispatch/monitor work across live nodes by site instead of electing a single leader
+    private boolean siteSharding = false;
+
+    public boolean isLeaseEnabled() { return leaseEnabled; }
+    public void setLeaseEnabled(boolean leaseEnabled) { this.leaseEnabled = leaseEnabled; }
+    public String getNodeId() { return nodeId; }
+    public void setNodeId(String nodeId) { this.nodeId = nodeId; }
+    public long getLeaseTtlMs() { return leaseTtlMs; }
+    public void setLeaseTtlMs(long leaseTtlMs) { this.leaseTtlMs = leaseTtlMs; }
+    public long getHeartbeatMs() { return heartbeatMs; }
+    public void setHeartbeatMs(long heartbeatMs) { this.heartbeatMs = heartbeatMs; }
+    public boolean isSiteSharding() { return siteSharding; }
+    public void setSiteSharding(boolean siteSharding) { this.siteSharding = siteSharding; }
+}
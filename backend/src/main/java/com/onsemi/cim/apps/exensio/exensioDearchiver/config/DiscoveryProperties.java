@@ -24,6 +24,15 @@ public class DiscoveryProperties {
     // Notification settings
     private String notifyRecipient;
     private boolean notifyAttachList = false;
+    // Preview counts: "exact" runs COUNT(1) once per filter set, "fast" stops at previewCountCap and reports "cap+"
+    private String previewCountMode = "exact";
+    private long previewCountCap = 10000;
+    // Lifetime of cached preview totals and keyset cursors per filter set (refreshed on every page request)
+    private long previewCacheTtlMinutes = 15;
+    private long previewCacheMaxEntries = 500;
+    // Discovery enqueues in chunks of this many payloads and keeps this many duplicate samples in memory
+    private int enqueueChunkSize = 1000;
+    private int duplicateSampleSize = 50;
 
     public String getSite() { return site; }
     public void setSite(String site) { this.site = site; }
@@ -57,4 +66,16 @@ public class DiscoveryProperties {
     public void setNotifyRecipient(String notifyRecipient) { this.notifyRecipient = notifyRecipient; }
     public boolean isNotifyAttachList() { return notifyAttachList; }
     public void setNotifyAttachList(boolean notifyAttachList) { this.notifyAttachList = notifyAttachList; }
+    public String getPreviewCountMode() { return previewCountMode; }
+    public void setPreviewCountMode(String previewCountMode) { this.previewCountMode = previewCountMode; }
+    public long getPreviewCountCap() { return previewCountCap; }
+    public void setPreviewCountCap(long previewCountCap) { this.previewCountCap = previewCountCap; }
+    public long getPreviewCacheTtlMinutes() { return previewCacheTtlMinutes; }
+    public void setPreviewCacheTtlMinutes(long previewCacheTtlMinutes) { this.previewCacheTtlMinutes = previewCacheTtlMinutes; }
+    public long getPreviewCacheMaxEntries() { return previewCacheMaxEntries; }
+    public void setPreviewCacheMaxEntries(long previewCacheMaxEntries) { this.previewCacheMaxEntries = previewCacheMaxEntries; }
+    public int getEnqueueChunkSize() { return enqueueChunkSize; }
+    public void setEnqueueChunkSize(int enqueueChunkSize) { this.enqueueChunkSize = enqueueChunkSize; }
+    public int getDuplicateSampleSize() { return duplicateSampleSize; }
+    public void setDuplicateSampleSize(int duplicateSampleSize) { this.duplicateSampleSize = duplicateSampleSize; }
 }
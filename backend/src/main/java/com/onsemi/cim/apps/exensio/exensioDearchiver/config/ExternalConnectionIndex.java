@@ -0,0 +1,340 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariConfig;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable, precompiled view of the external connection definitions (dbconnections.json/yml).
+ *
+ * Built once per load: every configured key gets a {@link ConnectionSpec} with its JDBC URL and pool settings
+ * already resolved, and lookups by key or by (site, environment) are plain map hits on lower-cased names
+ * instead of scans over the raw configuration.
+ *
+ * A definition may carry an optional {@code readReplica} block (host/jdbc, user, password, port, hikari) describing
+ * a read-only endpoint for the same site; missing credentials and pool settings are taken from the primary.
+ *
+ * Pool routes (the pool key and, when a replica exists, the replica pool key for a name, environment and workload)
+ * are computed up front for every configured key and site/environment pair, so borrowing a connection needs no
+ * string building or key resolution. Spellings not seen at load time (other casing, for instance) are routed once
+ * on first use and remembered for the life of the index.
+ */
+final class ExternalConnectionIndex {
+
+    private static final String[] ENV_SEPARATORS = {"-", "_", "."};
+    private static final char PAIR_SEPARATOR = '\u0000';
+    // Pool key suffix for pools on a site's read-only endpoint
+    static final String REPLICA_SUFFIX = "@ro";
+
+    private final Map<String, Map<String, Object>> rawByKey;
+    private final Map<String, ConnectionSpec> specsByKey;
+    private final Map<String, ConnectionSpec> replicaSpecsByKey;
+    private final Map<String, String> keyByLower;
+    private final Map<String, String> keyBySiteEnv;
+    private final ConcurrentMap<RouteKey, PoolRoute> routes = new ConcurrentHashMap<>();
+
+    private ExternalConnectionIndex(Map<String, Map<String, Object>> rawByKey,
+                                    Map<String, ConnectionSpec> specsByKey,
+                                    Map<String, ConnectionSpec> replicaSpecsByKey,
+                                    Map<String, String> keyByLower,
+                                    Map<String, String> keyBySiteEnv) {
+        this.rawByKey = rawByKey;
+        this.specsByKey = specsByKey;
+        this.replicaSpecsByKey = replicaSpecsByKey;
+        this.keyByLower = keyByLower;
+        this.keyBySiteEnv = keyBySiteEnv;
+        for (String key : rawByKey.keySet()) {
+            precomputeRoutes(key, null);
+            for (String separator : ENV_SEPARATORS) {
+                int idx = key.lastIndexOf(separator);
+                if (idx > 0 && idx < key.length() - 1) {
+                    precomputeRoutes(key.substring(0, idx), key.substring(idx + 1));
+                }
+            }
+        }
+    }
+
+    private void precomputeRoutes(String name, String environment) {
+        for (ExternalWorkload workload : ExternalWorkload.values()) {
+            RouteKey routeKey = new RouteKey(name, environment, workload);
+            routes.putIfAbsent(routeKey, computeRoute(routeKey));
+        }
+    }
+
+    static ExternalConnectionIndex build(Map<String, Map<String, Object>> definitions, PoolDefaults defaults, ObjectMapper mapper) {
+        Map<String, Map<String, Object>> raw = new LinkedHashMap<>();
+        Map<String, ConnectionSpec> specs = new HashMap<>();
+        Map<String, ConnectionSpec> replicas = new HashMap<>();
+        Map<String, String> byLower = new HashMap<>();
+        Map<String, String> bySiteEnv = new HashMap<>();
+        if (definitions != null) {
+            for (Map.Entry<String, Map<String, Object>> entry : definitions.entrySet()) {
+                String key = entry.getKey();
+                if (key == null || entry.getValue() == null) {
+                    continue;
+                }
+                raw.put(key, entry.getValue());
+                specs.put(key, ConnectionSpec.from(key, entry.getValue(), defaults, mapper, false));
+                Map<String, Object> replica = replicaDefinition(entry.getValue());
+                if (replica != null) {
+                    replicas.put(key, ConnectionSpec.from(key, replica, defaults, mapper, true));
+                }
+                byLower.putIfAbsent(lower(key), key);
+            }
+            // "SITE-qa", "SITE_qa" and "SITE.qa" all resolve (site, environment); earlier separators win on clashes
+            for (String separator : ENV_SEPARATORS) {
+                for (String key : raw.keySet()) {
+                    int idx = key.lastIndexOf(separator);
+                    if (idx <= 0 || idx == key.length() - 1) {
+                        continue;
+                    }
+                    bySiteEnv.putIfAbsent(pair(key.substring(0, idx), key.substring(idx + 1)), key);
+                }
+            }
+        }
+        return new ExternalConnectionIndex(Collections.unmodifiableMap(raw), Map.copyOf(specs), Map.copyOf(replicas), Map.copyOf(byLower), Map.copyOf(bySiteEnv));
+    }
+
+    /**
+     * Configured key for a site and optional environment: site/environment qualified keys first, then the site
+     * key itself, ignoring case. Null when nothing matches.
+     */
+    String resolveKey(String site, String environment) {
+        if (site == null || site.isBlank()) {
+            return null;
+        }
+        String trimmedSite = site.trim();
+        if (environment != null && !environment.isBlank()) {
+            String key = keyBySiteEnv.get(pair(trimmedSite, environment.trim()));
+            if (key != null) {
+                return key;
+            }
+        }
+        return resolveKey(trimmedSite);
+    }
+
+    /**
+     * Configured key matching {@code key} exactly, else ignoring case.
+     */
+    String resolveKey(String key) {
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        if (rawByKey.containsKey(key)) {
+            return key;
+        }
+        return keyByLower.get(lower(key.trim()));
+    }
+
+    /**
+     * Pool keys for a site or connection key, optional environment and workload. A blank environment counts as none.
+     */
+    PoolRoute route(String name, String environment, ExternalWorkload workload) {
+        RouteKey routeKey = new RouteKey(name, environment == null || environment.isBlank() ? null : environment, workload);
+        PoolRoute route = routes.get(routeKey);
+        return route != null ? route : routes.computeIfAbsent(routeKey, this::computeRoute);
+    }
+
+    private PoolRoute computeRoute(RouteKey routeKey) {
+        String siteKey = routeKey.environment() != null ? routeKey.name() + "-" + routeKey.environment() : routeKey.name();
+        String poolKey = routeKey.workload().poolKey(siteKey);
+        boolean replica = replicaSpec(resolveKey(routeKey.name(), routeKey.environment())) != null;
+        return new PoolRoute(poolKey, replica ? poolKey + REPLICA_SUFFIX : null);
+    }
+
+    ConnectionSpec spec(String key) {
+        return key == null ? null : specsByKey.get(key);
+    }
+
+    /**
+     * Read-only endpoint for a configured key, or null when the definition has no readReplica block.
+     */
+    ConnectionSpec replicaSpec(String key) {
+        return key == null ? null : replicaSpecsByKey.get(key);
+    }
+
+    Map<String, Object> raw(String key) {
+        return key == null ? null : rawByKey.get(key);
+    }
+
+    Set<String> keys() {
+        return rawByKey.keySet();
+    }
+
+    Map<String, Map<String, Object>> rawDefinitions() {
+        return rawByKey;
+    }
+
+    /**
+     * The readReplica block merged over the primary definition (so credentials and pool overrides are inherited),
+     * or null when there is none or it names no endpoint.
+     */
+    private static Map<String, Object> replicaDefinition(Map<String, Object> primary) {
+        Object raw = primary.get("readReplica");
+        if (!(raw instanceof Map<?, ?> replica)) {
+            return null;
+        }
+        Map<String, Object> merged = new HashMap<>(primary);
+        merged.remove("readReplica");
+        merged.remove("jdbc");
+        merged.remove("jdbcUrl");
+        merged.remove("host");
+        for (Map.Entry<?, ?> e : replica.entrySet()) {
+            if (e.getKey() != null && e.getValue() != null) {
+                merged.put(e.getKey().toString(), e.getValue());
+            }
+        }
+        if (merged.get("host") == null && merged.get("jdbc") == null && merged.get("jdbcUrl") == null) {
+            return null;
+        }
+        return merged;
+    }
+
+    private static String pair(String site, String environment) {
+        return lower(site) + PAIR_SEPARATOR + lower(environment);
+    }
+
+    private static String lower(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private record RouteKey(String name, String environment, ExternalWorkload workload) {}
+
+    /**
+     * Pool keys for one lookup; {@code replicaPoolKey} is null when the resolved definition has no readReplica block.
+     */
+    record PoolRoute(String poolKey, String replicaPoolKey) {}
+
+    /**
+     * Pool defaults from application configuration (external-db.hikari.*), applied before per-connection overrides.
+     */
+    record PoolDefaults(int maximumPoolSize, int minimumIdle, long connectionTimeoutMs, long idleTimeoutMs, long validationTimeoutMs) {}
+
+    /**
+     * Fully resolved connection definition for one configured key.
+     */
+    record ConnectionSpec(String key,
+                          String jdbcUrl,
+                          String user,
+                          String password,
+                          int maximumPoolSize,
+                          int minimumIdle,
+                          long connectionTimeoutMs,
+                          long idleTimeoutMs,
+                          long validationTimeoutMs,
+                          boolean readOnly) {
+
+        HikariConfig toHikariConfig(String poolName) {
+            HikariConfig cfg = new HikariConfig();
+            cfg.setJdbcUrl(jdbcUrl);
+            cfg.setUsername(user);
+            cfg.setPassword(password);
+            cfg.setMaximumPoolSize(maximumPoolSize);
+            cfg.setMinimumIdle(minimumIdle);
+            cfg.setConnectionTimeout(connectionTimeoutMs);
+            cfg.setIdleTimeout(idleTimeoutMs);
+            cfg.setValidationTimeout(validationTimeoutMs);
+            cfg.setPoolName(poolName);
+            cfg.setReadOnly(readOnly);
+            return cfg;
+        }
+
+        @Override
+        public String toString() {
+            // Never print the password
+            return "ConnectionSpec[key=" + key + ", jdbcUrl=" + jdbcUrl + ", user=" + user + (readOnly ? ", readOnly" : "") + "]";
+        }
+
+        static ConnectionSpec from(String key, Map<String, Object> cfg, PoolDefaults defaults, ObjectMapper mapper, boolean readOnly) {
+            String host = cfg.get("host") == null ? null : cfg.get("host").toString();
+            String user = cfg.get("user") == null ? null : cfg.get("user").toString();
+            String pw = cfg.get("password") == null ? null : cfg.get("password").toString();
+            String port = cfg.containsKey("port") ? cfg.get("port").toString() : "1521";
+
+            int maxPool = defaults.maximumPoolSize();
+            int minIdle = defaults.minimumIdle();
+            long connTimeout = defaults.connectionTimeoutMs();
+            long idleTimeout = defaults.idleTimeoutMs();
+            long validationTimeout = defaults.validationTimeoutMs();
+
+            // If the db config contains a nested 'hikari' map, merge overrides.
+            // Accept either a nested Map (Jackson-deserialized) or a JSON string.
+            if (cfg.containsKey("hikari")) {
+                try {
+                    Object raw = cfg.get("hikari");
+                    Map<String, Object> overrides = null;
+                    if (raw instanceof String) {
+                        overrides = mapper.readValue((String) raw, new TypeReference<>() {});
+                    } else if (raw instanceof Map) {
+                        //noinspection unchecked
+                        overrides = (Map<String, Object>) raw;
+                    }
+                    if (overrides != null) {
+                        if (overrides.containsKey("maximumPoolSize")) maxPool = toInt(overrides.get("maximumPoolSize"), maxPool);
+                        if (overrides.containsKey("minimumIdle")) minIdle = toInt(overrides.get("minimumIdle"), minIdle);
+                        if (overrides.containsKey("connectionTimeoutMs")) connTimeout = toLong(overrides.get("connectionTimeoutMs"), connTimeout);
+                        if (overrides.containsKey("idleTimeoutMs")) idleTimeout = toLong(overrides.get("idleTimeoutMs"), idleTimeout);
+                        if (overrides.containsKey("validationTimeoutMs")) validationTimeout = toLong(overrides.get("validationTimeoutMs"), validationTimeout);
+                    }
+                } catch (Exception e) {
+                    // ignore and use defaults
+                }
+            }
+            return new ConnectionSpec(key, buildJdbcUrl(cfg, host, port), user, pw, maxPool, minIdle, connTimeout, idleTimeout, validationTimeout, readOnly);
+        }
+
+        private static String buildJdbcUrl(Map<String, Object> cfg, String host, String port) {
+            // Prefer explicit JDBC URL fields if present
+            Object jdbcField = cfg.get("jdbc");
+            if (jdbcField == null) jdbcField = cfg.get("jdbcUrl");
+            if (jdbcField != null && jdbcField.toString().startsWith("jdbc:")) {
+                return jdbcField.toString();
+            }
+            // If host contains a slash (host/SERVICE) assume Oracle thin format
+            if (host != null && host.contains("/") && !host.startsWith("jdbc:")) {
+                String[] parts = host.split("/", 2);
+                String hostPart = parts[0];
+                String servicePart = parts.length > 1 ? parts[1] : "";
+                String hostname = hostPart;
+                String portValue = port;
+                if (hostPart.contains(":")) {
+                    String[] hostPieces = hostPart.split(":", 2);
+                    hostname = hostPieces[0];
+                    if (hostPieces.length > 1 && !hostPieces[1].isBlank()) {
+                        portValue = hostPieces[1];
+                    }
+                }
+                String serviceName = servicePart.trim();
+                if (serviceName.isEmpty()) {
+                    return String.format("jdbc:oracle:thin:@%s:%s", hostname, portValue);
+                }
+                return String.format("jdbc:oracle:thin:@//%s:%s/%s", hostname, portValue, serviceName);
+            }
+            if (host != null && host.startsWith("jdbc:")) return host;
+            // Support host:port:SID format directly
+            if (host != null && host.contains(":")) return "jdbc:oracle:thin:@" + host;
+            return String.format("jdbc:oracle:thin:@%s:%s", host, port);
+        }
+
+        private static int toInt(Object o, int fallback) {
+            if (o == null) return fallback;
+            if (o instanceof Number) return ((Number) o).intValue();
+            try { return Integer.parseInt(o.toString()); } catch (Exception e) { return fallback; }
+        }
+
+        private static long toLong(Object o, long fallback) {
+            if (o == null) return fallback;
+            if (o instanceof Number) return ((Number) o).longValue();
+            try { return Long.parseLong(o.toString()); } catch (Exception e) { return fallback; }
+        }
+    }
+}
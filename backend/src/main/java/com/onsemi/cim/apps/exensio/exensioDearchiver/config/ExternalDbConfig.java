@@ -15,7 +15,6 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Map;
@@ -43,7 +42,8 @@ import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
 public class ExternalDbConfig {
     private static final Logger log = LoggerFactory.getLogger(ExternalDbConfig.class);
 
-    private final Map<String, Map<String, Object>> dbConnections;
+    // Precompiled connection definitions; replaced as a whole when the configuration is (re)loaded
+    private volatile ExternalConnectionIndex index;
     // cache of pooled DataSources keyed by resolved connection key (e.g. "EXTERNAL-qa")
     private final ConcurrentMap<String, HikariDataSource> dsCache = new ConcurrentHashMap<>();
     private final Cache<String, HikariDataSource> dsCaffeine;
@@ -54,10 +54,18 @@ public class ExternalDbConfig {
     private final ObjectMapper mapper = new ObjectMapper();
     private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
     private final MeterRegistry meterRegistry;
+    // Outcome of the last startup warm-up per resolved pool key (reported through listPoolStats)
+    private final ConcurrentMap<String, PoolWarmup> warmupResults = new ConcurrentHashMap<>();
     // Keep track of Meter.Id objects we register per-resolved-pool so we can remove them reliably
     private final java.util.concurrent.ConcurrentMap<String, java.util.List<Meter.Id>> registeredMeterIds = new java.util.concurrent.ConcurrentHashMap<>();
 
-    // no extra fields for loading temp state
+    // Which configured key (and site/environment) each pool was built from, so a reload can tell whether it is affected
+    // reloader.use-h2-external, read once: every site is then served by the embedded H2 database and has no replica
+    private final boolean h2External;
+
+    private final ConcurrentMap<String, PoolOrigin> poolOrigins = new ConcurrentHashMap<>();
+    // Pools retired by a reload that are still waiting for borrowed connections to come back
+    private final java.util.Set<HikariDataSource> draining = ConcurrentHashMap.newKeySet();
 
     @Autowired
     public ExternalDbConfig(Environment env, ObjectProvider<MeterRegistry> meterRegistryProvider) throws IOException {
@@ -67,25 +75,36 @@ public class ExternalDbConfig {
         // metrics registry not initialized here; admin endpoints expose pool stats instead
 
     // Initialize caffeine cache for DataSources with settings from application.yml
-    int maxPools = Integer.parseInt(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.cache.max-pools", null, "50"));
+    int maxPools = Integer.parseInt(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.cache.max-pools", null, "200"));
     long expireMinutes = Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.cache.expire-after-access-minutes", null, "60"));
         this.dsCaffeine = Caffeine.newBuilder()
                 .maximumSize(maxPools)
                 .expireAfterAccess(expireMinutes, TimeUnit.MINUTES)
                 .removalListener((String key, HikariDataSource ds, RemovalCause cause) -> {
-                    if (ds != null) {
-                        try {
-                            ds.close();
-                        } catch (Exception ignored) {}
+                    if (ds == null || draining.contains(ds)) {
+                        // retired by a reload; the drain closes it
+                        return;
                     }
+                    try {
+                        ds.close();
+                    } catch (Exception ignored) {}
                     // ensure the concurrent map doesn't hold a stale reference
                     // remove metrics for this pool if any
                     try { removeMetersForPool(key); } catch (Exception ignored) {}
-                    dsCache.remove(key);
+                    dsCache.remove(key, ds);
+                    poolOrigins.remove(key);
                 })
                 .build();
 
-        // Load connection definitions (JSON or YAML): external path, then YAML hint, then classpath default
+        this.h2External = com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getBooleanFlag(env, "reloader.use-h2-external", "RELOADER_USE_H2_EXTERNAL", false);
+        this.index = ExternalConnectionIndex.build(loadDefinitions(), readPoolDefaults(), mapper);
+    }
+
+    /**
+     * Read the connection definitions from their configured source (JSON or YAML): external path, then YAML hint,
+     * then the classpath default.
+     */
+    private Map<String, Map<String, Object>> loadDefinitions() throws IOException {
         Map<String, Map<String, Object>> loadedLocal = null;
         // Prefer an external file path via env var RELOADER_DBCONN_PATH for secrets in deployments.
         String externalPath = com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "RELOADER_DBCONN_PATH", "reloader.dbconn.path", null);
@@ -130,7 +149,34 @@ public class ExternalDbConfig {
             ClassPathResource r = new ClassPathResource("dbconnections.json");
             loadedLocal = mapper.readValue(r.getInputStream(), new TypeReference<>() {});
         }
-        this.dbConnections = loadedLocal;
+        return loadedLocal;
+    }
+
+    /**
+     * Filesystem path of the connection definitions, or null when they come from the classpath. Used by the file
+     * watcher to decide what to watch.
+     */
+    public java.nio.file.Path getDefinitionsPath() {
+        String externalPath = com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "RELOADER_DBCONN_PATH", "reloader.dbconn.path", null);
+        if (externalPath != null && !externalPath.isBlank()) {
+            return Paths.get(externalPath);
+        }
+        String yamlPathProp = com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "reloader.dbconn.yaml.path", "RELOADER_DBCONN_YAML_PATH", null);
+        if (yamlPathProp != null && !yamlPathProp.isBlank() && !yamlPathProp.startsWith("classpath:")) {
+            return Paths.get(yamlPathProp);
+        }
+        return null;
+    }
+
+
+    private ExternalConnectionIndex.PoolDefaults readPoolDefaults() {
+        // Read defaults from application.yml (external-db.hikari)
+        return new ExternalConnectionIndex.PoolDefaults(
+                Integer.parseInt(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.maximum-pool-size", null, "10")),
+                Integer.parseInt(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.minimum-idle", null, "1")),
+                Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.connection-timeout-ms", null, "15000")),
+                Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.idle-timeout-ms", null, "600000")),
+                Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.validation-timeout-ms", null, "5000")));
     }
 
     // Backwards-compatible constructor for callers/tests that don't provide a MeterRegistry
@@ -161,7 +207,8 @@ public class ExternalDbConfig {
     // Optional meter registry setter removed; metrics can be registered by callers if desired.
 
     /**
-     * Return a snapshot of active pools and their Hikari stats.
+     * Return a snapshot of active pools and their Hikari stats, including the workload class each pool serves and
+     * its utilisation (active / maximum pool size).
      */
     public Map<String, Object> listPoolStats() {
         Map<String, Object> out = new java.util.HashMap<>();
@@ -169,18 +216,102 @@ public class ExternalDbConfig {
             HikariDataSource ds = e.getValue();
             if (ds == null) continue;
             Map<String, Object> s = new java.util.HashMap<>();
+            PoolOrigin origin = poolOrigins.get(e.getKey());
+            if (origin != null) {
+                s.put("workload", origin.workload().key());
+                s.put("readReplica", origin.replica());
+            }
+            s.put("maximumPoolSize", ds.getMaximumPoolSize());
             try {
-                s.put("active", ds.getHikariPoolMXBean().getActiveConnections());
+                int active = ds.getHikariPoolMXBean().getActiveConnections();
+                s.put("active", active);
                 s.put("idle", ds.getHikariPoolMXBean().getIdleConnections());
                 s.put("threadsAwaiting", ds.getHikariPoolMXBean().getThreadsAwaitingConnection());
+                s.put("utilisation", ds.getMaximumPoolSize() == 0 ? 0.0 : (double) active / ds.getMaximumPoolSize());
             } catch (Exception ex) {
                 s.put("error", "unavailable");
             }
+            PoolWarmup warmup = warmupResults.get(e.getKey());
+            if (warmup != null) {
+                s.put("warmupMs", warmup.elapsedMs());
+                s.put("warmupConnections", warmup.connections());
+            }
             out.put(e.getKey(), s);
         }
         return out;
     }
 
+    /**
+     * Build every pool a configured key is served by ahead of first use: the site pool, one pool per workload and,
+     * when dbconnections defines a readReplica, the read-only pools. Each pool opens {@code minimumIdle} connections
+     * (at least one), validates them and hands them back. Once a primary pool fails the remaining primary pools
+     * (same endpoint) are not attempted. Never throws; failures are reported per pool in the result.
+     */
+    public WarmupResult warmUpPool(String key, String environment) {
+        String siteKey = environment != null && !environment.isBlank() ? key + "-" + environment : key;
+        long started = System.nanoTime();
+        java.util.List<PoolWarmup> pools = new java.util.ArrayList<>();
+        for (ExternalWorkload workload : ExternalWorkload.values()) {
+            PoolWarmup pool = warmUpSinglePool(key, environment, workload, false);
+            pools.add(pool);
+            if (!pool.ok()) break;
+        }
+        if (hasReplica(key, environment)) {
+            // Only these workloads read through getReadConnection
+            for (ExternalWorkload workload : java.util.List.of(ExternalWorkload.INTERACTIVE, ExternalWorkload.DISCOVERY)) {
+                pools.add(warmUpSinglePool(key, environment, workload, true));
+            }
+        }
+        boolean ok = pools.stream().allMatch(PoolWarmup::ok);
+        int connections = pools.stream().mapToInt(PoolWarmup::connections).sum();
+        String error = pools.stream().filter(pool -> !pool.ok()).map(pool -> pool.poolKey() + ": " + pool.error()).findFirst().orElse(null);
+        return new WarmupResult(siteKey, ok, connections, elapsedMs(started), error, java.util.List.copyOf(pools));
+    }
+
+    private PoolWarmup warmUpSinglePool(String key, String environment, ExternalWorkload workload, boolean replica) {
+        ExternalConnectionIndex.PoolRoute route = index.route(key, environment, workload);
+        String poolKey = replica ? route.replicaPoolKey() : route.poolKey();
+        long started = System.nanoTime();
+        java.util.List<Connection> opened = new java.util.ArrayList<>();
+        PoolWarmup result;
+        try {
+            opened.add(acquire(key, environment, workload, "site", replica));
+            HikariDataSource ds = dsCache.get(poolKey);
+            int target = ds == null ? 1 : Math.max(1, ds.getMinimumIdle());
+            while (opened.size() < target) {
+                opened.add(ds.getConnection());
+            }
+            int validationSeconds = (int) Math.max(1, (ds == null ? 5000 : ds.getValidationTimeout()) / 1000);
+            for (Connection c : opened) {
+                if (!c.isValid(validationSeconds)) {
+                    throw new SQLException("connection failed validation");
+                }
+            }
+            result = new PoolWarmup(poolKey, workload.key(), replica, true, opened.size(), elapsedMs(started), null);
+        } catch (Exception ex) {
+            result = new PoolWarmup(poolKey, workload.key(), replica, false, opened.size(), elapsedMs(started), ex.getMessage());
+        } finally {
+            for (Connection c : opened) {
+                try { c.close(); } catch (Exception ignored) {}
+            }
+        }
+        warmupResults.put(poolKey, result);
+        return result;
+    }
+
+    private static long elapsedMs(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+
+    /**
+     * Warm-up outcome for one configured key: {@code ok} only when every pool warmed, {@code connections} summed
+     * over the pools and {@code error} the first pool failure. Per-pool detail is in {@code pools}.
+     */
+    public record WarmupResult(String key, boolean ok, int connections, long elapsedMs, String error, java.util.List<PoolWarmup> pools) {}
+
+    /** Warm-up outcome for a single pool (site, workload or read-replica pool). */
+    public record PoolWarmup(String poolKey, String workload, boolean replica, boolean ok, int connections, long elapsedMs, String error) {}
+
     /**
      * Return the set of active pool keys currently held in the cache.
      */
@@ -193,7 +324,7 @@ public class ExternalDbConfig {
      * This method exposes only the keys, not values with secrets.
      */
     public java.util.Set<String> getConfiguredKeys() {
-        return java.util.Collections.unmodifiableSet(dbConnections.keySet());
+        return index.keys();
     }
 
     // Helper used by tests to inspect the configured maximum pool size for a resolved key.
@@ -209,6 +340,7 @@ public class ExternalDbConfig {
      */
     public void recreatePool(String resolvedKey) {
         HikariDataSource ds = dsCache.remove(resolvedKey);
+        poolOrigins.remove(resolvedKey);
         if (ds != null) {
             try { ds.close(); } catch (Exception ignored) {}
         }
@@ -228,45 +360,8 @@ public class ExternalDbConfig {
      * Try resolving db config with environment qualifiers. Order: site-environment, site_environment, site.environment, site
      */
     public Map<String, Object> getConfigForSite(String site, String environment) {
-        if (site == null || site.isBlank()) {
-            return null;
-        }
-        String trimmedSite = site.trim();
-        java.util.LinkedHashSet<String> siteVariants = new java.util.LinkedHashSet<>();
-        siteVariants.add(trimmedSite);
-        siteVariants.add(trimmedSite.toLowerCase(java.util.Locale.ROOT));
-        siteVariants.add(trimmedSite.toUpperCase(java.util.Locale.ROOT));
-
-        if (environment != null && !environment.isBlank()) {
-            String trimmedEnv = environment.trim();
-            java.util.LinkedHashSet<String> envVariants = new java.util.LinkedHashSet<>();
-            envVariants.add(trimmedEnv);
-            envVariants.add(trimmedEnv.toLowerCase(java.util.Locale.ROOT));
-            envVariants.add(trimmedEnv.toUpperCase(java.util.Locale.ROOT));
-
-            for (String siteVariant : siteVariants) {
-                for (String envVariant : envVariants) {
-                    java.util.List<String> candidates = java.util.List.of(
-                            String.format("%s-%s", siteVariant, envVariant),
-                            String.format("%s_%s", siteVariant, envVariant),
-                            String.format("%s.%s", siteVariant, envVariant)
-                    );
-                    for (String candidate : candidates) {
-                        Map<String, Object> cfg = lookupConfig(candidate);
-                        if (cfg != null) {
-                            return cfg;
-                        }
-                    }
-                }
-            }
-        }
-        for (String siteVariant : siteVariants) {
-            Map<String, Object> cfg = lookupConfig(siteVariant);
-            if (cfg != null) {
-                return cfg;
-            }
-        }
-        return null;
+        ExternalConnectionIndex current = index;
+        return current.raw(current.resolveKey(site, environment));
     }
 
     /**
@@ -281,283 +376,254 @@ public class ExternalDbConfig {
      * This is useful when locations store a lookup key instead of full connection details.
      */
     public Connection getConnectionByKey(String key, String environment) throws SQLException {
+        return getConnectionByKey(key, environment, ExternalWorkload.INTERACTIVE);
+    }
+
+    public Connection getConnectionByKey(String key, String environment, ExternalWorkload workload) throws SQLException {
         if (key == null) throw new SQLException("null connection key");
-        // Global H2 override for tests
-        boolean useH2 = com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getBooleanFlag(env, "reloader.use-h2-external", "RELOADER_USE_H2_EXTERNAL", false);
-        if (useH2) {
-            String resolvedKey = environment != null && !environment.isBlank() ? key + "-" + environment : key;
-            HikariDataSource ds = dsCache.get(resolvedKey);
-            if (ds == null) {
-                String jdbcUrl = "jdbc:h2:mem:external_repo;DB_CLOSE_DELAY=-1";
-                HikariConfig cfgH = new HikariConfig();
-                cfgH.setJdbcUrl(jdbcUrl);
-                cfgH.setUsername("sa");
-                cfgH.setPassword("");
-                cfgH.setMaximumPoolSize(5);
-                cfgH.setMinimumIdle(1);
-                cfgH.setPoolName("external-" + resolvedKey);
-                HikariDataSource created = new HikariDataSource(cfgH);
-                HikariDataSource existing = dsCache.putIfAbsent(resolvedKey, created);
-                HikariDataSource toUse = existing != null ? existing : created;
-                dsCaffeine.put(resolvedKey, toUse);
-                try (Connection c = toUse.getConnection(); Statement s = c.createStatement()) {
-                    s.execute("CREATE TABLE IF NOT EXISTS DTP_SENDER_QUEUE_ITEM (id BIGINT AUTO_INCREMENT PRIMARY KEY, id_metadata VARCHAR(255), id_data VARCHAR(255), id_sender INT, record_created TIMESTAMP)");
-                } catch (Exception ignored) {}
-                return toUse.getConnection();
-            }
-            return ds.getConnection();
-        }
+        return acquire(key, environment, workload, "key", false);
+    }
 
-        // Try key with environment qualifiers first
-        Map<String, Object> cfg = getConfigForSite(key, environment);
-        if (cfg == null) cfg = dbConnections.get(key);
-        if (cfg == null) throw new SQLException("No DB configuration for key " + key);
-
-    String host = cfg.get("host") == null ? null : cfg.get("host").toString();
-    String user = cfg.get("user") == null ? null : cfg.get("user").toString();
-    String pw = cfg.get("password") == null ? null : cfg.get("password").toString();
-    String port = cfg.containsKey("port") ? cfg.get("port").toString() : "1521";
-
-        String jdbcUrl;
-        // Prefer explicit JDBC URL fields if present
-        Object jdbcField = cfg.get("jdbc");
-        if (jdbcField == null) jdbcField = cfg.get("jdbcUrl");
-        if (jdbcField != null && jdbcField.toString().startsWith("jdbc:")) {
-            jdbcUrl = jdbcField.toString();
-        } else if (host != null && host.contains("/")) {
-            String[] parts = host.split("/", 2);
-            String hostPart = parts[0];
-            String servicePart = parts.length > 1 ? parts[1] : "";
-            String hostname = hostPart;
-            String portValue = port;
-            if (hostPart.contains(":")) {
-                String[] hostPieces = hostPart.split(":", 2);
-                hostname = hostPieces[0];
-                if (hostPieces.length > 1 && !hostPieces[1].isBlank()) {
-                    portValue = hostPieces[1];
-                }
-            }
-            String serviceName = servicePart != null ? servicePart.trim() : "";
-            if (serviceName.isEmpty()) {
-                jdbcUrl = String.format("jdbc:oracle:thin:@%s:%s", hostname, portValue);
-            } else {
-                jdbcUrl = String.format("jdbc:oracle:thin:@//%s:%s/%s", hostname, portValue, serviceName);
+    /**
+     * Read-only connection by connection key: served by the key's readReplica endpoint when one is configured,
+     * otherwise by the primary pool with the connection flagged read-only.
+     */
+    public Connection getReadConnectionByKey(String key, String environment, ExternalWorkload workload) throws SQLException {
+        if (key == null) throw new SQLException("null connection key");
+        return acquire(key, environment, workload, "key", true);
+    }
+
+    /**
+     * Returns a JDBC Connection for the configured site. This method attempts to be
+     * DB-agnostic. For the common Oracle "host/sid" style host we build a thin URL.
+     */
+    public Connection getConnection(String site) throws SQLException {
+        return getConnection(site, null);
+    }
+
+    public Connection getConnection(String site, String environment) throws SQLException {
+        return getConnection(site, environment, ExternalWorkload.INTERACTIVE);
+    }
+
+    /**
+     * Connection from the site's pool for the given workload class (see {@link ExternalWorkload}).
+     */
+    public Connection getConnection(String site, String environment, ExternalWorkload workload) throws SQLException {
+        return acquire(site, environment, workload, "site", false);
+    }
+
+    /**
+     * Read-only connection for metadata discovery, preview and facet queries. Goes to the site's readReplica
+     * endpoint when dbconnections defines one, keeping heavy scans off the primary that receives queue inserts;
+     * otherwise falls back to the primary pool with the connection flagged read-only. Never use it for writes.
+     */
+    public Connection getReadConnection(String site, String environment, ExternalWorkload workload) throws SQLException {
+        return acquire(site, environment, workload, "site", true);
+    }
+
+    /**
+     * Hot path: one pool lookup by resolved key and a borrow. Configuration is only consulted (through the
+     * precompiled index) the first time a pool is needed.
+     */
+    private Connection acquire(String name, String environment, ExternalWorkload workload, String kind, boolean readOnly) throws SQLException {
+        ExternalWorkload resolvedWorkload = workload == null ? ExternalWorkload.INTERACTIVE : workload;
+        ExternalConnectionIndex.PoolRoute route = index.route(name, environment, resolvedWorkload);
+        if (readOnly && route.replicaPoolKey() != null && !h2External) {
+            HikariDataSource replica = dsCache.get(route.replicaPoolKey());
+            if (replica == null) {
+                replica = createPool(route.replicaPoolKey(), name, environment, resolvedWorkload, kind, true);
             }
-        } else {
-            if (host != null && host.startsWith("jdbc:")) jdbcUrl = host;
-            else if (host != null && host.contains(":")) {
-                // Support host:port:SID format directly
-                jdbcUrl = "jdbc:oracle:thin:@" + host;
-            } else jdbcUrl = String.format("jdbc:oracle:thin:@%s:%s", host, port);
+            return replica.getConnection();
         }
-
-        // Use a pooled DataSource per resolved key+env to avoid creating raw DriverManager connections each time.
-        String resolvedKey = environment != null && !environment.isBlank() ? key + "-" + environment : key;
-        HikariDataSource ds = dsCache.get(resolvedKey);
+        HikariDataSource ds = dsCache.get(route.poolKey());
         if (ds == null) {
-            log.debug("Creating Hikari pool for resolvedKey={} jdbcUrl={}", resolvedKey, jdbcUrl != null ? (jdbcUrl.length() > 100 ? jdbcUrl.substring(0, 100) + "..." : jdbcUrl) : "null");
-            // Try to load per-connection hikari overrides if present
-                Map<String, Object> perConn = cfg; // alias
-            HikariConfig cfgH = new HikariConfig();
-            cfgH.setJdbcUrl(jdbcUrl);
-            cfgH.setUsername(user);
-            cfgH.setPassword(pw);
-            // Read defaults from application.yml (external-db.hikari)
-            int maxPool = Integer.parseInt(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.maximum-pool-size", null, "10"));
-            int minIdle = Integer.parseInt(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.minimum-idle", null, "1"));
-            long connTimeout = Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.connection-timeout-ms", null, "15000"));
-            long idleTimeout = Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.idle-timeout-ms", null, "600000"));
-            long validationTimeout = Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.validation-timeout-ms", null, "5000"));
-
-            // If the db config contains a nested 'hikari' map, merge overrides.
-            // Accept either a nested Map (Jackson-deserialized) or a JSON string.
-            if (perConn != null && perConn.containsKey("hikari")) {
-                try {
-                    Object raw = perConn.get("hikari");
-                    Map<String, Object> overrides = null;
-                    if (raw instanceof String) {
-                        overrides = mapper.readValue((String) raw, new TypeReference<>() {});
-                    } else if (raw instanceof Map) {
-                        //noinspection unchecked
-                        overrides = (Map<String, Object>) raw;
-                    }
-                    if (overrides != null) {
-                        if (overrides.containsKey("maximumPoolSize")) maxPool = toInt(overrides.get("maximumPoolSize"), maxPool);
-                        if (overrides.containsKey("minimumIdle")) minIdle = toInt(overrides.get("minimumIdle"), minIdle);
-                        if (overrides.containsKey("connectionTimeoutMs")) connTimeout = toLong(overrides.get("connectionTimeoutMs"), connTimeout);
-                        if (overrides.containsKey("idleTimeoutMs")) idleTimeout = toLong(overrides.get("idleTimeoutMs"), idleTimeout);
-                        if (overrides.containsKey("validationTimeoutMs")) validationTimeout = toLong(overrides.get("validationTimeoutMs"), validationTimeout);
-                    }
-                } catch (Exception e) {
-                    // ignore and use defaults
-                }
-            }
+            ds = createPool(route.poolKey(), name, environment, resolvedWorkload, kind, false);
+        }
+        Connection c = ds.getConnection();
+        if (readOnly) {
+            // Hikari restores the flag when the connection is returned to the shared pool
+            try { c.setReadOnly(true); } catch (SQLException ignored) {}
+        }
+        return c;
+    }
 
-            cfgH.setMaximumPoolSize(maxPool);
-            cfgH.setMinimumIdle(minIdle);
-            cfgH.setConnectionTimeout(connTimeout);
-            cfgH.setIdleTimeout(idleTimeout);
-            cfgH.setValidationTimeout(validationTimeout);
-            cfgH.setPoolName("external-" + resolvedKey);
+    private boolean hasReplica(String name, String environment) {
+        return !h2External && index.route(name, environment, ExternalWorkload.INTERACTIVE).replicaPoolKey() != null;
+    }
 
-            // If a MeterRegistry is available, set Hikari's Micrometer tracker factory so the pool exports metrics
-            if (meterRegistry != null) {
-                try {
-                    cfgH.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
-                } catch (NoClassDefFoundError | Exception ignored) {}
-            }
+    private static ExternalConnectionIndex.ConnectionSpec specFor(ExternalConnectionIndex idx, String configKey, boolean replica) {
+        return replica ? idx.replicaSpec(configKey) : idx.spec(configKey);
+    }
 
+    private HikariDataSource createPool(String resolvedKey, String name, String environment, ExternalWorkload workload, String kind, boolean replica) throws SQLException {
+        HikariConfig cfgH;
+        ExternalConnectionIndex current = index;
+        String configKey = null;
+        boolean h2 = useH2External();
+        if (h2) {
+            // Global H2 override for tests
+            cfgH = new HikariConfig();
+            cfgH.setJdbcUrl("jdbc:h2:mem:external_repo;DB_CLOSE_DELAY=-1");
+            cfgH.setUsername("sa");
+            cfgH.setPassword("");
+            cfgH.setMaximumPoolSize(5);
+            cfgH.setMinimumIdle(1);
+            cfgH.setPoolName("external-" + resolvedKey);
+        } else {
+            configKey = current.resolveKey(name, environment);
+            ExternalConnectionIndex.ConnectionSpec spec = specFor(current, configKey, replica);
+            if (spec == null) throw new SQLException("No DB configuration for " + kind + " " + name);
+            log.debug("Creating Hikari pool for resolvedKey={} from {}", resolvedKey, spec);
+            cfgH = spec.toHikariConfig("external-" + resolvedKey);
             // If a MeterRegistry is available, set Hikari's Micrometer tracker factory so the pool exports metrics
             if (meterRegistry != null) {
                 try {
                     cfgH.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
                 } catch (NoClassDefFoundError | Exception ignored) {}
             }
-
-            HikariDataSource created = new HikariDataSource(cfgH);
-            // Register metrics only if a MeterRegistry is available (fallback manual gauges remain)
+        }
+        applyWorkload(cfgH, workload);
+        HikariDataSource created = new HikariDataSource(cfgH);
+        // store in both the plain ConcurrentMap and the Caffeine cache for eviction support
+        HikariDataSource existing = dsCache.putIfAbsent(resolvedKey, created);
+        if (existing != null) {
+            // Lost a creation race; keep the winner and drop ours
+            try { created.close(); } catch (Exception ignored) {}
+            return existing;
+        }
+        poolOrigins.put(resolvedKey, new PoolOrigin(name, environment, workload, configKey, replica));
+        dsCaffeine.put(resolvedKey, created);
+        if (h2) {
+            try (Connection c = created.getConnection(); Statement s = c.createStatement()) {
+                s.execute("CREATE TABLE IF NOT EXISTS DTP_SENDER_QUEUE_ITEM (id BIGINT AUTO_INCREMENT PRIMARY KEY, id_metadata VARCHAR(255), id_data VARCHAR(255), id_sender INT, record_created TIMESTAMP)");
+            } catch (Exception ignored) {}
+        } else {
+            // Register manual metrics (gauge-based) only if a MeterRegistry is available
             registerHikariMetrics(created, resolvedKey);
-            // store in both the plain ConcurrentMap and the Caffeine cache for eviction support
-            HikariDataSource existing = dsCache.putIfAbsent(resolvedKey, created);
-            HikariDataSource toUse = existing != null ? existing : created;
-            dsCaffeine.put(resolvedKey, toUse);
-            ds = toUse;
+            ExternalConnectionIndex now = index;
+            if (now != current && !java.util.Objects.equals(specFor(now, now.resolveKey(name, environment), replica), specFor(current, configKey, replica))) {
+                // A reload swapped the definitions while this pool was being built from the old ones
+                retirePool(resolvedKey);
+                return createPool(resolvedKey, name, environment, workload, kind, replica);
+            }
         }
-        return ds.getConnection();
+        return created;
     }
 
     /**
-     * Returns a JDBC Connection for the configured site. This method attempts to be
-     * DB-agnostic. For the common Oracle "host/sid" style host we build a thin URL.
+     * Re-read the connection definitions and apply the difference to the live pools.
+     *
+     * New keys get no pool until first use, as at startup. Pools built from a key that was removed, whose settings
+     * changed (URL, credentials, pool sizing) or that now resolves to a different key are taken out of service:
+     * new borrowers get a fresh pool from the new definition, while the old pool evicts its idle connections and is
+     * closed once borrowed ones are returned (or after external-db.reload.drain-timeout-ms). Every other pool keeps
+     * running with its warm connections. A definition file that fails to parse leaves everything as it was.
      */
-    public Connection getConnection(String site) throws SQLException {
-        return getConnection(site, null);
-    }
-
-    public Connection getConnection(String site, String environment) throws SQLException {
-        // Global H2 override for tests
-        boolean useH2 = com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getBooleanFlag(env, "reloader.use-h2-external", "RELOADER_USE_H2_EXTERNAL", false);
-        if (useH2) {
-            String resolvedKey = environment != null && !environment.isBlank() ? site + "-" + environment : site;
-            HikariDataSource ds = dsCache.get(resolvedKey);
-            if (ds == null) {
-                String jdbcUrl = "jdbc:h2:mem:external_repo;DB_CLOSE_DELAY=-1";
-                HikariConfig cfgH = new HikariConfig();
-                cfgH.setJdbcUrl(jdbcUrl);
-                cfgH.setUsername("sa");
-                cfgH.setPassword("");
-                cfgH.setMaximumPoolSize(5);
-                cfgH.setMinimumIdle(1);
-                cfgH.setPoolName("external-" + resolvedKey);
-                HikariDataSource created = new HikariDataSource(cfgH);
-                HikariDataSource existing = dsCache.putIfAbsent(resolvedKey, created);
-                HikariDataSource toUse = existing != null ? existing : created;
-                dsCaffeine.put(resolvedKey, toUse);
-                try (Connection c = toUse.getConnection(); Statement s = c.createStatement()) {
-                    s.execute("CREATE TABLE IF NOT EXISTS DTP_SENDER_QUEUE_ITEM (id BIGINT AUTO_INCREMENT PRIMARY KEY, id_metadata VARCHAR(255), id_data VARCHAR(255), id_sender INT, record_created TIMESTAMP)");
-                } catch (Exception ignored) {}
-                return toUse.getConnection();
+    public synchronized ReloadResult reload() throws IOException {
+        ExternalConnectionIndex previous = index;
+        ExternalConnectionIndex next = ExternalConnectionIndex.build(loadDefinitions(), readPoolDefaults(), mapper);
+
+        java.util.List<String> added = new java.util.ArrayList<>();
+        java.util.List<String> changed = new java.util.ArrayList<>();
+        java.util.List<String> removed = new java.util.ArrayList<>();
+        for (String key : next.keys()) {
+            ExternalConnectionIndex.ConnectionSpec before = previous.spec(key);
+            if (before == null) {
+                added.add(key);
+            } else if (!before.equals(next.spec(key)) || !java.util.Objects.equals(previous.replicaSpec(key), next.replicaSpec(key))) {
+                changed.add(key);
             }
-            return ds.getConnection();
         }
+        for (String key : previous.keys()) {
+            if (next.spec(key) == null) {
+                removed.add(key);
+            }
+        }
+        this.index = next;
 
-        Map<String, Object> cfg = getConfigForSite(site, environment);
-        if (cfg == null) throw new SQLException("No DB configuration for site " + site);
-        log.debug("Resolved DB config for site={} environment={} to config keys present (host={})", site, environment, cfg.get("host"));
-
-    String host = cfg.get("host") == null ? null : cfg.get("host").toString();
-    String user = cfg.get("user") == null ? null : cfg.get("user").toString();
-    String pw = cfg.get("password") == null ? null : cfg.get("password").toString();
-    String port = cfg.containsKey("port") ? cfg.get("port").toString() : "1521";
-
-        // If host contains a slash (host/SERVICE) assume Oracle thin format
-        String jdbcUrl;
-        Object jdbcField = cfg.get("jdbc"); if (jdbcField == null) jdbcField = cfg.get("jdbcUrl");
-        if (jdbcField != null && jdbcField.toString().startsWith("jdbc:")) {
-            jdbcUrl = jdbcField.toString();
-        } else if (host != null && host.contains("/")) {
-            String[] parts = host.split("/", 2);
-            String hostPart = parts[0];
-            String servicePart = parts.length > 1 ? parts[1] : "";
-            String hostname = hostPart;
-            String portValue = port;
-            if (hostPart.contains(":")) {
-                String[] hostPieces = hostPart.split(":", 2);
-                hostname = hostPieces[0];
-                if (hostPieces.length > 1 && !hostPieces[1].isBlank()) {
-                    portValue = hostPieces[1];
-                }
+        java.util.List<String> retired = new java.util.ArrayList<>();
+        for (Map.Entry<String, PoolOrigin> e : poolOrigins.entrySet()) {
+            PoolOrigin origin = e.getValue();
+            if (origin.configKey() == null) {
+                continue; // H2 override pool, not driven by the definitions
             }
-            String serviceName = servicePart != null ? servicePart.trim() : "";
-            if (serviceName.isEmpty()) {
-                jdbcUrl = String.format("jdbc:oracle:thin:@%s:%s", hostname, portValue);
-            } else {
-                jdbcUrl = String.format("jdbc:oracle:thin:@//%s:%s/%s", hostname, portValue, serviceName);
+            String nowKey = next.resolveKey(origin.name(), origin.environment());
+            boolean affected = nowKey == null
+                    || !nowKey.equals(origin.configKey())
+                    || !java.util.Objects.equals(specFor(next, nowKey, origin.replica()), specFor(previous, origin.configKey(), origin.replica()));
+            if (affected && retirePool(e.getKey())) {
+                retired.add(e.getKey());
             }
-        } else {
-            // Fallback - try as JDBC URL or generic mysql-style host
-            if (host != null && host.startsWith("jdbc:")) jdbcUrl = host;
-            else if (host != null && host.contains(":")) jdbcUrl = "jdbc:oracle:thin:@" + host;
-            else jdbcUrl = String.format("jdbc:oracle:thin:@%s:%s", host, port);
         }
+        ReloadResult result = new ReloadResult(added, changed, removed, retired);
+        log.info("Reloaded external DB definitions: added={} changed={} removed={} retiredPools={}", added, changed, removed, retired);
+        return result;
+    }
 
-        // Use the top-level db connection name as key for pooling (include environment if present)
-        String resolvedKey = environment != null && !environment.isBlank() ? site + "-" + environment : site;
-        HikariDataSource ds = dsCache.get(resolvedKey);
+    private boolean retirePool(String resolvedKey) {
+        HikariDataSource ds = dsCache.remove(resolvedKey);
+        poolOrigins.remove(resolvedKey);
         if (ds == null) {
-            log.debug("Creating Hikari pool for resolvedKey={} jdbcUrl={}", resolvedKey, jdbcUrl != null ? (jdbcUrl.length() > 100 ? jdbcUrl.substring(0, 100) + "..." : jdbcUrl) : "null");
-            Map<String, Object> perConn = cfg; // alias
-            HikariConfig cfgH = new HikariConfig();
-            cfgH.setJdbcUrl(jdbcUrl);
-            cfgH.setUsername(user);
-            cfgH.setPassword(pw);
-            int maxPool = Integer.parseInt(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.maximum-pool-size", null, "10"));
-            int minIdle = Integer.parseInt(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.minimum-idle", null, "1"));
-            long connTimeout = Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.connection-timeout-ms", null, "15000"));
-            long idleTimeout = Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.idle-timeout-ms", null, "600000"));
-            long validationTimeout = Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.hikari.validation-timeout-ms", null, "5000"));
-            if (perConn != null && perConn.containsKey("hikari")) {
-                try {
-                    Object raw = perConn.get("hikari");
-                    Map<String, Object> overrides = null;
-                    if (raw instanceof String) {
-                        overrides = mapper.readValue((String) raw, new TypeReference<>() {});
-                    } else if (raw instanceof Map) {
-                        //noinspection unchecked
-                        overrides = (Map<String, Object>) raw;
-                    }
-                    if (overrides != null) {
-                        if (overrides.containsKey("maximumPoolSize")) maxPool = toInt(overrides.get("maximumPoolSize"), maxPool);
-                        if (overrides.containsKey("minimumIdle")) minIdle = toInt(overrides.get("minimumIdle"), minIdle);
-                        if (overrides.containsKey("connectionTimeoutMs")) connTimeout = toLong(overrides.get("connectionTimeoutMs"), connTimeout);
-                        if (overrides.containsKey("idleTimeoutMs")) idleTimeout = toLong(overrides.get("idleTimeoutMs"), idleTimeout);
-                        if (overrides.containsKey("validationTimeoutMs")) validationTimeout = toLong(overrides.get("validationTimeoutMs"), validationTimeout);
-                    }
-                } catch (Exception e) {
-                    // ignore and use defaults
-                }
+            return false;
+        }
+        draining.add(ds);
+        dsCaffeine.invalidate(resolvedKey);
+        try { removeMetersForPool(resolvedKey); } catch (Exception ignored) {}
+        warmupResults.remove(resolvedKey);
+        try {
+            // Idle connections close now; borrowed ones close as they are returned
+            ds.getHikariPoolMXBean().softEvictConnections();
+        } catch (Exception ignored) {}
+        long drainTimeoutMs = Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "external-db.reload.drain-timeout-ms", null, "60000"));
+        Thread drainer = new Thread(() -> drainAndClose(resolvedKey, ds, drainTimeoutMs), "external-pool-drain-" + resolvedKey);
+        drainer.setDaemon(true);
+        drainer.start();
+        return true;
+    }
+
+    private void drainAndClose(String resolvedKey, HikariDataSource ds, long drainTimeoutMs) {
+        long deadline = System.currentTimeMillis() + drainTimeoutMs;
+        try {
+            while (System.currentTimeMillis() < deadline && ds.getHikariPoolMXBean().getActiveConnections() > 0) {
+                Thread.sleep(200);
             }
-            cfgH.setMaximumPoolSize(maxPool);
-            cfgH.setMinimumIdle(minIdle);
-            cfgH.setConnectionTimeout(connTimeout);
-            cfgH.setIdleTimeout(idleTimeout);
-            cfgH.setValidationTimeout(validationTimeout);
-            cfgH.setPoolName("external-" + resolvedKey);
-            // If a MeterRegistry is available, set Hikari's Micrometer tracker factory so the pool exports metrics
-            if (meterRegistry != null) {
-                try {
-                    cfgH.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
-                } catch (NoClassDefFoundError | Exception ignored) {}
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ignored) {}
+        try {
+            int active = ds.getHikariPoolMXBean().getActiveConnections();
+            if (active > 0) {
+                log.warn("Closing retired external pool {} with {} connection(s) still in use after {}ms", resolvedKey, active, drainTimeoutMs);
             }
-            HikariDataSource created = new HikariDataSource(cfgH);
-            // Register manual metrics (gauge-based) only if a MeterRegistry is available
-            registerHikariMetrics(created, resolvedKey);
-            HikariDataSource existing = dsCache.putIfAbsent(resolvedKey, created);
-            HikariDataSource toUse = existing != null ? existing : created;
-            dsCaffeine.put(resolvedKey, toUse);
-            ds = toUse;
-        }
-        return ds.getConnection();
+        } catch (Exception ignored) {}
+        try { ds.close(); } catch (Exception ignored) {}
+        draining.remove(ds);
+        log.info("Closed retired external pool {}", resolvedKey);
+    }
+
+    public record ReloadResult(java.util.List<String> added, java.util.List<String> changed,
+                               java.util.List<String> removed, java.util.List<String> retiredPools) {}
+
+    private record PoolOrigin(String name, String environment, ExternalWorkload workload, String configKey, boolean replica) {}
+
+    /**
+     * Size and time out the pool for its workload class (external-db.workloads.&lt;workload&gt;.*), falling back to
+     * the workload's built-in defaults and then to the site definition.
+     */
+    private void applyWorkload(HikariConfig cfgH, ExternalWorkload workload) {
+        String prefix = "external-db.workloads." + workload.key() + ".";
+        int maxPool = Integer.parseInt(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, prefix + "maximum-pool-size", null, Integer.toString(workload.defaultMaximumPoolSize())));
+        int minIdle = Integer.parseInt(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, prefix + "minimum-idle", null, Integer.toString(workload.defaultMinimumIdle())));
+        long connTimeout = Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, prefix + "connection-timeout-ms", null, Long.toString(workload.defaultConnectionTimeoutMs())));
+        if (maxPool > 0) cfgH.setMaximumPoolSize(maxPool);
+        if (minIdle >= 0) cfgH.setMinimumIdle(minIdle);
+        if (cfgH.getMinimumIdle() > cfgH.getMaximumPoolSize()) cfgH.setMinimumIdle(cfgH.getMaximumPoolSize());
+        // Hikari rejects connection timeouts below 250ms
+        if (connTimeout >= 250) cfgH.setConnectionTimeout(connTimeout);
+    }
+
+    private boolean useH2External() {
+        return h2External;
     }
 
     private void registerHikariMetrics(HikariDataSource ds, String resolvedKey) {
@@ -650,35 +716,15 @@ public class ExternalDbConfig {
             } catch (Exception ignored) {}
         }
         dsCache.clear();
-    }
-
-    private static int toInt(Object o, int fallback) {
-        if (o == null) return fallback;
-        if (o instanceof Number) return ((Number) o).intValue();
-        try { return Integer.parseInt(o.toString()); } catch (Exception e) { return fallback; }
-    }
-
-    private static long toLong(Object o, long fallback) {
-        if (o == null) return fallback;
-        if (o instanceof Number) return ((Number) o).longValue();
-        try { return Long.parseLong(o.toString()); } catch (Exception e) { return fallback; }
+        poolOrigins.clear();
+        for (HikariDataSource ds : draining) {
+            try { ds.close(); } catch (Exception ignored) {}
+        }
+        draining.clear();
     }
 
     private Map<String, Object> lookupConfig(String key) {
-        if (key == null || key.isBlank()) {
-            return null;
-        }
-        Map<String, Object> exact = dbConnections.get(key);
-        if (exact != null) {
-            return exact;
-        }
-        String trimmed = key.trim();
-        for (Map.Entry<String, Map<String, Object>> entry : dbConnections.entrySet()) {
-            String candidateKey = entry.getKey();
-            if (candidateKey != null && candidateKey.equalsIgnoreCase(trimmed)) {
-                return entry.getValue();
-            }
-        }
-        return null;
+        ExternalConnectionIndex current = index;
+        return current.raw(current.resolveKey(key));
     }
 }
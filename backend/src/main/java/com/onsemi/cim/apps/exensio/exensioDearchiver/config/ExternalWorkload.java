@@ -0,0 +1,59 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.config;
+
+import java.util.Locale;
+
+/**
+ * Workload classes for external site connections. Each class borrows from its own pool per site, so a long
+ * discovery cursor or a stuck monitor scan cannot take the connections interactive lookups need.
+ *
+ * Sizes and timeouts come from external-db.workloads.&lt;name&gt;.*; INTERACTIVE uses the site's own pool
+ * (dbconnections settings) unless overridden there.
+ */
+public enum ExternalWorkload {
+    /** UI lookups, previews and facet dropdowns. */
+    INTERACTIVE(-1, -1, -1),
+    /** Metadata discovery streams. */
+    DISCOVERY(2, 0, 30000),
+    /** Inserts into the remote sender queue (dispatch, manual pushes, session pushes). */
+    DISPATCH(4, 1, 15000),
+    /** Periodic queue depth and monitor scans. */
+    MONITOR(1, 0, 5000);
+
+    private final int defaultMaximumPoolSize;
+    private final int defaultMinimumIdle;
+    private final long defaultConnectionTimeoutMs;
+
+    ExternalWorkload(int defaultMaximumPoolSize, int defaultMinimumIdle, long defaultConnectionTimeoutMs) {
+        this.defaultMaximumPoolSize = defaultMaximumPoolSize;
+        this.defaultMinimumIdle = defaultMinimumIdle;
+        this.defaultConnectionTimeoutMs = defaultConnectionTimeoutMs;
+    }
+
+    /**
+     * Lower-case name used in configuration keys, pool keys and stats.
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Pool key for this workload on top of a site pool key; INTERACTIVE keeps the plain site key.
+     */
+    String poolKey(String siteKey) {
+        return this == INTERACTIVE ? siteKey : siteKey + "#" + key();
+    }
+
+    /** Built-in pool size (negative = use the site definition). */
+    int defaultMaximumPoolSize() {
+        return defaultMaximumPoolSize;
+    }
+
+    int defaultMinimumIdle() {
+        return defaultMinimumIdle;
+    }
+
+    /** Built-in connection timeout (negative = use the site definition). */
+    long defaultConnectionTimeoutMs() {
+        return defaultConnectionTimeoutMs;
+    }
+}
@@ -3,6 +3,9 @@ package com.onsemi.cim.apps.exensio.exensioDearchiver.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Component
 @ConfigurationProperties(prefix = "refdb")
 public class RefDbProperties {
@@ -17,6 +20,7 @@ public class RefDbProperties {
     private String bootstrapAdmins;
     private Pool pool = new Pool();
     private Dispatch dispatch = new Dispatch();
+    private Export export = new Export();
 
     public String getHost() {
         return host;
@@ -97,6 +101,14 @@ public class RefDbProperties {
         this.dispatch = dispatch;
     }
 
+    public Export getExport() {
+        return export;
+    }
+
+    public void setExport(Export export) {
+        this.export = export;
+    }
+
     public String buildJdbcUrl() {
         if (service != null && !service.isBlank()) {
             return String.format("jdbc:oracle:thin:@//%s:%d/%s", host, port, service);
@@ -128,11 +140,43 @@ public class RefDbProperties {
         }
     }
 
+    /**
+     * Streamed staging exports: each holds a RefDB pool connection while the client reads.
+     */
+    public static class Export {
+        private int maxConcurrent = 2;
+        private int queryTimeoutSeconds = 600;
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        public int getQueryTimeoutSeconds() {
+            return queryTimeoutSeconds;
+        }
+
+        public void setQueryTimeoutSeconds(int queryTimeoutSeconds) {
+            this.queryTimeoutSeconds = queryTimeoutSeconds;
+        }
+    }
+
     public static class Dispatch {
         private int perSend = 100;
-        private long intervalMs = 60000L;
+        private long intervalMs = 300000L;
         private int maxQueueSize = 1000;
         private long monitorIntervalMs = 120000L;
+        // Event-driven dispatch: staging signals workers directly; intervalMs then only acts as a safety-net poll
+        private boolean eventDriven = true;
+        private int workers = 2;
+        // Remote queue depth cache: background refresh cadence and the age after which a capacity check recounts
+        private long depthRefreshMs = 30000L;
+        private long depthMaxAgeMs = 120000L;
+        private RateLimit rateLimit = new RateLimit();
+        private Fairness fairness = new Fairness();
 
         public int getPerSend() {
             return perSend;
@@ -165,5 +209,140 @@ public class RefDbProperties {
         public void setMonitorIntervalMs(long monitorIntervalMs) {
             this.monitorIntervalMs = monitorIntervalMs;
         }
+
+        public boolean isEventDriven() {
+            return eventDriven;
+        }
+
+        public void setEventDriven(boolean eventDriven) {
+            this.eventDriven = eventDriven;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public long getDepthRefreshMs() {
+            return depthRefreshMs;
+        }
+
+        public void setDepthRefreshMs(long depthRefreshMs) {
+            this.depthRefreshMs = depthRefreshMs;
+        }
+
+        public long getDepthMaxAgeMs() {
+            return depthMaxAgeMs;
+        }
+
+        public void setDepthMaxAgeMs(long depthMaxAgeMs) {
+            this.depthMaxAgeMs = depthMaxAgeMs;
+        }
+
+        public RateLimit getRateLimit() {
+            return rateLimit;
+        }
+
+        public void setRateLimit(RateLimit rateLimit) {
+            this.rateLimit = rateLimit;
+        }
+
+        public Fairness getFairness() {
+            return fairness;
+        }
+
+        public void setFairness(Fairness fairness) {
+            this.fairness = fairness;
+        }
+    }
+
+    /**
+     * Deficit round robin across (sender, requesting user) flows when building a site dispatch batch. Weights
+     * default to 1; sender weights are keyed by sender id, user weights by username.
+     */
+    public static class Fairness {
+        private boolean enabled = true;
+        // Candidate rows read per run, as a multiple of perSend
+        private int candidateFactor = 4;
+        private Map<String, Integer> senderWeights = new HashMap<>();
+        private Map<String, Integer> userWeights = new HashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getCandidateFactor() {
+            return candidateFactor;
+        }
+
+        public void setCandidateFactor(int candidateFactor) {
+            this.candidateFactor = candidateFactor;
+        }
+
+        public Map<String, Integer> getSenderWeights() {
+            return senderWeights;
+        }
+
+        public void setSenderWeights(Map<String, Integer> senderWeights) {
+            this.senderWeights = senderWeights;
+        }
+
+        public Map<String, Integer> getUserWeights() {
+            return userWeights;
+        }
+
+        public void setUserWeights(Map<String, Integer> userWeights) {
+            this.userWeights = userWeights;
+        }
+    }
+
+    /**
+     * Token-bucket limits for inserts into the remote DTP_SENDER_QUEUE_ITEM table. A rate of 0 disables that bucket;
+     * burst defaults to one second worth of rows when not set.
+     */
+    public static class RateLimit {
+        private double siteRowsPerSecond = 0;
+        private int siteBurst = 0;
+        private double senderRowsPerSecond = 0;
+        private int senderBurst = 0;
+
+        public double getSiteRowsPerSecond() {
+            return siteRowsPerSecond;
+        }
+
+        public void setSiteRowsPerSecond(double siteRowsPerSecond) {
+            this.siteRowsPerSecond = siteRowsPerSecond;
+        }
+
+        public int getSiteBurst() {
+            return siteBurst;
+        }
+
+        public void setSiteBurst(int siteBurst) {
+            this.siteBurst = siteBurst;
+        }
+
+        public double getSenderRowsPerSecond() {
+            return senderRowsPerSecond;
+        }
+
+        public void setSenderRowsPerSecond(double senderRowsPerSecond) {
+            this.senderRowsPerSecond = senderRowsPerSecond;
+        }
+
+        public int getSenderBurst() {
+            return senderBurst;
+        }
+
+        public void setSenderBurst(int senderBurst) {
+            this.senderBurst = senderBurst;
+        }
     }
 }
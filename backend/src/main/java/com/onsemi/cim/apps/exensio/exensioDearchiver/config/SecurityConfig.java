@@ -31,13 +31,16 @@ import com.onsemi.cim.apps.exensio.exensioDearchiver.service.AppUserDetailsServi
 @org.springframework.boot.autoconfigure.condition.ConditionalOnExpression("!'${security.sso.enabled:false}'.equalsIgnoreCase('true') and !'${security.ldap.enabled:false}'.equalsIgnoreCase('true')")
 public class SecurityConfig {
     private final com.onsemi.cim.apps.exensio.exensioDearchiver.security.JwtUtil jwtUtil;
+    private final com.onsemi.cim.apps.exensio.exensioDearchiver.security.JwtClaimsCache claimsCache;
     private final boolean relaxedCsp;
 
     public SecurityConfig(
         com.onsemi.cim.apps.exensio.exensioDearchiver.security.JwtUtil jwtUtil,
+        com.onsemi.cim.apps.exensio.exensioDearchiver.security.JwtClaimsCache claimsCache,
         @Value("${security.csp.relaxed:false}") boolean relaxedCsp
     ) {
         this.jwtUtil = jwtUtil;
+        this.claimsCache = claimsCache;
         this.relaxedCsp = relaxedCsp;
     }
 
@@ -58,7 +61,7 @@ public class SecurityConfig {
             .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
         // Add JWT token filter to process Bearer tokens
-        http.addFilterBefore(new JwtAuthenticationFilter(jwtUtil), BasicAuthenticationFilter.class);
+        http.addFilterBefore(new JwtAuthenticationFilter(jwtUtil, claimsCache), BasicAuthenticationFilter.class);
 
         // Use REST handlers for auth failures and access denied so clients receive JSON
         http.exceptionHandling(eh -> eh
@@ -5,6 +5,7 @@ import java.time.Instant;
 
 @Entity
 @Table(name = "load_session")
+@EntityListeners(LoadSessionChangeListener.class)
 public class LoadSession {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -16,13 +17,15 @@ public class LoadSession {
     private Integer senderId;
     private String source;
 
-    private String status; // CREATED, DISCOVERING, ENQUEUED_LOCAL, PUSHING_REMOTE, COMPLETED, FAILED
+    private String status; // CREATED, DISCOVERING, ENQUEUED_LOCAL, PUSHING_REMOTE, COMPLETED, PARTIAL, FAILED
 
     private Integer totalPayloads = 0;
     private Integer enqueuedLocalCount = 0;
     private Integer pushedRemoteCount = 0;
     private Integer skippedCount = 0;
     private Integer failedCount = 0;
+    // Terminal payloads moved to load_session_payload_archive by the retention job
+    private Integer archivedPayloadCount = 0;
 
     private Instant createdAt = Instant.now();
     private Instant updatedAt = Instant.now();
@@ -77,6 +80,8 @@ public class LoadSession {
     public void setSkippedCount(Integer skippedCount) { this.skippedCount = skippedCount; }
     public Integer getFailedCount() { return failedCount; }
     public void setFailedCount(Integer failedCount) { this.failedCount = failedCount; }
+    public Integer getArchivedPayloadCount() { return archivedPayloadCount; }
+    public void setArchivedPayloadCount(Integer archivedPayloadCount) { this.archivedPayloadCount = archivedPayloadCount; }
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
     public Instant getUpdatedAt() { return updatedAt; }
@@ -0,0 +1,26 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.entity;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.service.ResourceVersions;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Bumps the sessions change counter whenever a load session is written, so session polls can answer 304. The
+ * callbacks fire at flush, so the bump is deferred until the surrounding transaction commits.
+ * Instantiated by Hibernate through Spring, which injects the counters.
+ */
+public class LoadSessionChangeListener {
+    private final ResourceVersions versions;
+
+    public LoadSessionChangeListener(ResourceVersions versions) {
+        this.versions = versions;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(LoadSession session) {
+        versions.changedAfterCommit(ResourceVersions.SESSIONS);
+    }
+}
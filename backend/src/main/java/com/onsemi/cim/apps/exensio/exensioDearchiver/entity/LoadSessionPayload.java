@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "load_session_payload", uniqueConstraints = @UniqueConstraint(name = "uk_load_session_payload_session_payload", columnNames = {"session_id", "payload_id"}))
+@Table(name = "load_session_payload",
+        uniqueConstraints = @UniqueConstraint(name = "uk_load_session_payload_session_payload", columnNames = {"session_id", "payload_id"}),
+        indexes = @Index(name = "ix_lsp_status_updated", columnList = "status, updated_at"))
 public class LoadSessionPayload {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,42 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Terminal load_session_payload rows moved out of the hot table by the retention job. Written with plain JDBC
+ * (INSERT ... SELECT); the mapping keeps the table in the JPA-managed schema and allows lookups.
+ */
+@Entity
+@Table(name = "load_session_payload_archive", indexes = @Index(name = "ix_lsp_archive_session", columnList = "session_id"))
+public class LoadSessionPayloadArchive {
+    @Id
+    private Long id;
+
+    @Column(name = "session_id")
+    private Long sessionId;
+
+    private String payloadId;
+    private String status;
+    private String error;
+    private String externalId;
+    private Instant pushedAt;
+    private int attempts;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Instant archivedAt;
+
+    public LoadSessionPayloadArchive() {}
+
+    public Long getId() { return id; }
+    public Long getSessionId() { return sessionId; }
+    public String getPayloadId() { return payloadId; }
+    public String getStatus() { return status; }
+    public String getError() { return error; }
+    public String getExternalId() { return externalId; }
+    public Instant getPushedAt() { return pushedAt; }
+    public int getAttempts() { return attempts; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public Instant getArchivedAt() { return archivedAt; }
+}
@@ -28,6 +28,14 @@ public class SenderQueueEntry {
     @Column(name = "source", length = 200)
     private String source;
 
+    // Set by the claim UPDATE in SenderQueueRepository.claimNew; identifies the processor owning a PROCESSING row
+    @Column(name = "claim_token", length = 64)
+    private String claimToken;
+
+    // When the claim was taken; PROCESSING rows whose claim is older than app.sender.claim-timeout-ms are reclaimed
+    @Column(name = "claimed_at")
+    private Instant claimedAt;
+
     public SenderQueueEntry() {}
 
     public SenderQueueEntry(Integer senderId, String payloadId, String source) {
@@ -53,4 +61,8 @@ public class SenderQueueEntry {
     public void setProcessedAt(Instant processedAt) { this.processedAt = processedAt; }
     public String getSource() { return source; }
     public void setSource(String source) { this.source = source; }
+    public String getClaimToken() { return claimToken; }
+    public void setClaimToken(String claimToken) { this.claimToken = claimToken; }
+    public Instant getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(Instant claimedAt) { this.claimedAt = claimedAt; }
 }
@@ -14,6 +14,21 @@ public interface ExternalMetadataRepository {
     long countMetadata(String site, String environment, LocalDateTime start, LocalDateTime end,
                        String dataType, String testPhase, String testerType, String location, java.util.List<String> lots, java.util.List<String> wafers);
 
+    /**
+     * Keyset page: up to {@code limit} rows ordered by end_time desc, id desc that come strictly after the row
+     * ({@code afterEndTime}, {@code afterId}). A null {@code afterEndTime} starts at the first row.
+     */
+    List<MetadataRow> findMetadataPageAfter(String site, String environment, LocalDateTime start, LocalDateTime end,
+                                            String dataType, String testPhase, String testerType, String location, java.util.List<String> lots, java.util.List<String> wafers,
+                                            LocalDateTime afterEndTime, String afterId, int limit);
+
+    /**
+     * Count matching rows but stop after {@code cap + 1}; a result greater than {@code cap} means "more than cap".
+     */
+    long countMetadataCapped(String site, String environment, LocalDateTime start, LocalDateTime end,
+                             String dataType, String testPhase, String testerType, String location, java.util.List<String> lots, java.util.List<String> wafers,
+                             long cap);
+
     default String describePreviewQuery(LocalDateTime start,
                                         LocalDateTime end,
                                         String dataType,
@@ -27,6 +42,20 @@ public interface ExternalMetadataRepository {
         return null;
     }
 
+    default String describePreviewQueryAfter(LocalDateTime start,
+                                             LocalDateTime end,
+                                             String dataType,
+                                             String testPhase,
+                                             String testerType,
+                                             String location,
+                                             java.util.List<String> lots,
+                                             java.util.List<String> wafers,
+                                             LocalDateTime afterEndTime,
+                                             String afterId,
+                                             int limit) {
+        return null;
+    }
+
     /**
      * Stream rows; consumer should be fast. This will use JDBC ResultSet iteration.
      */
@@ -0,0 +1,170 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.repository;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses JDBC fetch sizes for streaming reads and keeps per-query fetch statistics.
+ *
+ * Oracle's driver fetches 10 rows per round trip unless told otherwise, so a 500k row discovery scan costs 50k
+ * round trips. Each named query starts at jdbc.fetch.initial-size and then follows a moving average of the rows it
+ * actually returned, clamped to [jdbc.fetch.min-size, jdbc.fetch.max-size]: big scans get big batches while small
+ * lookups do not allocate large row buffers. Bounded queries whose limit fits in one batch fetch it in one trip.
+ */
+@Component
+public class FetchSizeTuner {
+    // Weight of the latest execution in the per-query row average
+    private static final double ALPHA = 0.3;
+
+    private final boolean enabled;
+    private final int initialSize;
+    private final int minSize;
+    private final int maxSize;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, QueryStats> stats = new ConcurrentHashMap<>();
+
+    @Autowired
+    public FetchSizeTuner(Environment env, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this(env, meterRegistryProvider.getIfAvailable());
+    }
+
+    FetchSizeTuner(Environment env, MeterRegistry meterRegistry) {
+        this.enabled = ConfigUtils.getBooleanFlag(env, "jdbc.fetch.enabled", "JDBC_FETCH_ENABLED", true);
+        this.minSize = Math.max(1, Integer.parseInt(ConfigUtils.getString(env, "jdbc.fetch.min-size", null, "50")));
+        this.maxSize = Math.max(minSize, Integer.parseInt(ConfigUtils.getString(env, "jdbc.fetch.max-size", null, "5000")));
+        this.initialSize = clamp(Integer.parseInt(ConfigUtils.getString(env, "jdbc.fetch.initial-size", null, "500")));
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Fetch size for the next execution of {@code query}; {@code limit} is the row cap of the query (0 = none).
+     */
+    public int fetchSize(String query, int limit) {
+        if (limit > 0 && limit <= maxSize) {
+            return Math.max(1, limit);
+        }
+        QueryStats s = stats.get(query);
+        if (s == null || s.executions == 0) {
+            return initialSize;
+        }
+        return clamp((int) Math.ceil(s.averageRows));
+    }
+
+    /**
+     * Apply the fetch size to {@code statement} and start measuring; count rows with {@link Fetch#row()} and close
+     * the returned handle (try-with-resources) when the result set is consumed.
+     */
+    public Fetch start(String query, Statement statement, int limit) throws SQLException {
+        int size = fetchSize(query, limit);
+        if (enabled) {
+            statement.setFetchSize(size);
+        }
+        return new Fetch(query, enabled ? size : statement.getFetchSize());
+    }
+
+    /**
+     * Per-query statistics: executions, rows, estimated round trips, time and the next fetch size.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new TreeMap<>();
+        for (Map.Entry<String, QueryStats> e : stats.entrySet()) {
+            QueryStats s = e.getValue();
+            Map<String, Object> m = new LinkedHashMap<>();
+            synchronized (s) {
+                m.put("executions", s.executions);
+                m.put("rows", s.rows);
+                m.put("roundTrips", s.roundTrips);
+                m.put("avgRowsPerExecution", s.executions == 0 ? 0 : s.rows / s.executions);
+                m.put("avgRowsPerRoundTrip", s.roundTrips == 0 ? 0 : s.rows / s.roundTrips);
+                m.put("avgMs", s.executions == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(s.elapsedNanos / s.executions));
+                m.put("lastFetchSize", s.lastFetchSize);
+            }
+            m.put("nextFetchSize", fetchSize(e.getKey(), 0));
+            out.put(e.getKey(), m);
+        }
+        return out;
+    }
+
+    private void record(String query, int fetchSize, long rows, long elapsedNanos) {
+        // The driver needs one extra trip to learn the result set is exhausted
+        long trips = rows / Math.max(1, fetchSize) + 1;
+        QueryStats s = stats.computeIfAbsent(query, key -> new QueryStats());
+        synchronized (s) {
+            s.averageRows = s.executions == 0 ? rows : ALPHA * rows + (1 - ALPHA) * s.averageRows;
+            s.executions++;
+            s.rows += rows;
+            s.roundTrips += trips;
+            s.elapsedNanos += elapsedNanos;
+            s.lastFetchSize = fetchSize;
+        }
+        if (meterRegistry != null) {
+            try {
+                Counter.builder("jdbc_fetch_rows").description("Rows read by tuned JDBC queries").tag("query", query)
+                        .register(meterRegistry).increment(rows);
+                Counter.builder("jdbc_fetch_round_trips").description("Estimated fetch round trips of tuned JDBC queries").tag("query", query)
+                        .register(meterRegistry).increment(trips);
+                Timer.builder("jdbc_fetch_query").description("Execution and fetch time of tuned JDBC queries").tag("query", query)
+                        .register(meterRegistry).record(elapsedNanos, TimeUnit.NANOSECONDS);
+            } catch (Exception ignored) {}
+        }
+    }
+
+    private int clamp(int size) {
+        return Math.max(minSize, Math.min(maxSize, size));
+    }
+
+    private static final class QueryStats {
+        private long executions;
+        private long rows;
+        private long roundTrips;
+        private long elapsedNanos;
+        private int lastFetchSize;
+        private double averageRows;
+    }
+
+    /**
+     * One measured execution of a tuned query.
+     */
+    public final class Fetch implements AutoCloseable {
+        private final String query;
+        private final int fetchSize;
+        private final long started = System.nanoTime();
+        private long rows;
+        private boolean closed;
+
+        private Fetch(String query, int fetchSize) {
+            this.query = query;
+            this.fetchSize = fetchSize;
+        }
+
+        public void row() {
+            rows++;
+        }
+
+        public int fetchSize() {
+            return fetchSize;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                record(query, fetchSize, rows, System.nanoTime() - started);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver.repository;
 
 import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalDbConfig;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
@@ -17,10 +18,18 @@ import java.util.Locale;
 @Repository
 public class JdbcExternalMetadataRepository implements ExternalMetadataRepository {
     private final Logger log = LoggerFactory.getLogger(JdbcExternalMetadataRepository.class);
+    // Lists longer than this are bound as one collection instead of one placeholder per value
+    private static final int INLINE_LIST_MAX = 20;
+    private static final String ORACLE_LIST_TYPE = "SYS.ODCIVARCHAR2LIST";
+    private static final String ORACLE_LIST_MATCH = " IN (select * from table(?))";
+    private static final String STANDARD_LIST_MATCH = " = ANY(?)";
+    private static final String PAIR_SEPARATOR = "|";
     private final ExternalDbConfig externalDbConfig;
+    private final FetchSizeTuner fetchTuner;
 
-    public JdbcExternalMetadataRepository(ExternalDbConfig externalDbConfig) {
+    public JdbcExternalMetadataRepository(ExternalDbConfig externalDbConfig, FetchSizeTuner fetchTuner) {
         this.externalDbConfig = externalDbConfig;
+        this.fetchTuner = fetchTuner;
     }
 
     // using top-level SenderCandidate DTO
@@ -38,18 +47,20 @@ public class JdbcExternalMetadataRepository implements ExternalMetadataRepositor
                               int offset, int limit) {
         SqlWithParams sql = buildMetadataQuery("select lot, id, id_data, end_time from all_metadata_view",
             start, end, dataType, testPhase, testerType, location, lots, wafers);
-        sql.append(" order by end_time desc");
+        sql.append(" order by end_time desc, id desc");
         if (limit > 0) {
             sql.append(" offset ? rows fetch next ? rows only");
             sql.params.add(Math.max(offset, 0));
             sql.params.add(limit);
         }
-        try (Connection c = externalDbConfig.getConnection(site, environment);
+        try (Connection c = externalDbConfig.getReadConnection(site, environment, ExternalWorkload.INTERACTIVE);
              PreparedStatement ps = prepareStatement(c, sql);
+             FetchSizeTuner.Fetch fetch = fetchTuner.start("metadata.page", ps, limit);
              ResultSet rs = ps.executeQuery()) {
             List<MetadataRow> rows = new ArrayList<>();
             while (rs.next()) {
                 rows.add(mapMetadataRow(rs));
+                fetch.row();
             }
             return rows;
         } catch (Exception ex) {
@@ -71,7 +82,7 @@ public class JdbcExternalMetadataRepository implements ExternalMetadataRepositor
                            int limit) {
         SqlWithParams sql = buildMetadataQuery("select lot, id, id_data, end_time from all_metadata_view",
             start, end, dataType, testPhase, testerType, location, lots, wafers);
-        sql.append(" order by end_time desc");
+        sql.append(" order by end_time desc, id desc");
         if (limit > 0) {
             sql.append(" offset ? rows fetch next ? rows only");
             sql.params.add(Math.max(offset, 0));
@@ -80,11 +91,66 @@ public class JdbcExternalMetadataRepository implements ExternalMetadataRepositor
         return sql.format();
     }
 
+    @Override
+    public List<MetadataRow> findMetadataPageAfter(String site, String environment, LocalDateTime start, LocalDateTime end,
+                                                   String dataType, String testPhase, String testerType, String location, java.util.List<String> lots, java.util.List<String> wafers,
+                                                   LocalDateTime afterEndTime, String afterId, int limit) {
+        SqlWithParams sql = buildMetadataQuery("select lot, id, id_data, end_time from all_metadata_view",
+                start, end, dataType, testPhase, testerType, location, lots, wafers);
+        appendKeyset(sql, afterEndTime, afterId);
+        sql.append(" order by end_time desc, id desc fetch first ? rows only");
+        sql.params.add(Math.max(limit, 1));
+        try (Connection c = externalDbConfig.getReadConnection(site, environment, ExternalWorkload.INTERACTIVE);
+             PreparedStatement ps = prepareStatement(c, sql);
+             FetchSizeTuner.Fetch fetch = fetchTuner.start("metadata.page", ps, limit);
+             ResultSet rs = ps.executeQuery()) {
+            List<MetadataRow> rows = new ArrayList<>();
+            while (rs.next()) {
+                rows.add(mapMetadataRow(rs));
+                fetch.row();
+            }
+            return rows;
+        } catch (Exception ex) {
+            log.error("Failed fetching metadata page after ({}, {}) for site {} env {}: {}", afterEndTime, afterId, site, environment, ex.getMessage(), ex);
+            throw new RuntimeException("External metadata read failed", ex);
+        }
+    }
+
+    @Override
+    public String describePreviewQueryAfter(LocalDateTime start, LocalDateTime end, String dataType, String testPhase, String testerType, String location,
+                                            java.util.List<String> lots, java.util.List<String> wafers,
+                                            LocalDateTime afterEndTime, String afterId, int limit) {
+        SqlWithParams sql = buildMetadataQuery("select lot, id, id_data, end_time from all_metadata_view",
+                start, end, dataType, testPhase, testerType, location, lots, wafers);
+        appendKeyset(sql, afterEndTime, afterId);
+        sql.append(" order by end_time desc, id desc fetch first ? rows only");
+        sql.params.add(Math.max(limit, 1));
+        return sql.format();
+    }
+
+    @Override
+    public long countMetadataCapped(String site, String environment, LocalDateTime start, LocalDateTime end, String dataType, String testPhase, String testerType, String location, java.util.List<String> lots, java.util.List<String> wafers, long cap) {
+        SqlWithParams sql = buildMetadataQuery("select 1 from all_metadata_view",
+                start, end, dataType, testPhase, testerType, location, lots, wafers);
+        // Stop scanning after cap + 1 rows; a result above cap tells the caller "more than cap"
+        sql.sql.insert(0, "select count(1) from (");
+        sql.append(" fetch first ? rows only) capped");
+        sql.params.add(Math.max(cap, 0L) + 1);
+        try (Connection c = externalDbConfig.getReadConnection(site, environment, ExternalWorkload.INTERACTIVE);
+             PreparedStatement ps = prepareStatement(c, sql);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        } catch (Exception ex) {
+            log.error("Failed counting metadata (cap {}) for site {} env {}: {}", cap, site, environment, ex.getMessage(), ex);
+            throw new RuntimeException("External metadata count failed", ex);
+        }
+    }
+
     @Override
     public long countMetadata(String site, String environment, LocalDateTime start, LocalDateTime end, String dataType, String testPhase, String testerType, String location, java.util.List<String> lots, java.util.List<String> wafers) {
         SqlWithParams sql = buildMetadataQuery("select count(1) from all_metadata_view",
                 start, end, dataType, testPhase, testerType, location, lots, wafers);
-        try (Connection c = externalDbConfig.getConnection(site, environment);
+        try (Connection c = externalDbConfig.getReadConnection(site, environment, ExternalWorkload.INTERACTIVE);
              PreparedStatement ps = prepareStatement(c, sql);
              ResultSet rs = ps.executeQuery()) {
             return rs.next() ? rs.getLong(1) : 0L;
@@ -96,7 +162,7 @@ public class JdbcExternalMetadataRepository implements ExternalMetadataRepositor
 
     @Override
     public void streamMetadata(String site, String environment, LocalDateTime start, LocalDateTime end, String dataType, String testPhase, String testerType, String location, java.util.List<String> lots, java.util.List<String> wafers, int limit, java.util.function.Consumer<MetadataRow> consumer) {
-        try (Connection c = externalDbConfig.getConnection(site, environment)) {
+        try (Connection c = externalDbConfig.getReadConnection(site, environment, ExternalWorkload.INTERACTIVE)) {
             streamMetadataWithConnection(c, start, end, dataType, testPhase, testerType, location, lots, wafers, limit, consumer);
         } catch (Exception ex) {
             log.error("Failed streaming metadata for site {} env {}: {}", site, environment, ex.getMessage(), ex);
@@ -115,9 +181,12 @@ public class JdbcExternalMetadataRepository implements ExternalMetadataRepositor
                 sql.append(" fetch first ").append(String.valueOf(limit)).append(" rows only");
             }
             ps = prepareStatement(c, sql);
-            rs = ps.executeQuery();
-            while (rs.next()) {
-                consumer.accept(mapMetadataRow(rs));
+            try (FetchSizeTuner.Fetch fetch = fetchTuner.start("metadata.stream", ps, limit)) {
+                rs = ps.executeQuery();
+                while (rs.next()) {
+                    consumer.accept(mapMetadataRow(rs));
+                    fetch.row();
+                }
             }
         } catch (Exception ex) {
             log.error("Failed streaming metadata using provided connection: {}", ex.getMessage(), ex);
@@ -364,79 +433,66 @@ public class JdbcExternalMetadataRepository implements ExternalMetadataRepositor
             result.params.add(location);
         }
 
-        // Handle lots/wafer lists. Support up to 5 pairs; matching is case-insensitive.
+        // Handle lots/wafer lists; matching is case-insensitive. Long lists are bound as one collection parameter
+        // (see appendIn) so thousands of lots still run as a single query.
         boolean hasLots = lots != null && !lots.isEmpty();
         boolean hasWafers = wafers != null && !wafers.isEmpty();
         if (hasLots && !hasWafers) {
-            // UPPER(lot) IN (?, ?, ...)
-            int cap = Math.min(lots.size(), 100); // safety cap
-            List<String> vals = new ArrayList<>();
-            for (int i = 0; i < cap; i++) {
-                String v = lots.get(i);
-                if (v != null && !v.isBlank()) vals.add(v.trim().toUpperCase(Locale.ROOT));
-            }
+            List<String> vals = normalizeValues(lots);
             if (!vals.isEmpty()) {
-                result.append(" and UPPER(lot) IN (");
-                for (int i = 0; i < vals.size(); i++) {
-                    if (i > 0) result.append(",");
-                    result.append("?");
-                    result.params.add(vals.get(i));
-                }
-                result.append(")");
+                result.append(" and ");
+                appendIn(result, "UPPER(lot)", vals);
             }
         } else if (!hasLots && hasWafers) {
-            int cap = Math.min(wafers.size(), 100);
-            List<String> vals = new ArrayList<>();
-            for (int i = 0; i < cap; i++) {
-                String v = wafers.get(i);
-                if (v != null && !v.isBlank()) vals.add(v.trim().toUpperCase(Locale.ROOT));
-            }
+            List<String> vals = normalizeValues(wafers);
             if (!vals.isEmpty()) {
-                result.append(" and UPPER(wafer) IN (");
-                for (int i = 0; i < vals.size(); i++) {
-                    if (i > 0) result.append(",");
-                    result.append("?");
-                    result.params.add(vals.get(i));
-                }
-                result.append(")");
+                result.append(" and ");
+                appendIn(result, "UPPER(wafer)", vals);
             }
         } else if (hasLots && hasWafers) {
-            // Pair-wise matching: for each pair support three cases:
-            //  - both lot and wafer provided: (UPPER(lot)=? AND UPPER(wafer)=?)
-            //  - only lot provided: (UPPER(lot)=?)
-            //  - only wafer provided: (UPPER(wafer)=?)
-            // Combine each pair clause with OR. Support up to 5 pairs.
-            // iterate up to the maximum length provided (support differing list lengths)
-            int pairs = Math.min(Math.max(lots.size(), wafers.size()), 5);
-            List<String[]> pairVals = new ArrayList<>();
+            // Pair-wise matching, lists are positional (support differing list lengths):
+            //  - both lot and wafer provided: the pair must match
+            //  - only lot provided: any wafer of the lot
+            //  - only wafer provided: the wafer in any lot
+            int pairs = Math.max(lots.size(), wafers.size());
+            java.util.Set<String> lotOnly = new java.util.LinkedHashSet<>();
+            java.util.Set<String> waferOnly = new java.util.LinkedHashSet<>();
+            java.util.Set<String> pairLots = new java.util.LinkedHashSet<>();
+            java.util.Set<String> pairKeys = new java.util.LinkedHashSet<>();
             for (int i = 0; i < pairs; i++) {
                 String l = i < lots.size() ? lots.get(i) : null;
                 String w = i < wafers.size() ? wafers.get(i) : null;
-                if ((l == null || l.isBlank()) && (w == null || w.isBlank())) continue;
                 String lu = (l == null || l.isBlank()) ? null : l.trim().toUpperCase(Locale.ROOT);
                 String wu = (w == null || w.isBlank()) ? null : w.trim().toUpperCase(Locale.ROOT);
-                pairVals.add(new String[] { lu, wu });
+                if (lu != null && wu != null) {
+                    pairLots.add(lu);
+                    pairKeys.add(lu + PAIR_SEPARATOR + wu);
+                } else if (lu != null) {
+                    lotOnly.add(lu);
+                } else if (wu != null) {
+                    waferOnly.add(wu);
+                }
             }
-            if (!pairVals.isEmpty()) {
+            if (!lotOnly.isEmpty() || !waferOnly.isEmpty() || !pairKeys.isEmpty()) {
                 result.append(" and (");
                 int added = 0;
-                for (String[] p : pairVals) {
-                    if (added > 0) result.append(" or ");
-                    String lu = p[0];
-                    String wu = p[1];
-                    if (lu != null && wu != null) {
-                        result.append("(UPPER(lot) = ? and UPPER(wafer) = ?)");
-                        result.params.add(lu);
-                        result.params.add(wu);
-                    } else if (lu != null) {
-                        result.append("(UPPER(lot) = ?)");
-                        result.params.add(lu);
-                    } else {
-                        result.append("(UPPER(wafer) = ?)");
-                        result.params.add(wu);
-                    }
+                if (!pairKeys.isEmpty()) {
+                    // The lot predicate narrows the scan, the concatenated key makes the pair exact
+                    result.append("(");
+                    appendIn(result, "UPPER(lot)", new ArrayList<>(pairLots));
+                    result.append(" and ");
+                    appendIn(result, "UPPER(lot) || '" + PAIR_SEPARATOR + "' || UPPER(wafer)", new ArrayList<>(pairKeys));
+                    result.append(")");
                     added++;
                 }
+                if (!lotOnly.isEmpty()) {
+                    if (added++ > 0) result.append(" or ");
+                    appendIn(result, "UPPER(lot)", new ArrayList<>(lotOnly));
+                }
+                if (!waferOnly.isEmpty()) {
+                    if (added > 0) result.append(" or ");
+                    appendIn(result, "UPPER(wafer)", new ArrayList<>(waferOnly));
+                }
                 result.append(")");
             }
         }
@@ -446,11 +502,65 @@ public class JdbcExternalMetadataRepository implements ExternalMetadataRepositor
         return result;
     }
 
+    private static List<String> normalizeValues(List<String> values) {
+        java.util.Set<String> vals = new java.util.LinkedHashSet<>();
+        for (String v : values) {
+            if (v != null && !v.isBlank()) vals.add(v.trim().toUpperCase(Locale.ROOT));
+        }
+        return new ArrayList<>(vals);
+    }
+
+    // Short lists stay literal IN lists so the optimizer sees the values; longer ones become a single collection
+    // bind that the database joins against (rewritten per dialect in prepareStatement).
+    private static void appendIn(SqlWithParams sql, String expression, List<String> values) {
+        if (values.size() <= INLINE_LIST_MAX) {
+            sql.append(expression).append(" IN (");
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) sql.append(",");
+                sql.append("?");
+                sql.params.add(values.get(i));
+            }
+            sql.append(")");
+            return;
+        }
+        sql.append(expression).append(ORACLE_LIST_MATCH);
+        sql.params.add(new ValueList(values));
+    }
+
+    // Rows strictly after (afterEndTime, afterId) in "end_time desc, id desc" order
+    private static void appendKeyset(SqlWithParams sql, LocalDateTime afterEndTime, String afterId) {
+        if (afterEndTime == null) {
+            return;
+        }
+        Timestamp ts = Timestamp.valueOf(afterEndTime);
+        if (afterId == null) {
+            sql.append(" and end_time < ?");
+            sql.params.add(ts);
+            return;
+        }
+        sql.append(" and (end_time < ? or (end_time = ? and id < ?))");
+        sql.params.add(ts);
+        sql.params.add(ts);
+        sql.params.add(afterId);
+    }
+
     private PreparedStatement prepareStatement(Connection connection, SqlWithParams sql) throws Exception {
-        PreparedStatement ps = connection.prepareStatement(sql.sql.toString());
+        boolean hasLists = sql.params.stream().anyMatch(ValueList.class::isInstance);
+        boolean oracle = hasLists && connection.isWrapperFor(oracle.jdbc.OracleConnection.class);
+        String text = sql.sql.toString();
+        if (hasLists && !oracle) {
+            text = text.replace(ORACLE_LIST_MATCH, STANDARD_LIST_MATCH);
+        }
+        PreparedStatement ps = connection.prepareStatement(text);
         int idx = 1;
         for (Object param : sql.params) {
-            if (param instanceof Timestamp ts) {
+            if (param instanceof ValueList list) {
+                Object[] values = list.values().toArray();
+                java.sql.Array array = oracle
+                        ? connection.unwrap(oracle.jdbc.OracleConnection.class).createOracleArray(ORACLE_LIST_TYPE, values)
+                        : connection.createArrayOf("VARCHAR", values);
+                ps.setArray(idx++, array);
+            } else if (param instanceof Timestamp ts) {
                 ps.setTimestamp(idx++, ts);
             } else if (param instanceof Integer i) {
                 ps.setInt(idx++, i);
@@ -472,6 +582,16 @@ public class JdbcExternalMetadataRepository implements ExternalMetadataRepositor
         return new MetadataRow(lot, id, idData, endTime);
     }
 
+    /**
+     * Collection bind parameter for long lot/wafer filters.
+     */
+    private record ValueList(List<String> values) {
+        @Override
+        public String toString() {
+            return values.size() <= 5 ? values.toString() : values.subList(0, 5) + "... (" + values.size() + " values)";
+        }
+    }
+
     private static class SqlWithParams {
         final StringBuilder sql;
         final List<Object> params = new ArrayList<>();
@@ -0,0 +1,19 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.repository;
+
+import org.springframework.core.env.Environment;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Calendar for plain-JDBC timestamp access to tables that are also mapped through JPA, so values use the same
+ * zone as Hibernate (spring.jpa.properties.hibernate.jdbc.time_zone, UTC on Oracle).
+ */
+final class JdbcTimeZones {
+    private JdbcTimeZones() {}
+
+    static Calendar calendar(Environment env) {
+        String zone = env.getProperty("spring.jpa.properties.hibernate.jdbc.time_zone");
+        return Calendar.getInstance(zone == null || zone.isBlank() ? TimeZone.getDefault() : TimeZone.getTimeZone(zone));
+    }
+}
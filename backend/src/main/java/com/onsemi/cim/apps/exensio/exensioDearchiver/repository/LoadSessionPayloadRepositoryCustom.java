@@ -2,7 +2,27 @@ package com.onsemi.cim.apps.exensio.exensioDearchiver.repository;
 
 import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.LoadSessionPayload;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface LoadSessionPayloadRepositoryCustom {
     List<LoadSessionPayload> claimNextBatch(Long sessionId, int batchSize);
+
+    /**
+     * Keyset page of a session's payloads ordered by id: rows with id greater than {@code afterId} (null = from the
+     * start), optionally restricted to {@code status}.
+     */
+    List<SessionPayloadRow> findPayloadRows(Long sessionId, String status, Long afterId, int limit);
+
+    /**
+     * Stream a session's payloads in id order through a forward-only cursor; the consumer runs while the cursor is
+     * open, so it should only serialize the row.
+     */
+    void streamPayloadRows(Long sessionId, String status, Consumer<SessionPayloadRow> consumer);
+
+    /**
+     * Remove up to {@code limit} payloads in one of {@code statuses} last updated before {@code cutoff}, copying them
+     * to load_session_payload_archive first when {@code archive} is set, and add them to their sessions'
+     * archived_payload_count. Runs as one short transaction locking only the batch; returns the rows removed.
+     */
+    int purgeTerminalBatch(java.util.Collection<String> statuses, java.time.Instant cutoff, int limit, boolean archive);
 }
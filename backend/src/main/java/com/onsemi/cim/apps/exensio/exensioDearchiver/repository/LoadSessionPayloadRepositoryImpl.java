@@ -5,8 +5,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Repository
 public class LoadSessionPayloadRepositoryImpl implements LoadSessionPayloadRepositoryCustom {
@@ -17,6 +22,15 @@ public class LoadSessionPayloadRepositoryImpl implements LoadSessionPayloadRepos
     @Autowired
     private jakarta.persistence.EntityManager entityManager;
 
+    @Autowired
+    private FetchSizeTuner fetchTuner;
+
+    @Autowired
+    private org.springframework.core.env.Environment env;
+
+    private static final String PAYLOAD_COLUMNS =
+            "SELECT id, payload_id, status, error, external_id, pushed_at, attempts, created_at, updated_at FROM load_session_payload WHERE session_id = ?";
+
     @Override
     public List<LoadSessionPayload> claimNextBatch(Long sessionId, int batchSize) {
         final int maxAttempts = 6;
@@ -48,4 +62,135 @@ public class LoadSessionPayloadRepositoryImpl implements LoadSessionPayloadRepos
         }
         return new ArrayList<>();
     }
+
+    @Override
+    public List<SessionPayloadRow> findPayloadRows(Long sessionId, String status, Long afterId, int limit) {
+        List<Object> params = new ArrayList<>();
+        String sql = payloadQuery(sessionId, status, afterId, params) + " ORDER BY id FETCH FIRST ? ROWS ONLY";
+        params.add(limit);
+        java.util.Calendar calendar = JdbcTimeZones.calendar(env);
+        return jdbcTemplate.query(sql, (rs, rowNum) -> mapPayloadRow(rs, calendar), params.toArray());
+    }
+
+    @Override
+    public void streamPayloadRows(Long sessionId, String status, Consumer<SessionPayloadRow> consumer) {
+        List<Object> params = new ArrayList<>();
+        String sql = payloadQuery(sessionId, status, null, params) + " ORDER BY id";
+        java.util.Calendar calendar = JdbcTimeZones.calendar(env);
+        FetchSizeTuner.Fetch[] fetch = new FetchSizeTuner.Fetch[1];
+        try {
+            jdbcTemplate.query(con -> {
+                java.sql.PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                fetch[0] = fetchTuner.start("sessions.payloads", ps, 0);
+                return ps;
+            }, (ResultSet rs) -> {
+                consumer.accept(mapPayloadRow(rs, calendar));
+                fetch[0].row();
+            });
+        } finally {
+            if (fetch[0] != null) fetch[0].close();
+        }
+    }
+
+    @Override
+    @org.springframework.transaction.annotation.Transactional
+    public int purgeTerminalBatch(java.util.Collection<String> statuses, java.time.Instant cutoff, int limit, boolean archive) {
+        if (statuses == null || statuses.isEmpty() || cutoff == null || limit <= 0) {
+            return 0;
+        }
+        java.util.Calendar calendar = JdbcTimeZones.calendar(env);
+        Timestamp cutoffTs = Timestamp.from(cutoff);
+        String statusIn = placeholders(statuses.size());
+        // Candidate scan without ORDER BY so it stops after limit matches (ix_lsp_status_updated)
+        List<Long> ids = jdbcTemplate.query(con -> {
+            java.sql.PreparedStatement ps = con.prepareStatement(
+                    "SELECT id FROM load_session_payload WHERE status IN (" + statusIn + ") AND updated_at < ? FETCH FIRST ? ROWS ONLY");
+            int idx = 1;
+            for (String status : statuses) ps.setString(idx++, status);
+            ps.setTimestamp(idx++, cutoffTs, calendar);
+            ps.setInt(idx, limit);
+            return ps;
+        }, (rs, rowNum) -> rs.getLong(1));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // Lock just this batch and re-check it: payloads requeued since the scan stay in place
+        Map<Long, Integer> perSession = new java.util.HashMap<>();
+        List<Long> locked = new ArrayList<>();
+        jdbcTemplate.query(con -> {
+            java.sql.PreparedStatement ps = con.prepareStatement("SELECT id, session_id FROM load_session_payload WHERE id IN (" + placeholders(ids.size()) + ")" +
+                    " AND status IN (" + statusIn + ") AND updated_at < ? FOR UPDATE");
+            int idx = 1;
+            for (Long id : ids) ps.setLong(idx++, id);
+            for (String status : statuses) ps.setString(idx++, status);
+            ps.setTimestamp(idx, cutoffTs, calendar);
+            return ps;
+        }, (ResultSet rs) -> {
+            locked.add(rs.getLong(1));
+            long sessionId = rs.getLong(2);
+            if (!rs.wasNull()) perSession.merge(sessionId, 1, Integer::sum);
+        });
+        if (locked.isEmpty()) {
+            return 0;
+        }
+
+        String byId = " WHERE id IN (" + placeholders(locked.size()) + ")";
+        Object[] idParams = locked.toArray();
+        if (archive) {
+            Timestamp archivedAt = Timestamp.from(java.time.Instant.now());
+            jdbcTemplate.update(con -> {
+                java.sql.PreparedStatement ps = con.prepareStatement("INSERT INTO load_session_payload_archive " +
+                        "(id, session_id, payload_id, status, error, external_id, pushed_at, attempts, created_at, updated_at, archived_at) " +
+                        "SELECT id, session_id, payload_id, status, error, external_id, pushed_at, attempts, created_at, updated_at, ? FROM load_session_payload" + byId);
+                ps.setTimestamp(1, archivedAt, calendar);
+                for (int i = 0; i < locked.size(); i++) ps.setLong(i + 2, locked.get(i));
+                return ps;
+            });
+        }
+        int removed = jdbcTemplate.update("DELETE FROM load_session_payload" + byId, idParams);
+        for (Map.Entry<Long, Integer> entry : perSession.entrySet()) {
+            jdbcTemplate.update("UPDATE load_session SET archived_payload_count = COALESCE(archived_payload_count, 0) + ? WHERE id = ?",
+                    entry.getValue(), entry.getKey());
+        }
+        return removed;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", java.util.Collections.nCopies(count, "?"));
+    }
+
+    private static String payloadQuery(Long sessionId, String status, Long afterId, List<Object> params) {
+        StringBuilder sql = new StringBuilder(PAYLOAD_COLUMNS);
+        params.add(sessionId);
+        if (status != null && !status.isBlank()) {
+            sql.append(" AND status = ?");
+            params.add(status.trim().toUpperCase(java.util.Locale.ROOT));
+        }
+        if (afterId != null) {
+            sql.append(" AND id > ?");
+            params.add(afterId);
+        }
+        return sql.toString();
+    }
+
+    private static SessionPayloadRow mapPayloadRow(ResultSet rs, java.util.Calendar calendar) throws SQLException {
+        return new SessionPayloadRow(
+                rs.getLong("id"),
+                rs.getString("payload_id"),
+                rs.getString("status"),
+                rs.getString("error"),
+                rs.getString("external_id"),
+                toInstant(rs.getTimestamp("pushed_at", calendar)),
+                rs.getInt("attempts"),
+                toInstant(rs.getTimestamp("created_at", calendar)),
+                toInstant(rs.getTimestamp("updated_at", calendar)));
+    }
+
+    private static java.time.Instant toInstant(Timestamp ts) {
+        return ts == null ? null : ts.toInstant();
+    }
 }
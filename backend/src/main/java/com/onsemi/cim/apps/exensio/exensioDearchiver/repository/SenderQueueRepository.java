@@ -8,7 +8,7 @@ import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
-public interface SenderQueueRepository extends JpaRepository<SenderQueueEntry, Long> {
+public interface SenderQueueRepository extends JpaRepository<SenderQueueEntry, Long>, SenderQueueRepositoryCustom {
     long countByStatus(String status);
 
     @Query("select s from SenderQueueEntry s where s.status = :status order by s.createdAt asc")
@@ -16,7 +16,4 @@ public interface SenderQueueRepository extends JpaRepository<SenderQueueEntry, L
 
     @Query("select s from SenderQueueEntry s where s.senderId = :senderId and s.status = :status order by s.createdAt asc")
     List<SenderQueueEntry> findBySenderIdAndStatusOrderByCreatedAt(@Param("senderId") Integer senderId, @Param("status") String status, Pageable p);
-
-    @Query("select s.payloadId from SenderQueueEntry s where s.senderId = :senderId and s.payloadId in :payloads")
-    List<String> findPayloadIdsBySenderIdAndPayloadIdIn(@Param("senderId") Integer senderId, @Param("payloads") List<String> payloads);
 }
@@ -0,0 +1,40 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.repository;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.SenderQueueEntry;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface SenderQueueRepositoryCustom {
+    /**
+     * Payload ids of {@code payloads} already queued for the sender; the lookup is split into IN lists of at most
+     * 1000 values.
+     */
+    Set<String> findExistingPayloadIds(Integer senderId, Collection<String> payloads);
+
+    /**
+     * Insert NEW entries for payloads the sender does not have yet, using batched insert-if-absent statements.
+     * Returns the payloads that were actually inserted; the others already existed (possibly inserted concurrently).
+     */
+    List<String> insertIfAbsent(Integer senderId, List<String> payloads, String source);
+
+    /**
+     * Move up to {@code limit} of the oldest NEW entries to PROCESSING with one UPDATE tagged with
+     * {@code claimToken}, then return exactly the rows carrying that token (detached entities).
+     */
+    List<SenderQueueEntry> claimNew(String claimToken, int limit);
+
+    /**
+     * Return PROCESSING entries claimed before {@code claimedBefore} (or claimed before claimed_at existed) to NEW,
+     * so rows left behind by a processor that died mid-batch are picked up again. Returns the number of rows reset.
+     */
+    int reclaimStale(Instant claimedBefore);
+
+    /**
+     * Record the outcome of a claimed batch: {@code failedIds} become FAILED (one JDBC batch), every other row of
+     * the claim becomes SENT with a single UPDATE. Returns the number of rows marked SENT.
+     */
+    int completeClaim(String claimToken, Collection<Long> failedIds, Instant processedAt);
+}
@@ -0,0 +1,208 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.repository;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.SenderQueueEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+public class SenderQueueRepositoryImpl implements SenderQueueRepositoryCustom {
+    private static final Logger log = LoggerFactory.getLogger(SenderQueueRepositoryImpl.class);
+    // Oracle rejects IN lists longer than 1000 elements
+    private static final int LOOKUP_CHUNK = 1000;
+    private static final int INSERT_BATCH = 500;
+    // The NOT MATCHED branch makes concurrent or repeated payloads a no-op instead of a constraint violation
+    private static final String INSERT_IF_ABSENT_SQL =
+            "MERGE INTO sender_queue t USING (SELECT CAST(? AS VARCHAR2(1000)) payload_id, CAST(? AS INTEGER) sender_id FROM dual) s " +
+            "ON (t.sender_id = s.sender_id AND t.payload_id = s.payload_id) " +
+            "WHEN NOT MATCHED THEN INSERT (payload_id, sender_id, status, created_at, source) VALUES (s.payload_id, s.sender_id, 'NEW', ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Environment env;
+
+    @Override
+    public Set<String> findExistingPayloadIds(Integer senderId, Collection<String> payloads) {
+        Set<String> existing = new HashSet<>();
+        List<String> values = new ArrayList<>(payloads);
+        for (int from = 0; from < values.size(); from += LOOKUP_CHUNK) {
+            List<String> chunk = values.subList(from, Math.min(values.size(), from + LOOKUP_CHUNK));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i > 0) sb.append(',');
+                sb.append('?');
+            }
+            Object[] params = new Object[chunk.size() + 1];
+            params[0] = senderId;
+            for (int i = 0; i < chunk.size(); i++) {
+                params[i + 1] = chunk.get(i);
+            }
+            existing.addAll(jdbcTemplate.queryForList(
+                    "SELECT payload_id FROM sender_queue WHERE sender_id = ? AND payload_id IN (" + sb + ")", String.class, params));
+        }
+        return existing;
+    }
+
+    @Override
+    public List<String> insertIfAbsent(Integer senderId, List<String> payloads, String source) {
+        List<String> inserted = new ArrayList<>(payloads.size());
+        Calendar calendar = JdbcTimeZones.calendar(env);
+        for (int from = 0; from < payloads.size(); from += INSERT_BATCH) {
+            List<String> chunk = payloads.subList(from, Math.min(payloads.size(), from + INSERT_BATCH));
+            Timestamp now = Timestamp.from(Instant.now());
+            int[][] counts;
+            try {
+                counts = jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, chunk, chunk.size(), (ps, payload) -> {
+                    ps.setString(1, payload);
+                    ps.setInt(2, senderId);
+                    ps.setTimestamp(3, now, calendar);
+                    ps.setString(4, source);
+                });
+            } catch (DataIntegrityViolationException race) {
+                // Two MERGEs for the same key can still both miss under concurrency. Rows the batch already merged
+                // keep their outcome; only the failed row and those after it are redone one by one.
+                int[] done = executedCounts(race);
+                List<String> retry = new ArrayList<>();
+                for (int i = 0; i < chunk.size(); i++) {
+                    int count = i < done.length ? done[i] : Statement.EXECUTE_FAILED;
+                    if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                        inserted.add(chunk.get(i));
+                    } else if (count == Statement.EXECUTE_FAILED) {
+                        retry.add(chunk.get(i));
+                    }
+                }
+                log.debug("Batch insert for sender {} hit a concurrent duplicate, retrying {} of {} rows individually", senderId, retry.size(), chunk.size());
+                inserted.addAll(insertRowByRow(senderId, retry, source, now, calendar));
+                continue;
+            }
+            int[] rowCounts = counts.length == 0 ? new int[0] : counts[0];
+            for (int i = 0; i < chunk.size(); i++) {
+                // Drivers that cannot report per-row counts return SUCCESS_NO_INFO; the rows were absent when checked
+                int count = i < rowCounts.length ? rowCounts[i] : Statement.SUCCESS_NO_INFO;
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    inserted.add(chunk.get(i));
+                }
+            }
+        }
+        return inserted;
+    }
+
+    // Per-row results the driver reported before the batch failed (drivers that stop at the first error report
+    // fewer entries than rows); empty when the failure carries no batch counts
+    private static int[] executedCounts(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof BatchUpdateException batch && batch.getUpdateCounts() != null) {
+                return batch.getUpdateCounts();
+            }
+        }
+        return new int[0];
+    }
+
+    private List<String> insertRowByRow(Integer senderId, List<String> chunk, String source, Timestamp now, Calendar calendar) {
+        List<String> inserted = new ArrayList<>();
+        for (String payload : chunk) {
+            try {
+                int count = jdbcTemplate.update(INSERT_IF_ABSENT_SQL, ps -> {
+                    ps.setString(1, payload);
+                    ps.setInt(2, senderId);
+                    ps.setTimestamp(3, now, calendar);
+                    ps.setString(4, source);
+                });
+                if (count > 0) {
+                    inserted.add(payload);
+                }
+            } catch (DataIntegrityViolationException duplicate) {
+                log.debug("Skipping payload inserted concurrently: {}", payload);
+            }
+        }
+        return inserted;
+    }
+
+    @Override
+    public List<SenderQueueEntry> claimNew(String claimToken, int limit) {
+        Calendar calendar = JdbcTimeZones.calendar(env);
+        Timestamp now = Timestamp.from(Instant.now());
+        int claimed = jdbcTemplate.update(con -> {
+            java.sql.PreparedStatement ps = con.prepareStatement(
+                    "UPDATE sender_queue SET status = 'PROCESSING', claim_token = ?, claimed_at = ? WHERE status = 'NEW' AND id IN (" +
+                    "SELECT id FROM sender_queue WHERE status = 'NEW' ORDER BY created_at, id FETCH FIRST ? ROWS ONLY)");
+            ps.setString(1, claimToken);
+            ps.setTimestamp(2, now, calendar);
+            ps.setInt(3, limit);
+            return ps;
+        });
+        if (claimed == 0) {
+            return new ArrayList<>();
+        }
+        return jdbcTemplate.query(
+                "SELECT id, payload_id, sender_id, status, created_at, source, claim_token, claimed_at FROM sender_queue WHERE claim_token = ? ORDER BY created_at, id",
+                (rs, rowNum) -> {
+                    SenderQueueEntry e = new SenderQueueEntry();
+                    e.setId(rs.getLong("id"));
+                    e.setPayloadId(rs.getString("payload_id"));
+                    int senderId = rs.getInt("sender_id");
+                    e.setSenderId(rs.wasNull() ? null : senderId);
+                    e.setStatus(rs.getString("status"));
+                    Timestamp created = rs.getTimestamp("created_at", calendar);
+                    e.setCreatedAt(created == null ? null : created.toInstant());
+                    e.setSource(rs.getString("source"));
+                    e.setClaimToken(rs.getString("claim_token"));
+                    Timestamp claimedAt = rs.getTimestamp("claimed_at", calendar);
+                    e.setClaimedAt(claimedAt == null ? null : claimedAt.toInstant());
+                    return e;
+                },
+                claimToken);
+    }
+
+    @Override
+    public int reclaimStale(Instant claimedBefore) {
+        Calendar calendar = JdbcTimeZones.calendar(env);
+        Timestamp cutoff = Timestamp.from(claimedBefore);
+        return jdbcTemplate.update(con -> {
+            java.sql.PreparedStatement ps = con.prepareStatement(
+                    "UPDATE sender_queue SET status = 'NEW', claim_token = NULL, claimed_at = NULL " +
+                    "WHERE status = 'PROCESSING' AND (claimed_at < ? OR claimed_at IS NULL)");
+            ps.setTimestamp(1, cutoff, calendar);
+            return ps;
+        });
+    }
+
+    @Override
+    public int completeClaim(String claimToken, Collection<Long> failedIds, Instant processedAt) {
+        Calendar calendar = JdbcTimeZones.calendar(env);
+        Timestamp ts = Timestamp.from(processedAt);
+        if (failedIds != null && !failedIds.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "UPDATE sender_queue SET status = 'FAILED', processed_at = ?, claim_token = NULL, claimed_at = NULL WHERE id = ? AND claim_token = ?",
+                    new ArrayList<>(failedIds), INSERT_BATCH, (ps, id) -> {
+                        ps.setTimestamp(1, ts, calendar);
+                        ps.setLong(2, id);
+                        ps.setString(3, claimToken);
+                    });
+        }
+        return jdbcTemplate.update(con -> {
+            java.sql.PreparedStatement ps = con.prepareStatement(
+                    "UPDATE sender_queue SET status = 'SENT', processed_at = ?, claim_token = NULL, claimed_at = NULL WHERE claim_token = ? AND status = 'PROCESSING'");
+            ps.setTimestamp(1, ts, calendar);
+            ps.setString(2, claimToken);
+            return ps;
+        });
+    }
+}
@@ -0,0 +1,17 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.repository;
+
+import java.time.Instant;
+
+/**
+ * Read-only projection of a load_session_payload row, used for listings instead of managed entities.
+ */
+public record SessionPayloadRow(Long id,
+                                String payloadId,
+                                String status,
+                                String error,
+                                String externalId,
+                                Instant pushedAt,
+                                int attempts,
+                                Instant createdAt,
+                                Instant updatedAt) {
+}
@@ -0,0 +1,83 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of the roles and account state looked up at login.
+ *
+ * Every login used to query APP_USER_ROLES in RefDB (LDAP/SSO through {@link LocalAuthoritiesMapper}) or load the
+ * AppUser through JPA (local logins), so a shift change meant a burst of identical queries. Entries expire after
+ * reloader.auth.authority-cache.ttl-seconds; role, password and enablement changes made through the application
+ * call {@link #invalidate(String)} so they apply to the next login immediately. Failed lookups are not cached.
+ */
+@Component
+public class AuthorityCache {
+    private final boolean enabled;
+    private final Cache<String, Set<String>> refDbAuthorities;
+    private final Cache<String, LocalUser> localUsers;
+
+    @Autowired
+    public AuthorityCache(Environment env, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this(env, meterRegistryProvider.getIfAvailable());
+    }
+
+    AuthorityCache(Environment env, MeterRegistry meterRegistry) {
+        this.enabled = ConfigUtils.getBooleanFlag(env, "reloader.auth.authority-cache.enabled", "AUTHORITY_CACHE_ENABLED", true);
+        long ttlSeconds = Math.max(1, Long.parseLong(ConfigUtils.getString(env, "reloader.auth.authority-cache.ttl-seconds", null, "300")));
+        long maxEntries = Math.max(1, Long.parseLong(ConfigUtils.getString(env, "reloader.auth.authority-cache.max-entries", null, "5000")));
+        this.refDbAuthorities = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttlSeconds, TimeUnit.SECONDS).recordStats().build();
+        this.localUsers = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttlSeconds, TimeUnit.SECONDS).recordStats().build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, refDbAuthorities, "refdb_authorities");
+            CaffeineCacheMetrics.monitor(meterRegistry, localUsers, "local_users");
+        }
+    }
+
+    /**
+     * RefDB authorities of {@code username}; {@code loader} runs on a miss and may return null to skip caching.
+     */
+    public Set<String> refDbAuthorities(String username, Function<String, Set<String>> loader) {
+        return enabled && username != null ? refDbAuthorities.get(username, loader) : loader.apply(username);
+    }
+
+    /**
+     * Local account of {@code username}; {@code loader} runs on a miss and may return null to skip caching.
+     */
+    public LocalUser localUser(String username, Function<String, LocalUser> loader) {
+        return enabled && username != null ? localUsers.get(username, loader) : loader.apply(username);
+    }
+
+    public void invalidate(String username) {
+        if (username != null) {
+            refDbAuthorities.invalidate(username);
+            localUsers.invalidate(username);
+        }
+    }
+
+    public void invalidateAll() {
+        refDbAuthorities.invalidateAll();
+        localUsers.invalidateAll();
+    }
+
+    /**
+     * Immutable snapshot of an AppUser; a fresh UserDetails is built from it per login because Spring Security
+     * erases credentials on the UserDetails it authenticates.
+     */
+    public record LocalUser(String username, String passwordHash, Set<String> roles, boolean enabled) {
+        public LocalUser {
+            roles = roles == null ? Set.of() : Set.copyOf(roles);
+        }
+    }
+}
@@ -11,13 +11,21 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
+    private final JwtClaimsCache claimsCache;
 
     public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+        this(jwtUtil, null);
+    }
+
+    // With a cache the signature of a token is verified once per token lifetime instead of on every request
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, JwtClaimsCache claimsCache) {
         this.jwtUtil = jwtUtil;
+        this.claimsCache = claimsCache;
     }
 
     @Override
@@ -25,9 +33,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            if (jwtUtil.validateToken(token)) {
-                String username = jwtUtil.extractUsername(token);
-                List<SimpleGrantedAuthority> authorities = jwtUtil.extractRoles(token)
+            Optional<JwtUtil.VerifiedToken> verified = claimsCache != null ? claimsCache.resolve(token, jwtUtil::verify) : jwtUtil.verify(token);
+            if (verified.isPresent()) {
+                String username = verified.get().username();
+                List<SimpleGrantedAuthority> authorities = verified.get().roles()
                         .stream()
                         .map(SimpleGrantedAuthority::new)
                         .collect(Collectors.toList());
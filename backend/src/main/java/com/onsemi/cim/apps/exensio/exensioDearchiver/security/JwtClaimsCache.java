@@ -0,0 +1,123 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Verified access tokens keyed by the SHA-256 of the token.
+ *
+ * The UI polls status endpoints several times a second, and every request used to re-parse and re-verify the HMAC
+ * signature of the same token. An entry lives until its token expires (at most reloader.jwt.claims-cache.max-ttl-seconds)
+ * and the cache holds at most reloader.jwt.claims-cache.max-entries tokens. Invalid tokens are never cached.
+ * Revoking a user's refresh tokens evicts that user's entries; hit/miss counts are published as cache_gets{cache="jwt_claims"}.
+ */
+@Component
+public class JwtClaimsCache {
+    private final boolean enabled;
+    private final long maxTtlNanos;
+    private final Cache<String, JwtUtil.VerifiedToken> tokens;
+
+    @Autowired
+    public JwtClaimsCache(Environment env, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this(env, meterRegistryProvider.getIfAvailable());
+    }
+
+    JwtClaimsCache(Environment env, MeterRegistry meterRegistry) {
+        this.enabled = ConfigUtils.getBooleanFlag(env, "reloader.jwt.claims-cache.enabled", "JWT_CLAIMS_CACHE_ENABLED", true);
+        long maxEntries = Math.max(1, Long.parseLong(ConfigUtils.getString(env, "reloader.jwt.claims-cache.max-entries", null, "10000")));
+        this.maxTtlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, Long.parseLong(ConfigUtils.getString(env, "reloader.jwt.claims-cache.max-ttl-seconds", null, "900"))));
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, JwtUtil.VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, JwtUtil.VerifiedToken value, long currentTime) {
+                        return ttlNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, JwtUtil.VerifiedToken value, long currentTime, long currentDuration) {
+                        return ttlNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, JwtUtil.VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, tokens, "jwt_claims");
+        }
+    }
+
+    /**
+     * Cached claims of {@code token}, verifying it with {@code verifier} on a miss.
+     */
+    public Optional<JwtUtil.VerifiedToken> resolve(String token, Function<String, Optional<JwtUtil.VerifiedToken>> verifier) {
+        if (!enabled || token == null) {
+            return verifier.apply(token);
+        }
+        String key = hash(token);
+        JwtUtil.VerifiedToken cached = tokens.getIfPresent(key);
+        if (cached != null && !isExpired(cached)) {
+            return Optional.of(cached);
+        }
+        Optional<JwtUtil.VerifiedToken> verified = verifier.apply(token);
+        verified.ifPresent(v -> tokens.put(key, v));
+        return verified;
+    }
+
+    /**
+     * Drop every cached token of {@code username} so its next request is verified again.
+     */
+    public void invalidateUser(String username) {
+        if (username == null) {
+            return;
+        }
+        tokens.asMap().values().removeIf(v -> username.equals(v.username()));
+    }
+
+    long size() {
+        tokens.cleanUp();
+        return tokens.estimatedSize();
+    }
+
+    private long ttlNanos(JwtUtil.VerifiedToken value) {
+        if (value.expiresAt() == null) {
+            return maxTtlNanos;
+        }
+        long remaining = Duration.between(Instant.now(), value.expiresAt()).toNanos();
+        return Math.max(0, Math.min(maxTtlNanos, remaining));
+    }
+
+    private static boolean isExpired(JwtUtil.VerifiedToken value) {
+        return value.expiresAt() != null && !value.expiresAt().isAfter(Instant.now());
+    }
+
+    private static String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
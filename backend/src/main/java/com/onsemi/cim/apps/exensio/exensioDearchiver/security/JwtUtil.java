@@ -9,10 +9,12 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Component
@@ -91,17 +93,41 @@ public class JwtUtil {
     }
 
     public List<String> extractRoles(String token) {
+        try {
+            return rolesOf(parseClaims(token));
+        } catch (Exception e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Verify signature and expiry with a single parse and return subject, roles and expiry; empty when invalid.
+     */
+    public Optional<VerifiedToken> verify(String token) {
         try {
             Claims c = parseClaims(token);
-            Object roles = c.get("roles");
-            if (roles instanceof List<?>) {
-                return ((List<?>) roles).stream().map(String::valueOf).collect(Collectors.toList());
-            } else if (roles instanceof String) {
-                return List.of((String) roles);
-            } else {
-                return List.of();
+            Date exp = c.getExpiration();
+            if (exp != null && !exp.after(new Date())) {
+                return Optional.empty();
             }
+            return Optional.of(new VerifiedToken(c.getSubject(), rolesOf(c), exp == null ? null : exp.toInstant()));
         } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Claims of a verified access token; {@code expiresAt} is null for tokens without an expiration.
+     */
+    public record VerifiedToken(String username, List<String> roles, Instant expiresAt) {}
+
+    private static List<String> rolesOf(Claims c) {
+        Object roles = c.get("roles");
+        if (roles instanceof List<?>) {
+            return ((List<?>) roles).stream().map(String::valueOf).collect(Collectors.toList());
+        } else if (roles instanceof String) {
+            return List.of((String) roles);
+        } else {
             return List.of();
         }
     }
@@ -1,7 +1,7 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
 
-import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.AppUser;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.AppUserRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.security.AuthorityCache;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,22 +16,27 @@ import java.util.stream.Collectors;
 public class AppUserDetailsService implements UserDetailsService {
 
     private final AppUserRepository repo;
+    private final AuthorityCache authorityCache;
 
-    public AppUserDetailsService(AppUserRepository repo) {
+    public AppUserDetailsService(AppUserRepository repo, AuthorityCache authorityCache) {
         this.repo = repo;
+        this.authorityCache = authorityCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        AppUser u = repo.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        Collection<GrantedAuthority> authorities = u.getRoles().stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList());
-        return org.springframework.security.core.userdetails.User.withUsername(u.getUsername())
-                .password(u.getPasswordHash())
+        AuthorityCache.LocalUser u = authorityCache.localUser(username, name -> repo.findByUsername(name)
+                .map(user -> new AuthorityCache.LocalUser(user.getUsername(), user.getPasswordHash(), user.getRoles(), user.isEnabled()))
+                .orElse(null));
+        if (u == null) throw new UsernameNotFoundException("User not found");
+        Collection<GrantedAuthority> authorities = u.roles().stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+        return org.springframework.security.core.userdetails.User.withUsername(u.username())
+                .password(u.passwordHash())
                 .authorities(authorities)
                 .accountExpired(false)
                 .accountLocked(false)
                 .credentialsExpired(false)
-                .disabled(!u.isEnabled())
+                .disabled(!u.enabled())
                 .build();
     }
 }
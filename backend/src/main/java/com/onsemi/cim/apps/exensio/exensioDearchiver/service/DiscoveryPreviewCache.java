@@ -0,0 +1,88 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.DiscoveryProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-filter state of discovery previews: the total and the last row of every page served so far.
+ *
+ * Paging through a preview used to re-run the full COUNT(1) and an OFFSET query for each page. The total is now
+ * computed once per filter set, and page N+1 continues from the (end_time, id) of page N's last row instead of
+ * scanning and discarding the preceding rows. Entries expire after app.discovery.preview-cache-ttl-minutes without
+ * use, which bounds how stale a total can get while a user keeps paging.
+ */
+@Component
+public class DiscoveryPreviewCache {
+    // Cursors kept per filter set; deeper pages fall back to OFFSET
+    private static final int MAX_CURSORS = 1000;
+
+    private final Cache<Key, State> states;
+
+    public DiscoveryPreviewCache(DiscoveryProperties props) {
+        this.states = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, props.getPreviewCacheMaxEntries()))
+                .expireAfterAccess(Math.max(1, props.getPreviewCacheTtlMinutes()), TimeUnit.MINUTES)
+                .build();
+    }
+
+    public State state(Key key) {
+        return states.get(key, k -> new State());
+    }
+
+    /**
+     * Filter tuple identifying one preview; lot/wafer lists are compared by value.
+     */
+    public record Key(String site, String environment, LocalDateTime start, LocalDateTime end,
+                      List<String> lots, List<String> wafers,
+                      String testerType, String dataType, String testPhase, String location) {
+        public Key {
+            lots = lots == null ? List.of() : List.copyOf(lots.stream().map(v -> v == null ? "" : v).toList());
+            wafers = wafers == null ? List.of() : List.copyOf(wafers.stream().map(v -> v == null ? "" : v).toList());
+        }
+    }
+
+    /**
+     * Row count for a filter set; when {@code capped} the real count is greater than {@code value}.
+     */
+    public record Total(long value, boolean capped) {}
+
+    /**
+     * Sort position of the last row of a page (end_time desc, id desc).
+     */
+    public record Cursor(LocalDateTime endTime, String id) {}
+
+    public static final class State {
+        private volatile Total total;
+        private final Map<Long, Cursor> pageEnds = new ConcurrentHashMap<>();
+
+        public Total total() {
+            return total;
+        }
+
+        public void total(Total total) {
+            this.total = total;
+        }
+
+        public Cursor pageEnd(int size, int page) {
+            return pageEnds.get(pageKey(size, page));
+        }
+
+        public void pageEnd(int size, int page, Cursor cursor) {
+            if (pageEnds.size() < MAX_CURSORS || pageEnds.containsKey(pageKey(size, page))) {
+                pageEnds.put(pageKey(size, page), cursor);
+            }
+        }
+
+        private static long pageKey(int size, int page) {
+            return ((long) size << 32) | (page & 0xffffffffL);
+        }
+    }
+}
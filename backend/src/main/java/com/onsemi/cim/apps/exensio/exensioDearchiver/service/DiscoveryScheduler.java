@@ -11,10 +11,12 @@ public class DiscoveryScheduler {
     private final Logger log = LoggerFactory.getLogger(DiscoveryScheduler.class);
     private final MetadataImporterService importer;
     private final DiscoveryProperties props;
+    private final JobCoordinator coordinator;
 
-    public DiscoveryScheduler(MetadataImporterService importer, DiscoveryProperties props) {
+    public DiscoveryScheduler(MetadataImporterService importer, DiscoveryProperties props, JobCoordinator coordinator) {
         this.importer = importer;
         this.props = props;
+        this.coordinator = coordinator;
     }
 
     @Scheduled(cron = "${app.discovery.cron:0 */5 * * * *}")
@@ -28,6 +30,10 @@ public class DiscoveryScheduler {
             log.warn("Skipping scheduled discovery because no site is configured");
             return;
         }
+        if (!coordinator.isLeader(JobCoordinator.DISCOVERY)) {
+            log.debug("Skipping scheduled discovery; another node holds the lease");
+            return;
+        }
 
         try {
             log.info("Running scheduled discovery (site={}, senderId={})", site, props.getSenderId());
@@ -0,0 +1,57 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process coalescing queue of "site/sender has staged work" signals.
+ *
+ * Staging publishes a signal for every (site, sender) it touched; dispatch workers drain the queue and push
+ * immediately instead of waiting for the next scheduled poll. A key that is already waiting in the queue is not
+ * added twice, so a burst of staging calls for the same sender results in a single dispatch run.
+ */
+@Component
+public class DispatchSignalQueue {
+
+    private final BlockingQueue<Signal> queue = new LinkedBlockingQueue<>();
+    private final Set<Signal> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Record that the given site/sender has NEW staged rows. Returns false when an identical signal was already
+     * waiting (the request is coalesced into it).
+     */
+    public boolean signal(String site, int senderId) {
+        if (site == null || site.isBlank()) {
+            return false;
+        }
+        Signal signal = new Signal(site, senderId);
+        if (!pending.add(signal)) {
+            return false;
+        }
+        queue.offer(signal);
+        return true;
+    }
+
+    /**
+     * Wait up to the given timeout for the next signal. The signal is removed from the pending set before it is
+     * returned so that work staged while it is being dispatched schedules a follow-up run.
+     */
+    public Signal poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Signal signal = queue.poll(timeout, unit);
+        if (signal != null) {
+            pending.remove(signal);
+        }
+        return signal;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public record Signal(String site, int senderId) {}
+}
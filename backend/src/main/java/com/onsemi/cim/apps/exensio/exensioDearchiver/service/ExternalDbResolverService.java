@@ -2,6 +2,7 @@ package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
 
 import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.ExternalLocation;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalDbConfig;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload;
 import org.springframework.stereotype.Service;
 
 import java.sql.Connection;
@@ -16,8 +17,20 @@ public class ExternalDbResolverService {
     }
 
     public Connection resolveConnectionForLocation(ExternalLocation location, String environment) throws SQLException {
+        return resolveConnectionForLocation(location, environment, ExternalWorkload.INTERACTIVE);
+    }
+
+    public Connection resolveConnectionForLocation(ExternalLocation location, String environment, ExternalWorkload workload) throws SQLException {
         if (location == null) throw new SQLException("null location");
         String key = location.getDbConnectionName();
-        return externalDbConfig.getConnectionByKey(key, environment);
+        return externalDbConfig.getConnectionByKey(key, environment, workload);
+    }
+
+    /**
+     * Read-only connection for a location's connection key (readReplica endpoint when configured).
+     */
+    public Connection resolveReadConnectionForLocation(ExternalLocation location, String environment, ExternalWorkload workload) throws SQLException {
+        if (location == null) throw new SQLException("null location");
+        return externalDbConfig.getReadConnectionByKey(location.getDbConnectionName(), environment, workload);
     }
 }
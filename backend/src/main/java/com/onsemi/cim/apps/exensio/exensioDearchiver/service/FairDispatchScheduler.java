@@ -0,0 +1,125 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.RefDbProperties;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.StageRecord;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds dispatch batches with deficit round robin across (sender, requesting user) flows so that one large
+ * reload cannot starve small interactive requests on the same site.
+ *
+ * On its turn each backlogged flow earns credit equal to its weight (sender weight x user weight) and sends one
+ * row per credit. The rotation position (and the credit of a flow cut off by a full batch) is remembered per site
+ * and sender scope, so weights hold across batches even when the batch size is not a multiple of the total weight,
+ * and a sender-scoped batch (signalled dispatch) does not move the rotation of the site-wide batches.
+ */
+@Component
+public class FairDispatchScheduler {
+
+    private final RefDbProperties properties;
+    private final Map<CursorKey, Cursor> cursors = new ConcurrentHashMap<>();
+
+    public FairDispatchScheduler(RefDbProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Pick up to {@code limit} records from {@code candidates} for a site-wide batch. Candidates must be in per-flow
+     * FIFO order (any interleaving between flows is fine); the result keeps that order within each flow.
+     */
+    public List<StageRecord> select(String site, List<StageRecord> candidates, int limit) {
+        return select(site, null, candidates, limit);
+    }
+
+    /**
+     * Same as {@link #select(String, List, int)} for a batch scoped to {@code senderId} (null = site-wide); each
+     * scope keeps its own rotation position.
+     */
+    public List<StageRecord> select(String site, Integer senderId, List<StageRecord> candidates, int limit) {
+        if (candidates.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Map<Flow, Deque<StageRecord>> queues = new LinkedHashMap<>();
+        for (StageRecord record : candidates) {
+            queues.computeIfAbsent(Flow.of(record), key -> new ArrayDeque<>()).add(record);
+        }
+        List<Flow> rotation = new ArrayList<>(queues.keySet());
+        Cursor cursor = cursors.computeIfAbsent(new CursorKey(site, senderId), key -> new Cursor());
+        int position = 0;
+        int resumeCredit = 0;
+        synchronized (cursor) {
+            if (cursor.flow != null && rotation.contains(cursor.flow)) {
+                position = rotation.indexOf(cursor.flow);
+                resumeCredit = cursor.credit;
+            }
+        }
+
+        List<StageRecord> selected = new ArrayList<>(Math.min(limit, candidates.size()));
+        Flow stoppedAt = null;
+        int leftover = 0;
+        while (selected.size() < limit && !rotation.isEmpty()) {
+            position = position % rotation.size();
+            Flow flow = rotation.get(position);
+            Deque<StageRecord> queue = queues.get(flow);
+            int credit = resumeCredit > 0 ? resumeCredit : weight(flow);
+            resumeCredit = 0;
+            while (credit > 0 && !queue.isEmpty() && selected.size() < limit) {
+                selected.add(queue.poll());
+                credit--;
+            }
+            if (queue.isEmpty()) {
+                rotation.remove(position);
+                continue;
+            }
+            if (selected.size() >= limit && credit > 0) {
+                // Batch full in the middle of this flow's turn: it resumes with the remaining credit next time
+                stoppedAt = flow;
+                leftover = credit;
+                break;
+            }
+            position++;
+        }
+        synchronized (cursor) {
+            if (stoppedAt != null) {
+                cursor.flow = stoppedAt;
+                cursor.credit = leftover;
+            } else {
+                cursor.flow = rotation.isEmpty() ? null : rotation.get(position % rotation.size());
+                cursor.credit = 0;
+            }
+        }
+        return selected;
+    }
+
+    int weight(Flow flow) {
+        RefDbProperties.Fairness fairness = properties.getDispatch().getFairness();
+        int senderWeight = fairness.getSenderWeights().getOrDefault(Integer.toString(flow.senderId()), 1);
+        int userWeight = flow.user() == null ? 1 : fairness.getUserWeights().getOrDefault(flow.user(), 1);
+        return Math.max(1, senderWeight) * Math.max(1, userWeight);
+    }
+
+    private record CursorKey(String site, Integer senderId) {}
+
+    /**
+     * Where the next batch for a site (or site and sender) starts: the flow whose turn comes next and any credit it still holds.
+     */
+    private static final class Cursor {
+        private Flow flow;
+        private int credit;
+    }
+
+    record Flow(int senderId, String user) {
+        static Flow of(StageRecord record) {
+            String user = record.lastRequestedBy() != null ? record.lastRequestedBy() : record.stagedBy();
+            return new Flow(record.senderId(), user);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.RefDbProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket limiter for rows inserted into a site's remote DTP_SENDER_QUEUE_ITEM table.
+ *
+ * Each insert takes one token from the site bucket and one from the (site, sender) bucket; when a bucket is empty
+ * the caller sleeps until it refills. Limits come from {@code refdb.dispatch.rate-limit.*} and are disabled (no
+ * waiting at all) while the configured rate is 0. Permitted rows ({@code remote_queue_insert_rows}, whose rate is
+ * the granted insert rate) and throttled wait time are exported per site, the configured limit per bucket as
+ * {@code remote_queue_insert_rate_limit_configured}. Limits are read when a bucket is first used and are not reloaded at runtime.
+ */
+@Component
+public class InsertRateLimiter {
+
+    private final RefDbProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TokenBucket> siteBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> senderBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Counter> permittedCounters = new ConcurrentHashMap<>();
+    private final Map<String, Timer> waitTimers = new ConcurrentHashMap<>();
+
+    public InsertRateLimiter(RefDbProperties properties, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistryProvider.getIfAvailable();
+    }
+
+    /**
+     * Block until {@code rows} inserts for the site/sender are permitted. Returns the time spent waiting in
+     * milliseconds (0 when not throttled).
+     */
+    public long acquire(String site, int senderId, int rows) throws InterruptedException {
+        if (rows <= 0 || site == null) {
+            return 0L;
+        }
+        RefDbProperties.RateLimit limits = properties.getDispatch().getRateLimit();
+        long waitNanos = 0L;
+        if (limits.getSiteRowsPerSecond() > 0) {
+            TokenBucket bucket = siteBuckets.computeIfAbsent(site,
+                    key -> register(site, "site", "all", new TokenBucket(limits.getSiteRowsPerSecond(), limits.getSiteBurst())));
+            waitNanos = Math.max(waitNanos, bucket.reserve(rows));
+        }
+        if (limits.getSenderRowsPerSecond() > 0) {
+            TokenBucket bucket = senderBuckets.computeIfAbsent(site + "|" + senderId,
+                    key -> register(site, "sender", Integer.toString(senderId), new TokenBucket(limits.getSenderRowsPerSecond(), limits.getSenderBurst())));
+            waitNanos = Math.max(waitNanos, bucket.reserve(rows));
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+            recordWait(site, waitNanos);
+        }
+        recordPermitted(site, rows);
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos);
+    }
+
+    // One gauge per bucket; site buckets carry sender="all" so both scopes share the same tag keys
+    private TokenBucket register(String site, String scope, String sender, TokenBucket bucket) {
+        if (meterRegistry != null) {
+            try {
+                Gauge.builder("remote_queue_insert_rate_limit_configured", bucket, b -> b.ratePerSecond)
+                        .description("Configured insert rate limit (rows/sec) for the remote sender queue")
+                        .tag("site", site)
+                        .tag("scope", scope)
+                        .tag("sender", sender)
+                        .register(meterRegistry);
+            } catch (Exception ignored) {}
+        }
+        return bucket;
+    }
+
+    private void recordPermitted(String site, int rows) {
+        if (meterRegistry == null) {
+            return;
+        }
+        permittedCounters.computeIfAbsent(site, key -> Counter.builder("remote_queue_insert_rows")
+                .description("Rows permitted for insert into the remote sender queue")
+                .tag("site", key)
+                .register(meterRegistry)).increment(rows);
+    }
+
+    private void recordWait(String site, long waitNanos) {
+        if (meterRegistry == null) {
+            return;
+        }
+        waitTimers.computeIfAbsent(site, key -> Timer.builder("remote_queue_insert_throttle")
+                .description("Time spent waiting for insert rate limit tokens")
+                .tag("site", key)
+                .register(meterRegistry)).record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Reservation-style token bucket: a caller may take tokens the bucket does not yet hold and is told how long
+     * to wait for the debt to be repaid. This keeps ordering fair between threads without holding the lock while
+     * sleeping.
+     */
+    static final class TokenBucket {
+        private final double ratePerSecond;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(double ratePerSecond, int burst) {
+            this.ratePerSecond = ratePerSecond;
+            this.capacity = burst > 0 ? burst : Math.max(1.0, ratePerSecond);
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized long reserve(int permits) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerSecond / 1_000_000_000d);
+            lastRefill = now;
+            tokens -= permits;
+            if (tokens >= 0) {
+                return 0L;
+            }
+            return (long) Math.ceil(-tokens / ratePerSecond * 1_000_000_000d);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ClusterProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which replica runs each scheduled job family, using lease rows in the RefDB (SENDER_JOB_LEASE).
+ *
+ * Leader mode: a job family runs only on the node holding its lease; the holder renews it on every run and from
+ * the heartbeat, and another node takes over once it expires. Site sharding mode (dispatch and monitor only):
+ * every live node runs the job but only for the sites that hash to it, where live nodes are those with an
+ * unexpired {@code node:} lease.
+ */
+@Component
+public class JobCoordinator {
+    private static final Logger log = LoggerFactory.getLogger(JobCoordinator.class);
+    private static final String JOB_PREFIX = "job:";
+    private static final String NODE_PREFIX = "node:";
+
+    public static final String DISPATCH = "dispatch";
+    public static final String MONITOR = "monitor";
+    public static final String SENDER = "sender";
+    public static final String DISCOVERY = "discovery";
+    public static final String RETENTION = "retention";
+
+    private final RefDbService refDbService;
+    private final ClusterProperties properties;
+    private final String nodeId;
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> checkedAt = new ConcurrentHashMap<>();
+    private volatile List<String> liveNodes = List.of();
+
+    public JobCoordinator(RefDbService refDbService, ClusterProperties properties) {
+        this.refDbService = refDbService;
+        this.properties = properties;
+        this.nodeId = resolveNodeId(properties.getNodeId());
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public boolean isLeaseEnabled() {
+        return properties.isLeaseEnabled();
+    }
+
+    /**
+     * True when this node should run the given job family now. Always true with leases disabled.
+     */
+    public boolean isLeader(String job) {
+        if (!properties.isLeaseEnabled()) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        Long last = checkedAt.get(job);
+        if (last != null && now - last < properties.getHeartbeatMs()) {
+            return held.contains(job);
+        }
+        boolean acquired;
+        try {
+            acquired = refDbService.tryAcquireLease(JOB_PREFIX + job, nodeId, ttl());
+        } catch (Exception ex) {
+            log.warn("Lease check for job {} failed, skipping this run: {}", job, ex.getMessage());
+            acquired = false;
+        }
+        checkedAt.put(job, now);
+        if (acquired && held.add(job)) {
+            log.info("Node {} is now running scheduled job {}", nodeId, job);
+        } else if (!acquired && held.remove(job)) {
+            log.info("Node {} lost the lease for scheduled job {}", nodeId, job);
+        }
+        return acquired;
+    }
+
+    /**
+     * True when this node should process {@code site} for a site-scoped job. With sharding the site goes to one of
+     * the live nodes by hash; otherwise the job's leader handles every site.
+     */
+    public boolean shouldProcessSite(String job, String site) {
+        if (!properties.isLeaseEnabled()) {
+            return true;
+        }
+        if (!properties.isSiteSharding()) {
+            return isLeader(job);
+        }
+        List<String> nodes = liveNodes;
+        if (nodes.isEmpty()) {
+            heartbeat();
+            nodes = liveNodes;
+        }
+        if (nodes.isEmpty() || !nodes.contains(nodeId)) {
+            // Membership unknown (RefDB unavailable): fall back to leader election
+            return isLeader(job);
+        }
+        int owner = Math.floorMod(site == null ? 0 : site.hashCode(), nodes.size());
+        return nodeId.equals(nodes.get(owner));
+    }
+
+    /**
+     * Refresh node membership and renew the job leases this node holds, well before they expire.
+     */
+    @Scheduled(fixedDelayString = "${app.cluster.heartbeat-ms:30000}")
+    public void heartbeat() {
+        if (!properties.isLeaseEnabled()) {
+            return;
+        }
+        try {
+            if (properties.isSiteSharding()) {
+                refDbService.tryAcquireLease(NODE_PREFIX + nodeId, nodeId, ttl());
+                liveNodes = refDbService.findLiveLeaseOwners(NODE_PREFIX);
+            }
+            for (String job : held) {
+                if (!refDbService.tryAcquireLease(JOB_PREFIX + job, nodeId, ttl())) {
+                    held.remove(job);
+                    log.info("Node {} lost the lease for scheduled job {}", nodeId, job);
+                }
+                checkedAt.put(job, System.currentTimeMillis());
+            }
+        } catch (Exception ex) {
+            log.warn("Cluster heartbeat failed for node {}: {}", nodeId, ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (!properties.isLeaseEnabled()) {
+            return;
+        }
+        try {
+            for (String job : held) {
+                refDbService.releaseLease(JOB_PREFIX + job, nodeId);
+            }
+            refDbService.releaseLease(NODE_PREFIX + nodeId, nodeId);
+        } catch (Exception ex) {
+            log.debug("Failed releasing leases for node {}: {}", nodeId, ex.getMessage());
+        }
+        held.clear();
+    }
+
+    private Duration ttl() {
+        return Duration.ofMillis(Math.max(properties.getLeaseTtlMs(), properties.getHeartbeatMs() * 2));
+    }
+
+    private static String resolveNodeId(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return configured.trim();
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception ex) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,305 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous delivery for notification mail, so callers (discovery runs, /discover requests) never wait on the
+ * SMTP relay.
+ *
+ * Messages go to a bounded outbox (app.mail.outbox.capacity; new mail is dropped with a warning when full) drained
+ * by one sender thread through {@link MailService#deliver}. Failed deliveries are retried with exponential backoff
+ * up to max-attempts. Digest messages for the same recipient and key arriving within digest-window-ms are combined
+ * into one mail. Attachments are copied into spool-dir when queued (the source file may be rewritten by the next
+ * run), streamed from there at send time and removed afterwards.
+ *
+ * The outbox lives in memory only: mail still queued when the process dies is lost. Spool entries it leaves behind
+ * are removed at the next startup once they are older than the retry horizon (digest window plus every backoff),
+ * so entries of another instance sharing the spool-dir that may still be sent are left alone.
+ */
+@Service
+public class MailOutbox {
+    private static final Logger log = LoggerFactory.getLogger(MailOutbox.class);
+
+    private final MailService mailService;
+    private final int capacity;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long digestWindowMs;
+    private final Path spoolDir;
+    private final ScheduledExecutorService sender;
+    private final Map<DigestKey, List<Mail>> digests = new LinkedHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong digested = new AtomicLong();
+
+    public MailOutbox(MailService mailService, Environment env) {
+        this.mailService = mailService;
+        this.capacity = Math.max(1, Integer.parseInt(ConfigUtils.getString(env, "app.mail.outbox.capacity", null, "500")));
+        this.maxAttempts = Math.max(1, Integer.parseInt(ConfigUtils.getString(env, "app.mail.outbox.max-attempts", null, "5")));
+        this.backoffMs = Math.max(0L, Long.parseLong(ConfigUtils.getString(env, "app.mail.outbox.backoff-ms", null, "5000")));
+        this.digestWindowMs = Math.max(0L, Long.parseLong(ConfigUtils.getString(env, "app.mail.outbox.digest-window-ms", null, "60000")));
+        String spool = ConfigUtils.getString(env, "app.mail.outbox.spool-dir", null, "");
+        this.spoolDir = spool.isBlank() ? Path.of(System.getProperty("java.io.tmpdir"), "reloader-mail") : Path.of(spool);
+        java.util.concurrent.ScheduledThreadPoolExecutor executor = new java.util.concurrent.ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "mail-outbox");
+            t.setDaemon(true);
+            return t;
+        });
+        // Pending digest timers and retry backoffs are dropped on shutdown; open digests are flushed explicitly
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.sender = executor;
+        purgeStaleSpool();
+    }
+
+    /**
+     * Queue a single mail. Returns false when the outbox is full or the attachment could not be spooled.
+     */
+    public boolean enqueue(String to, String subject, String body, Path attachment) {
+        Mail mail = accept(to, subject, body, attachment);
+        if (mail == null) {
+            return false;
+        }
+        sender.execute(() -> attempt(mail));
+        return true;
+    }
+
+    /**
+     * Queue a mail that may be combined with other {@code digestKey} mail to the same recipient: everything
+     * queued within digest-window-ms of the first one goes out as a single message.
+     */
+    public boolean enqueueDigest(String digestKey, String to, String subject, String body, Path attachment) {
+        if (digestWindowMs == 0) {
+            return enqueue(to, subject, body, attachment);
+        }
+        Mail mail = accept(to, subject, body, attachment);
+        if (mail == null) {
+            return false;
+        }
+        DigestKey key = new DigestKey(to.trim().toLowerCase(java.util.Locale.ROOT), digestKey);
+        synchronized (digests) {
+            List<Mail> bucket = digests.get(key);
+            if (bucket == null) {
+                bucket = new ArrayList<>();
+                digests.put(key, bucket);
+                sender.schedule(() -> flushDigest(key), digestWindowMs, TimeUnit.MILLISECONDS);
+            }
+            bucket.add(mail);
+        }
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("pending", pending.get());
+        out.put("capacity", capacity);
+        out.put("sent", sent.get());
+        out.put("retried", retried.get());
+        out.put("failed", failed.get());
+        out.put("rejected", rejected.get());
+        out.put("digested", digested.get());
+        return out;
+    }
+
+    private Mail accept(String to, String subject, String body, Path attachment) {
+        if (to == null || to.isBlank()) {
+            return null;
+        }
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            rejected.incrementAndGet();
+            log.warn("Mail outbox full ({} pending); dropping mail to {} subject={}", capacity, to, subject);
+            return null;
+        }
+        List<Path> attachments = new ArrayList<>(1);
+        if (attachment != null && Files.exists(attachment)) {
+            Path dir = null;
+            try {
+                dir = Files.createDirectories(spoolDir.resolve(UUID.randomUUID().toString()));
+                attachments.add(Files.copy(attachment, dir.resolve(attachment.getFileName()), StandardCopyOption.REPLACE_EXISTING));
+            } catch (IOException e) {
+                log.warn("Failed spooling attachment {} for mail to {}; sending without it: {}", attachment, to, e.getMessage());
+                if (dir != null) {
+                    deleteSpoolEntry(dir);
+                }
+            }
+        }
+        return new Mail(to, subject, body, attachments, 1);
+    }
+
+    private void flushDigest(DigestKey key) {
+        List<Mail> bucket;
+        synchronized (digests) {
+            bucket = digests.remove(key);
+        }
+        if (bucket == null || bucket.isEmpty()) {
+            return;
+        }
+        if (bucket.size() == 1) {
+            attempt(bucket.get(0));
+            return;
+        }
+        StringBuilder body = new StringBuilder();
+        List<Path> attachments = new ArrayList<>();
+        java.util.Set<String> names = new java.util.HashSet<>();
+        for (Mail mail : bucket) {
+            body.append("== ").append(mail.subject()).append(" ==\n").append(mail.body()).append("\n\n");
+            for (Path attachment : mail.attachments()) {
+                attachments.add(uniqueName(attachment, names));
+            }
+        }
+        String subject = "Reloader: " + bucket.size() + " " + key.digestKey() + " notifications";
+        // The combined mail stands for every queued one; pending drops to one entry for it
+        pending.addAndGet(1 - bucket.size());
+        digested.addAndGet(bucket.size());
+        attempt(new Mail(bucket.get(0).to(), subject, body.toString().stripTrailing(), attachments, 1));
+    }
+
+    private void attempt(Mail mail) {
+        int attempt = mail.attempt();
+        try {
+            if (mailService.deliver(mail.to(), mail.subject(), mail.body(), mail.attachments())) {
+                sent.incrementAndGet();
+            }
+            finish(mail);
+        } catch (Exception ex) {
+            if (attempt >= maxAttempts || sender.isShutdown()) {
+                failed.incrementAndGet();
+                log.error("Giving up on mail to {} subject={} after {} attempts: {}", mail.to(), mail.subject(), attempt, ex.getMessage());
+                finish(mail);
+                return;
+            }
+            long delay = backoffMs * (1L << Math.min(attempt - 1, 10));
+            retried.incrementAndGet();
+            log.warn("Mail to {} subject={} failed (attempt {}/{}), retrying in {} ms: {}", mail.to(), mail.subject(), attempt, maxAttempts, delay, ex.getMessage());
+            Mail next = new Mail(mail.to(), mail.subject(), mail.body(), mail.attachments(), attempt + 1);
+            sender.schedule(() -> attempt(next), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Digests can carry several attachments with the same file name (sender_list_<id>.txt); number the repeats
+    private static Path uniqueName(Path attachment, java.util.Set<String> names) {
+        String name = attachment.getFileName().toString();
+        if (names.add(name)) {
+            return attachment;
+        }
+        int dot = name.lastIndexOf('.');
+        String renamed = name;
+        for (int n = 2; !names.add(renamed); n++) {
+            renamed = dot > 0 ? name.substring(0, dot) + "-" + n + name.substring(dot) : name + "-" + n;
+        }
+        try {
+            return Files.move(attachment, attachment.resolveSibling(renamed));
+        } catch (IOException e) {
+            return attachment;
+        }
+    }
+
+    private void finish(Mail mail) {
+        pending.decrementAndGet();
+        for (Path attachment : mail.attachments()) {
+            try {
+                Files.deleteIfExists(attachment);
+                Files.deleteIfExists(attachment.getParent());
+            } catch (IOException e) {
+                log.debug("Failed removing spooled attachment {}: {}", attachment, e.getMessage());
+            }
+        }
+    }
+
+    // Longest time a spooled attachment can legitimately wait: the digest window plus the backoff before every retry
+    private long retryHorizonMs() {
+        long horizon = digestWindowMs;
+        for (int attempt = 1; attempt < maxAttempts; attempt++) {
+            horizon += backoffMs * (1L << Math.min(attempt - 1, 10));
+        }
+        return horizon;
+    }
+
+    private void purgeStaleSpool() {
+        if (!Files.isDirectory(spoolDir)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - retryHorizonMs();
+        int removed = 0;
+        try (java.util.stream.Stream<Path> entries = Files.list(spoolDir)) {
+            for (Path entry : (Iterable<Path>) entries::iterator) {
+                try {
+                    if (Files.getLastModifiedTime(entry).toMillis() < cutoff) {
+                        deleteSpoolEntry(entry);
+                        removed++;
+                    }
+                } catch (IOException e) {
+                    log.debug("Failed checking spool entry {}: {}", entry, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed scanning mail spool {}: {}", spoolDir, e.getMessage());
+        }
+        if (removed > 0) {
+            log.info("Removed {} stale mail spool entries from {}", removed, spoolDir);
+        }
+    }
+
+    // A spool entry is one directory holding the copied attachment(s)
+    private static void deleteSpoolEntry(Path entry) {
+        try {
+            if (Files.isDirectory(entry)) {
+                try (java.util.stream.Stream<Path> files = Files.list(entry)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+            Files.deleteIfExists(entry);
+        } catch (IOException e) {
+            log.debug("Failed removing spool entry {}: {}", entry, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Send open digests now rather than losing them with the scheduled flush
+        List<DigestKey> open;
+        synchronized (digests) {
+            open = new ArrayList<>(digests.keySet());
+        }
+        for (DigestKey key : open) {
+            sender.execute(() -> flushDigest(key));
+        }
+        sender.shutdown();
+        try {
+            if (!sender.awaitTermination(10, TimeUnit.SECONDS)) {
+                sender.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            sender.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record DigestKey(String recipient, String digestKey) {}
+
+    private record Mail(String to, String subject, String body, List<Path> attachments, int attempt) {}
+}
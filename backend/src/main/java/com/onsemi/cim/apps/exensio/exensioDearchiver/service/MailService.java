@@ -58,29 +58,31 @@ public class MailService {
     }
 
     /**
-     * Send mail with a single file attachment. If Mime support isn't available the body-only fallback will be tried.
+     * Plain-text mail with any number of file attachments, streamed from disk while the message is written to the
+     * relay. Unlike {@link #send} failures are thrown so callers such as {@link MailOutbox} can retry; returns false
+     * when no mail sender is configured.
      */
-    public void sendWithAttachment(String to, String subject, String body, java.nio.file.Path attachmentPath) {
+    public boolean deliver(String to, String subject, String body, java.util.List<java.nio.file.Path> attachments) throws jakarta.mail.MessagingException {
         if (mailSender == null) {
             log.info("MailSender not configured; skipping mail to {} subject={}", to, subject);
-            return;
+            return false;
         }
-        try {
-            MimeMessage mime = ((JavaMailSender) mailSender).createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mime, true);
-            if (fromAddress != null && !fromAddress.isBlank()) helper.setFrom(fromAddress);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(body, false);
-            if (attachmentPath != null && java.nio.file.Files.exists(attachmentPath)) {
-                helper.addAttachment(attachmentPath.getFileName().toString(), attachmentPath.toFile());
+        boolean multipart = attachments != null && !attachments.isEmpty();
+        MimeMessage mime = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mime, multipart, "UTF-8");
+        if (fromAddress != null && !fromAddress.isBlank()) helper.setFrom(fromAddress);
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(body, false);
+        if (multipart) {
+            for (java.nio.file.Path attachment : attachments) {
+                if (java.nio.file.Files.exists(attachment)) {
+                    helper.addAttachment(attachment.getFileName().toString(), new org.springframework.core.io.FileSystemResource(attachment));
+                }
             }
-            ((JavaMailSender) mailSender).send(mime);
-            log.info("Sent mail with attachment to {} subject={}", to, subject);
-        } catch (Exception ex) {
-            log.warn("Failed to send mail with attachment to {} subject={}: {}", to, subject, ex.getMessage(), ex);
-            // try simple send as fallback
-            send(to, subject, body + "\n\n(attachment failed: " + ex.getMessage() + ")");
         }
+        mailSender.send(mime);
+        log.info("Sent mail to {} subject={} attachments={}", to, subject, multipart ? attachments.size() : 0);
+        return true;
     }
 }
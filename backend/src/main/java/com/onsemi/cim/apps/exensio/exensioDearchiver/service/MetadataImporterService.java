@@ -1,11 +1,13 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
 
 import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalDbConfig;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.ExternalLocation;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.ExternalLocationRepository;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.ExternalMetadataRepository;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.MetadataRow;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.DuplicatePayload;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.DuplicateReport;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.PayloadCandidate;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.StageResult;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto.DiscoveryPreviewResponse;
@@ -19,8 +21,6 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -36,31 +36,37 @@ public class MetadataImporterService {
     private final ExternalDbConfig externalDbConfig;
     private final RefDbService refDbService;
     private final SenderService senderService;
-    private final MailService mailService;
+    private final MailOutbox mailOutbox;
     private final com.onsemi.cim.apps.exensio.exensioDearchiver.config.DiscoveryProperties discoveryProps;
     private final ExternalMetadataRepository externalMetadataRepository;
     private final ExternalLocationRepository externalLocationRepository;
     private final ExternalDbResolverService externalDbResolverService;
     private final org.springframework.core.env.Environment env;
+    private final QueueDepthTracker queueDepth;
+    private final DiscoveryPreviewCache previewCache;
 
     public MetadataImporterService(ExternalDbConfig externalDbConfig,
                                    RefDbService refDbService,
                                    SenderService senderService,
-                                   MailService mailService,
+                                   MailOutbox mailOutbox,
                                    com.onsemi.cim.apps.exensio.exensioDearchiver.config.DiscoveryProperties discoveryProps,
                                    ExternalMetadataRepository externalMetadataRepository,
                                    ExternalLocationRepository externalLocationRepository,
                                    ExternalDbResolverService externalDbResolverService,
-                                   org.springframework.core.env.Environment env) {
+                                   org.springframework.core.env.Environment env,
+                                   QueueDepthTracker queueDepth,
+                                   DiscoveryPreviewCache previewCache) {
         this.externalDbConfig = externalDbConfig;
         this.refDbService = refDbService;
         this.senderService = senderService;
-        this.mailService = mailService;
+        this.mailOutbox = mailOutbox;
         this.discoveryProps = discoveryProps;
         this.externalMetadataRepository = externalMetadataRepository;
         this.externalLocationRepository = externalLocationRepository;
         this.externalDbResolverService = externalDbResolverService;
         this.env = env;
+        this.queueDepth = queueDepth;
+        this.previewCache = previewCache;
     }
 
     // Helper used by controller to find location by id
@@ -69,13 +75,13 @@ public class MetadataImporterService {
     }
 
     public java.sql.Connection resolveConnectionForLocation(com.onsemi.cim.apps.exensio.exensioDearchiver.entity.ExternalLocation location, String environment) throws java.sql.SQLException {
-        return externalDbResolverService.resolveConnectionForLocation(location, environment);
+        return externalDbResolverService.resolveReadConnectionForLocation(location, environment, ExternalWorkload.INTERACTIVE);
     }
 
     // Resolve a Connection directly by a configured connection key (db_connection_name)
     // This lets callers provide a connection key instead of a saved ExternalLocation id.
     public java.sql.Connection resolveConnectionForKey(String key, String environment) throws java.sql.SQLException {
-        return externalDbConfig.getConnectionByKey(key, environment);
+        return externalDbConfig.getReadConnectionByKey(key, environment, ExternalWorkload.INTERACTIVE);
     }
 
     public java.util.List<com.onsemi.cim.apps.exensio.exensioDearchiver.repository.SenderCandidate> findSendersWithConnection(java.sql.Connection c, String location, String dataType, String testerType, String testPhase) {
@@ -122,14 +128,15 @@ public class MetadataImporterService {
     }
 
     /**
-     * Discover metadata rows from external site and enqueue into local sender queue.
-     * Returns number enqueued.
+     * One page of discovery candidates. The total is computed once per filter set and reused while the preview is
+     * paged ({@code countMode} "fast" caps it at app.discovery.preview-count-cap); pages after one already served
+     * continue from its last (end_time, id) instead of an OFFSET scan.
      */
     public DiscoveryPreviewResponse previewMetadata(String site, String environment, Integer senderId,
                                                     String startDate, String endDate,
                                                     java.util.List<String> lots, java.util.List<String> wafers,
                                                     String testerType, String dataType, String testPhase,
-                                                    String location, int page, int size) {
+                                                    String location, int page, int size, String countMode) {
         if (site == null || site.isBlank()) {
             throw new IllegalArgumentException("site is required");
         }
@@ -140,24 +147,59 @@ public class MetadataImporterService {
         int resolvedSize = size <= 0 ? 50 : Math.min(size, 500);
         int resolvedPage = Math.max(page, 0);
         int offset = resolvedPage * resolvedSize;
+        String mode = (countMode == null || countMode.isBlank()) ? discoveryProps.getPreviewCountMode() : countMode;
+        boolean fastCount = "fast".equalsIgnoreCase(mode);
 
         LocalDateTime lstart = resolveStart(startDate);
         LocalDateTime lend = resolveEnd(endDate);
 
-    long total = externalMetadataRepository.countMetadata(site, resolvedEnv, lstart, lend, dataType, testPhase, testerType, location, lots, wafers);
-    List<MetadataRow> rows = externalMetadataRepository.findMetadataPage(site, resolvedEnv, lstart, lend, dataType, testPhase, testerType, location, lots, wafers, offset, resolvedSize);
-    String debugSql = externalMetadataRepository.describePreviewQuery(lstart, lend, dataType, testPhase, testerType, location, lots, wafers, offset, resolvedSize);
+        DiscoveryPreviewCache.State state = previewCache.state(new DiscoveryPreviewCache.Key(site, resolvedEnv, lstart, lend, lots, wafers, testerType, dataType, testPhase, location));
+        DiscoveryPreviewCache.Total total = state.total();
+        if (total == null || (total.capped() && !fastCount)) {
+            if (fastCount) {
+                long cap = Math.max(1, discoveryProps.getPreviewCountCap());
+                long counted = externalMetadataRepository.countMetadataCapped(site, resolvedEnv, lstart, lend, dataType, testPhase, testerType, location, lots, wafers, cap);
+                total = counted > cap ? new DiscoveryPreviewCache.Total(cap, true) : new DiscoveryPreviewCache.Total(counted, false);
+            } else {
+                total = new DiscoveryPreviewCache.Total(externalMetadataRepository.countMetadata(site, resolvedEnv, lstart, lend, dataType, testPhase, testerType, location, lots, wafers), false);
+            }
+            state.total(total);
+        }
+
+        DiscoveryPreviewCache.Cursor after = resolvedPage == 0 ? null : state.pageEnd(resolvedSize, resolvedPage - 1);
+        List<MetadataRow> rows;
+        String debugSql;
+        if (resolvedPage == 0 || after != null) {
+            LocalDateTime afterEndTime = after == null ? null : after.endTime();
+            String afterId = after == null ? null : after.id();
+            rows = externalMetadataRepository.findMetadataPageAfter(site, resolvedEnv, lstart, lend, dataType, testPhase, testerType, location, lots, wafers, afterEndTime, afterId, resolvedSize);
+            debugSql = externalMetadataRepository.describePreviewQueryAfter(lstart, lend, dataType, testPhase, testerType, location, lots, wafers, afterEndTime, afterId, resolvedSize);
+        } else {
+            // Jump to a page whose predecessor was never served: position by OFFSET once, keyset from here on
+            rows = externalMetadataRepository.findMetadataPage(site, resolvedEnv, lstart, lend, dataType, testPhase, testerType, location, lots, wafers, offset, resolvedSize);
+            debugSql = externalMetadataRepository.describePreviewQuery(lstart, lend, dataType, testPhase, testerType, location, lots, wafers, offset, resolvedSize);
+        }
+        if (!rows.isEmpty()) {
+            MetadataRow last = rows.get(rows.size() - 1);
+            if (last.getEndTime() != null && last.getId() != null) {
+                state.pageEnd(resolvedSize, resolvedPage, new DiscoveryPreviewCache.Cursor(last.getEndTime(), last.getId()));
+            }
+        }
 
         List<DiscoveryPreviewRow> items = rows.stream()
                 .map(row -> new DiscoveryPreviewRow(nullSafe(row.getId()), nullSafe(row.getIdData()), nullSafe(row.getLot()), toIsoString(row.getEndTime())))
                 .toList();
 
         if (log.isDebugEnabled()) {
-            log.debug("Preview result total={} page={} size={} returned={}", total, resolvedPage, resolvedSize, items.size());
+            log.debug("Preview result total={}{} page={} size={} returned={} keyset={}", total.value(), total.capped() ? "+" : "", resolvedPage, resolvedSize, items.size(), resolvedPage == 0 || after != null);
         }
-        return new DiscoveryPreviewResponse(items, total, resolvedPage, resolvedSize, debugSql);
+        return new DiscoveryPreviewResponse(items, total.value(), resolvedPage, resolvedSize, debugSql, total.capped());
     }
 
+    /**
+     * Discover metadata rows from external site and enqueue into local sender queue.
+     * Returns number enqueued.
+     */
     public int discoverAndEnqueue(String site, String environment, Integer senderId, String startDate, String endDate,
                                   String testerType, String dataType, String testPhase, String location, Long locationId, boolean writeListFile,
                                   int numberOfDataToSend, int countLimitTrigger) {
@@ -168,13 +210,18 @@ public class MetadataImporterService {
 
         final int resolvedSenderId = senderId;
         final int batchSize = 200;
+        final int enqueueChunkSize = Math.max(1, discoveryProps.getEnqueueChunkSize());
         final List<PayloadCandidate> batch = new ArrayList<>(batchSize);
+        final List<String> enqueueChunk = new ArrayList<>(Math.min(enqueueChunkSize, 10_000));
         Path listFilePath = null;
         final BufferedWriter[] bwRef = new BufferedWriter[1];
-        final int[] discoveredCount = {0};
+        final long[] discoveredCount = {0};
         final int[] stagedCount = {0};
-        final java.util.List<DuplicatePayload> duplicatesOverall = new java.util.ArrayList<>();
-        final java.util.List<String> enqueuePayloadIds = new java.util.ArrayList<>();
+        final long[] enqueuedCount = {0};
+        // Only counts and a capped sample stay in memory; the full duplicate list spills to a file on large runs
+        final DuplicateReport duplicates = new DuplicateReport(discoveryProps.getDuplicateSampleSize(),
+                Path.of(String.format("sender_duplicates_%s.txt", Integer.toString(resolvedSenderId))),
+                this::formatDuplicateForNotification);
 
         try {
             if (writeListFile) {
@@ -185,46 +232,26 @@ public class MetadataImporterService {
             LocalDateTime lstart = resolveStart(startDate);
             LocalDateTime lend = resolveEnd(endDate);
 
-            // Pre-check external queue size via resolved external connection
+            // Pre-check external queue size (served from the shared depth cache when fresh)
+            final String depthScope;
+            final QueueDepthTracker.ConnectionSource depthSource;
             if (locationId != null) {
                 ExternalLocation loc = externalLocationRepository.findById(locationId).orElse(null);
                 if (loc == null) {
                     log.warn("External location id {} not found, aborting discovery", locationId);
                     return 0;
                 }
-                try (Connection c = externalDbResolverService.resolveConnectionForLocation(loc, environment)) {
-                    String countSql = "select count(id) as count from DTP_SENDER_QUEUE_ITEM where id_sender=?";
-                    try (PreparedStatement cps = c.prepareStatement(countSql)) {
-                        cps.setString(1, Integer.toString(resolvedSenderId));
-                        try (ResultSet crs = cps.executeQuery()) {
-                            if (crs.next()) {
-                                int existing = crs.getInt(1);
-                                log.info("External queue size for sender {} is {}", resolvedSenderId, existing);
-                                if (existing >= countLimitTrigger) {
-                                    log.info("Queue above threshold ({} >= {}), skipping discovery", existing, countLimitTrigger);
-                                    return 0;
-                                }
-                            }
-                        }
-                    }
-                }
+                depthScope = depthScopeKey("location:" + locationId, environment);
+                depthSource = () -> externalDbResolverService.resolveConnectionForLocation(loc, environment, ExternalWorkload.MONITOR);
             } else {
-                try (Connection c = externalDbConfig.getConnection(site, environment)) {
-                    String countSql = "select count(id) as count from DTP_SENDER_QUEUE_ITEM where id_sender=?";
-                    try (PreparedStatement cps = c.prepareStatement(countSql)) {
-                        cps.setString(1, Integer.toString(resolvedSenderId));
-                        try (ResultSet crs = cps.executeQuery()) {
-                            if (crs.next()) {
-                                int existing = crs.getInt(1);
-                                log.info("External queue size for sender {} is {}", resolvedSenderId, existing);
-                                if (existing >= countLimitTrigger) {
-                                    log.info("Queue above threshold ({} >= {}), skipping discovery", existing, countLimitTrigger);
-                                    return 0;
-                                }
-                            }
-                        }
-                    }
-                }
+                depthScope = depthScopeKey(site, environment);
+                depthSource = () -> externalDbConfig.getConnection(site, environment, ExternalWorkload.MONITOR);
+            }
+            int existing = queueDepth.depth(depthScope, resolvedSenderId, depthSource);
+            log.info("External queue size for sender {} is {}", resolvedSenderId, existing);
+            if (existing >= countLimitTrigger) {
+                log.info("Queue above threshold ({} >= {}), skipping discovery", existing, countLimitTrigger);
+                return 0;
             }
 
             final int maxToStage = numberOfDataToSend > 0 ? numberOfDataToSend : Integer.MAX_VALUE;
@@ -240,14 +267,15 @@ public class MetadataImporterService {
                 if (metadataIdValue == null || metadataIdValue.isBlank() || dataIdValue == null || dataIdValue.isBlank()) {
                     return;
                 }
-                enqueuePayloadIds.add(payload);
+                enqueueChunk.add(payload);
                 batch.add(new PayloadCandidate(metadataIdValue, dataIdValue));
                 if (batch.size() >= batchSize) {
                     StageResult result = stageCurrentBatch(site, resolvedSenderId, batch);
                     stagedCount[0] += result.stagedCount();
-                    if (!result.duplicates().isEmpty()) {
-                        duplicatesOverall.addAll(result.duplicates());
-                    }
+                    duplicates.addAll(result.duplicates());
+                }
+                if (enqueueChunk.size() >= enqueueChunkSize) {
+                    enqueuedCount[0] += enqueueDiscovered(resolvedSenderId, enqueueChunk);
                 }
             };
 
@@ -257,25 +285,27 @@ public class MetadataImporterService {
                 if (loc == null) {
                     log.warn("External location id {} not found, aborting discovery", locationId);
                 } else {
-                    try (Connection conn = externalDbResolverService.resolveConnectionForLocation(loc, environment)) {
+                    try (Connection conn = externalDbResolverService.resolveReadConnectionForLocation(loc, environment, ExternalWorkload.DISCOVERY)) {
                         externalMetadataRepository.streamMetadataWithConnection(conn, lstart, lend, dataType, testPhase, testerType, location, null, null, maxToStage, processor);
                     }
                 }
             } else {
-                externalMetadataRepository.streamMetadata(site, environment, lstart, lend, dataType, testPhase, testerType, location, null, null, maxToStage, processor);
+                try (Connection conn = externalDbConfig.getReadConnection(site, environment, ExternalWorkload.DISCOVERY)) {
+                    externalMetadataRepository.streamMetadataWithConnection(conn, lstart, lend, dataType, testPhase, testerType, location, null, null, maxToStage, processor);
+                }
             }
 
             StageResult tail = stageCurrentBatch(site, resolvedSenderId, batch);
             stagedCount[0] += tail.stagedCount();
-            if (!tail.duplicates().isEmpty()) {
-                duplicatesOverall.addAll(tail.duplicates());
-            }
+            duplicates.addAll(tail.duplicates());
+            enqueuedCount[0] += enqueueDiscovered(resolvedSenderId, enqueueChunk);
 
         } catch (Exception ex) {
             log.error("Failed to discover metadata from site {}: {}", site, ex.getMessage(), ex);
             return 0;
         } finally {
             if (bwRef[0] != null) try { bwRef[0].close(); } catch (Exception ignore) {}
+            duplicates.close();
         }
 
         if (discoveredCount[0] == 0) {
@@ -283,15 +313,9 @@ public class MetadataImporterService {
             return 0;
         }
 
-        if (!enqueuePayloadIds.isEmpty()) {
-            try {
-                senderService.enqueuePayloadsWithResult(resolvedSenderId, enqueuePayloadIds, "metadata_discover");
-            } catch (Exception ex) {
-                log.warn("Failed enqueueing {} payloads for sender {} after discovery: {}", enqueuePayloadIds.size(), resolvedSenderId, ex.getMessage());
-            }
-        }
-
-    log.info("Discovered {} rows and staged {} payloads for sender {}. Skipped {} duplicates.", discoveredCount[0], stagedCount[0], resolvedSenderId, duplicatesOverall.size());
+        Path duplicatesFile = duplicates.spillFile();
+        log.info("Discovered {} rows, staged {} and enqueued {} payloads for sender {}. Skipped {} duplicates.{}", discoveredCount[0], stagedCount[0], enqueuedCount[0], resolvedSenderId, duplicates.count(),
+                duplicatesFile == null ? "" : " Full duplicate list: " + duplicatesFile.toAbsolutePath());
 
         // Notification: prefer discovery properties, then fallback to env var
         String recipient = discoveryProps.getNotifyRecipient();
@@ -302,25 +326,43 @@ public class MetadataImporterService {
             String subj = String.format("Reloader: discovery complete for sender %s", resolvedSenderId);
             StringBuilder body = new StringBuilder();
             body.append(String.format("Discovered %d rows and staged %d payloads for sender %s", discoveredCount[0], stagedCount[0], resolvedSenderId));
-            if (!duplicatesOverall.isEmpty()) {
-                body.append(". Skipped ").append(duplicatesOverall.size()).append(" duplicate items:\n");
-                int c = 0;
-                for (DuplicatePayload duplicate : duplicatesOverall) {
-                    if (c++ >= 50) { body.append("... (truncated)\n"); break; }
+            if (duplicates.count() > 0) {
+                body.append(". Skipped ").append(duplicates.count()).append(" duplicate items:\n");
+                for (DuplicatePayload duplicate : duplicates.samples()) {
                     body.append(formatDuplicateForNotification(duplicate)).append("\n");
                 }
+                if (duplicates.count() > duplicates.samples().size()) {
+                    body.append("... (truncated");
+                    if (duplicatesFile != null) {
+                        body.append(", full list in ").append(duplicatesFile.toAbsolutePath());
+                    }
+                    body.append(")\n");
+                }
             }
             boolean attach = discoveryProps.isNotifyAttachList();
-            if (attach && listFilePath != null) {
-                mailService.sendWithAttachment(recipient, subj, body.toString(), listFilePath);
-            } else {
-                mailService.send(recipient, subj, body.toString());
-            }
+            // Queued, not sent: completions for the same recipient within the digest window go out as one mail
+            mailOutbox.enqueueDigest("discovery", recipient, subj, body.toString(), attach ? listFilePath : null);
         }
 
         return stagedCount[0];
     }
 
+    // Enqueue one chunk in its own transaction so the persistence context never holds more than a chunk of entries
+    private int enqueueDiscovered(int senderId, List<String> chunk) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        try {
+            SenderService.EnqueueResultHolder result = senderService.enqueuePayloadsWithResult(senderId, new ArrayList<>(chunk), "metadata_discover");
+            return result == null ? 0 : result.enqueuedCount;
+        } catch (Exception ex) {
+            log.warn("Failed enqueueing {} payloads for sender {} after discovery: {}", chunk.size(), senderId, ex.getMessage());
+            return 0;
+        } finally {
+            chunk.clear();
+        }
+    }
+
     private StageResult stageCurrentBatch(String site, int senderId, List<PayloadCandidate> batch) {
         if (batch == null || batch.isEmpty()) {
             return StageResult.empty();
@@ -371,6 +413,11 @@ public class MetadataImporterService {
         return sb.toString();
     }
 
+    private String depthScopeKey(String scope, String environment) {
+        // Same naming as the external pool keys so the dispatcher (default environment) shares entries by site
+        return environment != null && !environment.isBlank() ? scope + "-" + environment : scope;
+    }
+
     private String nullSafe(String value) {
         if (value == null) {
             return null;
@@ -0,0 +1,159 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.RefDbProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory view of the remote DTP_SENDER_QUEUE_ITEM depth per (scope, sender).
+ *
+ * Capacity checks read the cached depth instead of issuing a COUNT on every call. Known inserts raise the value
+ * locally. Nothing here learns when the remote sender removes rows, so the value only goes down when it is
+ * recounted: the queue monitor overwrites it whenever it has read the full queue, a background refresher recounts
+ * entries that are in use every {@code refdb.dispatch.depth-refresh-ms}, and a capacity check counts synchronously
+ * when an entry is missing or older than {@code refdb.dispatch.depth-max-age-ms}. Until then a drained queue
+ * still reads as full.
+ *
+ * The scope is the external connection identity used by the caller (normally the site name).
+ */
+@Component
+public class QueueDepthTracker {
+    private static final Logger log = LoggerFactory.getLogger(QueueDepthTracker.class);
+    private static final String COUNT_SQL = "SELECT COUNT(1) FROM DTP_SENDER_QUEUE_ITEM WHERE id_sender = ?";
+
+    @FunctionalInterface
+    public interface ConnectionSource {
+        Connection open() throws SQLException;
+    }
+
+    private final RefDbProperties properties;
+    private final Map<Key, Depth> depths = new ConcurrentHashMap<>();
+
+    public QueueDepthTracker(RefDbProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Current depth for the sender, counting through {@code source} only when no sufficiently fresh value is cached.
+     * Returns 0 when the count fails, matching the previous fail-open capacity checks.
+     */
+    public int depth(String scope, int senderId, ConnectionSource source) {
+        Key key = new Key(scope, senderId);
+        Depth depth = depths.computeIfAbsent(key, k -> new Depth(source));
+        depth.source = source;
+        depth.lastUsed = System.currentTimeMillis();
+        if (!depth.isFresh(properties.getDispatch().getDepthMaxAgeMs())) {
+            refresh(key, depth);
+        }
+        return depth.count.get();
+    }
+
+    public void recordInserted(String scope, int senderId, int count) {
+        if (count <= 0) {
+            return;
+        }
+        Depth depth = depths.get(new Key(scope, senderId));
+        if (depth != null) {
+            depth.count.addAndGet(count);
+        }
+    }
+
+    /**
+     * Overwrite the cached depth with an exact value observed by a caller that read the queue itself.
+     */
+    public void update(String scope, int senderId, int count) {
+        Depth depth = depths.get(new Key(scope, senderId));
+        if (depth != null) {
+            depth.set(count);
+        }
+    }
+
+    public void invalidate(String scope) {
+        depths.keySet().removeIf(key -> key.scope().equals(scope));
+    }
+
+    /**
+     * Recount entries used since the previous refresh and drop the ones nobody has asked for in a while.
+     */
+    @Scheduled(fixedDelayString = "${refdb.dispatch.depth-refresh-ms:30000}")
+    public void refreshActive() {
+        long now = System.currentTimeMillis();
+        long idleCutoff = now - Math.max(properties.getDispatch().getDepthMaxAgeMs(), properties.getDispatch().getDepthRefreshMs()) * 5;
+        List<Key> idle = new ArrayList<>();
+        for (Map.Entry<Key, Depth> entry : depths.entrySet()) {
+            Depth depth = entry.getValue();
+            if (depth.lastUsed < idleCutoff) {
+                idle.add(entry.getKey());
+            } else if (depth.source != null) {
+                refresh(entry.getKey(), depth);
+            }
+        }
+        idle.forEach(depths::remove);
+    }
+
+    private void refresh(Key key, Depth depth) {
+        ConnectionSource source = depth.source;
+        if (source == null) {
+            return;
+        }
+        try (Connection connection = source.open()) {
+            Integer counted = count(connection, key.senderId());
+            if (counted != null) {
+                depth.set(counted);
+            }
+        } catch (SQLException ex) {
+            log.warn("Failed refreshing queue depth for {} sender {}: {}", key.scope(), key.senderId(), ex.getMessage());
+        }
+    }
+
+    private Integer count(Connection connection, int senderId) {
+        if (connection == null) {
+            return null;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(COUNT_SQL)) {
+            ps.setInt(1, senderId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException ex) {
+            log.warn("Failed counting queue for sender {}: {}", senderId, ex.getMessage());
+        }
+        return null;
+    }
+
+    private record Key(String scope, int senderId) {}
+
+    private static final class Depth {
+        private final AtomicInteger count = new AtomicInteger();
+        private volatile ConnectionSource source;
+        private volatile long refreshedAt;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private Depth(ConnectionSource source) {
+            this.source = source;
+        }
+
+        private void set(int value) {
+            count.set(value);
+            refreshedAt = System.currentTimeMillis();
+        }
+
+        private boolean isFresh(long maxAgeMs) {
+            return refreshedAt > 0 && System.currentTimeMillis() - refreshedAt <= maxAgeMs;
+        }
+    }
+}
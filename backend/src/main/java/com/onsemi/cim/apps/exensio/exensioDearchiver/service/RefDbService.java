@@ -1,6 +1,7 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
 
 import com.onsemi.cim.apps.exensio.exensioDearchiver.config.RefDbProperties;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.FetchSizeTuner;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.DuplicatePayload;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.PayloadCandidate;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.StageRecord;
@@ -13,6 +14,7 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -22,6 +24,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -29,6 +32,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class RefDbService {
@@ -36,15 +40,29 @@ public class RefDbService {
     private static final String DEFAULT_USER = "system";
     private static final String UNKNOWN_USER = "unknown";
     private static final int USER_MAX_LENGTH = 120;
+    private static final String LEASE_TABLE = "SENDER_JOB_LEASE";
+    private static final String SIGNAL_TABLE = "SENDER_DISPATCH_SIGNAL";
+    private static final String STAGE_COLUMNS = "id, site, sender_id, metadata_id, data_id, status, error_message, created_at, updated_at, processed_at, staged_by, last_requested_by, last_requested_at";
 
     private final RefDbProperties properties;
+    private final DispatchSignalQueue dispatchSignals;
+    private final FetchSizeTuner fetchTuner;
+    private final com.onsemi.cim.apps.exensio.exensioDearchiver.security.AuthorityCache authorityCache;
+    private final ResourceVersions versions;
     private final HikariDataSource dataSource;
     private final boolean isOracle;
     @Value("${refdb.auth-bootstrap-enabled:false}")
     private boolean authBootstrapEnabled;
 
-    public RefDbService(RefDbProperties properties) {
+    @Autowired
+    public RefDbService(RefDbProperties properties, DispatchSignalQueue dispatchSignals, FetchSizeTuner fetchTuner,
+                        com.onsemi.cim.apps.exensio.exensioDearchiver.security.AuthorityCache authorityCache,
+                        ResourceVersions versions) {
         this.properties = properties;
+        this.dispatchSignals = dispatchSignals;
+        this.fetchTuner = fetchTuner;
+        this.authorityCache = authorityCache;
+        this.versions = versions;
         this.isOracle = properties.getHost() != null && !properties.getHost().isBlank();
         HikariConfig config = new HikariConfig();
         if (isOracle) {
@@ -69,6 +87,9 @@ public class RefDbService {
     public void initialize() {
         try (Connection connection = dataSource.getConnection()) {
             ensureStageTable(connection);
+            ensureRetentionTables(connection);
+            ensureLeaseTable(connection);
+            ensureSignalTable(connection);
             if (authBootstrapEnabled) {
                 ensureAuthTables(connection);
                 bootstrapAdmins(connection);
@@ -105,6 +126,7 @@ public class RefDbService {
         String sql = "INSERT INTO " + table + " (id, site, sender_id, metadata_id, data_id, status, error_message, created_at, updated_at, processed_at, staged_by, last_requested_by, last_requested_at) " +
                 "VALUES (" + idExpr + ", ?, ?, ?, ?, 'NEW', NULL, " + timestampExpr() + ", " + timestampExpr() + ", NULL, ?, ?, " + timestampExpr() + ")";
         int inserted = 0;
+        int resubmitted = 0;
         List<DuplicatePayload> duplicates = new ArrayList<>();
         try (Connection connection = dataSource.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql)) {
@@ -132,6 +154,7 @@ public class RefDbService {
                         }
                         if (allowResubmit && existing != null) {
                             markRetry(connection, table, site, senderId, candidate, normalizedUser);
+                            resubmitted++;
                         }
                         duplicates.add(toDuplicatePayload(candidate, existing, !allowResubmit));
                     } else {
@@ -141,6 +164,14 @@ public class RefDbService {
             }
         } catch (SQLException ex) {
             throw new IllegalStateException("Failed staging payloads", ex);
+        } finally {
+            if (inserted > 0 || resubmitted > 0) {
+                versions.changed(ResourceVersions.STAGE);
+            }
+        }
+        if (inserted > 0 || resubmitted > 0) {
+            // Wake the dispatcher for this sender instead of waiting for the next poll
+            dispatchSignals.signal(site, senderId);
         }
         return new StageResult(inserted, duplicates);
     }
@@ -153,11 +184,7 @@ public class RefDbService {
         try (Connection connection = dataSource.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setInt(1, limit);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    records.add(mapRecord(rs));
-                }
-            }
+            readRecords("refdb.next-batch", ps, limit, records);
         } catch (SQLException ex) {
             throw new IllegalStateException("Failed loading batch", ex);
         }
@@ -195,6 +222,8 @@ public class RefDbService {
             ps.executeBatch();
         } catch (SQLException ex) {
             throw new IllegalStateException("Failed marking records complete", ex);
+        } finally {
+            versions.changed(ResourceVersions.STAGE);
         }
     }
 
@@ -227,10 +256,10 @@ public class RefDbService {
                     ));
                 }
             }
+            return withRetained(connection, statuses, null, null);
         } catch (SQLException ex) {
             throw new IllegalStateException("Failed loading stage status", ex);
         }
-        return statuses;
     }
 
     public List<StageStatus> fetchStatusesFor(String site, Integer senderId) {
@@ -267,10 +296,10 @@ public class RefDbService {
                     }
                 }
             }
+            return withRetained(connection, statuses, site, senderId);
         } catch (SQLException ex) {
             throw new IllegalStateException("Failed loading stage status (filtered)", ex);
         }
-        return statuses;
     }
 
     public Set<String> findSitesWithPending() {
@@ -298,11 +327,7 @@ public class RefDbService {
              PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, site);
             ps.setInt(2, limit);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    records.add(mapRecord(rs));
-                }
-            }
+            readRecords("refdb.next-batch-site", ps, limit, records);
         } catch (SQLException ex) {
             throw new IllegalStateException("Failed loading site batch", ex);
         }
@@ -319,15 +344,174 @@ public class RefDbService {
             ps.setString(1, site);
             ps.setInt(2, senderId);
             ps.setInt(3, limit);
+            readRecords("refdb.next-batch-sender", ps, limit, records);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed loading sender batch", ex);
+        }
+        return records;
+    }
+
+    /**
+     * Candidate NEW rows for fair dispatch: at most {@code perFlowLimit} of the oldest rows for every
+     * (sender, requesting user) flow on the site, ordered so that each flow's head comes first. Restricted to one
+     * sender when {@code senderId} is given.
+     */
+    public List<StageRecord> fetchFairCandidates(String site, Integer senderId, int perFlowLimit, int limit) {
+        String table = properties.getStagingTable();
+        String inner = "SELECT id, site, sender_id, metadata_id, data_id, status, " + coalesce("error_message", "''") + " AS error_message, created_at, updated_at, processed_at, staged_by, last_requested_by, last_requested_at, " +
+                "ROW_NUMBER() OVER (PARTITION BY sender_id, COALESCE(last_requested_by, staged_by, '-') ORDER BY created_at, id) AS flow_rank " +
+                "FROM " + table + " WHERE status = 'NEW' AND site = ?" + (senderId != null ? " AND sender_id = ?" : "");
+        String sql = "SELECT * FROM (" + inner + ") candidates WHERE flow_rank <= ? ORDER BY flow_rank, created_at FETCH FIRST ? ROWS ONLY";
+        List<StageRecord> records = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            int idx = 1;
+            ps.setString(idx++, site);
+            if (senderId != null) {
+                ps.setInt(idx++, senderId);
+            }
+            ps.setInt(idx++, perFlowLimit);
+            ps.setInt(idx, limit);
+            readRecords("refdb.fair-candidates", ps, limit, records);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed loading fair dispatch candidates", ex);
+        }
+        return records;
+    }
+
+    /**
+     * Take or renew the named lease for {@code owner}. Succeeds when the lease is free, expired or already held by
+     * the owner; the expiry is pushed out by {@code ttl} in that case. Expiry is computed and compared on the
+     * database clock, so clock skew between replicas cannot make two of them hold the same lease.
+     */
+    public boolean tryAcquireLease(String name, String owner, Duration ttl) {
+        String now = leaseClockExpr();
+        String update = "UPDATE " + LEASE_TABLE + " SET owner = ?, expires_at = " + leaseExpiryExpr() + ", heartbeat_at = " + now +
+                " WHERE lease_name = ? AND (owner = ? OR expires_at < " + now + ")";
+        String insert = "INSERT INTO " + LEASE_TABLE + " (lease_name, owner, expires_at, heartbeat_at) VALUES (?, ?, " + leaseExpiryExpr() + ", " + now + ")";
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement ps = connection.prepareStatement(update)) {
+                ps.setString(1, owner);
+                bindLeaseTtl(ps, 2, ttl);
+                ps.setString(3, name);
+                ps.setString(4, owner);
+                if (ps.executeUpdate() > 0) {
+                    return true;
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement(insert)) {
+                ps.setString(1, name);
+                ps.setString(2, owner);
+                bindLeaseTtl(ps, 3, ttl);
+                ps.executeUpdate();
+                return true;
+            } catch (SQLException ex) {
+                if (isDuplicate(ex)) {
+                    // Held by another node
+                    return false;
+                }
+                throw ex;
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed acquiring lease " + name, ex);
+        }
+    }
+
+    public void releaseLease(String name, String owner) {
+        String sql = "DELETE FROM " + LEASE_TABLE + " WHERE lease_name = ? AND owner = ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, name);
+            ps.setString(2, owner);
+            ps.executeUpdate();
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed releasing lease " + name, ex);
+        }
+    }
+
+    /**
+     * Hand a dispatch signal to the replica owning {@code site}: one row per site/sender, coalescing repeats.
+     */
+    public void recordDispatchSignal(String site, int senderId) {
+        String update = "UPDATE " + SIGNAL_TABLE + " SET signalled_at = " + timestampExpr() + " WHERE site = ? AND sender_id = ?";
+        String insert = "INSERT INTO " + SIGNAL_TABLE + " (site, sender_id, signalled_at) VALUES (?, ?, " + timestampExpr() + ")";
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement ps = connection.prepareStatement(update)) {
+                ps.setString(1, site);
+                ps.setInt(2, senderId);
+                if (ps.executeUpdate() > 0) {
+                    return;
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement(insert)) {
+                ps.setString(1, site);
+                ps.setInt(2, senderId);
+                ps.executeUpdate();
+            } catch (SQLException ex) {
+                if (!isDuplicate(ex)) {
+                    throw ex;
+                }
+                // Recorded concurrently by another node
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed recording dispatch signal for " + site + "/" + senderId, ex);
+        }
+    }
+
+    /**
+     * Remove and return the handed-off dispatch signals for the sites accepted by {@code ownsSite}. A signal
+     * re-recorded while it is being taken is kept for the next poll.
+     */
+    public List<DispatchSignalQueue.Signal> takeDispatchSignals(java.util.function.Predicate<String> ownsSite) {
+        String select = "SELECT site, sender_id, signalled_at FROM " + SIGNAL_TABLE;
+        String delete = "DELETE FROM " + SIGNAL_TABLE + " WHERE site = ? AND sender_id = ? AND signalled_at <= ?";
+        List<DispatchSignalQueue.Signal> taken = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            List<Object[]> rows = new ArrayList<>();
+            try (PreparedStatement ps = connection.prepareStatement(select);
+                 ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Object[]{rs.getString(1), rs.getInt(2), rs.getTimestamp(3)});
+                }
+            }
+            for (Object[] row : rows) {
+                String site = (String) row[0];
+                if (!ownsSite.test(site)) {
+                    continue;
+                }
+                try (PreparedStatement ps = connection.prepareStatement(delete)) {
+                    ps.setString(1, site);
+                    ps.setInt(2, (Integer) row[1]);
+                    ps.setTimestamp(3, (Timestamp) row[2]);
+                    if (ps.executeUpdate() > 0) {
+                        taken.add(new DispatchSignalQueue.Signal(site, (Integer) row[1]));
+                    }
+                }
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed reading dispatch signals", ex);
+        }
+        return taken;
+    }
+
+    /**
+     * Owners of the unexpired leases whose name starts with {@code prefix}, sorted.
+     */
+    public List<String> findLiveLeaseOwners(String prefix) {
+        String sql = "SELECT owner FROM " + LEASE_TABLE + " WHERE lease_name LIKE ? AND expires_at >= " + leaseClockExpr() + " ORDER BY owner";
+        List<String> owners = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, prefix + "%");
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    records.add(mapRecord(rs));
+                    owners.add(rs.getString(1));
                 }
             }
         } catch (SQLException ex) {
-            throw new IllegalStateException("Failed loading sender batch", ex);
+            throw new IllegalStateException("Failed listing leases " + prefix, ex);
         }
-        return records;
+        return owners;
     }
 
     public List<StageRecord> findEnqueuedWithoutProcessed(int limit) {
@@ -341,11 +525,7 @@ public class RefDbService {
         try (Connection connection = dataSource.getConnection();
              PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setInt(1, limit);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    records.add(mapRecord(rs));
-                }
-            }
+            readRecords("refdb.enqueued-unprocessed", ps, limit, records);
         } catch (SQLException ex) {
             throw new IllegalStateException("Failed loading enqueued records", ex);
         }
@@ -392,15 +572,236 @@ public class RefDbService {
                 else if (param instanceof Long l) ps.setLong(idx++, l);
                 else ps.setString(idx++, param == null ? null : param.toString());
             }
-            try (ResultSet rs = ps.executeQuery()) {
+            readRecords("refdb.list-records", ps, limit, records);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed loading staged records", ex);
+        }
+        return records;
+    }
+
+    /**
+     * Stream the staged records matching the filters, in id order, through a forward-only cursor. {@code from} and
+     * {@code to} bound updated_at (inclusive / exclusive, either may be null). Rows go to {@code consumer} as they
+     * are fetched, so memory use does not depend on the row count. The query is bounded by
+     * refdb.export.query-timeout-seconds. Returns the number of rows streamed.
+     */
+    public long streamRecords(String site, Integer senderId, String status, Instant from, Instant to, Consumer<StageRecord> consumer) {
+        String table = properties.getStagingTable();
+        StringBuilder sb = new StringBuilder("SELECT id, site, sender_id, metadata_id, data_id, status, ")
+                .append(coalesce("error_message", "''"))
+                .append(" AS error_message, created_at, updated_at, processed_at, staged_by, last_requested_by, last_requested_at FROM ")
+                .append(table)
+                .append(" WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+        if (site != null && !site.isBlank()) {
+            sb.append(" AND site = ?");
+            params.add(site);
+        }
+        if (senderId != null) {
+            sb.append(" AND sender_id = ?");
+            params.add(senderId);
+        }
+        if (status != null && !status.isBlank()) {
+            sb.append(" AND status = ?");
+            params.add(status);
+        }
+        if (from != null) {
+            sb.append(" AND updated_at >= ?");
+            params.add(Timestamp.from(from));
+        }
+        if (to != null) {
+            sb.append(" AND updated_at < ?");
+            params.add(Timestamp.from(to));
+        }
+        sb.append(" ORDER BY id");
+        long rows = 0;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sb.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            int idx = 1;
+            for (Object param : params) {
+                if (param instanceof Integer i) ps.setInt(idx++, i);
+                else if (param instanceof Timestamp t) ps.setTimestamp(idx++, t);
+                else ps.setString(idx++, param == null ? null : param.toString());
+            }
+            int queryTimeout = properties.getExport().getQueryTimeoutSeconds();
+            if (queryTimeout > 0) {
+                ps.setQueryTimeout(queryTimeout);
+            }
+            try (FetchSizeTuner.Fetch fetch = fetchTuner.start("refdb.export-records", ps, 0);
+                 ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    records.add(mapRecord(rs));
+                    consumer.accept(mapRecord(rs));
+                    fetch.row();
+                    rows++;
                 }
             }
         } catch (SQLException ex) {
-            throw new IllegalStateException("Failed loading staged records", ex);
+            throw new IllegalStateException("Failed exporting staged records", ex);
+        }
+        return rows;
+    }
+
+    /**
+     * Remove up to {@code limit} rows in one of {@code statuses} last updated before {@code cutoff}, copying them to
+     * the archive table first when {@code archive} is set. Only the rows of this batch are locked, for one short
+     * transaction, and their counts move to the retained summary so stage status totals do not drop.
+     * Returns the number of rows removed.
+     */
+    public int purgeStageBatch(java.util.Collection<String> statuses, Instant cutoff, int limit, boolean archive) {
+        if (statuses == null || statuses.isEmpty() || cutoff == null || limit <= 0) {
+            return 0;
+        }
+        String table = properties.getStagingTable();
+        String statusIn = placeholders(statuses.size());
+        Timestamp cutoffTs = Timestamp.from(cutoff);
+        int removed = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            List<Long> ids = new ArrayList<>();
+            // Unordered so the scan stops after limit matches instead of sorting every aged row
+            String candidates = "SELECT id FROM " + table + " WHERE status IN (" + statusIn + ") AND updated_at < ? FETCH FIRST ? ROWS ONLY";
+            try (PreparedStatement ps = connection.prepareStatement(candidates)) {
+                int idx = bindStrings(ps, 1, statuses);
+                ps.setTimestamp(idx++, cutoffTs);
+                ps.setInt(idx, limit);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getLong(1));
+                    }
+                }
+            }
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                // Re-check under lock: rows resubmitted since the candidate scan no longer match and are left alone
+                String lock = "SELECT id, site, sender_id, status FROM " + table + " WHERE id IN (" + placeholders(ids.size()) + ")" +
+                        " AND status IN (" + statusIn + ") AND updated_at < ? FOR UPDATE";
+                List<Long> locked = new ArrayList<>();
+                Map<RetainedKey, Long> counts = new HashMap<>();
+                try (PreparedStatement ps = connection.prepareStatement(lock)) {
+                    int idx = 1;
+                    for (Long id : ids) {
+                        ps.setLong(idx++, id);
+                    }
+                    idx = bindStrings(ps, idx, statuses);
+                    ps.setTimestamp(idx, cutoffTs);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            locked.add(rs.getLong(1));
+                            counts.merge(new RetainedKey(rs.getString(2), rs.getInt(3), rs.getString(4)), 1L, Long::sum);
+                        }
+                    }
+                }
+                if (!locked.isEmpty()) {
+                    String byId = " WHERE id IN (" + placeholders(locked.size()) + ")";
+                    if (archive) {
+                        String copy = "INSERT INTO " + table + "_ARCHIVE (" + STAGE_COLUMNS + ", archived_at) SELECT " + STAGE_COLUMNS + ", " +
+                                timestampExpr() + " FROM " + table + byId;
+                        try (PreparedStatement ps = connection.prepareStatement(copy)) {
+                            bindIds(ps, locked);
+                            ps.executeUpdate();
+                        }
+                    }
+                    try (PreparedStatement ps = connection.prepareStatement("DELETE FROM " + table + byId)) {
+                        bindIds(ps, locked);
+                        removed = ps.executeUpdate();
+                    }
+                    addRetained(connection, table + "_RETAINED", counts);
+                }
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                removed = 0;
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed purging staged records", ex);
+        } finally {
+            if (removed > 0) {
+                versions.changed(ResourceVersions.STAGE);
+            }
+        }
+        return removed;
+    }
+
+    private void addRetained(Connection connection, String summaryTable, Map<RetainedKey, Long> counts) throws SQLException {
+        String update = "UPDATE " + summaryTable + " SET row_count = row_count + ?, updated_at = " + timestampExpr() +
+                " WHERE site = ? AND sender_id = ? AND status = ?";
+        String insert = "INSERT INTO " + summaryTable + " (site, sender_id, status, row_count, updated_at) VALUES (?, ?, ?, ?, " + timestampExpr() + ")";
+        for (Map.Entry<RetainedKey, Long> entry : counts.entrySet()) {
+            RetainedKey key = entry.getKey();
+            try (PreparedStatement ps = connection.prepareStatement(update)) {
+                ps.setLong(1, entry.getValue());
+                ps.setString(2, key.site());
+                ps.setInt(3, key.senderId());
+                ps.setString(4, key.status());
+                if (ps.executeUpdate() > 0) {
+                    continue;
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement(insert)) {
+                ps.setString(1, key.site());
+                ps.setInt(2, key.senderId());
+                ps.setString(3, key.status());
+                ps.setLong(4, entry.getValue());
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Add the counts of purged rows (retained summary) to the live status aggregation.
+     */
+    private List<StageStatus> withRetained(Connection connection, List<StageStatus> live, String site, Integer senderId) throws SQLException {
+        String sql = "SELECT site, sender_id, status, row_count FROM " + properties.getStagingTable() + "_RETAINED WHERE 1=1" +
+                (site != null ? " AND site = ?" : "") + (senderId != null ? " AND sender_id = ?" : "");
+        Map<StageStatusKey, long[]> retained = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            int i = 1;
+            if (site != null) ps.setString(i++, site);
+            if (senderId != null) ps.setInt(i++, senderId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    // total, ready, enqueued, failed, completed
+                    long[] sums = retained.computeIfAbsent(new StageStatusKey(rs.getString(1), rs.getInt(2)), k -> new long[5]);
+                    long count = rs.getLong(4);
+                    sums[0] += count;
+                    switch (String.valueOf(rs.getString(3))) {
+                        case "NEW" -> sums[1] += count;
+                        case "ENQUEUED" -> sums[2] += count;
+                        case "FAILED" -> sums[3] += count;
+                        case "DONE" -> sums[4] += count;
+                        default -> { }
+                    }
+                }
+            }
+        }
+        if (retained.isEmpty()) {
+            return live;
+        }
+        List<StageStatus> merged = new ArrayList<>(live.size() + retained.size());
+        for (StageStatus status : live) {
+            long[] sums = retained.remove(new StageStatusKey(status.site(), status.senderId()));
+            merged.add(sums == null ? status : new StageStatus(status.site(), status.senderId(), status.total() + sums[0],
+                    status.ready() + sums[1], status.enqueued() + sums[2], status.failed() + sums[3], status.completed() + sums[4], status.users()));
+        }
+        retained.forEach((key, sums) -> merged.add(new StageStatus(key.site(), key.senderId(), sums[0], sums[1], sums[2], sums[3], sums[4], List.of())));
+        return merged;
+    }
+
+    private void readRecords(String query, PreparedStatement ps, int limit, List<StageRecord> records) throws SQLException {
+        try (FetchSizeTuner.Fetch fetch = fetchTuner.start(query, ps, limit);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                records.add(mapRecord(rs));
+                fetch.row();
+            }
         }
-        return records;
     }
 
     public List<StageRecord> listRecordsByStatus(String status, int limit) {
@@ -463,6 +864,8 @@ public class RefDbService {
             ps.executeBatch();
         } catch (SQLException ex) {
             throw new IllegalStateException("Failed updating status", ex);
+        } finally {
+            versions.changed(ResourceVersions.STAGE);
         }
     }
 
@@ -502,6 +905,41 @@ public class RefDbService {
         }
     }
 
+    // Retention: <table>_ARCHIVE keeps purged rows (same columns plus archived_at), <table>_RETAINED their counts
+    private void ensureRetentionTables(Connection connection) throws SQLException {
+        String table = properties.getStagingTable();
+        String archive = table + "_ARCHIVE";
+        if (!tableExists(connection, archive)) {
+            createTable(connection, archive);
+        }
+        ensureColumn(connection, archive, "ARCHIVED_AT", "ALTER TABLE " + archive + " ADD (archived_at TIMESTAMP)");
+        String summary = table + "_RETAINED";
+        if (!tableExists(connection, summary)) {
+            String ddl = isOracle
+                    ? "CREATE TABLE " + summary + " (site VARCHAR2(64) NOT NULL, sender_id NUMBER NOT NULL, status VARCHAR2(16) NOT NULL, row_count NUMBER DEFAULT 0 NOT NULL, updated_at TIMESTAMP, CONSTRAINT PK_" + summary + " PRIMARY KEY (site, sender_id, status))"
+                    : "CREATE TABLE " + summary + " (site VARCHAR(64) NOT NULL, sender_id INT NOT NULL, status VARCHAR(16) NOT NULL, row_count BIGINT DEFAULT 0 NOT NULL, updated_at TIMESTAMP, CONSTRAINT PK_" + summary + " PRIMARY KEY (site, sender_id, status))";
+            try (Statement st = connection.createStatement()) { st.executeUpdate(ddl); }
+        }
+    }
+
+    private void ensureLeaseTable(Connection connection) throws SQLException {
+        if (!tableExists(connection, LEASE_TABLE)) {
+            String ddl = isOracle
+                    ? "CREATE TABLE " + LEASE_TABLE + " (lease_name VARCHAR2(128) PRIMARY KEY, owner VARCHAR2(256) NOT NULL, expires_at TIMESTAMP NOT NULL, heartbeat_at TIMESTAMP NOT NULL)"
+                    : "CREATE TABLE " + LEASE_TABLE + " (lease_name VARCHAR(128) PRIMARY KEY, owner VARCHAR(256) NOT NULL, expires_at TIMESTAMP NOT NULL, heartbeat_at TIMESTAMP NOT NULL)";
+            try (Statement st = connection.createStatement()) { st.executeUpdate(ddl); }
+        }
+    }
+
+    private void ensureSignalTable(Connection connection) throws SQLException {
+        if (!tableExists(connection, SIGNAL_TABLE)) {
+            String ddl = isOracle
+                    ? "CREATE TABLE " + SIGNAL_TABLE + " (site VARCHAR2(64) NOT NULL, sender_id NUMBER NOT NULL, signalled_at TIMESTAMP NOT NULL, CONSTRAINT PK_" + SIGNAL_TABLE + " PRIMARY KEY (site, sender_id))"
+                    : "CREATE TABLE " + SIGNAL_TABLE + " (site VARCHAR(64) NOT NULL, sender_id INT NOT NULL, signalled_at TIMESTAMP NOT NULL, CONSTRAINT PK_" + SIGNAL_TABLE + " PRIMARY KEY (site, sender_id))";
+            try (Statement st = connection.createStatement()) { st.executeUpdate(ddl); }
+        }
+    }
+
     // --- Authorization schema (local app users/roles) ---
     private void ensureAuthTables(Connection connection) throws SQLException {
         // USERS(username PK), ROLES(name PK), USER_ROLES(username, role_name)
@@ -600,10 +1038,17 @@ public class RefDbService {
     }
 
     public Set<String> getUserAuthorities(String username) {
-        Set<String> roles = new HashSet<>();
         if (username == null || username.isBlank()) {
-            return roles;
+            return new HashSet<>();
         }
+        Set<String> roles = authorityCache.refDbAuthorities(username, this::loadUserAuthorities);
+        // RefDB unavailable: every user still has ROLE_USER; the fallback is not cached so roles return with RefDB
+        return roles == null ? new HashSet<>(Set.of("ROLE_USER")) : new HashSet<>(roles);
+    }
+
+    // Null when RefDB could not be read, so the failure is not cached
+    private Set<String> loadUserAuthorities(String username) {
+        Set<String> roles = new HashSet<>();
         try (Connection connection = dataSource.getConnection()) {
             // Auto-provision user on first sight
             ensureUser(connection, username);
@@ -620,8 +1065,9 @@ public class RefDbService {
             }
         } catch (SQLException ex) {
             log.warn("Failed loading authorities for {}: {}", username, ex.getMessage());
+            return null;
         }
-        return roles;
+        return Set.copyOf(roles);
     }
     private boolean tableExists(Connection connection, String table) throws SQLException {
         if (isOracle) {
@@ -1015,6 +1461,26 @@ public class RefDbService {
 
     private record StageStatusKey(String site, int senderId) {}
 
+    private record RetainedKey(String site, int senderId, String status) {}
+
+    private static String placeholders(int count) {
+        return String.join(",", java.util.Collections.nCopies(count, "?"));
+    }
+
+    private static int bindStrings(PreparedStatement ps, int start, java.util.Collection<String> values) throws SQLException {
+        int idx = start;
+        for (String value : values) {
+            ps.setString(idx++, value);
+        }
+        return idx;
+    }
+
+    private static void bindIds(PreparedStatement ps, List<Long> ids) throws SQLException {
+        for (int i = 0; i < ids.size(); i++) {
+            ps.setLong(i + 1, ids.get(i));
+        }
+    }
+
     private boolean isDuplicate(SQLException ex) {
         return ex.getErrorCode() == 1 ||
                 (ex.getMessage() != null && ex.getMessage().toUpperCase().contains("UNIQUE"));
@@ -1044,6 +1510,23 @@ public class RefDbService {
         return isOracle ? "SYSTIMESTAMP" : "CURRENT_TIMESTAMP";
     }
 
+    // Lease times use the database clock (UTC on Oracle, independent of the session time zone)
+    private String leaseClockExpr() {
+        return isOracle ? "SYS_EXTRACT_UTC(SYSTIMESTAMP)" : "LOCALTIMESTAMP";
+    }
+
+    private String leaseExpiryExpr() {
+        return isOracle ? "SYS_EXTRACT_UTC(SYSTIMESTAMP) + NUMTODSINTERVAL(?, 'SECOND')" : "DATEADD('MILLISECOND', ?, LOCALTIMESTAMP)";
+    }
+
+    private void bindLeaseTtl(PreparedStatement ps, int index, Duration ttl) throws SQLException {
+        if (isOracle) {
+            ps.setBigDecimal(index, java.math.BigDecimal.valueOf(ttl.toMillis(), 3));
+        } else {
+            ps.setLong(index, ttl.toMillis());
+        }
+    }
+
     private String coalesce(String expr, String alt) {
         // Oracle uses NVL, H2 supports COALESCE
         return isOracle ? ("NVL(" + expr + ", " + alt + ")") : ("COALESCE(" + expr + ", " + alt + ")");
@@ -2,6 +2,7 @@ package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
 
 import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.RefreshToken;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.RefreshTokenRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.security.JwtClaimsCache;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,10 +14,12 @@ import java.util.Optional;
 public class RefreshTokenService {
 
     private final RefreshTokenRepository repo;
+    private final JwtClaimsCache claimsCache;
     private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
 
-    public RefreshTokenService(RefreshTokenRepository repo) {
+    public RefreshTokenService(RefreshTokenRepository repo, JwtClaimsCache claimsCache) {
         this.repo = repo;
+        this.claimsCache = claimsCache;
     }
 
     public Optional<RefreshToken> findByToken(String token) {
@@ -36,6 +39,7 @@ public class RefreshTokenService {
     public void revoke(RefreshToken token) {
         token.setRevoked(true);
         repo.save(token);
+        claimsCache.invalidateUser(token.getUsername());
     }
 
     public int revokeAllForUser(String username) {
@@ -44,6 +48,7 @@ public class RefreshTokenService {
             t.setRevoked(true);
         }
         repo.saveAll(tokens);
+        claimsCache.invalidateUser(username);
         return tokens.size();
     }
 }
@@ -0,0 +1,92 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change counters for polled resources, used as ETags.
+ *
+ * Writers call {@link #changed(String)} whenever staging rows or load sessions change; polling endpoints compare
+ * If-None-Match with {@link #etag(String)} before reading anything and answer 304 when it matches. Counters are per
+ * node and start from a random epoch, so a restart or a poll landing on another replica simply misses. Writes made by
+ * other replicas are not counted here; app.etag.max-age-ms rolls every ETag over at that interval so such changes
+ * show up within it (0 disables the rollover for single-node deployments).
+ */
+@Component
+public class ResourceVersions {
+    public static final String STAGE = "stage";
+    public static final String SESSIONS = "sessions";
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final long maxAgeMs;
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public ResourceVersions(Environment env) {
+        this.maxAgeMs = Math.max(0, Long.parseLong(ConfigUtils.getString(env, "app.etag.max-age-ms", null, "10000")));
+    }
+
+    public void changed(String resource) {
+        counter(resource).incrementAndGet();
+    }
+
+    /**
+     * Like {@link #changed(String)}, but when called inside a transaction the bump waits until it commits, so a
+     * poll racing the write cannot cache the old data under the new tag. Rolled-back writes bump nothing.
+     */
+    public void changedAfterCommit(String resource) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changed(resource);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changed(resource);
+            }
+        });
+    }
+
+    public long version(String resource) {
+        return counter(resource).get();
+    }
+
+    /**
+     * Current ETag of {@code resource}. Take it before reading the data so a concurrent change yields a newer tag.
+     */
+    public String etag(String resource) {
+        String tag = resource + "-" + epoch + "-" + version(resource);
+        if (maxAgeMs > 0) {
+            tag += "-" + Long.toString(System.currentTimeMillis() / maxAgeMs, 36);
+        }
+        return "\"" + tag + "\"";
+    }
+
+    /**
+     * Whether an If-None-Match header value matches {@code etag} (weak comparison, lists and "*" allowed).
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2);
+            if ("*".equals(c) || etag.equals(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private AtomicLong counter(String resource) {
+        return counters.computeIfAbsent(resource, k -> new AtomicLong());
+    }
+}
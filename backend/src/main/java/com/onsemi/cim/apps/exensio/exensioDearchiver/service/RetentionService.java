@@ -0,0 +1,221 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionPayloadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Moves aged terminal rows out of the hot tables: SENDER_STAGE rows (DONE by default) into SENDER_STAGE_ARCHIVE and
+ * load_session_payload rows (PUSHED_REMOTE, PUSHED, SKIPPED) into load_session_payload_archive, or deletes them
+ * with app.retention.mode=delete.
+ *
+ * Work is split into batch-size transactions that lock only their own rows, with pause-ms between batches, and a
+ * scheduled run only proceeds inside the off-peak app.retention.window on the node holding the retention lease.
+ * Purged rows keep counting in the stage status totals (SENDER_STAGE_RETAINED) and session totals
+ * (load_session.archived_payload_count).
+ */
+@Service
+public class RetentionService {
+    private static final Logger log = LoggerFactory.getLogger(RetentionService.class);
+
+    private final RefDbService refDbService;
+    private final LoadSessionPayloadRepository payloadRepo;
+    private final JobCoordinator coordinator;
+    private final ResourceVersions versions;
+    private final boolean enabled;
+    private final boolean archive;
+    private final String window;
+    private final int batchSize;
+    private final long pauseMs;
+    private final int maxBatchesPerRun;
+    private final List<String> stageStatuses;
+    private final Duration stageAge;
+    private final List<String> payloadStatuses;
+    private final Duration payloadAge;
+    private volatile RetentionRun lastRun;
+
+    public RetentionService(RefDbService refDbService,
+                            LoadSessionPayloadRepository payloadRepo,
+                            JobCoordinator coordinator,
+                            ResourceVersions versions,
+                            Environment env) {
+        this.refDbService = refDbService;
+        this.payloadRepo = payloadRepo;
+        this.coordinator = coordinator;
+        this.versions = versions;
+        this.enabled = ConfigUtils.getBooleanFlag(env, "app.retention.enabled", null, false);
+        this.archive = !"delete".equalsIgnoreCase(ConfigUtils.getString(env, "app.retention.mode", null, "archive").trim());
+        this.window = ConfigUtils.getString(env, "app.retention.window", null, "01:00-05:00").trim();
+        this.batchSize = Math.max(1, Integer.parseInt(ConfigUtils.getString(env, "app.retention.batch-size", null, "500")));
+        this.pauseMs = Math.max(0L, Long.parseLong(ConfigUtils.getString(env, "app.retention.pause-ms", null, "250")));
+        this.maxBatchesPerRun = Math.max(1, Integer.parseInt(ConfigUtils.getString(env, "app.retention.max-batches-per-run", null, "200")));
+        this.stageStatuses = statuses(ConfigUtils.getString(env, "app.retention.stage.statuses", null, "DONE"));
+        this.stageAge = Duration.ofDays(Long.parseLong(ConfigUtils.getString(env, "app.retention.stage.age-days", null, "30")));
+        this.payloadStatuses = statuses(ConfigUtils.getString(env, "app.retention.payloads.statuses", null, "PUSHED_REMOTE,PUSHED,SKIPPED"));
+        this.payloadAge = Duration.ofDays(Long.parseLong(ConfigUtils.getString(env, "app.retention.payloads.age-days", null, "30")));
+    }
+
+    @Scheduled(cron = "${app.retention.cron:0 */10 * * * *}")
+    public void scheduledRun() {
+        if (!enabled || !inWindow(window, LocalTime.now())) {
+            return;
+        }
+        if (!coordinator.isLeader(JobCoordinator.RETENTION)) {
+            return;
+        }
+        run(true);
+    }
+
+    /**
+     * Run one retention pass now. With {@code respectWindow} the pass stops as soon as the off-peak window closes;
+     * manual runs (admin endpoint) ignore the window.
+     */
+    public synchronized RetentionRun run(boolean respectWindow) {
+        Instant startedAt = Instant.now();
+        Purge stage = new Purge("stage", stageStatuses, stageAge,
+                () -> refDbService.purgeStageBatch(stageStatuses, Instant.now().minus(stageAge), batchSize, archive));
+        Purge payloads = new Purge("payloads", payloadStatuses, payloadAge,
+                () -> payloadRepo.purgeTerminalBatch(payloadStatuses, Instant.now().minus(payloadAge), batchSize, archive));
+        int batches = purge(List.of(stage, payloads), respectWindow);
+        if (payloads.total > 0) {
+            versions.changed(ResourceVersions.SESSIONS);
+        }
+        RetentionRun run = new RetentionRun(startedAt, Instant.now(), archive ? "archive" : "delete", stage.total, payloads.total, batches);
+        lastRun = run;
+        if (stage.total > 0 || payloads.total > 0) {
+            log.info("Retention {} {} staged records and {} session payloads in {} batches",
+                    archive ? "archived" : "deleted", stage.total, payloads.total, batches);
+        }
+        return run;
+    }
+
+    /**
+     * Take one batch from each unfinished purge in turn, so a large backlog in one table cannot use up the whole
+     * max-batches-per-run budget while the other waits. Returns the number of batches run.
+     */
+    private int purge(List<Purge> purges, boolean respectWindow) {
+        int batches = 0;
+        while (batches < maxBatchesPerRun && purges.stream().anyMatch(p -> !p.done)) {
+            for (Purge purge : purges) {
+                if (purge.done || batches >= maxBatchesPerRun) {
+                    continue;
+                }
+                if (respectWindow && !inWindow(window, LocalTime.now())) {
+                    log.info("Retention window {} closed, stopping {} purge", window, purge.name);
+                    return batches;
+                }
+                boolean full = purge.step();
+                batches++;
+                if (full && pauseMs > 0) {
+                    try {
+                        Thread.sleep(pauseMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return batches;
+                    }
+                }
+            }
+        }
+        return batches;
+    }
+
+    /**
+     * Progress of one table's purge within a run.
+     */
+    private final class Purge {
+        private final String name;
+        private final IntSupplier batch;
+        private long total;
+        private boolean done;
+
+        Purge(String name, List<String> statuses, Duration age, IntSupplier batch) {
+            this.name = name;
+            this.batch = batch;
+            this.done = statuses.isEmpty() || age.isNegative();
+        }
+
+        /**
+         * Run one batch; true when it was full and more rows may be waiting.
+         */
+        boolean step() {
+            int removed;
+            try {
+                removed = batch.getAsInt();
+            } catch (RuntimeException ex) {
+                log.warn("Retention batch for {} failed, stopping this run: {}", name, ex.getMessage());
+                done = true;
+                return false;
+            }
+            total += removed;
+            if (removed < batchSize) {
+                done = true;
+            }
+            return !done;
+        }
+    }
+
+    public RetentionRun getLastRun() {
+        return lastRun;
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("enabled", enabled);
+        out.put("mode", archive ? "archive" : "delete");
+        out.put("window", window.isEmpty() ? "always" : window);
+        out.put("batchSize", batchSize);
+        out.put("pauseMs", pauseMs);
+        out.put("maxBatchesPerRun", maxBatchesPerRun);
+        out.put("stage", Map.of("statuses", stageStatuses, "ageDays", stageAge.toDays()));
+        out.put("payloads", Map.of("statuses", payloadStatuses, "ageDays", payloadAge.toDays()));
+        out.put("lastRun", lastRun);
+        return out;
+    }
+
+    /**
+     * True when {@code time} falls inside {@code window} ("HH:mm-HH:mm", local time, may wrap past midnight).
+     * A blank window means always.
+     */
+    static boolean inWindow(String window, LocalTime time) {
+        if (window == null || window.isBlank()) {
+            return true;
+        }
+        String[] parts = window.split("-");
+        if (parts.length != 2) {
+            log.warn("Ignoring malformed retention window '{}'", window);
+            return true;
+        }
+        LocalTime start = LocalTime.parse(parts[0].trim());
+        LocalTime end = LocalTime.parse(parts[1].trim());
+        if (start.equals(end)) {
+            return true;
+        }
+        return start.isBefore(end)
+                ? !time.isBefore(start) && time.isBefore(end)
+                : !time.isBefore(start) || time.isBefore(end);
+    }
+
+    private static List<String> statuses(String csv) {
+        return Arrays.stream(csv.split(","))
+                .map(s -> s.trim().toUpperCase(Locale.ROOT))
+                .filter(s -> !s.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    public record RetentionRun(Instant startedAt, Instant finishedAt, String mode, long stageRows, long payloadRows, int batches) {}
+}
@@ -1,9 +1,11 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
 
 import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalDbConfig;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.config.RefDbProperties;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.StageRecord;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -16,10 +18,17 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class SenderDispatchService {
@@ -28,19 +37,119 @@ public class SenderDispatchService {
     private final RefDbService refDbService;
     private final ExternalDbConfig externalDbConfig;
     private final RefDbProperties properties;
+    private final DispatchSignalQueue dispatchSignals;
+    private final QueueDepthTracker queueDepth;
+    private final InsertRateLimiter rateLimiter;
+    private final FairDispatchScheduler fairScheduler;
+    private final JobCoordinator coordinator;
+    // Serialises dispatch per site/sender so signal workers, the safety-net poll and manual dispatch never fetch
+    // and push the same NEW rows concurrently.
+    private final ConcurrentMap<String, ReentrantLock> senderLocks = new ConcurrentHashMap<>();
+    private ExecutorService workers;
+    private volatile boolean running;
 
-    public SenderDispatchService(RefDbService refDbService, ExternalDbConfig externalDbConfig, RefDbProperties properties) {
+    public SenderDispatchService(RefDbService refDbService, ExternalDbConfig externalDbConfig, RefDbProperties properties, DispatchSignalQueue dispatchSignals, QueueDepthTracker queueDepth, InsertRateLimiter rateLimiter, FairDispatchScheduler fairScheduler, JobCoordinator coordinator) {
         this.refDbService = refDbService;
         this.externalDbConfig = externalDbConfig;
         this.properties = properties;
+        this.dispatchSignals = dispatchSignals;
+        this.queueDepth = queueDepth;
+        this.rateLimiter = rateLimiter;
+        this.fairScheduler = fairScheduler;
+        this.coordinator = coordinator;
     }
 
     @PostConstruct
     public void logStartup() {
-        log.info("Sender dispatch service initialized with perSend={} intervalMs={}ms", properties.getDispatch().getPerSend(), properties.getDispatch().getIntervalMs());
+        RefDbProperties.Dispatch dispatch = properties.getDispatch();
+        log.info("Sender dispatch service initialized with perSend={} intervalMs={}ms eventDriven={} workers={}", dispatch.getPerSend(), dispatch.getIntervalMs(), dispatch.isEventDriven(), dispatch.getWorkers());
+        if (dispatch.isEventDriven()) {
+            startWorkers(Math.max(1, dispatch.getWorkers()));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (workers != null) {
+            workers.shutdownNow();
+            try {
+                workers.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
-    @Scheduled(fixedDelayString = "${refdb.dispatch.interval-ms:60000}")
+    private void startWorkers(int count) {
+        AtomicInteger seq = new AtomicInteger();
+        running = true;
+        workers = Executors.newFixedThreadPool(count, r -> {
+            Thread t = new Thread(r, "dispatch-worker-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < count; i++) {
+            workers.submit(this::drainSignals);
+        }
+    }
+
+    private void drainSignals() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            DispatchSignalQueue.Signal signal;
+            try {
+                signal = dispatchSignals.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (signal == null) {
+                continue;
+            }
+            if (!coordinator.shouldProcessSite(JobCoordinator.DISPATCH, signal.site())) {
+                // Another replica owns this site: hand the signal over instead of waiting for its safety-net poll
+                try {
+                    refDbService.recordDispatchSignal(signal.site(), signal.senderId());
+                } catch (Exception ex) {
+                    log.warn("Failed handing dispatch signal for site {} sender {} to its owner: {}", signal.site(), signal.senderId(), ex.getMessage());
+                }
+                continue;
+            }
+            try {
+                long started = System.nanoTime();
+                int processed = dispatchSlice(signal.site(), signal.senderId());
+                if (processed > 0) {
+                    log.info("Signal dispatch for site {} sender {} processed {} records in {}ms", signal.site(), signal.senderId(), processed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+                }
+            } catch (Exception ex) {
+                log.error("Signal dispatch failed for site {} sender {}", signal.site(), signal.senderId(), ex);
+            }
+        }
+    }
+
+    /**
+     * Pick up signals handed over by replicas that staged rows for a site this node owns. Only needed with leases
+     * on; without them every node processes every site and signals never leave the node.
+     */
+    @Scheduled(fixedDelayString = "${refdb.dispatch.signal-poll-ms:2000}")
+    public void pollHandedOffSignals() {
+        if (!running || !coordinator.isLeaseEnabled()) {
+            return;
+        }
+        try {
+            for (DispatchSignalQueue.Signal signal : refDbService.takeDispatchSignals(site -> coordinator.shouldProcessSite(JobCoordinator.DISPATCH, site))) {
+                dispatchSignals.signal(signal.site(), signal.senderId());
+            }
+        } catch (Exception ex) {
+            log.warn("Polling handed-off dispatch signals failed: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Safety-net poll. With event-driven dispatch enabled staged rows are normally pushed as soon as they are
+     * signalled; this run picks up anything that was missed (e.g. rows staged by another node or a failed signal).
+     */
+    @Scheduled(fixedDelayString = "${refdb.dispatch.interval-ms:300000}")
     public void dispatch() {
         try {
             Set<String> sites = refDbService.findSitesWithPending();
@@ -48,53 +157,114 @@ public class SenderDispatchService {
                 return;
             }
             for (String site : sites) {
-                processSite(site);
+                if (coordinator.shouldProcessSite(JobCoordinator.DISPATCH, site)) {
+                    processSite(site);
+                }
             }
         } catch (Exception ex) {
             log.error("Dispatch run failed", ex);
         }
     }
 
+    /**
+     * Push one fair slice (at most perSend rows) for a signalled sender and re-signal it when more work may remain.
+     * Re-queuing behind other signalled senders gives round-robin between senders instead of letting one large
+     * reload occupy a worker until it drains.
+     */
+    private int dispatchSlice(String site, int senderId) {
+        int limit = Math.max(1, properties.getDispatch().getPerSend());
+        ReentrantLock lock = lockFor(site, senderId);
+        lock.lock();
+        try {
+            List<StageRecord> batch = nextBatch(site, senderId, limit);
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            int handled = pushGroup(site, senderId, batch);
+            if (handled == batch.size() && batch.size() >= limit) {
+                dispatchSignals.signal(site, senderId);
+            }
+            return handled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<StageRecord> nextBatch(String site, Integer senderId, int limit) {
+        RefDbProperties.Fairness fairness = properties.getDispatch().getFairness();
+        if (!fairness.isEnabled()) {
+            return senderId == null
+                    ? refDbService.fetchNextBatchForSite(site, limit)
+                    : refDbService.fetchNextBatchForSender(site, senderId, limit);
+        }
+        int candidateLimit = limit * Math.max(1, fairness.getCandidateFactor());
+        List<StageRecord> candidates = refDbService.fetchFairCandidates(site, senderId, limit, candidateLimit);
+        return fairScheduler.select(site, senderId, candidates, limit);
+    }
+
     private void processSite(String site) {
         int limit = properties.getDispatch().getPerSend();
-        List<StageRecord> batch = refDbService.fetchNextBatchForSite(site, limit);
+        List<StageRecord> batch = nextBatch(site, null, limit);
         if (batch.isEmpty()) {
             return;
         }
-        Map<Integer, List<StageRecord>> bySender = new HashMap<>();
+        // The site-wide read only decides each sender's share of this run; the rows themselves are re-read under the
+        // sender lock, since a signal worker may have pushed some of them in the meantime.
+        Map<Integer, Integer> shareBySender = new LinkedHashMap<>();
         for (StageRecord record : batch) {
-            bySender.computeIfAbsent(record.senderId(), key -> new ArrayList<>()).add(record);
+            shareBySender.merge(record.senderId(), 1, Integer::sum);
         }
-        for (Map.Entry<Integer, List<StageRecord>> entry : bySender.entrySet()) {
-            pushGroup(site, entry.getKey(), entry.getValue());
+        for (Map.Entry<Integer, Integer> entry : shareBySender.entrySet()) {
+            int senderId = entry.getKey();
+            ReentrantLock lock = lockFor(site, senderId);
+            lock.lock();
+            try {
+                pushGroup(site, senderId, nextBatch(site, senderId, entry.getValue()));
+            } finally {
+                lock.unlock();
+            }
         }
     }
 
-    private void pushGroup(String site, int senderId, List<StageRecord> records) {
+    private ReentrantLock lockFor(String site, int senderId) {
+        return senderLocks.computeIfAbsent(site + "|" + senderId, key -> new ReentrantLock());
+    }
+
+    /**
+     * Push the given records to the remote queue. Returns the number of records that left the NEW state
+     * (enqueued, treated as duplicate or marked failed); 0 means no progress, e.g. the remote queue is full.
+     */
+    private int pushGroup(String site, int senderId, List<StageRecord> records) {
         if (records.isEmpty()) {
-            return;
+            return 0;
         }
         int maxQueueSize = properties.getDispatch().getMaxQueueSize();
         List<Long> success = new ArrayList<>();
-        try (Connection connection = externalDbConfig.getConnection(site)) {
-            boolean useSequence = requiresSequence(connection);
-            List<StageRecord> toDispatch = records;
-            if (maxQueueSize > 0) {
-                int existing = safeCountQueue(connection, senderId);
-                int available = maxQueueSize - existing;
-                if (available <= 0) {
-                    log.info("Queue for site {} sender {} already at capacity {} ({} existing)", site, senderId, maxQueueSize, existing);
-                    return;
-                }
-                if (records.size() > available) {
-                    log.info("Dispatch for site {} sender {} limited to {} of {} staged records due to queue threshold {}", site, senderId, available, records.size(), maxQueueSize);
-                    toDispatch = new ArrayList<>(records.subList(0, available));
-                }
+        int failed = 0;
+        int inserted = 0;
+        List<StageRecord> toDispatch = records;
+        if (maxQueueSize > 0) {
+            int existing = queueDepth.depth(site, senderId, () -> externalDbConfig.getConnection(site, null, ExternalWorkload.MONITOR));
+            int available = maxQueueSize - existing;
+            if (available <= 0) {
+                log.info("Queue for site {} sender {} already at capacity {} ({} existing)", site, senderId, maxQueueSize, existing);
+                return 0;
             }
-
-            if (toDispatch.isEmpty()) {
-                return;
+            if (records.size() > available) {
+                log.info("Dispatch for site {} sender {} limited to {} of {} staged records due to queue threshold {}", site, senderId, available, records.size(), maxQueueSize);
+                toDispatch = new ArrayList<>(records.subList(0, available));
             }
+        }
+        try {
+            // Wait for the whole group's tokens up front so the DISPATCH connection is not held while throttled
+            rateLimiter.acquire(site, senderId, toDispatch.size());
+        } catch (InterruptedException ie) {
+            // Shutting down: leave the rows NEW for the next run
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        try (Connection connection = externalDbConfig.getConnection(site, null, ExternalWorkload.DISPATCH)) {
+            boolean useSequence = requiresSequence(connection);
 
             String insertSql;
             if (useSequence) {
@@ -121,6 +291,7 @@ public class SenderDispatchService {
                         }
                         insert.executeUpdate();
                         success.add(record.id());
+                        inserted++;
                     } catch (SQLException ex) {
                         if (isDuplicate(ex)) {
                             log.info("Duplicate detected for {} – marking as enqueued", record);
@@ -128,6 +299,7 @@ public class SenderDispatchService {
                         } else {
                             log.error("Failed pushing record {}", record, ex);
                             refDbService.markFailed(record.id(), ex.getMessage());
+                            failed++;
                         }
                     }
                 }
@@ -137,32 +309,20 @@ public class SenderDispatchService {
             for (StageRecord record : records) {
                 refDbService.markFailed(record.id(), ex.getMessage());
             }
-            return;
+            return records.size();
+        } finally {
+            queueDepth.recordInserted(site, senderId, inserted);
         }
         if (!success.isEmpty()) {
             refDbService.markEnqueued(success);
         }
+        return success.size() + failed;
     }
 
     private boolean isDuplicate(SQLException ex) {
         return ex.getErrorCode() == 1 || (ex.getMessage() != null && ex.getMessage().toUpperCase().contains("UNIQUE"));
     }
 
-    private int safeCountQueue(Connection connection, int senderId) {
-        String sql = "SELECT COUNT(1) FROM DTP_SENDER_QUEUE_ITEM WHERE id_sender = ?";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, senderId);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
-            }
-        } catch (SQLException ex) {
-            log.warn("Failed counting queue for sender {}: {}", senderId, ex.getMessage());
-        }
-        return 0;
-    }
-
     private long nextQueueId(Connection connection) throws SQLException {
         String productName = connection.getMetaData().getDatabaseProductName();
         boolean oracle = productName != null && productName.toLowerCase(java.util.Locale.ROOT).contains("oracle");
@@ -199,24 +359,32 @@ public class SenderDispatchService {
         int remaining = (limitOverride != null && limitOverride > 0) ? limitOverride : Integer.MAX_VALUE;
         int processed = 0;
 
-        while (true) {
-            if (remaining <= 0) {
-                break;
-            }
-            int requestedBatch = Math.min(defaultBatchSize, remaining);
-            if (requestedBatch <= 0) {
-                break;
-            }
-            List<StageRecord> batch = refDbService.fetchNextBatchForSender(site, senderId, requestedBatch);
-            if (batch.isEmpty()) {
-                break;
-            }
-            pushGroup(site, senderId, batch);
-            processed += batch.size();
-            remaining -= batch.size();
-            if (batch.size() < requestedBatch) {
-                break;
+        ReentrantLock lock = lockFor(site, senderId);
+        lock.lock();
+        try {
+            while (true) {
+                if (remaining <= 0) {
+                    break;
+                }
+                int requestedBatch = Math.min(defaultBatchSize, remaining);
+                if (requestedBatch <= 0) {
+                    break;
+                }
+                List<StageRecord> batch = refDbService.fetchNextBatchForSender(site, senderId, requestedBatch);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                int handled = pushGroup(site, senderId, batch);
+                processed += handled;
+                remaining -= batch.size();
+                // Stop when nothing moved (remote queue full) or the batch was partially pushed; otherwise the same
+                // NEW rows would be fetched again immediately.
+                if (handled < batch.size() || batch.size() < requestedBatch) {
+                    break;
+                }
             }
+        } finally {
+            lock.unlock();
         }
         return processed;
     }
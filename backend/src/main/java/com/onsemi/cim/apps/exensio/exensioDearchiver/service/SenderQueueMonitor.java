@@ -1,7 +1,9 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
 
 import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalDbConfig;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.config.RefDbProperties;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.FetchSizeTuner;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.StageRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,13 +34,22 @@ public class SenderQueueMonitor {
     private final RefDbService refDbService;
     private final ExternalDbConfig externalDbConfig;
     private final RefDbProperties properties;
+    private final QueueDepthTracker queueDepth;
+    private final JobCoordinator coordinator;
+    private final FetchSizeTuner fetchTuner;
 
     public SenderQueueMonitor(RefDbService refDbService,
                               ExternalDbConfig externalDbConfig,
-                              RefDbProperties properties) {
+                              RefDbProperties properties,
+                              QueueDepthTracker queueDepth,
+                              JobCoordinator coordinator,
+                              FetchSizeTuner fetchTuner) {
         this.refDbService = refDbService;
         this.externalDbConfig = externalDbConfig;
         this.properties = properties;
+        this.queueDepth = queueDepth;
+        this.coordinator = coordinator;
+        this.fetchTuner = fetchTuner;
     }
 
     @Scheduled(fixedDelayString = "${refdb.dispatch.monitor-interval-ms:120000}")
@@ -52,10 +63,13 @@ public class SenderQueueMonitor {
         Map<String, Map<Integer, List<StageRecord>>> bySite = partitionBySiteAndSender(pending);
         for (Map.Entry<String, Map<Integer, List<StageRecord>>> entry : bySite.entrySet()) {
             String site = entry.getKey();
+            if (!coordinator.shouldProcessSite(JobCoordinator.MONITOR, site)) {
+                continue;
+            }
             Map<Integer, List<StageRecord>> bySender = entry.getValue();
             Connection connection = null;
             try {
-                connection = externalDbConfig.getConnection(site);
+                connection = externalDbConfig.getConnection(site, null, ExternalWorkload.MONITOR);
                 if (connection == null) {
                     log.debug("Skipping monitor for site {} because no external connection is available", site);
                     continue;
@@ -82,7 +96,15 @@ public class SenderQueueMonitor {
             log.debug("Skipping monitor for site {} sender {} due to missing connection", site, senderId);
             return;
         }
-        Set<String> queueKeys = fetchQueueKeys(connection, senderId);
+        QueueScan scan = fetchQueueKeys(connection, senderId);
+        if (scan == null) {
+            // A failed read must not be mistaken for an empty queue (that would mark everything complete).
+            return;
+        }
+        Set<String> queueKeys = scan.keys();
+        // The full scan is an exact depth reading; share it with capacity checks. Count rows, not distinct keys:
+        // the same payload queued twice still takes two slots of the queue limit.
+        queueDepth.update(site, senderId, scan.rows());
         if (queueKeys.isEmpty()) {
             log.debug("Queue empty for site {} sender {} when monitoring {} staged entries", site, senderId, records.size());
         }
@@ -99,25 +121,33 @@ public class SenderQueueMonitor {
         }
     }
 
-    private Set<String> fetchQueueKeys(Connection connection, int senderId) {
+    private QueueScan fetchQueueKeys(Connection connection, int senderId) {
         Set<String> keys = new HashSet<>();
+        int rows = 0;
         if (connection == null) {
-            return keys;
+            return new QueueScan(keys, rows);
         }
         String sql = "SELECT id_metadata, id_data FROM DTP_SENDER_QUEUE_ITEM WHERE id_sender = ?";
         try (PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setInt(1, senderId);
-            try (ResultSet rs = ps.executeQuery()) {
+            try (FetchSizeTuner.Fetch fetch = fetchTuner.start("monitor.queue-scan", ps, 0);
+                 ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     keys.add(buildKey(rs.getString(1), rs.getString(2)));
+                    rows++;
+                    fetch.row();
                 }
             }
         } catch (SQLException ex) {
             log.warn("Failed reading queue entries for sender {}: {}", senderId, ex.getMessage());
+            return null;
         }
-        return keys;
+        return new QueueScan(keys, rows);
     }
 
+    // Distinct (metadata, data) keys on the remote queue and the number of rows they came from
+    private record QueueScan(Set<String> keys, int rows) {}
+
     private Map<String, Map<Integer, List<StageRecord>>> partitionBySiteAndSender(List<StageRecord> records) {
         Map<String, Map<Integer, List<StageRecord>>> result = new HashMap<>();
         for (StageRecord record : records) {
@@ -1,6 +1,5 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
 
-import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalDbConfig;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.SenderQueueEntry;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.SenderQueueRepository;
 import org.slf4j.Logger;
@@ -10,9 +9,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.scheduling.annotation.Scheduled;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.List;
 
@@ -20,17 +16,37 @@ import java.util.List;
 public class SenderService {
     private final Logger log = LoggerFactory.getLogger(SenderService.class);
     private final SenderQueueRepository repository;
-    private final ExternalDbConfig externalDbConfig;
     private final org.springframework.core.env.Environment env;
-
-    public SenderService(SenderQueueRepository repository, ExternalDbConfig externalDbConfig, org.springframework.core.env.Environment env) {
+    private final JobCoordinator coordinator;
+
+    // Pending NEW entries above which the scheduled run is skipped
+    private final long pendingThreshold;
+    // Batch size adapts between min and max: doubled after a full batch finishing under the target time, halved when slower
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long targetBatchMs;
+    private final java.util.concurrent.atomic.AtomicInteger batchSize;
+    // PROCESSING rows claimed longer ago than this belong to a run that died and go back to NEW
+    private final long claimTimeoutMs;
+
+    public SenderService(SenderQueueRepository repository, org.springframework.core.env.Environment env, JobCoordinator coordinator) {
         this.repository = repository;
-        this.externalDbConfig = externalDbConfig;
         this.env = env;
+        this.coordinator = coordinator;
+        this.pendingThreshold = Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "app.sender.pending-threshold", null, "600"));
+        this.minBatchSize = Math.max(1, Integer.parseInt(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "app.sender.min-batch-size", null, "50")));
+        this.maxBatchSize = Math.max(minBatchSize, Integer.parseInt(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "app.sender.max-batch-size", null, "2000")));
+        this.targetBatchMs = Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "app.sender.target-batch-ms", null, "2000"));
+        int initial = Integer.parseInt(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "app.sender.batch-size", null, "300"));
+        this.batchSize = new java.util.concurrent.atomic.AtomicInteger(Math.max(minBatchSize, Math.min(maxBatchSize, initial)));
+        this.claimTimeoutMs = Long.parseLong(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getString(env, "app.sender.claim-timeout-ms", null, "600000"));
     }
 
     @Scheduled(cron = "${app.sender.cron:0 */5 * * * *}")
     public void scheduledRun() {
+        if (!coordinator.isLeader(JobCoordinator.SENDER)) {
+            return;
+        }
         runIfBelowThreshold();
     }
 
@@ -38,41 +54,61 @@ public class SenderService {
     public void runIfBelowThreshold() {
         long pending = repository.countByStatus("NEW");
         log.info("Pending items in queue (NEW): {}", pending);
-        // threshold properties could be externalized; using hard-coded for now
-        long threshold = 600;
-        if (pending > threshold) {
-            log.info("Queue above threshold ({} > {}). Sender will not run.", pending, threshold);
+        if (pending > pendingThreshold) {
+            log.info("Queue above threshold ({} > {}). Sender will not run.", pending, pendingThreshold);
             return;
         }
-        int limit = 300;
-        processBatch(limit);
+        int limit = batchSize.get();
+        long started = System.nanoTime();
+        int processed = processBatch(limit);
+        adaptBatchSize(limit, processed, java.util.concurrent.TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
     }
 
-    @Transactional
-    public void processBatch(int limit) {
-        List<SenderQueueEntry> batch = repository.findByStatusOrderByCreatedAt("NEW", PageRequest.of(0, limit));
-        if (batch == null || batch.isEmpty()) {
+    /**
+     * Claim up to {@code limit} NEW entries with one UPDATE, process them and record the outcomes set-wise.
+     * Returns the number of entries claimed.
+     *
+     * The claim and the completion commit separately, so a crash in between leaves rows PROCESSING; each run first
+     * returns claims older than app.sender.claim-timeout-ms to NEW.
+     */
+    public int processBatch(int limit) {
+        int reclaimed = repository.reclaimStale(Instant.now().minusMillis(claimTimeoutMs));
+        if (reclaimed > 0) {
+            log.warn("Returned {} queue entries stuck in PROCESSING for over {} ms to NEW", reclaimed, claimTimeoutMs);
+        }
+        String claimToken = java.util.UUID.randomUUID().toString();
+        List<SenderQueueEntry> batch = repository.claimNew(claimToken, Math.max(1, limit));
+        if (batch.isEmpty()) {
             log.debug("No NEW items to process.");
-            return;
+            return 0;
         }
 
+        java.util.List<Long> failed = new java.util.ArrayList<>();
         for (SenderQueueEntry e : batch) {
             try {
-                e.setStatus("PROCESSING");
-                repository.save(e);
-
                 // If external sending is needed, call external DB / API here.
-                // For now mark as SENT
-                e.setStatus("SENT");
-                e.setProcessedAt(Instant.now());
-                repository.save(e);
-                log.info("Processed payload {} as SENT", e.getPayloadId());
+                // For now every claimed entry is marked SENT
+                log.debug("Processed payload {} as SENT", e.getPayloadId());
             } catch (Exception ex) {
                 log.error("Failed processing payload {}: {}", e.getPayloadId(), ex.getMessage());
-                e.setStatus("FAILED");
-                repository.save(e);
+                failed.add(e.getId());
             }
         }
+        int sent = repository.completeClaim(claimToken, failed, Instant.now());
+        log.info("Processed {} queued payloads: {} SENT, {} FAILED", batch.size(), sent, failed.size());
+        return batch.size();
+    }
+
+    int currentBatchSize() {
+        return batchSize.get();
+    }
+
+    void adaptBatchSize(int limit, int processed, long elapsedMs) {
+        if (processed >= limit && elapsedMs < targetBatchMs) {
+            batchSize.set(Math.min(maxBatchSize, limit * 2));
+        } else if (elapsedMs > targetBatchMs) {
+            batchSize.set(Math.max(minBatchSize, limit / 2));
+        }
     }
 
     @Transactional
@@ -85,73 +121,36 @@ public class SenderService {
     public EnqueueResultHolder enqueuePayloadsWithResult(Integer senderId, java.util.List<String> payloadIds, String source) {
         if (payloadIds == null || payloadIds.isEmpty()) return new EnqueueResultHolder(0, java.util.Collections.emptyList());
 
-        // normalize and trim input payloads
-        java.util.List<String> normalized = new java.util.ArrayList<>();
+        // normalize and trim input payloads; repeats within the request count as skipped
+        java.util.Set<String> normalized = new java.util.LinkedHashSet<>();
+        java.util.List<String> skipped = new java.util.ArrayList<>();
         for (String p : payloadIds) {
             if (p == null) continue;
             String t = p.trim();
             if (t.isEmpty()) continue;
-            normalized.add(t);
+            if (!normalized.add(t)) skipped.add(t);
         }
         if (normalized.isEmpty()) return new EnqueueResultHolder(0, java.util.Collections.emptyList());
 
-        // Query repository for payloads already present for this sender
-        java.util.List<String> existing = repository.findPayloadIdsBySenderIdAndPayloadIdIn(senderId, normalized);
-        java.util.Set<String> existingSet = new java.util.HashSet<>(existing == null ? java.util.Collections.emptyList() : existing);
+        // Payloads already present for this sender (looked up in IN-list chunks)
+        java.util.Set<String> existingSet = repository.findExistingPayloadIds(senderId, normalized);
 
         java.util.List<String> toInsert = new java.util.ArrayList<>();
-        java.util.List<String> skipped = new java.util.ArrayList<>();
         for (String p : normalized) {
             if (existingSet.contains(p)) skipped.add(p);
             else toInsert.add(p);
         }
 
-        int inserted = 0;
-        for (String p : toInsert) {
-            SenderQueueEntry entry = new SenderQueueEntry(senderId, p, source);
-            entry.setStatus("NEW");
-            try {
-                repository.save(entry);
-                inserted++;
-            } catch (org.springframework.dao.DataIntegrityViolationException dive) {
-                // Unique constraint violation or other integrity issue means another process
-                // inserted the same payload concurrently. Treat as skipped.
-                log.warn("Skipping payload due to integrity violation (probably duplicate): {}", p);
-                skipped.add(p);
+        // Batched insert-if-absent: payloads another process inserted in the meantime are skipped, not errors
+        java.util.List<String> inserted = toInsert.isEmpty() ? java.util.Collections.emptyList() : repository.insertIfAbsent(senderId, toInsert, source);
+        if (inserted.size() < toInsert.size()) {
+            java.util.Set<String> insertedSet = new java.util.HashSet<>(inserted);
+            for (String p : toInsert) {
+                if (!insertedSet.contains(p)) skipped.add(p);
             }
         }
-        log.info("Enqueued {} payloads (senderId={}, source={}), skipped {} already-present", inserted, senderId, source, skipped.size());
-        return new EnqueueResultHolder(inserted, skipped);
-    }
-
-    // Example helper: when caller wants to push items directly into an external sender queue table on remote DB
-    public int pushToExternalQueue(String site, Integer senderId, List<SenderQueueEntry> items) {
-        // Guard: require explicit configuration to allow remote writes
-            boolean allow = com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getBooleanFlag(env, "external-db.allow-writes", "EXTERNAL_DB_ALLOW_WRITES", false);
-            if (!allow) {
-                throw new IllegalStateException("External DB writes are disabled. Set EXTERNAL_DB_ALLOW_WRITES=true to enable");
-        }
-        try (Connection c = externalDbConfig.getConnection(site)) {
-            String insertSql = "insert into DTP_SENDER_QUEUE_ITEM (id, id_metadata, id_data, id_sender, record_created) values (DTP_SENDER_QUEUE_ITEM_SEQ.nextval, ?, ?, ?, ?)";
-
-            PreparedStatement ps = c.prepareStatement(insertSql);
-            int pushed = 0;
-            for (SenderQueueEntry e : items) {
-                String[] parts = e.getPayloadId().split(",");
-                if (parts.length >= 2) {
-                    ps.setString(1, parts[0]);
-                    ps.setString(2, parts[1]);
-                    ps.setInt(3, senderId);
-                    ps.setTimestamp(4, Timestamp.from(Instant.now()));
-                    ps.executeUpdate();
-                    pushed++;
-                }
-            }
-            return pushed;
-        } catch (Exception ex) {
-            log.error("Error pushing to external queue for site {}: {}", site, ex.getMessage());
-            return 0;
-        }
+        log.info("Enqueued {} payloads (senderId={}, source={}), skipped {} already-present", inserted.size(), senderId, source, skipped.size());
+        return new EnqueueResultHolder(inserted.size(), skipped);
     }
 
     public java.util.List<SenderQueueEntry> getQueue(Integer senderId, String status, int limit) {
@@ -0,0 +1,265 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionPayloadRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto.SessionPushJobStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs session pushes in the background.
+ *
+ * A job repeatedly claims chunk-size NEW payloads of its session through {@link SessionPushService#pushSessionChunk}
+ * until none are left, so memory stays bounded by one chunk and a restarted job resumes where the last one stopped.
+ * Jobs live in memory on the node that accepted them; the most recent app.session-push.retained-jobs are kept
+ * for status polling.
+ *
+ * When the remote queue of the session's sender is at capacity the job is WAITING: it polls again with a backoff
+ * growing from queue-full-backoff-ms up to queue-full-max-backoff-ms, and ends PARTIAL only if no room opens up
+ * within queue-full-timeout-ms.
+ */
+@Service
+public class SessionPushJobService {
+    private static final Logger log = LoggerFactory.getLogger(SessionPushJobService.class);
+
+    // Claimed or not yet claimed: a session with any of these left is not complete
+    private static final List<String> PENDING_STATUSES = List.of("NEW", "STAGED", "ENQUEUED_LOCAL");
+    private static final int MAX_IDLE_ROUNDS = 3;
+    private static final long IDLE_BACKOFF_MS = 200;
+
+    private final SessionPushService pushService;
+    private final LoadSessionRepository sessionRepo;
+    private final LoadSessionPayloadRepository payloadRepo;
+    private final int chunkSize;
+    private final int retainedJobs;
+    private final int chunkHistory;
+    private final long queueFullBackoffMs;
+    private final long queueFullMaxBackoffMs;
+    private final long queueFullTimeoutMs;
+    private final ExecutorService executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public SessionPushJobService(SessionPushService pushService, LoadSessionRepository sessionRepo, LoadSessionPayloadRepository payloadRepo,
+                                 Environment env) {
+        this.pushService = pushService;
+        this.sessionRepo = sessionRepo;
+        this.payloadRepo = payloadRepo;
+        this.chunkSize = Math.max(1, Integer.parseInt(ConfigUtils.getString(env, "app.session-push.chunk-size", null, "500")));
+        this.retainedJobs = Math.max(1, Integer.parseInt(ConfigUtils.getString(env, "app.session-push.retained-jobs", null, "100")));
+        this.chunkHistory = Math.max(1, Integer.parseInt(ConfigUtils.getString(env, "app.session-push.chunk-history", null, "200")));
+        this.queueFullBackoffMs = Math.max(1L, Long.parseLong(ConfigUtils.getString(env, "app.session-push.queue-full-backoff-ms", null, "1000")));
+        this.queueFullMaxBackoffMs = Math.max(queueFullBackoffMs, Long.parseLong(ConfigUtils.getString(env, "app.session-push.queue-full-max-backoff-ms", null, "30000")));
+        this.queueFullTimeoutMs = Math.max(0L, Long.parseLong(ConfigUtils.getString(env, "app.session-push.queue-full-timeout-ms", null, "1800000")));
+        int workers = Math.max(1, Integer.parseInt(ConfigUtils.getString(env, "app.session-push.workers", null, "2")));
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "session-push-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Queue a push of the session's NEW payloads. Returns the already running job when the session has one, and
+     * null when the session does not exist.
+     */
+    public synchronized SessionPushJobStatus submit(Long sessionId) {
+        if (sessionId == null || sessionRepo.findById(sessionId).isEmpty()) {
+            return null;
+        }
+        for (Job existing : jobs.values()) {
+            if (existing.sessionId.equals(sessionId) && !existing.isFinished()) {
+                return existing.snapshot();
+            }
+        }
+        Integer pending = pushService.getSessionProgress(sessionId).get("new");
+        Job job = new Job(UUID.randomUUID().toString(), sessionId, pending == null ? 0 : pending);
+        evictFinished();
+        jobs.put(job.id, job);
+        executor.submit(() -> run(job));
+        log.info("Queued push job {} for session {} ({} pending payloads, chunk size {})", job.id, sessionId, job.pending, chunkSize);
+        return job.snapshot();
+    }
+
+    public SessionPushJobStatus get(String jobId) {
+        Job job = jobId == null ? null : jobs.get(jobId);
+        return job == null ? null : job.snapshot();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(Job job) {
+        job.start();
+        try {
+            int index = 0;
+            int idleRounds = 0;
+            long waitingSince = 0L;
+            long queueFullBackoff = queueFullBackoffMs;
+            boolean gaveUpWaiting = false;
+            while (!Thread.currentThread().isInterrupted()) {
+                long started = System.nanoTime();
+                SessionPushService.ChunkResult result = pushService.pushSessionChunk(job.sessionId, chunkSize);
+                if (result.queueFull()) {
+                    // Not contention: the sender's remote queue has to drain first, which can take far longer
+                    long now = System.currentTimeMillis();
+                    if (waitingSince == 0L) {
+                        waitingSince = now;
+                        job.waiting();
+                    } else if (now - waitingSince >= queueFullTimeoutMs) {
+                        gaveUpWaiting = true;
+                        break;
+                    }
+                    Thread.sleep(Math.min(queueFullBackoff, Math.max(1L, waitingSince + queueFullTimeoutMs - now)));
+                    queueFullBackoff = Math.min(queueFullMaxBackoffMs, queueFullBackoff * 2);
+                    continue;
+                }
+                if (waitingSince != 0L) {
+                    waitingSince = 0L;
+                    queueFullBackoff = queueFullBackoffMs;
+                    job.resume();
+                }
+                if (result.claimed() == 0) {
+                    // An empty claim can also mean the claim lost repeatedly to a concurrent pusher; only stop early
+                    // once no NEW payloads are left, otherwise back off and try again a few times
+                    if (payloadRepo.countBySessionIdAndStatus(job.sessionId, "NEW") == 0 || ++idleRounds > MAX_IDLE_ROUNDS) {
+                        break;
+                    }
+                    Thread.sleep(IDLE_BACKOFF_MS * idleRounds);
+                    continue;
+                }
+                idleRounds = 0;
+                job.record(new SessionPushJobStatus.Chunk(++index, result.claimed(), result.pushed(), result.skipped(), result.failed(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+            }
+
+            int remaining = 0;
+            for (String status : PENDING_STATUSES) {
+                remaining += payloadRepo.countBySessionIdAndStatus(job.sessionId, status);
+            }
+            SessionPushJobStatus totals = job.snapshot();
+            String outcome;
+            String message = null;
+            if (remaining > 0) {
+                outcome = "PARTIAL";
+                message = remaining + " payloads still pending" + (gaveUpWaiting ? " (remote queue stayed full for " + queueFullTimeoutMs + " ms)" : "");
+            } else if (totals.failed() > 0 && totals.pushed() == 0) {
+                outcome = "FAILED";
+                message = "no payload was pushed (" + totals.failed() + " failed)";
+            } else {
+                outcome = "COMPLETED";
+            }
+            sessionRepo.findById(job.sessionId).ifPresent(s -> {
+                s.setStatus(outcome);
+                sessionRepo.save(s);
+            });
+            job.finish(outcome, message);
+            log.info("Push job {} for session {} finished {}: pushed={} skipped={} failed={} pending={}", job.id, job.sessionId, outcome,
+                    totals.pushed(), totals.skipped(), totals.failed(), remaining);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            job.finish("FAILED", "interrupted");
+        } catch (Exception ex) {
+            log.error("Push job {} for session {} failed: {}", job.id, job.sessionId, ex.getMessage());
+            job.finish("FAILED", ex.getMessage());
+        }
+    }
+
+    // Drop the oldest finished jobs once the registry is full; running jobs are never evicted
+    private void evictFinished() {
+        if (jobs.size() < retainedJobs) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(Job::isFinished)
+                .sorted(java.util.Comparator.comparing(j -> j.submittedAt))
+                .limit(jobs.size() - retainedJobs + 1L)
+                .toList()
+                .forEach(j -> jobs.remove(j.id));
+    }
+
+    private final class Job {
+        private final String id;
+        private final Long sessionId;
+        private final int pending;
+        private final Instant submittedAt = Instant.now();
+        private final Deque<SessionPushJobStatus.Chunk> chunks = new ArrayDeque<>();
+        private String state = "QUEUED";
+        private Instant startedAt;
+        private Instant finishedAt;
+        private long claimed;
+        private long pushed;
+        private long skipped;
+        private long failed;
+        private String error;
+
+        private Job(String id, Long sessionId, int pending) {
+            this.id = id;
+            this.sessionId = sessionId;
+            this.pending = pending;
+        }
+
+        synchronized void start() {
+            state = "RUNNING";
+            startedAt = Instant.now();
+        }
+
+        synchronized void waiting() {
+            state = "WAITING";
+        }
+
+        synchronized void resume() {
+            state = "RUNNING";
+        }
+
+        synchronized void record(SessionPushJobStatus.Chunk chunk) {
+            claimed += chunk.claimed();
+            pushed += chunk.pushed();
+            skipped += chunk.skipped();
+            failed += chunk.failed();
+            chunks.addLast(chunk);
+            while (chunks.size() > chunkHistory) {
+                chunks.removeFirst();
+            }
+        }
+
+        synchronized void finish(String finalState, String message) {
+            state = finalState;
+            error = message;
+            finishedAt = Instant.now();
+        }
+
+        synchronized boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        synchronized SessionPushJobStatus snapshot() {
+            return new SessionPushJobStatus(id, sessionId, state, submittedAt, startedAt, finishedAt, pending,
+                    claimed, pushed, skipped, failed, error, new ArrayList<>(chunks));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
 
 import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalDbConfig;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.RefDbProperties;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.LoadSessionPayload;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionPayloadRepository;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionRepository;
@@ -14,7 +16,6 @@ import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.sql.ResultSet;
 import java.sql.Timestamp;
-import java.sql.DatabaseMetaData;
 import java.time.Instant;
 import java.util.ArrayList;
 import org.springframework.stereotype.Service;
@@ -58,261 +59,301 @@ public class SessionPushService {
     @Autowired
     private Environment env;
 
+    @Autowired
+    private InsertRateLimiter rateLimiter;
+
+    @Autowired
+    private QueueDepthTracker queueDepth;
+
+    @Autowired
+    private RefDbProperties refDbProperties;
+
+    @Autowired
+    private org.springframework.transaction.support.TransactionTemplate transactions;
+
+    private static int senderIdOrZero(Integer senderId) {
+        return senderId == null ? 0 : senderId;
+    }
+
     @Transactional
     public List<LoadSessionPayload> claimNextBatch(Long sessionId, int batchSize) {
         return payloadRepo.claimNextBatch(sessionId, batchSize);
     }
 
-    @Transactional
+    /**
+     * Claim one batch of the session's NEW payloads, push it and return the number pushed. Same path as
+     * {@link #pushSessionChunk}.
+     */
     public int pushSessionBatch(Long sessionId, int batchSize) {
-        // Load session
-        var opt = sessionRepo.findById(sessionId);
-        if (opt.isEmpty()) return 0;
-        var session = opt.get();
+        return pushSessionChunk(sessionId, batchSize).pushed();
+    }
 
-        // Claim a batch (will mark as STAGED)
-        List<LoadSessionPayload> claimed = claimNextBatch(sessionId, batchSize);
-        if (claimed == null || claimed.isEmpty()) return 0;
+    /**
+     * Claim up to {@code chunkSize} NEW payloads and push them with one JDBC batch.
+     *
+     * The claim commits before anything remote happens, and no local transaction or DISPATCH connection is held
+     * while waiting for rate-limit tokens: the tokens for the whole chunk are taken first, then a connection is
+     * borrowed for the insert only. Outcomes and session counters are saved in a transaction of their own.
+     * Like the dispatch path, the chunk is capped at the free room below {@code refdb.dispatch.max-queue-size}; a full
+     * remote queue claims nothing and returns {@link ChunkResult#QUEUE_FULL}.
+     */
+    public ChunkResult pushSessionChunk(Long sessionId, int chunkSize) {
+        var session = sessionRepo.findById(sessionId).orElse(null);
+        if (session == null) return ChunkResult.EMPTY;
 
-        // Gate remote writes
+        // Gate before claiming so a disabled gate does not leave payloads STAGED
         boolean allow = com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getBooleanFlag(env, "external-db.allow-writes", "EXTERNAL_DB_ALLOW_WRITES", false);
         if (!allow) {
             throw new IllegalStateException("External DB writes are disabled. Set EXTERNAL_DB_ALLOW_WRITES=true to enable");
         }
 
-        boolean useH2 = com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getBooleanFlag(env, "reloader.use-h2-external", "RELOADER_USE_H2_EXTERNAL", false);
+        String site = session.getSite();
+        int senderId = senderIdOrZero(session.getSenderId());
+        int maxQueueSize = refDbProperties.getDispatch().getMaxQueueSize();
+        if (maxQueueSize > 0) {
+            int existing = queueDepth.depth(site, senderId, () -> externalDbConfig.getConnection(site, null, ExternalWorkload.MONITOR));
+            int available = maxQueueSize - existing;
+            if (available <= 0) {
+                log.info("Queue for site {} sender {} already at capacity {} ({} existing); session {} waits", site, senderId, maxQueueSize, existing, sessionId);
+                return ChunkResult.QUEUE_FULL;
+            }
+            if (chunkSize > available) {
+                log.info("Push for session {} limited to {} of {} payloads due to queue threshold {}", sessionId, available, chunkSize, maxQueueSize);
+                chunkSize = available;
+            }
+        }
+
+        int claimSize = chunkSize;
+        List<LoadSessionPayload> claimed = transactions.execute(status -> payloadRepo.claimNextBatch(sessionId, claimSize));
+        if (claimed == null || claimed.isEmpty()) return ChunkResult.EMPTY;
 
-        int pushed = 0;
-        List<LoadSessionPayload> toSave = new ArrayList<>();
-        try (Connection c = externalDbConfig.getConnection(session.getSite())) {
-            // First consult per-site override in dbconnections.json: dbType/type/dialect
-            boolean isOracle = false;
+        List<LoadSessionPayload> valid = new ArrayList<>();
+        for (LoadSessionPayload p : claimed) {
+            if (payloadParts(p) == null) {
+                recordFailure(p, "invalid payload format");
+            } else {
+                valid.add(p);
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            boolean permitted = true;
             try {
-                java.util.Map<String, Object> cfg = externalDbConfig.getConfigForSite(session.getSite());
-                if (cfg != null) {
-                    Object t = cfg.get("dbType"); if (t == null) t = cfg.get("type"); if (t == null) t = cfg.get("dialect");
-                    if (t != null && t.toString().toLowerCase().contains("oracle")) isOracle = true;
+                rateLimiter.acquire(site, senderId, valid.size());
+            } catch (InterruptedException ie) {
+                // Shutting down: hand the claim back so the next job picks these payloads up again
+                Thread.currentThread().interrupt();
+                permitted = false;
+                for (LoadSessionPayload p : valid) {
+                    p.setStatus("NEW");
+                    p.setUpdatedAt(Instant.now());
                 }
-            } catch (Exception cfgEx) {
-                // ignore config parsing errors
             }
-            // If not explicitly configured, fall back to JDBC metadata detection
-            if (!isOracle) {
-                try {
-                    DatabaseMetaData md = c.getMetaData();
-                    String dbName = md.getDatabaseProductName();
-                    if (dbName != null && dbName.toLowerCase().contains("oracle")) {
-                        isOracle = true;
+            if (permitted) {
+                try (Connection c = externalDbConfig.getConnection(site, null, ExternalWorkload.DISPATCH)) {
+                    pushPayloads(c, site, senderId, valid);
+                } catch (Exception outer) {
+                    log.error("Error pushing chunk for session {}: {}", sessionId, outer.getMessage());
+                    for (LoadSessionPayload p : valid) {
+                        if ("STAGED".equals(p.getStatus())) recordFailure(p, "external connection error: " + outer.getMessage());
                     }
-                } catch (Exception mdEx) {
-                    // ignore metadata failures and fall back to generic path
                 }
             }
+        }
 
-            if (isOracle && !useH2) {
-                // Oracle path: SELECT seq.nextval FROM dual, then INSERT with that id
-                for (LoadSessionPayload p : claimed) {
-                    try {
-                        String payload = p.getPayloadId();
-                        String[] parts = payload == null ? new String[0] : payload.split(",");
-                        if (parts.length < 2) {
-                            p.markFailed("invalid payload format");
-                            p.setAttempts(p.getAttempts() + 1);
-                            p.setNextAttemptAt(Instant.now().plusMillis(computeBackoffMillis(p.getAttempts())));
-                            toSave.add(p);
-                            continue;
-                        }
-                        String meta = parts[0];
-                        String data = parts[1];
-
-                        // get next sequence value
-                        long nextId = -1L;
-                        try (PreparedStatement seqPs = c.prepareStatement("select DTP_SENDER_QUEUE_ITEM_SEQ.nextval from dual")) {
-                            try (ResultSet rs = seqPs.executeQuery()) {
-                                if (rs != null && rs.next()) {
-                                    nextId = rs.getLong(1);
-                                }
-                            }
-                        }
-
-                        if (nextId <= 0) {
-                            throw new IllegalStateException("failed to obtain sequence nextval");
-                        }
-
-                        // perform insert using the allocated id
-                        String ins = "insert into DTP_SENDER_QUEUE_ITEM (id, id_metadata, id_data, id_sender, record_created) values (?, ?, ?, ?, ?)";
-                        try (PreparedStatement ips = c.prepareStatement(ins)) {
-                            Timestamp now = Timestamp.from(Instant.now());
-                            ips.setLong(1, nextId);
-                            ips.setString(2, meta);
-                            ips.setString(3, data);
-                            ips.setInt(4, session.getSenderId() == null ? 0 : session.getSenderId());
-                            ips.setTimestamp(5, now);
-                            ips.executeUpdate();
-                        }
-
-                        p.setAttempts(p.getAttempts() + 1);
-                        p.markPushed(String.valueOf(nextId));
-                        toSave.add(p);
-                        pushed++;
-                    } catch (java.sql.SQLIntegrityConstraintViolationException icv) {
-                        // Treat integrity constraint violations (unique constraint on remote queue) as SKIPPED
-                        log.info("Constraint violation pushing payload {}: {}", p.getPayloadId(), icv.getMessage());
-                        p.setAttempts(p.getAttempts() + 1);
-                        p.setStatus("SKIPPED");
-                        p.setUpdatedAt(java.time.Instant.now());
-                        toSave.add(p);
-                    } catch (java.sql.SQLException sqlEx) {
-                        // SQLState starting with '23' is integrity constraint class; classify as SKIPPED
-                        String sqlState = sqlEx.getSQLState();
-                        if (sqlState != null && sqlState.startsWith("23")) {
-                            log.info("SQLState constraint violation pushing payload {}: {}", p.getPayloadId(), sqlEx.getMessage());
-                            p.setAttempts(p.getAttempts() + 1);
-                            p.setStatus("SKIPPED");
-                            p.setUpdatedAt(java.time.Instant.now());
-                            toSave.add(p);
-                            } else {
-                                log.error("Error pushing payload {} (oracle path): {}", p.getPayloadId(), sqlEx.getMessage());
-                                p.markFailed(sqlEx.getMessage());
-                                p.setAttempts(p.getAttempts() + 1);
-                                p.setNextAttemptAt(Instant.now().plusMillis(computeBackoffMillis(p.getAttempts())));
-                                toSave.add(p);
-                            }
-                    } catch (Exception ex) {
-                        log.error("Error pushing payload {} (oracle path): {}", p.getPayloadId(), ex.getMessage());
-                        p.markFailed(ex.getMessage());
-                        p.setAttempts(p.getAttempts() + 1);
-                        p.setNextAttemptAt(Instant.now().plusMillis(computeBackoffMillis(p.getAttempts())));
-                        toSave.add(p);
-                    }
+        int pushed = 0, skipped = 0, failed = 0, released = 0;
+        for (LoadSessionPayload p : claimed) {
+            if ("PUSHED".equals(p.getStatus())) pushed++;
+            else if ("SKIPPED".equals(p.getStatus())) skipped++;
+            else if ("NEW".equals(p.getStatus())) released++;
+            else failed++;
+        }
+        queueDepth.recordInserted(site, senderId, pushed);
+        int pushedCount = pushed;
+        int notPushed = skipped + failed;
+        try {
+            transactions.executeWithoutResult(status -> {
+                payloadRepo.saveAll(claimed);
+                sessionRepo.findById(sessionId).ifPresent(current -> {
+                    current.setPushedRemoteCount((current.getPushedRemoteCount() == null ? 0 : current.getPushedRemoteCount()) + pushedCount);
+                    current.setFailedCount((current.getFailedCount() == null ? 0 : current.getFailedCount()) + notPushed);
+                    sessionRepo.save(current);
+                });
+            });
+        } catch (Exception ex) {
+            log.error("Failed saving payload statuses for session {}: {}", sessionId, ex.getMessage());
+        }
+        return new ChunkResult(claimed.size() - released, pushed, skipped, failed, false);
+    }
+
+    /**
+     * Outcome of one {@link #pushSessionChunk} call. {@code claimed == 0} means no NEW payload could be claimed (none
+     * left, or lost to a concurrent pusher) unless {@code queueFull} is set: then the remote queue had no room and
+     * nothing was claimed.
+     */
+    public record ChunkResult(int claimed, int pushed, int skipped, int failed, boolean queueFull) {
+        static final ChunkResult EMPTY = new ChunkResult(0, 0, 0, 0, false);
+        static final ChunkResult QUEUE_FULL = new ChunkResult(0, 0, 0, 0, true);
+    }
+
+    /**
+     * Insert the payloads into the remote queue and record each one's outcome on the entity: PUSHED with its remote
+     * id, SKIPPED when the queue rejects it with an integrity constraint (already queued), FAILED otherwise. Several
+     * payloads go in one JDBC batch in its own remote transaction; if that fails it is rolled back and the payloads
+     * are retried one by one so every payload gets its own outcome.
+     */
+    private void pushPayloads(Connection c, String site, int senderId, List<LoadSessionPayload> payloads) throws java.sql.SQLException {
+        boolean useH2 = com.onsemi.cim.apps.exensio.exensioDearchiver.config.ConfigUtils.getBooleanFlag(env, "reloader.use-h2-external", "RELOADER_USE_H2_EXTERNAL", false);
+        boolean oracle = !useH2 && isOracle(site, c);
+        if (payloads.size() > 1) {
+            List<String> ids = null;
+            boolean autoCommit = c.getAutoCommit();
+            try {
+                c.setAutoCommit(false);
+                ids = insertRows(c, oracle, useH2, payloads, senderId);
+                c.commit();
+            } catch (java.sql.SQLException | RuntimeException batchEx) {
+                log.info("Batch push of {} payloads for site {} failed ({}); retrying row by row", payloads.size(), site, batchEx.getMessage());
+                try { c.rollback(); } catch (java.sql.SQLException ignore) {}
+                ids = null;
+            } finally {
+                c.setAutoCommit(autoCommit);
+            }
+            if (ids != null) {
+                for (int i = 0; i < payloads.size(); i++) {
+                    LoadSessionPayload p = payloads.get(i);
+                    p.setAttempts(p.getAttempts() + 1);
+                    p.markPushed(ids.get(i));
                 }
-            } else {
-                String insertSql;
-                if (useH2) {
-                    insertSql = "insert into DTP_SENDER_QUEUE_ITEM (id_metadata, id_data, id_sender, record_created) values (?, ?, ?, ?)";
+                return;
+            }
+        }
+        for (LoadSessionPayload p : payloads) {
+            try {
+                String id = insertRows(c, oracle, useH2, List.of(p), senderId).get(0);
+                p.setAttempts(p.getAttempts() + 1);
+                p.markPushed(id);
+            } catch (java.sql.SQLException rowEx) {
+                String sqlState = rowEx.getSQLState();
+                if (rowEx instanceof java.sql.SQLIntegrityConstraintViolationException || (sqlState != null && sqlState.startsWith("23"))) {
+                    log.info("Constraint violation pushing payload {}: {}", p.getPayloadId(), rowEx.getMessage());
+                    p.setAttempts(p.getAttempts() + 1);
+                    p.setStatus("SKIPPED");
+                    p.setUpdatedAt(Instant.now());
                 } else {
-                    insertSql = "insert into DTP_SENDER_QUEUE_ITEM (id, id_metadata, id_data, id_sender, record_created) values (DTP_SENDER_QUEUE_ITEM_SEQ.nextval, ?, ?, ?, ?)";
+                    log.error("Error pushing payload {}: {}", p.getPayloadId(), rowEx.getMessage());
+                    recordFailure(p, rowEx.getMessage());
                 }
+            } catch (RuntimeException ex) {
+                log.error("Error pushing payload {}: {}", p.getPayloadId(), ex.getMessage());
+                recordFailure(p, ex.getMessage());
+            }
+        }
+    }
 
-                try (PreparedStatement ps = c.prepareStatement(insertSql, useH2 ? PreparedStatement.RETURN_GENERATED_KEYS : Statement.RETURN_GENERATED_KEYS)) {
-                    for (LoadSessionPayload p : claimed) {
-                        try {
-                            String payload = p.getPayloadId();
-                            String[] parts = payload == null ? new String[0] : payload.split(",");
-                            if (parts.length < 2) {
-                                p.markFailed("invalid payload format");
-                                p.setAttempts(p.getAttempts() + 1);
-                                p.setNextAttemptAt(Instant.now().plusMillis(computeBackoffMillis(p.getAttempts())));
-                                toSave.add(p);
-                                continue;
-                            }
-                            String meta = parts[0];
-                            String data = parts[1];
-
-                            Timestamp now = Timestamp.from(Instant.now());
-                            ps.setString(1, meta);
-                            ps.setString(2, data);
-                            ps.setInt(3, session.getSenderId() == null ? 0 : session.getSenderId());
-                            ps.setTimestamp(4, now);
-                            ps.executeUpdate();
-
-                            // Attempt to retrieve generated id for both H2 and non-H2 using getGeneratedKeys
-                            String assignedId = null;
-                            try (ResultSet rs = ps.getGeneratedKeys()) {
-                                if (rs != null && rs.next()) {
-                                    try {
-                                        long gen = rs.getLong(1);
-                                        assignedId = String.valueOf(gen);
-                                    } catch (Exception ignore) {
-                                        // driver may return non-numeric or different column ordering
-                                        assignedId = rs.getString(1);
-                                    }
-                                }
-                            } catch (Exception gkEx) {
-                                // ignore and fallback
-                            }
-
-                            // Fallback: if no generated key returned, try a safe SELECT to find the inserted row
-                            if (assignedId == null) {
-                                try (PreparedStatement sel = c.prepareStatement("select id from DTP_SENDER_QUEUE_ITEM where id_metadata=? and id_data=? and id_sender=? and record_created>=? order by record_created desc")) {
-                                    // look for rows created at or after our timestamp (allow exact match)
-                                    sel.setString(1, meta);
-                                    sel.setString(2, data);
-                                    sel.setInt(3, session.getSenderId() == null ? 0 : session.getSenderId());
-                                    sel.setTimestamp(4, new Timestamp(now.getTime() - 2000)); // 2s leeway
-                                    try (ResultSet rs2 = sel.executeQuery()) {
-                                        if (rs2 != null && rs2.next()) {
-                                            assignedId = rs2.getString(1);
-                                        }
-                                    }
-                                } catch (Exception selEx) {
-                                    // ignore fallback failure
-                                }
-                            }
-
-                            p.setAttempts(p.getAttempts() + 1);
-                            if (assignedId != null) p.markPushed(assignedId);
-                            else p.markPushed(null);
-                            toSave.add(p);
-                            pushed++;
-                        } catch (java.sql.SQLIntegrityConstraintViolationException icv) {
-                            log.info("Constraint violation pushing payload {}: {}", p.getPayloadId(), icv.getMessage());
-                            p.setAttempts(p.getAttempts() + 1);
-                            p.setStatus("SKIPPED");
-                            p.setUpdatedAt(java.time.Instant.now());
-                            toSave.add(p);
-                        } catch (java.sql.SQLException sqlEx) {
-                            String sqlState = sqlEx.getSQLState();
-                            if (sqlState != null && sqlState.startsWith("23")) {
-                                log.info("SQLState constraint violation pushing payload {}: {}", p.getPayloadId(), sqlEx.getMessage());
-                                p.setAttempts(p.getAttempts() + 1);
-                                p.setStatus("SKIPPED");
-                                p.setUpdatedAt(java.time.Instant.now());
-                                toSave.add(p);
-                            } else {
-                                log.error("Error pushing payload {}: {}", p.getPayloadId(), sqlEx.getMessage());
-                                p.markFailed(sqlEx.getMessage());
-                                p.setAttempts(p.getAttempts() + 1);
-                                p.setNextAttemptAt(Instant.now().plusMillis(computeBackoffMillis(p.getAttempts())));
-                                toSave.add(p);
-                            }
-                        } catch (Exception ex) {
-                            log.error("Error pushing payload {}: {}", p.getPayloadId(), ex.getMessage());
-                            p.markFailed(ex.getMessage());
-                            p.setAttempts(p.getAttempts() + 1);
-                            p.setNextAttemptAt(Instant.now().plusMillis(computeBackoffMillis(p.getAttempts())));
-                            toSave.add(p);
-                        }
-                    }
-                }
+    // Insert the payloads (one JDBC batch, or a single executeUpdate for one row) and return their remote ids; null
+    // entries when neither the driver nor, for a single row, a lookup of the inserted row yields one
+    private List<String> insertRows(Connection c, boolean oracle, boolean useH2, List<LoadSessionPayload> payloads, int senderId) throws java.sql.SQLException {
+        List<String> ids = oracle ? nextSequenceValues(c, payloads.size()) : null;
+        String insertSql;
+        if (oracle) {
+            insertSql = "insert into DTP_SENDER_QUEUE_ITEM (id, id_metadata, id_data, id_sender, record_created) values (?, ?, ?, ?, ?)";
+        } else if (useH2) {
+            insertSql = "insert into DTP_SENDER_QUEUE_ITEM (id_metadata, id_data, id_sender, record_created) values (?, ?, ?, ?)";
+        } else {
+            insertSql = "insert into DTP_SENDER_QUEUE_ITEM (id, id_metadata, id_data, id_sender, record_created) values (DTP_SENDER_QUEUE_ITEM_SEQ.nextval, ?, ?, ?, ?)";
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        boolean single = payloads.size() == 1;
+        try (PreparedStatement ps = oracle ? c.prepareStatement(insertSql) : c.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < payloads.size(); i++) {
+                String[] parts = payloadParts(payloads.get(i));
+                int idx = 1;
+                if (oracle) ps.setLong(idx++, Long.parseLong(ids.get(i)));
+                ps.setString(idx++, parts[0]);
+                ps.setString(idx++, parts[1]);
+                ps.setInt(idx++, senderId);
+                ps.setTimestamp(idx, now);
+                if (single) ps.executeUpdate();
+                else ps.addBatch();
             }
-        } catch (Exception outer) {
-            log.error("Error acquiring external connection or preparing statement: {}", outer.getMessage());
-            // mark all claimed as failed
-            for (LoadSessionPayload p : claimed) {
-                p.markFailed("external connection error: " + outer.getMessage());
-                p.setAttempts(p.getAttempts() + 1);
-                p.setNextAttemptAt(Instant.now().plusMillis(computeBackoffMillis(p.getAttempts())));
-                toSave.add(p);
+            if (!single) ps.executeBatch();
+            if (oracle) return ids;
+            List<String> generated = new ArrayList<>(payloads.size());
+            try (ResultSet rs = ps.getGeneratedKeys()) {
+                while (rs != null && rs.next()) generated.add(rs.getString(1));
+            } catch (Exception gkEx) {
+                // driver does not report batch keys; payloads are pushed without a remote id
+            }
+            if (single && generated.isEmpty()) {
+                generated.add(lookupQueueId(c, payloadParts(payloads.get(0)), senderId, now));
+            }
+            while (generated.size() < payloads.size()) generated.add(null);
+            return generated;
+        }
+    }
+
+    // Find the id of a row just inserted when the driver returned no generated key (2s leeway on record_created)
+    private static String lookupQueueId(Connection c, String[] parts, int senderId, Timestamp insertedAt) {
+        try (PreparedStatement sel = c.prepareStatement("select id from DTP_SENDER_QUEUE_ITEM where id_metadata=? and id_data=? and id_sender=? and record_created>=? order by record_created desc")) {
+            sel.setString(1, parts[0]);
+            sel.setString(2, parts[1]);
+            sel.setInt(3, senderId);
+            sel.setTimestamp(4, new Timestamp(insertedAt.getTime() - 2000));
+            try (ResultSet rs = sel.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        } catch (Exception selEx) {
+            return null;
+        }
+    }
+
+    // One round trip for the ids of a whole chunk instead of one nextval query per row
+    private static List<String> nextSequenceValues(Connection c, int count) throws java.sql.SQLException {
+        List<String> ids = new ArrayList<>(count);
+        try (PreparedStatement ps = c.prepareStatement("select DTP_SENDER_QUEUE_ITEM_SEQ.nextval from dual connect by level <= ?")) {
+            ps.setInt(1, count);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) ids.add(String.valueOf(rs.getLong(1)));
             }
         }
+        if (ids.size() != count) {
+            throw new IllegalStateException("failed to obtain " + count + " sequence values (got " + ids.size() + ")");
+        }
+        return ids;
+    }
 
-        // persist payload status updates
+    private boolean isOracle(String site, Connection c) {
         try {
-            payloadRepo.saveAll(toSave);
-        } catch (Exception ex) {
-            log.error("Failed saving payload statuses: {}", ex.getMessage());
+            java.util.Map<String, Object> cfg = externalDbConfig.getConfigForSite(site);
+            if (cfg != null) {
+                Object t = cfg.get("dbType"); if (t == null) t = cfg.get("type"); if (t == null) t = cfg.get("dialect");
+                if (t != null && t.toString().toLowerCase().contains("oracle")) return true;
+            }
+        } catch (Exception cfgEx) {
+            // ignore config parsing errors
         }
+        try {
+            String dbName = c.getMetaData().getDatabaseProductName();
+            return dbName != null && dbName.toLowerCase().contains("oracle");
+        } catch (Exception mdEx) {
+            return false;
+        }
+    }
 
-        // update session counters
-        session.setPushedRemoteCount((session.getPushedRemoteCount() == null ? 0 : session.getPushedRemoteCount()) + pushed);
-        session.setFailedCount((session.getFailedCount() == null ? 0 : session.getFailedCount()) + (toSave.size() - pushed));
-        sessionRepo.save(session);
+    private static String[] payloadParts(LoadSessionPayload p) {
+        String payload = p.getPayloadId();
+        String[] parts = payload == null ? new String[0] : payload.split(",");
+        return parts.length < 2 ? null : parts;
+    }
 
-        return pushed;
+    private void recordFailure(LoadSessionPayload p, String error) {
+        p.markFailed(error);
+        p.setAttempts(p.getAttempts() + 1);
+        p.setNextAttemptAt(Instant.now().plusMillis(computeBackoffMillis(p.getAttempts())));
     }
 
-    @Transactional
+    // Not @Transactional: the requeue commits on its own and the push must not hold a local transaction
     public int retryFailed(Long sessionId, int batchSize) {
         final int MAX_ATTEMPTS = 5;
         // Page over FAILED payloads
@@ -352,8 +393,12 @@ public class SessionPushService {
         int countNew = payloadRepo.countBySessionIdAndStatus(sessionId, "NEW");
         int countStaged = payloadRepo.countBySessionIdAndStatus(sessionId, "STAGED");
         int countFailed = payloadRepo.countBySessionIdAndStatus(sessionId, "FAILED");
+        // Payloads moved to the archive by the retention job still count towards the session total
+        Integer archivedCount = sessionRepo.findById(sessionId).map(s -> s.getArchivedPayloadCount()).orElse(null);
+        int archived = archivedCount == null ? 0 : archivedCount;
         java.util.Map<String,Integer> m = new java.util.HashMap<>();
-        m.put("total", total);
+        m.put("total", total + archived);
+        m.put("archived", archived);
         m.put("new", countNew);
         m.put("staged", countStaged);
         m.put("failed", countFailed);
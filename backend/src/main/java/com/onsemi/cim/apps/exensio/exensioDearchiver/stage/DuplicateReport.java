@@ -0,0 +1,103 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.stage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Bounded record of duplicates skipped during a long-running staging run.
+ *
+ * Keeps the total count and the first {@code sampleSize} duplicates in memory. Once the count passes the sample
+ * size, the full list (samples included) is written to {@code spillPath} so large reloads can still be audited
+ * without holding every duplicate on the heap.
+ */
+public final class DuplicateReport implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(DuplicateReport.class);
+
+    private final int sampleSize;
+    private final Path spillPath;
+    private final Function<DuplicatePayload, String> formatter;
+    private final List<DuplicatePayload> samples = new ArrayList<>();
+    private long count;
+    private BufferedWriter writer;
+    private boolean spillFailed;
+
+    public DuplicateReport(int sampleSize, Path spillPath, Function<DuplicatePayload, String> formatter) {
+        this.sampleSize = Math.max(0, sampleSize);
+        this.spillPath = spillPath;
+        this.formatter = formatter;
+    }
+
+    public void addAll(List<DuplicatePayload> duplicates) {
+        if (duplicates == null) {
+            return;
+        }
+        for (DuplicatePayload duplicate : duplicates) {
+            add(duplicate);
+        }
+    }
+
+    public void add(DuplicatePayload duplicate) {
+        count++;
+        if (samples.size() < sampleSize) {
+            samples.add(duplicate);
+        }
+        if (count > sampleSize) {
+            spill(duplicate);
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public List<DuplicatePayload> samples() {
+        return Collections.unmodifiableList(samples);
+    }
+
+    /**
+     * File holding every duplicate, or null when all of them fit in the samples (or the file could not be written).
+     */
+    public Path spillFile() {
+        return writer != null && !spillFailed ? spillPath : null;
+    }
+
+    private void spill(DuplicatePayload duplicate) {
+        if (spillPath == null || spillFailed) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(spillPath, StandardCharsets.UTF_8);
+                for (DuplicatePayload sample : samples) {
+                    writeLine(sample);
+                }
+            }
+            writeLine(duplicate);
+        } catch (IOException e) {
+            spillFailed = true;
+            log.warn("Failed writing duplicate report {}: {}", spillPath, e.getMessage());
+        }
+    }
+
+    private void writeLine(DuplicatePayload duplicate) throws IOException {
+        writer.write(formatter.apply(duplicate));
+        writer.newLine();
+    }
+
+    @Override
+    public void close() {
+        if (writer != null) {
+            try { writer.close(); } catch (IOException ignore) {}
+        }
+    }
+}
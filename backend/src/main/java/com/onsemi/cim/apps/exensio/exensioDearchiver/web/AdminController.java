@@ -1,6 +1,9 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver.web;
 
 import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalDbConfig;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.FetchSizeTuner;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.service.MailOutbox;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.service.RetentionService;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
@@ -16,9 +19,16 @@ public class AdminController {
 
     private final ExternalDbConfig externalDbConfig;
     private final MeterRegistry meterRegistry;
+    private final FetchSizeTuner fetchTuner;
+    private final RetentionService retentionService;
+    private final MailOutbox mailOutbox;
 
-    public AdminController(ExternalDbConfig externalDbConfig, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+    public AdminController(ExternalDbConfig externalDbConfig, ObjectProvider<MeterRegistry> meterRegistryProvider, FetchSizeTuner fetchTuner,
+                           RetentionService retentionService, MailOutbox mailOutbox) {
         this.externalDbConfig = externalDbConfig;
+        this.fetchTuner = fetchTuner;
+        this.retentionService = retentionService;
+        this.mailOutbox = mailOutbox;
         this.meterRegistry = meterRegistryProvider.getIfAvailable();
     }
 
@@ -37,6 +47,36 @@ public class AdminController {
         }
     }
 
+    @PostMapping("/pools/reload")
+    public ResponseEntity<Object> reloadDefinitions() {
+        try {
+            return ResponseEntity.ok(externalDbConfig.reload());
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("error: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/fetch-stats")
+    public ResponseEntity<Map<String, Object>> fetchStats() {
+        return ResponseEntity.ok(fetchTuner.snapshot());
+    }
+
+    @GetMapping("/retention")
+    public ResponseEntity<Map<String, Object>> retention() {
+        return ResponseEntity.ok(retentionService.describe());
+    }
+
+    // Manual pass, ignoring the off-peak window (still batched and throttled)
+    @PostMapping("/retention/run")
+    public ResponseEntity<RetentionService.RetentionRun> runRetention() {
+        return ResponseEntity.ok(retentionService.run(false));
+    }
+
+    @GetMapping("/mail-outbox")
+    public ResponseEntity<Map<String, Object>> mailOutbox() {
+        return ResponseEntity.ok(mailOutbox.stats());
+    }
+
     @GetMapping("/metrics")
     public ResponseEntity<Map<String, Object>> metrics(@RequestParam(name = "includeMeters", defaultValue = "false") boolean includeMeters) {
         Set<String> active = externalDbConfig.getActivePoolKeys();
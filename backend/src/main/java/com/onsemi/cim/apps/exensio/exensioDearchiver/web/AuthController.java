@@ -1,6 +1,7 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver.web;
 
 import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.RefreshToken;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.security.AuthorityCache;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.security.JwtUtil;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.service.RefreshTokenService;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto.AuthRequest;
@@ -41,12 +42,14 @@ public class AuthController {
     private final com.onsemi.cim.apps.exensio.exensioDearchiver.service.MailService mailService;
     private final boolean returnTokensInResponse;
     private final String resetUrlBase;
+    private final AuthorityCache authorityCache;
 
     public AuthController(AuthenticationManager authManager, JwtUtil jwtUtil, RefreshTokenService refreshTokenService,
                           AuthTokenService authTokenService, AppUserRepository userRepository, PasswordEncoder passwordEncoder,
                           com.onsemi.cim.apps.exensio.exensioDearchiver.service.MailService mailService,
                           @org.springframework.beans.factory.annotation.Value("${app.mail.reset-url-base:}") String resetUrlBase,
-                          @org.springframework.beans.factory.annotation.Value("${reloader.auth.return-tokens-in-response:true}") boolean returnTokensInResponse) {
+                          @org.springframework.beans.factory.annotation.Value("${reloader.auth.return-tokens-in-response:true}") boolean returnTokensInResponse,
+                          AuthorityCache authorityCache) {
         this.authManager = authManager;
         this.jwtUtil = jwtUtil;
         this.refreshTokenService = refreshTokenService;
@@ -56,6 +59,7 @@ public class AuthController {
         this.mailService = mailService;
         this.resetUrlBase = resetUrlBase == null ? "" : resetUrlBase;
         this.returnTokensInResponse = returnTokensInResponse;
+        this.authorityCache = authorityCache;
     }
 
     // --- verification / reset endpoints ---
@@ -133,10 +137,13 @@ public class AuthController {
 
     private void enableUser(String username) {
         userRepository.findByUsername(username).ifPresent(u -> { u.setEnabled(true); userRepository.save(u); });
+        authorityCache.invalidate(username);
     }
 
     private void updatePassword(String username, String newPassword) {
         userRepository.findByUsername(username).ifPresent(u -> { u.setPasswordHash(passwordEncoder.encode(newPassword)); userRepository.save(u); });
+        // A cached account would otherwise keep accepting the old password until the TTL expires
+        authorityCache.invalidate(username);
     }
 
     @PostMapping("/login")
@@ -11,22 +11,55 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpServletResponseWrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
 
 /**
  * Filter that injects a data-theme attribute into HTML responses when a server-set
  * cookie `app-theme` is present. The filter is careful to only modify
  * text/html responses, skips compressed responses, and avoids double-injecting.
+ *
+ * Requests for the SPA entry page ("/" and "/index.html") are answered from cached bytes: each theme variant of
+ * index.html is rewritten once per resource version (last-modified + length) and served with an ETag, so SPA
+ * navigations skip buffering and regex work and revalidations get a 304. Other HTML responses are still buffered
+ * and rewritten on the fly.
  */
 public class IndexThemeFilter extends HttpFilter {
 
     private static final Logger log = LoggerFactory.getLogger(IndexThemeFilter.class);
+    private static final String THEME_COOKIE = "app-theme";
+    private static final String ANDROMEDA = "andromeda";
+
+    private final List<Resource> indexCandidates;
+    private final long versionCheckIntervalMs;
+    private volatile IndexVariants cached;
+
+    public IndexThemeFilter() {
+        this(List.of());
+    }
+
+    /**
+     * @param indexCandidates index.html locations, checked in order (e.g. one per static resource location)
+     */
+    public IndexThemeFilter(List<Resource> indexCandidates) {
+        this(indexCandidates, 5000L);
+    }
+
+    IndexThemeFilter(List<Resource> indexCandidates, long versionCheckIntervalMs) {
+        this.indexCandidates = indexCandidates == null ? List.of() : List.copyOf(indexCandidates);
+        this.versionCheckIntervalMs = versionCheckIntervalMs;
+    }
 
     @Override
     protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -39,6 +72,16 @@ public class IndexThemeFilter extends HttpFilter {
             return;
         }
 
+        String theme = themeCookie(request);
+
+        if (isIndexRequest(request)) {
+            IndexVariants variants = currentVariants();
+            if (variants != null) {
+                serveIndex(request, response, variants.variant(ANDROMEDA.equalsIgnoreCase(theme)));
+                return;
+            }
+        }
+
         BufferingResponseWrapper wrapped = new BufferingResponseWrapper(response);
         chain.doFilter(request, wrapped);
 
@@ -66,32 +109,166 @@ public class IndexThemeFilter extends HttpFilter {
         String body = new String(wrapped.getData(), charset);
 
         // Avoid double-injection if data-theme already present on the html tag
-        if (body.toLowerCase().contains("<html") && body.toLowerCase().contains("data-theme=")) {
+        if (hasThemeAttribute(body)) {
             wrapped.commitToResponse();
             return;
         }
 
-        // check for cookie
-        String theme = null;
+        if (theme != null && ANDROMEDA.equalsIgnoreCase(theme)) {
+            body = injectTheme(body);
+            log.debug("Injected data-theme into HTML response for request {}", request.getRequestURI());
+        }
+
+        byte[] out = body.getBytes(charset);
+        HttpServletResponse resp = (HttpServletResponse) wrapped.getResponse();
+        resp.setContentLength(out.length);
+        resp.getOutputStream().write(out);
+    }
+
+    private static String themeCookie(HttpServletRequest request) {
         if (request.getCookies() != null) {
             for (Cookie c : request.getCookies()) {
-                if ("app-theme".equals(c.getName())) {
-                    theme = c.getValue();
-                    break;
+                if (THEME_COOKIE.equals(c.getName())) {
+                    return c.getValue();
                 }
             }
         }
+        return null;
+    }
 
-        if (theme != null && "andromeda".equalsIgnoreCase(theme)) {
-            // Insert attribute before the first space or '>' after <html using lookahead
-            body = body.replaceFirst("(?i)<html(?=\\s|>)", "<html data-theme=\"andromeda\"");
-            log.debug("Injected data-theme into HTML response for request {}", request.getRequestURI());
+    private static boolean isIndexRequest(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return false;
         }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.isEmpty() || "/".equals(path) || "/index.html".equals(path);
+    }
 
-        byte[] out = body.getBytes(charset);
-        HttpServletResponse resp = (HttpServletResponse) wrapped.getResponse();
-        resp.setContentLength(out.length);
-        resp.getOutputStream().write(out);
+    private static boolean hasThemeAttribute(String body) {
+        String lower = body.toLowerCase();
+        return lower.contains("<html") && lower.contains("data-theme=");
+    }
+
+    // Insert attribute before the first space or '>' after <html using lookahead
+    private static String injectTheme(String body) {
+        return body.replaceFirst("(?i)<html(?=\\s|>)", "<html data-theme=\"andromeda\"");
+    }
+
+    private void serveIndex(HttpServletRequest request, HttpServletResponse response, Variant variant) throws IOException {
+        response.setHeader("ETag", variant.etag());
+        // The page differs per theme cookie; clients must revalidate so a theme or deployment change shows up
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("Vary", "Cookie");
+        if (matchesEtag(request.getHeader("If-None-Match"), variant.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType("text/html;charset=UTF-8");
+        response.setContentLength(variant.body().length);
+        if (!"HEAD".equals(request.getMethod())) {
+            response.getOutputStream().write(variant.body());
+        }
+    }
+
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2);
+            if ("*".equals(c) || etag.equals(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Variants for the current index.html, rebuilt when its version changes; null when no index resource exists.
+     */
+    private IndexVariants currentVariants() {
+        IndexVariants current = cached;
+        long now = System.currentTimeMillis();
+        if (current != null && now - current.checkedAt < versionCheckIntervalMs) {
+            return current;
+        }
+        synchronized (this) {
+            current = cached;
+            if (current != null && now - current.checkedAt < versionCheckIntervalMs) {
+                return current;
+            }
+            try {
+                Resource index = findIndex();
+                if (index == null) {
+                    cached = null;
+                    return null;
+                }
+                String version = index.lastModified() + "-" + index.contentLength();
+                if (current != null && current.resource.equals(index) && current.version.equals(version)) {
+                    current.checkedAt = now;
+                    return current;
+                }
+                byte[] raw;
+                try (InputStream in = index.getInputStream()) {
+                    raw = in.readAllBytes();
+                }
+                cached = IndexVariants.build(index, version, raw, now);
+                log.debug("Cached theme variants of {} (version {})", index.getDescription(), version);
+                return cached;
+            } catch (IOException e) {
+                log.warn("Failed loading index.html for theme variants: {}", e.getMessage());
+                cached = null;
+                return null;
+            }
+        }
+    }
+
+    private Resource findIndex() {
+        for (Resource r : indexCandidates) {
+            if (r != null && r.exists() && r.isReadable()) {
+                return r;
+            }
+        }
+        return null;
+    }
+
+    private record Variant(byte[] body, String etag) {}
+
+    private static final class IndexVariants {
+        private final Resource resource;
+        private final String version;
+        private final Variant plain;
+        private final Variant andromeda;
+        private volatile long checkedAt;
+
+        private IndexVariants(Resource resource, String version, Variant plain, Variant andromeda, long checkedAt) {
+            this.resource = resource;
+            this.version = version;
+            this.plain = plain;
+            this.andromeda = andromeda;
+            this.checkedAt = checkedAt;
+        }
+
+        static IndexVariants build(Resource resource, String version, byte[] raw, long checkedAt) {
+            String body = new String(raw, StandardCharsets.UTF_8);
+            byte[] themed = hasThemeAttribute(body) ? raw : injectTheme(body).getBytes(StandardCharsets.UTF_8);
+            return new IndexVariants(resource, version, new Variant(raw, etag(raw)), new Variant(themed, etag(themed)), checkedAt);
+        }
+
+        Variant variant(boolean andromedaTheme) {
+            return andromedaTheme ? andromeda : plain;
+        }
+
+        private static String etag(byte[] body) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+                return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                return "\"" + Integer.toHexString(java.util.Arrays.hashCode(body)) + "\"";
+            }
+        }
     }
 
     /**
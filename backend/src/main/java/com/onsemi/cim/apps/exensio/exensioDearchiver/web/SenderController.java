@@ -145,7 +145,8 @@ public class SenderController {
             request.testPhase(),
             request.location(),
             request.page(),
-            request.size());
+            request.size(),
+            request.countMode());
         if (log.isInfoEnabled()) {
             log.info("Preview response rows={} total={}", response.items().size(), response.total());
         }
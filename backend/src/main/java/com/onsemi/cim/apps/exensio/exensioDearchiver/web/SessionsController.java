@@ -1,51 +1,98 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver.web;
 
 import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.LoadSession;
-import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.LoadSessionPayload;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionPayloadRepository;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionRepository;
-import com.onsemi.cim.apps.exensio.exensioDearchiver.service.SenderService;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.SessionPayloadRow;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.service.ResourceVersions;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.service.SessionPushJobService;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto.SessionPayloadPage;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto.SessionPushJobStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/internal/sessions")
 public class SessionsController {
+    private static final int MAX_PAGE_SIZE = 5000;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final LoadSessionRepository sessionRepo;
     private final LoadSessionPayloadRepository payloadRepo;
-    private final SenderService senderService;
+    private final SessionPushJobService pushJobs;
+    private final com.fasterxml.jackson.databind.ObjectMapper objectMapper;
+    private final ResourceVersions versions;
 
-    public SessionsController(LoadSessionRepository sessionRepo, LoadSessionPayloadRepository payloadRepo, SenderService senderService) {
+    public SessionsController(LoadSessionRepository sessionRepo, LoadSessionPayloadRepository payloadRepo, SessionPushJobService pushJobs,
+                              com.fasterxml.jackson.databind.ObjectMapper objectMapper, ResourceVersions versions) {
         this.sessionRepo = sessionRepo;
         this.payloadRepo = payloadRepo;
-        this.senderService = senderService;
+        this.pushJobs = pushJobs;
+        this.objectMapper = objectMapper;
+        this.versions = versions;
     }
 
+    // Polled by the UI while a session runs; unchanged sessions are answered with 304 without a database read
     @GetMapping("/{id}")
-    public LoadSession getSession(@PathVariable Long id) {
-        return sessionRepo.findById(id).orElse(null);
+    public ResponseEntity<LoadSession> getSession(@PathVariable Long id,
+                                                  @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        String etag = versions.etag(ResourceVersions.SESSIONS);
+        if (ResourceVersions.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(org.springframework.http.HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(org.springframework.http.CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(org.springframework.http.CacheControl.noCache()).body(sessionRepo.findById(id).orElse(null));
     }
 
+    // Keyset-paginated listing: pass the returned nextAfterId as afterId for the next page
     @GetMapping("/{id}/payloads")
-    public List<LoadSessionPayload> getPayloads(@PathVariable Long id) {
-        return payloadRepo.findBySessionId(id);
+    public SessionPayloadPage getPayloads(@PathVariable Long id,
+                                          @RequestParam(required = false) String status,
+                                          @RequestParam(required = false) Long afterId,
+                                          @RequestParam(defaultValue = "500") int limit) {
+        int resolvedLimit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<SessionPayloadRow> rows = payloadRepo.findPayloadRows(id, status, afterId, resolvedLimit);
+        Long next = rows.size() < resolvedLimit ? null : rows.get(rows.size() - 1).id();
+        return new SessionPayloadPage(rows, next);
+    }
+
+    // Full listing as NDJSON (one payload per line), written while the database cursor advances
+    @GetMapping(value = "/{id}/payloads/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamPayloads(@PathVariable Long id,
+                                                                @RequestParam(required = false) String status) {
+        StreamingResponseBody body = out -> {
+            java.io.Writer writer = new java.io.BufferedWriter(new java.io.OutputStreamWriter(out, java.nio.charset.StandardCharsets.UTF_8));
+            try {
+                payloadRepo.streamPayloadRows(id, status, row -> {
+                    try {
+                        writer.write(objectMapper.writeValueAsString(row));
+                        writer.write('\n');
+                    } catch (java.io.IOException e) {
+                        throw new java.io.UncheckedIOException(e);
+                    }
+                });
+            } catch (java.io.UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
+    // Starts a background push of the session's NEW payloads; poll the returned job id for progress
     @PostMapping("/{id}/push")
-    public String pushSessionToExternal(@PathVariable Long id) {
-        LoadSession s = sessionRepo.findById(id).orElse(null);
-        if (s == null) return "session-not-found";
-        List<LoadSessionPayload> payloads = payloadRepo.findBySessionId(id);
-        java.util.List<com.onsemi.cim.apps.exensio.exensioDearchiver.entity.SenderQueueEntry> items = new java.util.ArrayList<>();
-        for (LoadSessionPayload p : payloads) {
-            com.onsemi.cim.apps.exensio.exensioDearchiver.entity.SenderQueueEntry e = new com.onsemi.cim.apps.exensio.exensioDearchiver.entity.SenderQueueEntry(s.getSenderId(), p.getPayloadId(), s.getSource());
-            items.add(e);
-        }
-        int pushed = senderService.pushToExternalQueue(s.getSite(), s.getSenderId(), items);
-        s.setPushedRemoteCount(pushed);
-        s.setStatus("COMPLETED");
-        sessionRepo.save(s);
-        return "pushed:" + pushed;
+    public ResponseEntity<SessionPushJobStatus> pushSessionToExternal(@PathVariable Long id) {
+        SessionPushJobStatus job = pushJobs.submit(id);
+        if (job == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.accepted().body(job);
+    }
+
+    @GetMapping("/push-jobs/{jobId}")
+    public ResponseEntity<SessionPushJobStatus> getPushJob(@PathVariable String jobId) {
+        SessionPushJobStatus job = pushJobs.get(jobId);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
     }
 }
@@ -1,14 +1,23 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver.web;
 
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.RefDbProperties;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.service.RefDbService;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.service.ResourceVersions;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.StageRecord;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto.StageRecordPage;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto.StageRecordView;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Instant;
 import java.util.List;
@@ -16,10 +25,21 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/stage")
 public class StageController {
+    private static final String[] CSV_COLUMNS = {"id", "site", "senderId", "metadataId", "dataId", "status", "errorMessage",
+            "createdAt", "updatedAt", "processedAt", "stagedBy", "lastRequestedBy", "lastRequestedAt"};
+
     private final RefDbService refDbService;
+    private final ResourceVersions versions;
+    private final com.fasterxml.jackson.databind.ObjectMapper objectMapper;
+    // Each running export holds a RefDB pool connection until the client has read everything
+    private final java.util.concurrent.Semaphore exportSlots;
 
-    public StageController(RefDbService refDbService) {
+    public StageController(RefDbService refDbService, ResourceVersions versions, com.fasterxml.jackson.databind.ObjectMapper objectMapper,
+                           RefDbProperties properties) {
         this.refDbService = refDbService;
+        this.versions = versions;
+        this.objectMapper = objectMapper;
+        this.exportSlots = new java.util.concurrent.Semaphore(Math.max(1, properties.getExport().getMaxConcurrent()));
     }
 
     @org.springframework.security.access.prepost.PreAuthorize("hasRole('USER')")
@@ -28,10 +48,16 @@ public class StageController {
                                                 @RequestParam(required = false) Integer senderId,
                                                 @RequestParam(required = false) String status,
                                                 @RequestParam(defaultValue = "0") int page,
-                                                @RequestParam(defaultValue = "50") int size) {
+                                                @RequestParam(defaultValue = "50") int size,
+                                                @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
         if (site == null || site.isBlank()) {
             throw new IllegalArgumentException("site is required");
         }
+        // Unchanged staging table: answer from the client's copy without querying RefDB
+        String etag = versions.etag(ResourceVersions.STAGE);
+        if (ResourceVersions.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
         int resolvedPage = Math.max(page, 0);
         int resolvedSize = size <= 0 ? 50 : Math.min(size, 500);
         int offset = resolvedPage * resolvedSize;
@@ -39,7 +65,119 @@ public class StageController {
         long total = refDbService.countRecords(site, senderId, status);
         List<StageRecordView> items = records.stream().map(this::toView).toList();
         StageRecordPage response = new StageRecordPage(items, total, resolvedPage, resolvedSize);
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(response);
+    }
+
+    /**
+     * Full export of staged records as CSV or NDJSON (format=csv|ndjson), optionally gzip-compressed.
+     * from/to bound updated_at and accept an ISO instant or a yyyy-MM-dd date (UTC). Rows are written while the
+     * RefDB cursor advances, so an export of any size needs one request and constant memory. At most
+     * refdb.export.max-concurrent exports run at once; further requests get 429 so they cannot drain the RefDB pool.
+     */
+    @org.springframework.security.access.prepost.PreAuthorize("hasRole('USER')")
+    @GetMapping("/records/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam String site,
+                                                        @RequestParam(required = false) Integer senderId,
+                                                        @RequestParam(required = false) String status,
+                                                        @RequestParam(required = false) String from,
+                                                        @RequestParam(required = false) String to,
+                                                        @RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip) {
+        if (site == null || site.isBlank()) {
+            throw new IllegalArgumentException("site is required");
+        }
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        Instant fromInstant;
+        Instant toInstant;
+        try {
+            fromInstant = parseInstant(from);
+            toInstant = parseInstant(to);
+        } catch (java.time.format.DateTimeParseException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (!exportSlots.tryAcquire()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                writeExport(out, gzip, csv, site, senderId, status, fromInstant, toInstant);
+            } finally {
+                exportSlots.release();
+            }
+        };
+
+        String filename = "stage-records-" + site.replaceAll("[^A-Za-z0-9_.-]", "_") + (csv ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : csv ? MediaType.parseMediaType("text/csv;charset=UTF-8") : MediaType.parseMediaType("application/x-ndjson");
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    private void writeExport(java.io.OutputStream out, boolean gzip, boolean csv, String site, Integer senderId, String status,
+                             Instant fromInstant, Instant toInstant) throws java.io.IOException {
+        java.io.OutputStream target = gzip ? new java.util.zip.GZIPOutputStream(out, 64 * 1024) : out;
+        java.io.Writer writer = new java.io.BufferedWriter(new java.io.OutputStreamWriter(target, java.nio.charset.StandardCharsets.UTF_8), 64 * 1024);
+        try {
+            if (csv) {
+                writer.write(String.join(",", CSV_COLUMNS));
+                writer.write("\r\n");
+            }
+            refDbService.streamRecords(site, senderId, status, fromInstant, toInstant, record -> {
+                try {
+                    StageRecordView view = toView(record);
+                    if (csv) {
+                        writeCsvRow(writer, view);
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(view));
+                        writer.write('\n');
+                    }
+                } catch (java.io.IOException e) {
+                    throw new java.io.UncheckedIOException(e);
+                }
+            });
+        } catch (java.io.UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        if (target instanceof java.util.zip.GZIPOutputStream gz) {
+            gz.finish();
+        }
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String v = value.trim();
+        return v.length() == 10 ? java.time.LocalDate.parse(v).atStartOfDay(java.time.ZoneOffset.UTC).toInstant() : Instant.parse(v);
+    }
+
+    private static void writeCsvRow(java.io.Writer writer, StageRecordView v) throws java.io.IOException {
+        Object[] values = {v.id(), v.site(), v.senderId(), v.metadataId(), v.dataId(), v.status(), v.errorMessage(),
+                v.createdAt(), v.updatedAt(), v.processedAt(), v.stagedBy(), v.lastRequestedBy(), v.lastRequestedAt()};
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) writer.write(',');
+            writer.write(csvField(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    // RFC 4180 quoting: fields with separators, quotes or line breaks are quoted and quotes doubled
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String s = value.toString();
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
     }
 
     private StageRecordView toView(StageRecord record) {
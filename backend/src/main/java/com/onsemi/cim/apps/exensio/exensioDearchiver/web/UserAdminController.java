@@ -2,6 +2,7 @@ package com.onsemi.cim.apps.exensio.exensioDearchiver.web;
 
 import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.AppUser;
 import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.AppUserRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.security.AuthorityCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -17,6 +18,9 @@ public class UserAdminController {
     @Autowired
     private AppUserRepository appUserRepository;
 
+    @Autowired
+    private AuthorityCache authorityCache;
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
     public List<UserSummary> listUsers() {
@@ -32,6 +36,8 @@ public class UserAdminController {
         if (user == null) return ResponseEntity.notFound().build();
         user.setRoles(req.roles);
         appUserRepository.save(user);
+        // Apply the new roles to the user's next login instead of after the cache TTL
+        authorityCache.invalidate(user.getUsername());
         return ResponseEntity.ok().build();
     }
 
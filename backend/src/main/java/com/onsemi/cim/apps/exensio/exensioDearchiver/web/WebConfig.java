@@ -1,20 +1,33 @@
 package com.onsemi.cim.apps.exensio.exensioDearchiver.web;
 
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.autoconfigure.web.WebProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 public class WebConfig {
 
     @Bean
-    public FilterRegistrationBean<IndexThemeFilter> indexThemeFilter() {
+    public FilterRegistrationBean<IndexThemeFilter> indexThemeFilter(WebProperties webProperties, ResourceLoader resourceLoader) {
+        // index.html in the same static locations Spring MVC serves the SPA from
+        List<Resource> indexCandidates = new ArrayList<>();
+        for (String location : webProperties.getResources().getStaticLocations()) {
+            indexCandidates.add(resourceLoader.getResource(location.endsWith("/") ? location + "index.html" : location + "/index.html"));
+        }
         FilterRegistrationBean<IndexThemeFilter> reg = new FilterRegistrationBean<>();
-        reg.setFilter(new IndexThemeFilter());
+        reg.setFilter(new IndexThemeFilter(indexCandidates));
         // Apply to all paths; the filter will quickly skip non-HTML responses.
         reg.addUrlPatterns("/*");
         reg.setName("indexThemeFilter");
-        reg.setOrder(Integer.MIN_VALUE + 10);
+        // Run after Spring Security: the filter answers index requests itself and must not bypass authorization
+        reg.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 10);
         return reg;
     }
 }
@@ -14,5 +14,7 @@ public record DiscoveryPreviewRequest(
         String testPhase,
         String location,
         int page,
-        int size
+        int size,
+        // "exact" or "fast" (capped count); null uses app.discovery.preview-count-mode
+        String countMode
 ) {}
@@ -6,4 +6,11 @@ public record DiscoveryPreviewResponse(List<DiscoveryPreviewRow> items,
 									   long total,
 									   int page,
 									   int size,
-									   String debugSql) {}
+									   String debugSql,
+									   // true when total is a lower bound: the fast count stopped at the configured cap
+									   boolean totalCapped) {
+
+	public DiscoveryPreviewResponse(List<DiscoveryPreviewRow> items, long total, int page, int size, String debugSql) {
+		this(items, total, page, size, debugSql, false);
+	}
+}
@@ -0,0 +1,10 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.SessionPayloadRow;
+
+import java.util.List;
+
+/**
+ * One keyset page of session payloads; pass {@code nextAfterId} as {@code afterId} to continue (null when done).
+ */
+public record SessionPayloadPage(List<SessionPayloadRow> items, Long nextAfterId) {}
@@ -0,0 +1,15 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Snapshot of an asynchronous session push. {@code pending} is the number of NEW payloads when the job was
+ * submitted; {@code chunks} holds the most recent chunk outcomes (older ones are dropped on very large sessions).
+ */
+public record SessionPushJobStatus(String jobId, Long sessionId, String state, Instant submittedAt, Instant startedAt,
+                                   Instant finishedAt, int pending, long claimed, long pushed, long skipped, long failed,
+                                   String error, List<Chunk> chunks) {
+
+    public record Chunk(int index, int claimed, int pushed, int skipped, int failed, long elapsedMs) {}
+}
@@ -32,7 +32,8 @@ public class AuthControllerControllerUnitTest {
         PasswordEncoder encoder = Mockito.mock(PasswordEncoder.class);
         com.onsemi.cim.apps.exensio.exensioDearchiver.service.MailService mail = Mockito.mock(com.onsemi.cim.apps.exensio.exensioDearchiver.service.MailService.class);
 
-        AuthController ctrl = new AuthController(am, jwt, rts, ats, repo, encoder, mail, "", true);
+        AuthController ctrl = new AuthController(am, jwt, rts, ats, repo, encoder, mail, "", true,
+                Mockito.mock(com.onsemi.cim.apps.exensio.exensioDearchiver.security.AuthorityCache.class));
 
         AuthRequest req = new AuthRequest();
         req.setUsername("no_such_user");
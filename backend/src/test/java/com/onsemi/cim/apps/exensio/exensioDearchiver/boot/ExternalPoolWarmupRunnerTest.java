@@ -0,0 +1,56 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.boot;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalDbConfig;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalPoolWarmupRunnerTest {
+
+    @Test
+    void warmsConfiguredKeys_andReportsTiming() throws Exception {
+        MockEnvironment env = new MockEnvironment();
+        env.setProperty("RELOADER_USE_H2_EXTERNAL", "true");
+        env.setProperty("external-db.warmup.keys", "WARM_A, WARM_B");
+        ExternalDbConfig cfg = new ExternalDbConfig(env);
+        try {
+            Map<String, ExternalDbConfig.WarmupResult> results = new ExternalPoolWarmupRunner(cfg, env).warmUpAll();
+
+            assertEquals(2, results.size());
+            assertTrue(results.get("WARM_A").ok());
+            assertTrue(results.get("WARM_B").connections() >= 1);
+            // Site pool plus one pool per workload, each reported on its own
+            assertEquals(ExternalWorkload.values().length, results.get("WARM_A").pools().size());
+            assertTrue(results.get("WARM_A").pools().stream().allMatch(ExternalDbConfig.PoolWarmup::ok));
+            for (String poolKey : new String[] {"WARM_A", "WARM_A#dispatch", "WARM_A#monitor", "WARM_A#discovery"}) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> stats = (Map<String, Object>) cfg.listPoolStats().get(poolKey);
+                assertNotNull(stats.get("warmupMs"), poolKey);
+            }
+        } finally {
+            cfg.destroy();
+        }
+    }
+
+    @Test
+    void unreachableSite_isReportedWithoutFailing() throws Exception {
+        MockEnvironment env = new MockEnvironment();
+        env.setProperty("external-db.warmup.keys", "NO_SUCH_SITE");
+        ExternalDbConfig cfg = new ExternalDbConfig(env);
+        try {
+            Map<String, ExternalDbConfig.WarmupResult> results = new ExternalPoolWarmupRunner(cfg, env).warmUpAll();
+
+            ExternalDbConfig.WarmupResult result = results.get("NO_SUCH_SITE");
+            assertFalse(result.ok());
+            assertNotNull(result.error());
+            // The workload pools share the failing endpoint and are not attempted after the site pool fails
+            assertEquals(1, result.pools().size());
+        } finally {
+            cfg.destroy();
+        }
+    }
+}
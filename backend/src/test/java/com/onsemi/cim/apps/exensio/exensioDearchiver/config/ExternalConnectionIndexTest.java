@@ -0,0 +1,83 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ExternalConnectionIndexTest {
+
+    private static final ExternalConnectionIndex.PoolDefaults DEFAULTS =
+            new ExternalConnectionIndex.PoolDefaults(10, 1, 15000, 600000, 5000);
+
+    @Test
+    void resolvesSiteEnvironmentPairsBeforeSiteKey() {
+        Map<String, Map<String, Object>> defs = new LinkedHashMap<>();
+        defs.put("SITE", Map.of("host", "prod-host/PROD"));
+        defs.put("SITE_qa", Map.of("host", "qa-host/QA"));
+        ExternalConnectionIndex index = ExternalConnectionIndex.build(defs, DEFAULTS, new ObjectMapper());
+
+        assertEquals("SITE_qa", index.resolveKey("site", "QA"));
+        assertEquals("SITE", index.resolveKey("site", "prod"));
+        assertEquals("SITE", index.resolveKey("Site", null));
+        assertNull(index.resolveKey("OTHER", "qa"));
+    }
+
+    @Test
+    void precomputesJdbcUrlsAndPoolOverrides() {
+        Map<String, Map<String, Object>> defs = new LinkedHashMap<>();
+        defs.put("A", Map.of("host", "db-a:1530/SVC", "hikari", "{\"maximumPoolSize\": 4}"));
+        defs.put("B", Map.of("host", "jdbc:h2:mem:b/x", "hikari", Map.of("minimumIdle", 3)));
+        ExternalConnectionIndex index = ExternalConnectionIndex.build(defs, DEFAULTS, new ObjectMapper());
+
+        ExternalConnectionIndex.ConnectionSpec a = index.spec("A");
+        assertEquals("jdbc:oracle:thin:@//db-a:1530/SVC", a.jdbcUrl());
+        assertEquals(4, a.maximumPoolSize());
+        assertEquals(1, a.minimumIdle());
+
+        ExternalConnectionIndex.ConnectionSpec b = index.spec("B");
+        assertEquals("jdbc:h2:mem:b/x", b.jdbcUrl());
+        assertEquals(10, b.maximumPoolSize());
+        assertEquals(3, b.minimumIdle());
+    }
+
+    @Test
+    void readReplicaInheritsCredentialsAndIsReadOnly() {
+        Map<String, Map<String, Object>> defs = new LinkedHashMap<>();
+        defs.put("A", Map.of("host", "db-a/SVC", "user", "loader", "password", "pw",
+                "readReplica", Map.of("host", "db-a-ro/SVC")));
+        defs.put("B", Map.of("host", "db-b/SVC"));
+        ExternalConnectionIndex index = ExternalConnectionIndex.build(defs, DEFAULTS, new ObjectMapper());
+
+        ExternalConnectionIndex.ConnectionSpec replica = index.replicaSpec("A");
+        assertEquals("jdbc:oracle:thin:@//db-a-ro:1521/SVC", replica.jdbcUrl());
+        assertEquals("loader", replica.user());
+        assertEquals(true, replica.readOnly());
+        assertEquals(false, index.spec("A").readOnly());
+        assertNull(index.replicaSpec("B"));
+    }
+
+    @Test
+    void precomputesPoolRoutesPerWorkload() {
+        Map<String, Map<String, Object>> defs = new LinkedHashMap<>();
+        defs.put("A", Map.of("host", "db-a/SVC", "readReplica", Map.of("host", "db-a-ro/SVC")));
+        defs.put("A_qa", Map.of("host", "db-a-qa/SVC"));
+        ExternalConnectionIndex index = ExternalConnectionIndex.build(defs, DEFAULTS, new ObjectMapper());
+
+        ExternalConnectionIndex.PoolRoute route = index.route("A", null, ExternalWorkload.DISPATCH);
+        assertEquals("A#dispatch", route.poolKey());
+        assertEquals("A#dispatch@ro", route.replicaPoolKey());
+        assertSame(route, index.route("A", " ", ExternalWorkload.DISPATCH));
+
+        ExternalConnectionIndex.PoolRoute qa = index.route("A", "qa", ExternalWorkload.INTERACTIVE);
+        assertEquals("A-qa", qa.poolKey());
+        assertNull(qa.replicaPoolKey());
+        // a spelling not seen at load time is routed once and then reused
+        assertSame(index.route("a", null, ExternalWorkload.MONITOR), index.route("a", null, ExternalWorkload.MONITOR));
+    }
+}
@@ -0,0 +1,78 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalDbConfigReadReplicaTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsGoToTheReplicaAndWritesStayOnThePrimary() throws Exception {
+        try (Connection seed = DriverManager.getConnection("jdbc:h2:mem:replica_ro;DB_CLOSE_DELAY=-1", "sa", "");
+             Statement s = seed.createStatement()) {
+            s.execute("CREATE TABLE IF NOT EXISTS replica_marker (id INT)");
+        }
+        ExternalDbConfig cfg = createConfig();
+        try {
+            try (Connection read = cfg.getReadConnection("SITE", null, ExternalWorkload.DISCOVERY)) {
+                assertTrue(hasMarker(read), "read connection should be served by the replica");
+            }
+            try (Connection write = cfg.getConnection("SITE", null, ExternalWorkload.DISPATCH)) {
+                assertFalse(hasMarker(write), "write connection must stay on the primary");
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> stats = (Map<String, Object>) cfg.listPoolStats().get("SITE#discovery@ro");
+            assertNotNull(stats);
+            assertEquals(true, stats.get("readReplica"));
+        } finally {
+            cfg.destroy();
+        }
+    }
+
+    @Test
+    void siteWithoutReplicaReadsFromPrimary() throws Exception {
+        ExternalDbConfig cfg = createConfig();
+        try {
+            try (Connection read = cfg.getReadConnection("PLAIN", null, ExternalWorkload.INTERACTIVE)) {
+                assertNotNull(read);
+            }
+            assertTrue(cfg.getActivePoolKeys().contains("PLAIN"));
+            assertFalse(cfg.getActivePoolKeys().contains("PLAIN@ro"));
+        } finally {
+            cfg.destroy();
+        }
+    }
+
+    private static boolean hasMarker(Connection c) throws Exception {
+        try (var rs = c.getMetaData().getTables(null, null, "REPLICA_MARKER", null)) {
+            return rs.next();
+        }
+    }
+
+    private ExternalDbConfig createConfig() throws Exception {
+        Path file = tempDir.resolve("dbconnections.json");
+        Files.writeString(file, """
+        {
+          "SITE": { "host": "jdbc:h2:mem:replica_primary;DB_CLOSE_DELAY=-1", "user": "sa", "password": "",
+                    "readReplica": { "jdbc": "jdbc:h2:mem:replica_ro;DB_CLOSE_DELAY=-1" } },
+          "PLAIN": { "host": "jdbc:h2:mem:replica_plain;DB_CLOSE_DELAY=-1", "user": "sa", "password": "" }
+        }
+        """, StandardCharsets.UTF_8);
+        MockEnvironment env = new MockEnvironment();
+        env.setProperty("RELOADER_DBCONN_PATH", file.toString());
+        return new ExternalDbConfig(env);
+    }
+}
@@ -0,0 +1,87 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalDbConfigReloadTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reloadRetiresOnlyChangedPoolsAndDrainsBorrowedConnections() throws Exception {
+        Path file = tempDir.resolve("dbconnections.json");
+        write(file, 5);
+        MockEnvironment env = new MockEnvironment();
+        env.setProperty("RELOADER_DBCONN_PATH", file.toString());
+        ExternalDbConfig cfg = new ExternalDbConfig(env);
+        try {
+            try (Connection a = cfg.getConnectionByKey("SITE_A", null)) {
+                assertNotNull(a);
+            }
+            Connection borrowed = cfg.getConnectionByKey("SITE_B", null);
+            assertEquals(5, cfg.getConfiguredMaxPoolSizeForKey("SITE_B"));
+
+            write(file, 8);
+            ExternalDbConfig.ReloadResult result = cfg.reload();
+
+            assertEquals(List.of("SITE_C"), result.added());
+            assertEquals(List.of("SITE_B"), result.changed());
+            assertEquals(List.of("SITE_B"), result.retiredPools());
+            assertTrue(cfg.getActivePoolKeys().contains("SITE_A"), "unchanged pool must stay warm");
+            assertFalse(cfg.getActivePoolKeys().contains("SITE_B"));
+
+            // The connection borrowed before the reload keeps working until it is returned
+            assertTrue(borrowed.isValid(1));
+            borrowed.close();
+
+            try (Connection b = cfg.getConnectionByKey("SITE_B", null)) {
+                assertNotNull(b);
+            }
+            assertEquals(8, cfg.getConfiguredMaxPoolSizeForKey("SITE_B"));
+            assertNotNull(cfg.getConfigByKey("SITE_C"));
+        } finally {
+            cfg.destroy();
+        }
+    }
+
+    @Test
+    void unreadableDefinitionsKeepCurrentConfiguration() throws Exception {
+        Path file = tempDir.resolve("dbconnections.json");
+        write(file, 5);
+        MockEnvironment env = new MockEnvironment();
+        env.setProperty("RELOADER_DBCONN_PATH", file.toString());
+        ExternalDbConfig cfg = new ExternalDbConfig(env);
+        try {
+            Files.writeString(file, "{ not json: [", StandardCharsets.UTF_8);
+            assertThrows(Exception.class, cfg::reload);
+            assertNotNull(cfg.getConfigByKey("SITE_B"));
+        } finally {
+            cfg.destroy();
+        }
+    }
+
+    private static void write(Path file, int sitePoolSize) throws Exception {
+        String siteC = sitePoolSize > 5 ? """
+          ,"SITE_C": { "host": "jdbc:h2:mem:reload_c;DB_CLOSE_DELAY=-1", "user": "sa", "password": "" }
+        """ : "";
+        String json = """
+        {
+          "SITE_A": { "host": "jdbc:h2:mem:reload_a;DB_CLOSE_DELAY=-1", "user": "sa", "password": "" },
+          "SITE_B": { "host": "jdbc:h2:mem:reload_b;DB_CLOSE_DELAY=-1", "user": "sa", "password": "",
+                      "hikari": { "maximumPoolSize": %d } }
+          %s
+        }
+        """.formatted(sitePoolSize, siteC);
+        Files.writeString(file, json, StandardCharsets.UTF_8);
+    }
+}
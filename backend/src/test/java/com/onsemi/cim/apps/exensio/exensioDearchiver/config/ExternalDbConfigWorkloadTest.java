@@ -0,0 +1,66 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalDbConfigWorkloadTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void workloadsGetSeparatePoolsWithTheirOwnLimits() throws Exception {
+        ExternalDbConfig cfg = createConfig();
+        try {
+            try (Connection c = cfg.getConnection("SITE", null, ExternalWorkload.DISPATCH)) {
+                assertNotNull(c);
+            }
+            Connection monitor = cfg.getConnection("SITE", null, ExternalWorkload.MONITOR);
+            try {
+                // The monitor bulkhead is exhausted (one connection, short timeout) ...
+                assertThrows(SQLException.class, () -> cfg.getConnection("SITE", null, ExternalWorkload.MONITOR));
+                // ... while interactive lookups still get a connection from their own pool
+                try (Connection c = cfg.getConnection("SITE")) {
+                    assertNotNull(c);
+                }
+            } finally {
+                monitor.close();
+            }
+
+            assertEquals(6, cfg.getConfiguredMaxPoolSizeForKey("SITE"));
+            assertEquals(4, cfg.getConfiguredMaxPoolSizeForKey("SITE#dispatch"));
+            assertEquals(1, cfg.getConfiguredMaxPoolSizeForKey("SITE#monitor"));
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> monitorStats = (Map<String, Object>) cfg.listPoolStats().get("SITE#monitor");
+            assertEquals("monitor", monitorStats.get("workload"));
+            assertEquals(1, monitorStats.get("maximumPoolSize"));
+        } finally {
+            cfg.destroy();
+        }
+    }
+
+    private ExternalDbConfig createConfig() throws Exception {
+        Path file = tempDir.resolve("dbconnections.json");
+        Files.writeString(file, """
+        {
+          "SITE": { "host": "jdbc:h2:mem:workload_site;DB_CLOSE_DELAY=-1", "user": "sa", "password": "",
+                    "hikari": { "maximumPoolSize": 6 } }
+        }
+        """, StandardCharsets.UTF_8);
+        MockEnvironment env = new MockEnvironment();
+        env.setProperty("RELOADER_DBCONN_PATH", file.toString());
+        env.setProperty("external-db.workloads.monitor.connection-timeout-ms", "300");
+        return new ExternalDbConfig(env);
+    }
+}
@@ -0,0 +1,62 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FetchSizeTunerTest {
+
+    @Test
+    void fetchSizeFollowsObservedRowCounts() throws Exception {
+        FetchSizeTuner tuner = new FetchSizeTuner(new MockEnvironment(), (io.micrometer.core.instrument.MeterRegistry) null);
+        try (Connection c = DriverManager.getConnection("jdbc:h2:mem:fetch_tuner;DB_CLOSE_DELAY=-1", "sa", "");
+             Statement s = c.createStatement()) {
+            s.execute("CREATE TABLE IF NOT EXISTS t (id INT)");
+            s.execute("DELETE FROM t");
+            s.execute("INSERT INTO t SELECT x FROM SYSTEM_RANGE(1, 1200)");
+
+            assertEquals(1200, read(tuner, c, "big", "SELECT id FROM t"));
+            assertEquals(3, read(tuner, c, "small", "SELECT id FROM t WHERE id <= 3"));
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> big = (Map<String, Object>) tuner.snapshot().get("big");
+        assertEquals(500, big.get("lastFetchSize"));
+        assertEquals(3L, big.get("roundTrips"));
+        assertEquals(1200, big.get("nextFetchSize"));
+        // Small lookups shrink to the configured minimum; bounded queries fetch their limit in one trip
+        assertEquals(50, tuner.fetchSize("small", 0));
+        assertEquals(100, tuner.fetchSize("big", 100));
+    }
+
+    @Test
+    void sizesAreClampedToConfiguredRange() {
+        MockEnvironment env = new MockEnvironment();
+        env.setProperty("jdbc.fetch.initial-size", "20000");
+        env.setProperty("jdbc.fetch.max-size", "2000");
+        FetchSizeTuner tuner = new FetchSizeTuner(env, (io.micrometer.core.instrument.MeterRegistry) null);
+        assertEquals(2000, tuner.fetchSize("anything", 0));
+        assertEquals(2000, tuner.fetchSize("anything", 50000));
+    }
+
+    private static int read(FetchSizeTuner tuner, Connection c, String name, String sql) throws Exception {
+        int rows = 0;
+        try (PreparedStatement ps = c.prepareStatement(sql);
+             FetchSizeTuner.Fetch fetch = tuner.start(name, ps, 0);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                rows++;
+                fetch.row();
+            }
+        }
+        return rows;
+    }
+}
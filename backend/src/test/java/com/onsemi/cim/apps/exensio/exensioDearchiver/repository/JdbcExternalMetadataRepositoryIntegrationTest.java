@@ -45,7 +45,7 @@ public class JdbcExternalMetadataRepositoryIntegrationTest {
         }
 
         // make ExternalDbConfig return fresh connections to the same in-memory DB
-    when(externalDbConfig.getConnection("TEST_SITE", "qa")).thenAnswer(inv -> DriverManager.getConnection("jdbc:h2:mem:external_repo;DB_CLOSE_DELAY=-1", "sa", ""));
+    when(externalDbConfig.getReadConnection("TEST_SITE", "qa", com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload.INTERACTIVE)).thenAnswer(inv -> DriverManager.getConnection("jdbc:h2:mem:external_repo;DB_CLOSE_DELAY=-1", "sa", ""));
     }
 
     @AfterEach
@@ -69,6 +69,63 @@ public class JdbcExternalMetadataRepositoryIntegrationTest {
         assertThat(collected).hasSize(2);
     }
 
+    @Test
+    public void testKeysetPagingMatchesOffsetPaging() throws Exception {
+        try (Statement s = extConn.createStatement()) {
+            // same end_time as ID2 so the id tie-breaker decides the order
+            s.execute("INSERT INTO all_metadata_view (lot, id, id_data, end_time, tester_type, data_type, test_phase, location) VALUES ('L2','ID2B','DATA2B', '2025-01-16 11:00:00','T1','D1','PH1','LOC1');");
+        }
+        LocalDateTime from = LocalDateTime.of(2025,1,1,0,0);
+        LocalDateTime to = LocalDateTime.of(2025,12,31,23,59);
+        List<MetadataRow> first = repository.findMetadataPageAfter("TEST_SITE", "qa", from, to, null, null, null, null, null, null, null, null, 2);
+        MetadataRow last = first.get(first.size() - 1);
+        List<MetadataRow> second = repository.findMetadataPageAfter("TEST_SITE", "qa", from, to, null, null, null, null, null, null, last.getEndTime(), last.getId(), 2);
+        List<MetadataRow> offsetSecond = repository.findMetadataPage("TEST_SITE", "qa", from, to, null, null, null, null, null, null, 2, 2);
+
+        assertThat(first).extracting(MetadataRow::getId).containsExactly("ID3", "ID2B");
+        assertThat(second).extracting(MetadataRow::getId).containsExactly("ID2", "ID1");
+        assertThat(offsetSecond).extracting(MetadataRow::getId).containsExactly("ID2", "ID1");
+    }
+
+    @Test
+    public void testCappedCountStopsAfterCap() {
+        LocalDateTime from = LocalDateTime.of(2025,1,1,0,0);
+        LocalDateTime to = LocalDateTime.of(2025,12,31,23,59);
+        assertThat(repository.countMetadataCapped("TEST_SITE", "qa", from, to, null, null, null, null, null, null, 1)).isEqualTo(2L);
+        assertThat(repository.countMetadataCapped("TEST_SITE", "qa", from, to, null, null, null, null, null, null, 10)).isEqualTo(3L);
+    }
+
+    @Test
+    public void testLongLotAndPairListsAreBoundAsCollections() throws Exception {
+        try (Statement s = extConn.createStatement()) {
+            s.execute("ALTER TABLE all_metadata_view ADD COLUMN IF NOT EXISTS wafer VARCHAR(50);");
+            s.execute("UPDATE all_metadata_view SET wafer = 'W' || SUBSTRING(id, 3);");
+        }
+        LocalDateTime from = LocalDateTime.of(2025,1,1,0,0);
+        LocalDateTime to = LocalDateTime.of(2025,12,31,23,59);
+
+        // Well beyond the former 100-value cap; the matching lots sit at the end of the list
+        List<String> lots = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) lots.add("X" + i);
+        lots.add("l1");
+        lots.add("L3");
+        assertThat(repository.countMetadata("TEST_SITE", "qa", from, to, null, null, null, null, lots, null)).isEqualTo(2L);
+
+        // Pairs beyond the former 5-pair cap: only (L2, W2) matches as a pair, L1 via a lot-only entry
+        List<String> pairLots = new ArrayList<>();
+        List<String> pairWafers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            pairLots.add("L2");
+            pairWafers.add("W" + (i + 2));
+        }
+        pairLots.add("L3");
+        pairWafers.add("W1");
+        pairLots.add("L1");
+        pairWafers.add("");
+        List<MetadataRow> rows = repository.findMetadata("TEST_SITE", "qa", from, to, null, null, null, null, pairLots, pairWafers, 100);
+        assertThat(rows).extracting(MetadataRow::getId).containsExactlyInAnyOrder("ID1", "ID2");
+    }
+
     @Test
     public void testFindSendersMatchesNullTestPhaseWhenBlankOrNone() throws Exception {
         // create minimal dtp_* tables used by findSendersWithConnection
@@ -0,0 +1,68 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.security;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.AppUser;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.AppUserRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.service.AppUserDetailsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AuthorityCacheTest {
+
+    @Test
+    void localUserIsLoadedOnceUntilInvalidated() {
+        AppUser user = new AppUser();
+        user.setUsername("alice");
+        user.setPasswordHash("hash-1");
+        user.setEnabled(true);
+        user.setRoles(new HashSet<>(Set.of("ROLE_USER")));
+        AppUserRepository repo = mock(AppUserRepository.class);
+        when(repo.findByUsername("alice")).thenReturn(Optional.of(user));
+        AuthorityCache cache = new AuthorityCache(new MockEnvironment(), (io.micrometer.core.instrument.MeterRegistry) null);
+        AppUserDetailsService service = new AppUserDetailsService(repo, cache);
+
+        assertEquals("hash-1", service.loadUserByUsername("alice").getPassword());
+        UserDetails second = service.loadUserByUsername("alice");
+        assertEquals("hash-1", second.getPassword());
+        verify(repo, times(1)).findByUsername("alice");
+
+        // Each login gets its own UserDetails, so credential erasure cannot corrupt the cached entry
+        ((org.springframework.security.core.CredentialsContainer) second).eraseCredentials();
+        assertEquals("hash-1", service.loadUserByUsername("alice").getPassword());
+
+        user.setPasswordHash("hash-2");
+        user.setRoles(new HashSet<>(Set.of("ROLE_USER", "ROLE_ADMIN")));
+        cache.invalidate("alice");
+        UserDetails reloaded = service.loadUserByUsername("alice");
+        assertEquals("hash-2", reloaded.getPassword());
+        assertTrue(reloaded.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
+        verify(repo, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void unknownUsersAndFailedLookupsAreNotCached() {
+        AppUserRepository repo = mock(AppUserRepository.class);
+        when(repo.findByUsername("ghost")).thenReturn(Optional.empty());
+        AuthorityCache cache = new AuthorityCache(new MockEnvironment(), (io.micrometer.core.instrument.MeterRegistry) null);
+        AppUserDetailsService service = new AppUserDetailsService(repo, cache);
+
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("ghost"));
+        assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("ghost"));
+        verify(repo, times(2)).findByUsername("ghost");
+
+        AtomicInteger loads = new AtomicInteger();
+        assertNull(cache.refDbAuthorities("bob", u -> { loads.incrementAndGet(); return null; }));
+        assertEquals(Set.of("ROLE_USER"), cache.refDbAuthorities("bob", u -> { loads.incrementAndGet(); return Set.of("ROLE_USER"); }));
+        assertEquals(Set.of("ROLE_USER"), cache.refDbAuthorities("bob", u -> { loads.incrementAndGet(); return Set.of(); }));
+        assertEquals(2, loads.get());
+    }
+}
@@ -10,7 +10,9 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -42,9 +44,7 @@ class JwtAuthenticationFilterTest {
     @Test
     void whenValidBearerToken_thenAuthenticationSetAndChainContinues() throws ServletException, IOException {
         JwtUtil jwtUtil = mock(JwtUtil.class);
-        when(jwtUtil.validateToken("good-token")).thenReturn(true);
-        when(jwtUtil.extractUsername("good-token")).thenReturn("alice");
-        when(jwtUtil.extractRoles("good-token")).thenReturn(List.of("ROLE_USER"));
+        when(jwtUtil.verify("good-token")).thenReturn(Optional.of(new JwtUtil.VerifiedToken("alice", List.of("ROLE_USER"), Instant.now().plusSeconds(60))));
 
         JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil);
 
@@ -67,7 +67,7 @@ class JwtAuthenticationFilterTest {
     @Test
     void whenInvalidBearerToken_thenAuthenticationExceptionThrown() throws ServletException, IOException {
         JwtUtil jwtUtil = mock(JwtUtil.class);
-        when(jwtUtil.validateToken("bad-token")).thenReturn(false);
+        when(jwtUtil.verify("bad-token")).thenReturn(Optional.empty());
 
         JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil);
 
@@ -0,0 +1,61 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.security;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtClaimsCacheTest {
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void tokenIsVerifiedOncePerLifetimeUntilUserIsInvalidated() throws Exception {
+        JwtUtil jwtUtil = spy(new JwtUtil("test-secret-test-secret-test-secret", 300, ""));
+        String token = jwtUtil.generateToken("alice", List.of("ROLE_ADMIN"));
+        JwtClaimsCache cache = new JwtClaimsCache(new MockEnvironment(), (io.micrometer.core.instrument.MeterRegistry) null);
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil, cache);
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest req = new MockHttpServletRequest();
+            req.addHeader("Authorization", "Bearer " + token);
+            filter.doFilterInternal(req, new MockHttpServletResponse(), mock(FilterChain.class));
+            assertEquals("alice", SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+            assertTrue(SecurityContextHolder.getContext().getAuthentication().getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
+        }
+        verify(jwtUtil, times(1)).verify(token);
+
+        cache.invalidateUser("bob");
+        assertEquals(1, cache.size());
+        cache.invalidateUser("alice");
+        assertEquals(0, cache.size());
+
+        assertTrue(cache.resolve(token, jwtUtil::verify).isPresent());
+        verify(jwtUtil, times(2)).verify(token);
+    }
+
+    @Test
+    void invalidAndExpiredTokensAreNotServedFromCache() {
+        JwtClaimsCache cache = new JwtClaimsCache(new MockEnvironment(), (io.micrometer.core.instrument.MeterRegistry) null);
+
+        assertTrue(cache.resolve("bad-token", t -> Optional.empty()).isEmpty());
+        assertEquals(0, cache.size());
+
+        JwtUtil.VerifiedToken expired = new JwtUtil.VerifiedToken("alice", List.of(), Instant.now().minusSeconds(1));
+        cache.resolve("old-token", t -> Optional.of(expired));
+        assertTrue(cache.resolve("old-token", t -> Optional.empty()).isEmpty());
+    }
+}
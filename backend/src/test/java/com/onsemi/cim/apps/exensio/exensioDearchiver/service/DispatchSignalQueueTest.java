@@ -0,0 +1,38 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DispatchSignalQueueTest {
+
+    @Test
+    void repeatedSignals_forSameSender_areCoalesced() throws Exception {
+        DispatchSignalQueue queue = new DispatchSignalQueue();
+        assertTrue(queue.signal("EXTERNAL", 1));
+        assertFalse(queue.signal("EXTERNAL", 1), "second signal should coalesce into the pending one");
+        assertTrue(queue.signal("EXTERNAL", 2));
+        assertEquals(2, queue.size());
+
+        DispatchSignalQueue.Signal first = queue.poll(1, TimeUnit.SECONDS);
+        assertEquals(new DispatchSignalQueue.Signal("EXTERNAL", 1), first);
+    }
+
+    @Test
+    void signalAfterPoll_isQueuedAgain() throws Exception {
+        DispatchSignalQueue queue = new DispatchSignalQueue();
+        queue.signal("EXTERNAL", 1);
+        assertNotNull(queue.poll(1, TimeUnit.SECONDS));
+        assertTrue(queue.signal("EXTERNAL", 1), "work staged during dispatch must schedule a follow-up run");
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    void blankSite_isIgnored() throws Exception {
+        DispatchSignalQueue queue = new DispatchSignalQueue();
+        assertFalse(queue.signal(" ", 1));
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+}
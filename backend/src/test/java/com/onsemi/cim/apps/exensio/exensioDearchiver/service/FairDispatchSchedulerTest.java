@@ -0,0 +1,94 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.RefDbProperties;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.StageRecord;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairDispatchSchedulerTest {
+
+    private long nextId = 1;
+
+    private List<StageRecord> rows(int senderId, String user, int count) {
+        List<StageRecord> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long id = nextId++;
+            rows.add(new StageRecord(id, "SITE", senderId, "M" + id, "D" + id, "NEW", "",
+                    Instant.now(), Instant.now(), null, user, user, Instant.now()));
+        }
+        return rows;
+    }
+
+    @Test
+    void smallRequest_isNotStarvedByBulkReload() {
+        FairDispatchScheduler scheduler = new FairDispatchScheduler(new RefDbProperties());
+        List<StageRecord> candidates = new ArrayList<>(rows(1, "bulk", 50));
+        candidates.addAll(rows(2, "alice", 3));
+
+        List<StageRecord> batch = scheduler.select("SITE", candidates, 10);
+
+        assertEquals(10, batch.size());
+        assertEquals(3, batch.stream().filter(r -> r.senderId() == 2).count());
+    }
+
+    @Test
+    void usersOfSameSender_shareTheBatch() {
+        FairDispatchScheduler scheduler = new FairDispatchScheduler(new RefDbProperties());
+        List<StageRecord> candidates = new ArrayList<>(rows(1, "bulk", 20));
+        candidates.addAll(rows(1, "alice", 20));
+
+        List<StageRecord> batch = scheduler.select("SITE", candidates, 10);
+
+        assertEquals(5, batch.stream().filter(r -> "alice".equals(r.stagedBy())).count());
+    }
+
+    @Test
+    void weights_shareBandwidthProportionally_acrossBatches() {
+        RefDbProperties props = new RefDbProperties();
+        props.getDispatch().getFairness().getSenderWeights().put("1", 3);
+        FairDispatchScheduler scheduler = new FairDispatchScheduler(props);
+        List<StageRecord> heavy = rows(1, "u1", 100);
+        List<StageRecord> light = rows(2, "u2", 100);
+
+        int heavyCount = 0;
+        int lightCount = 0;
+        for (int run = 0; run < 5; run++) {
+            List<StageRecord> candidates = new ArrayList<>(heavy.subList(heavyCount, heavy.size()));
+            candidates.addAll(light.subList(lightCount, light.size()));
+            List<StageRecord> batch = scheduler.select("SITE", candidates, 10);
+            for (StageRecord r : batch) {
+                if (r.senderId() == 1) heavyCount++; else lightCount++;
+            }
+        }
+        assertEquals(50, heavyCount + lightCount);
+        assertTrue(heavyCount >= 36 && heavyCount <= 39, "expected ~3:1 split, got " + heavyCount + ":" + lightCount);
+    }
+
+    @Test
+    void senderScopedBatches_doNotMoveTheSiteRotation() {
+        FairDispatchScheduler scheduler = new FairDispatchScheduler(new RefDbProperties());
+        List<StageRecord> bulk = rows(1, "bulk", 10);
+        List<StageRecord> alice = rows(2, "alice", 10);
+        List<StageRecord> siteWide = new ArrayList<>(bulk);
+        siteWide.addAll(alice);
+
+        assertEquals(1, scheduler.select("SITE", siteWide, 1).get(0).senderId());
+        // A signalled dispatch for sender 1 only sees sender 1 rows
+        scheduler.select("SITE", 1, bulk.subList(1, bulk.size()), 1);
+
+        assertEquals(2, scheduler.select("SITE", siteWide, 1).get(0).senderId());
+    }
+
+    @Test
+    void rowsWithinAFlow_keepFifoOrder() {
+        FairDispatchScheduler scheduler = new FairDispatchScheduler(new RefDbProperties());
+        List<StageRecord> candidates = rows(1, "bulk", 5);
+        List<StageRecord> batch = scheduler.select("SITE", candidates, 5);
+        assertEquals(candidates, batch);
+    }
+}
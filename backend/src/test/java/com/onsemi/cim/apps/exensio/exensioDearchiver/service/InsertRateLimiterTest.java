@@ -0,0 +1,56 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.RefDbProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InsertRateLimiterTest {
+
+    private InsertRateLimiter limiter(RefDbProperties props, MeterRegistry registry) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("registry", registry);
+        return new InsertRateLimiter(props, beans.getBeanProvider(MeterRegistry.class));
+    }
+
+    @Test
+    void disabledByDefault_neverWaits() throws Exception {
+        InsertRateLimiter limiter = limiter(new RefDbProperties(), new SimpleMeterRegistry());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0L, limiter.acquire("SITE", 1, 1));
+        }
+    }
+
+    @Test
+    void siteBucket_throttlesBeyondBurst_andRecordsMetrics() throws Exception {
+        RefDbProperties props = new RefDbProperties();
+        props.getDispatch().getRateLimit().setSiteRowsPerSecond(50);
+        props.getDispatch().getRateLimit().setSiteBurst(5);
+        props.getDispatch().getRateLimit().setSenderRowsPerSecond(500);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        InsertRateLimiter limiter = limiter(props, registry);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire("SITE", 1, 1);
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        // 5 rows come from the burst, the remaining 5 need ~100ms at 50 rows/sec
+        assertTrue(elapsedMs >= 80, "expected throttling but took " + elapsedMs + "ms");
+        assertEquals(10.0, registry.get("remote_queue_insert_rows").tag("site", "SITE").counter().count());
+        assertTrue(registry.get("remote_queue_insert_throttle").tag("site", "SITE").timer().count() > 0);
+        assertEquals(50.0, registry.get("remote_queue_insert_rate_limit_configured").tag("site", "SITE").tag("scope", "site").gauge().value());
+        assertEquals(500.0, registry.get("remote_queue_insert_rate_limit_configured").tag("site", "SITE").tag("sender", "1").gauge().value());
+    }
+
+    @Test
+    void tokenBucket_reportsDebtAsWait() {
+        InsertRateLimiter.TokenBucket bucket = new InsertRateLimiter.TokenBucket(10, 2);
+        assertEquals(0L, bucket.reserve(2));
+        long wait = bucket.reserve(1);
+        assertTrue(wait > 50_000_000L && wait <= 100_000_000L, "one token at 10/s should take ~100ms, got " + wait);
+    }
+}
@@ -0,0 +1,96 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ClusterProperties;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.RefDbProperties;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.FetchSizeTuner;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.security.AuthorityCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobCoordinatorTest {
+
+    private RefDbService refDbService;
+
+    @BeforeEach
+    void setup() {
+        MockEnvironment env = new MockEnvironment();
+        ObjectProvider<MeterRegistry> noMetrics = new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class);
+        refDbService = new RefDbService(new RefDbProperties(), new DispatchSignalQueue(), new FetchSizeTuner(env, noMetrics),
+                new AuthorityCache(env, noMetrics), new ResourceVersions(env));
+        refDbService.initialize();
+    }
+
+    @AfterEach
+    void teardown() {
+        refDbService.shutdown();
+    }
+
+    private JobCoordinator node(String id, boolean sharding) {
+        ClusterProperties props = new ClusterProperties();
+        props.setNodeId(id);
+        props.setHeartbeatMs(0);
+        props.setSiteSharding(sharding);
+        return new JobCoordinator(refDbService, props);
+    }
+
+    @Test
+    void onlyOneNode_holdsAJobLease_untilReleased() {
+        JobCoordinator a = node("lease-test-a", false);
+        JobCoordinator b = node("lease-test-b", false);
+
+        assertTrue(a.isLeader("lease-test-job"));
+        assertFalse(b.isLeader("lease-test-job"));
+        assertTrue(a.isLeader("lease-test-job"), "holder renews its own lease");
+
+        a.release();
+        assertTrue(b.isLeader("lease-test-job"));
+        b.release();
+    }
+
+    @Test
+    void expiredLease_canBeTakenOver() {
+        assertTrue(refDbService.tryAcquireLease("job:lease-test-expired", "crashed-node", Duration.ofMillis(-1)));
+        JobCoordinator b = node("lease-test-c", false);
+        assertTrue(b.isLeader("lease-test-expired"));
+        b.release();
+    }
+
+    @Test
+    void siteSharding_assignsEachSiteToExactlyOneLiveNode() {
+        JobCoordinator a = node("shard-test-a", true);
+        JobCoordinator b = node("shard-test-b", true);
+        a.heartbeat();
+        b.heartbeat();
+        a.heartbeat();
+
+        for (String site : List.of("SITE1", "SITE2", "SITE3", "SITE4", "SITE5")) {
+            boolean onA = a.shouldProcessSite("shard-test-job", site);
+            boolean onB = b.shouldProcessSite("shard-test-job", site);
+            assertTrue(onA ^ onB, "site " + site + " should belong to exactly one node");
+        }
+        a.release();
+        b.release();
+    }
+
+    @Test
+    void handedOffSignals_areTakenOnceByTheOwningNode() {
+        refDbService.recordDispatchSignal("HANDOFF_A", 7);
+        refDbService.recordDispatchSignal("HANDOFF_A", 7);
+        refDbService.recordDispatchSignal("HANDOFF_B", 8);
+
+        List<DispatchSignalQueue.Signal> owned = refDbService.takeDispatchSignals("HANDOFF_A"::equals);
+        assertEquals(List.of(new DispatchSignalQueue.Signal("HANDOFF_A", 7)), owned);
+        assertTrue(refDbService.takeDispatchSignals("HANDOFF_A"::equals).isEmpty());
+        assertEquals(List.of(new DispatchSignalQueue.Signal("HANDOFF_B", 8)), refDbService.takeDispatchSignals(site -> site.startsWith("HANDOFF")));
+    }
+}
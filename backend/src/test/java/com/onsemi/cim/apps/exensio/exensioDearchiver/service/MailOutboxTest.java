@@ -0,0 +1,125 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MailOutboxTest {
+
+    @TempDir
+    Path dir;
+
+    private MailOutbox outbox;
+
+    @AfterEach
+    void tearDown() {
+        if (outbox != null) outbox.shutdown();
+    }
+
+    private MailOutbox outbox(MailService mail, String capacity, String digestWindowMs) {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("app.mail.outbox.capacity", capacity)
+                .withProperty("app.mail.outbox.backoff-ms", "10")
+                .withProperty("app.mail.outbox.digest-window-ms", digestWindowMs)
+                .withProperty("app.mail.outbox.spool-dir", dir.resolve("spool").toString());
+        outbox = new MailOutbox(mail, env);
+        return outbox;
+    }
+
+    @Test
+    void digestsCompletionsForTheSameRecipientWithSpooledAttachments() throws Exception {
+        MailService mail = mock(MailService.class);
+        Map<String, String> delivered = new ConcurrentHashMap<>();
+        when(mail.deliver(anyString(), anyString(), anyString(), any())).thenAnswer(inv -> {
+            for (Path p : inv.<List<Path>>getArgument(3)) {
+                delivered.put(p.getFileName().toString(), Files.readString(p));
+            }
+            return true;
+        });
+        MailOutbox outbox = outbox(mail, "10", "300");
+
+        Path list = dir.resolve("sender_list_42.txt");
+        Files.writeString(list, "M1,D1\n", StandardCharsets.UTF_8);
+        assertTrue(outbox.enqueueDigest("discovery", "ops@example.com", "run 1", "first", list));
+        // The next run rewrites the same list file before the digest goes out
+        Files.writeString(list, "M2,D2\n", StandardCharsets.UTF_8);
+        assertTrue(outbox.enqueueDigest("discovery", "OPS@example.com", "run 2", "second", list));
+        assertTrue(outbox.enqueueDigest("discovery", "other@example.com", "run 3", "third", null));
+
+        verify(mail, timeout(3000)).deliver(eq("ops@example.com"), eq("Reloader: 2 discovery notifications"), contains("== run 2 ==\nsecond"), any());
+        verify(mail, timeout(3000)).deliver(eq("other@example.com"), eq("run 3"), eq("third"), eq(List.of()));
+        assertEquals(Map.of("sender_list_42.txt", "M1,D1\n", "sender_list_42-2.txt", "M2,D2\n"), delivered);
+
+        waitForPending(outbox, 0);
+        assertEquals(2L, outbox.stats().get("sent"));
+        try (var spooled = Files.walk(dir.resolve("spool"))) {
+            assertEquals(1, spooled.count(), "spooled attachments are removed after sending");
+        }
+    }
+
+    @Test
+    void retriesFailedDeliveryAndBoundsTheQueue() throws Exception {
+        MailService mail = mock(MailService.class);
+        when(mail.deliver(anyString(), anyString(), anyString(), any()))
+                .thenThrow(new jakarta.mail.MessagingException("relay unavailable"))
+                .thenReturn(true);
+        MailOutbox outbox = outbox(mail, "1", "60000");
+
+        assertTrue(outbox.enqueue("ops@example.com", "retried", "first attempt fails", null));
+        verify(mail, timeout(3000).times(2)).deliver(eq("ops@example.com"), eq("retried"), anyString(), any());
+        waitForPending(outbox, 0);
+        assertEquals(1L, outbox.stats().get("retried"));
+
+        assertTrue(outbox.enqueueDigest("discovery", "ops@example.com", "held", "held in the digest window", null));
+        assertFalse(outbox.enqueue("ops@example.com", "overflow", "no room", null));
+        assertEquals(1L, outbox.stats().get("rejected"));
+
+        // Shutdown sends the open digest instead of waiting out its window
+        outbox.shutdown();
+        verify(mail).deliver(eq("ops@example.com"), eq("held"), anyString(), any());
+        assertEquals(2L, outbox.stats().get("sent"));
+    }
+
+    @Test
+    void startupRemovesSpoolEntriesOlderThanTheRetryHorizon() throws Exception {
+        Path spool = dir.resolve("spool");
+        Path stale = Files.createDirectories(spool.resolve("stale"));
+        Files.writeString(stale.resolve("sender_list_1.txt"), "M1,D1\n");
+        Files.setLastModifiedTime(stale, java.nio.file.attribute.FileTime.fromMillis(System.currentTimeMillis() - 3_600_000L));
+        Path recent = Files.createDirectories(spool.resolve("recent"));
+        Files.writeString(recent.resolve("sender_list_2.txt"), "M2,D2\n");
+
+        outbox(mock(MailService.class), "10", "60000");
+
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(recent.resolve("sender_list_2.txt")), "entries within the retry horizon may still be sent");
+    }
+
+    private static void waitForPending(MailOutbox outbox, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 3000;
+        while (!Integer.valueOf(expected).equals(outbox.stats().get("pending")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
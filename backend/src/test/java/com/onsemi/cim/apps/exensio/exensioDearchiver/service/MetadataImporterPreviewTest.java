@@ -0,0 +1,86 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.DiscoveryProperties;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.ExternalMetadataRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.MetadataRow;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto.DiscoveryPreviewResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MetadataImporterPreviewTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.of(2025, 1, 16, 11, 0);
+
+    private ExternalMetadataRepository repository;
+    private DiscoveryProperties props;
+    private MetadataImporterService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ExternalMetadataRepository.class);
+        props = new DiscoveryProperties();
+        props.setPreviewCountCap(100);
+        service = new MetadataImporterService(null, null, null, null, props, repository, null, null, null, null,
+                new DiscoveryPreviewCache(props));
+    }
+
+    @Test
+    void totalIsCountedOnceAndNextPageContinuesFromCursor() {
+        when(repository.countMetadata(any(), any(), any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(4L);
+        when(repository.findMetadataPageAfter(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), isNull(), isNull(), eq(2)))
+                .thenReturn(List.of(new MetadataRow("L1", "ID4", "D4", T1.plusHours(1)), new MetadataRow("L1", "ID3", "D3", T1)));
+        when(repository.findMetadataPageAfter(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), eq(T1), eq("ID3"), eq(2)))
+                .thenReturn(List.of(new MetadataRow("L1", "ID2", "D2", T1), new MetadataRow("L1", "ID1", "D1", T1.minusHours(1))));
+
+        DiscoveryPreviewResponse first = preview(0, null);
+        DiscoveryPreviewResponse second = preview(1, null);
+
+        assertEquals(4L, first.total());
+        assertEquals(4L, second.total());
+        assertEquals("ID2", second.items().get(0).metadataId());
+        verify(repository, times(1)).countMetadata(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+        verify(repository, never()).findMetadataPage(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void fastModeReportsCappedTotalAndUnknownPagesUseOffset() {
+        when(repository.countMetadataCapped(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), anyLong())).thenReturn(101L);
+        when(repository.findMetadataPage(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), anyInt(), anyInt()))
+                .thenReturn(List.of(new MetadataRow("L1", "ID9", "D9", T1)));
+
+        DiscoveryPreviewResponse page = preview(5, "fast");
+
+        assertEquals(100L, page.total());
+        assertTrue(page.totalCapped());
+        verify(repository).findMetadataPage(any(), any(), any(), any(), any(), any(), any(), any(), any(), any(), eq(10), eq(2));
+        verify(repository, never()).countMetadata(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+
+        // Switching to exact replaces the lower bound with the real count
+        when(repository.countMetadata(any(), any(), any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(250L);
+        DiscoveryPreviewResponse exact = preview(5, "exact");
+        assertEquals(250L, exact.total());
+        assertFalse(exact.totalCapped());
+    }
+
+    private DiscoveryPreviewResponse preview(int page, String countMode) {
+        return service.previewMetadata("SITE", "qa", 7, "2025-01-01", "2025-01-31", null, null,
+                null, "D1", null, null, page, 2, countMode);
+    }
+}
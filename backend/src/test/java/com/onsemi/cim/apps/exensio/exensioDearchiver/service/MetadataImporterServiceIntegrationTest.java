@@ -49,7 +49,9 @@ public class MetadataImporterServiceIntegrationTest {
     public void setup() throws Exception {
         extConn = DriverManager.getConnection("jdbc:h2:mem:external;DB_CLOSE_DELAY=-1");
         try (Statement s = extConn.createStatement()) {
-            // Create a simple view table and seed data
+            // Create a simple view table and seed data (the named in-memory DB outlives a single test)
+            s.execute("DROP TABLE IF EXISTS all_metadata_view;");
+            s.execute("DROP TABLE IF EXISTS DTP_SENDER_QUEUE_ITEM;");
             s.execute("CREATE TABLE all_metadata_view (lot VARCHAR(50), id VARCHAR(50), id_data VARCHAR(50), end_time TIMESTAMP, tester_type VARCHAR(50), data_type VARCHAR(50));");
             s.execute("CREATE TABLE DTP_SENDER_QUEUE_ITEM (id VARCHAR(50), id_sender VARCHAR(50));");
             s.execute("INSERT INTO all_metadata_view (lot, id, id_data, end_time, tester_type, data_type) VALUES ('L1','ID1','DATA1', '2025-01-15 10:00:00','T1','D1');");
@@ -60,6 +62,10 @@ public class MetadataImporterServiceIntegrationTest {
 
     // Make ExternalDbConfig return a fresh H2 connection for site "TEST_SITE" and environment "qa"
     when(externalDbConfig.getConnection("TEST_SITE", "qa")).thenAnswer(inv -> DriverManager.getConnection("jdbc:h2:mem:external;DB_CLOSE_DELAY=-1"));
+    when(externalDbConfig.getConnection(org.mockito.ArgumentMatchers.eq("TEST_SITE"), org.mockito.ArgumentMatchers.eq("qa"), org.mockito.ArgumentMatchers.any(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload.class)))
+        .thenAnswer(inv -> DriverManager.getConnection("jdbc:h2:mem:external;DB_CLOSE_DELAY=-1"));
+    when(externalDbConfig.getReadConnection(org.mockito.ArgumentMatchers.eq("TEST_SITE"), org.mockito.ArgumentMatchers.eq("qa"), org.mockito.ArgumentMatchers.any(com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload.class)))
+        .thenAnswer(inv -> DriverManager.getConnection("jdbc:h2:mem:external;DB_CLOSE_DELAY=-1"));
 
         // Default discovery properties
         discoveryProperties.setNotifyRecipient(null);
@@ -86,4 +92,22 @@ public class MetadataImporterServiceIntegrationTest {
         // Verify senderService.enqueuePayloadsWithResult was called (fallback removed in tests)
         verify(senderService).enqueuePayloadsWithResult(42, List.of("ID1,DATA1", "ID2,DATA2"), "metadata_discover");
     }
+
+    @Test
+    public void testDiscoverEnqueuesInChunks() throws Exception {
+        when(senderService.enqueuePayloadsWithResult(anyInt(), any(List.class), any(String.class))).thenAnswer(inv -> {
+            List<?> list = inv.getArgument(1);
+            return new SenderService.EnqueueResultHolder(list.size(), java.util.Collections.emptyList());
+        });
+        int chunkSize = discoveryProperties.getEnqueueChunkSize();
+        discoveryProperties.setEnqueueChunkSize(1);
+        try {
+            importerService.discoverAndEnqueue("TEST_SITE", "qa", 43, "2025-01-01 00:00:00.000000", "2025-12-31 23:59:59.999999", "T1", "D1", null, null, null, false, 0, 1000);
+        } finally {
+            discoveryProperties.setEnqueueChunkSize(chunkSize);
+        }
+
+        verify(senderService).enqueuePayloadsWithResult(43, List.of("ID1,DATA1"), "metadata_discover");
+        verify(senderService).enqueuePayloadsWithResult(43, List.of("ID2,DATA2"), "metadata_discover");
+    }
 }
@@ -0,0 +1,72 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.RefDbProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueueDepthTrackerTest {
+
+    private static final String URL = "jdbc:h2:mem:depth_tracker;DB_CLOSE_DELAY=-1";
+
+    private Connection keepAlive;
+    private QueueDepthTracker tracker;
+    private final AtomicInteger opened = new AtomicInteger();
+
+    @BeforeEach
+    void setup() throws Exception {
+        keepAlive = DriverManager.getConnection(URL);
+        try (Statement s = keepAlive.createStatement()) {
+            s.execute("CREATE TABLE DTP_SENDER_QUEUE_ITEM (id_metadata VARCHAR(50), id_data VARCHAR(50), id_sender INT)");
+            s.execute("INSERT INTO DTP_SENDER_QUEUE_ITEM VALUES ('M1','D1',7), ('M2','D2',7), ('M3','D3',8)");
+        }
+        tracker = new QueueDepthTracker(new RefDbProperties());
+    }
+
+    @AfterEach
+    void teardown() throws Exception {
+        try (Statement s = keepAlive.createStatement()) {
+            s.execute("DROP TABLE DTP_SENDER_QUEUE_ITEM");
+        }
+        keepAlive.close();
+    }
+
+    private Connection open() throws java.sql.SQLException {
+        opened.incrementAndGet();
+        return DriverManager.getConnection(URL);
+    }
+
+    @Test
+    void freshDepth_isServedFromMemory() {
+        assertEquals(2, tracker.depth("SITE", 7, this::open));
+        assertEquals(2, tracker.depth("SITE", 7, this::open));
+        assertEquals(1, opened.get(), "second capacity check should not count again");
+    }
+
+    @Test
+    void localAdjustments_andExactUpdates_applyToCachedValue() {
+        tracker.depth("SITE", 7, this::open);
+        tracker.recordInserted("SITE", 7, 5);
+        assertEquals(7, tracker.depth("SITE", 7, this::open));
+        tracker.update("SITE", 7, 3);
+        assertEquals(3, tracker.depth("SITE", 7, this::open));
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    void refresher_recountsActiveEntries() throws Exception {
+        tracker.depth("SITE", 8, this::open);
+        try (Statement s = keepAlive.createStatement()) {
+            s.execute("INSERT INTO DTP_SENDER_QUEUE_ITEM VALUES ('M4','D4',8)");
+        }
+        tracker.refreshActive();
+        assertEquals(2, tracker.depth("SITE", 8, this::open));
+    }
+}
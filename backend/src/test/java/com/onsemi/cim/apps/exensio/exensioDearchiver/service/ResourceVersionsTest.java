@@ -0,0 +1,32 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ResourceVersionsTest {
+
+    @Test
+    void bumpWaitsForCommitInsideTransaction() {
+        ResourceVersions versions = new ResourceVersions(new MockEnvironment());
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            versions.changedAfterCommit(ResourceVersions.SESSIONS);
+            assertEquals(0, versions.version(ResourceVersions.SESSIONS));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(1, versions.version(ResourceVersions.SESSIONS));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void bumpIsImmediateOutsideTransaction() {
+        ResourceVersions versions = new ResourceVersions(new MockEnvironment());
+        versions.changedAfterCommit(ResourceVersions.SESSIONS);
+        assertEquals(1, versions.version(ResourceVersions.SESSIONS));
+    }
+}
@@ -0,0 +1,162 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.LoadSession;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.LoadSessionPayload;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionPayloadRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.PayloadCandidate;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.StageStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class RetentionServiceIntegrationTest {
+
+    // Test-only terminal status so rows staged by other tests in the shared databases are left alone
+    private static final String TERMINAL = "RETAIN_TEST";
+
+    @Autowired
+    RefDbService refDbService;
+
+    @Autowired
+    LoadSessionRepository sessionRepo;
+
+    @Autowired
+    LoadSessionPayloadRepository payloadRepo;
+
+    @Autowired
+    JobCoordinator coordinator;
+
+    @Autowired
+    ResourceVersions versions;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void archivesTerminalRowsInBatchesAndKeepsTotals() throws Exception {
+        refDbService.stagePayloads("RETAIN_SITE", 11, List.of(new PayloadCandidate("RM1", "RD1"), new PayloadCandidate("RM2", "RD2"),
+                new PayloadCandidate("RM3", "RD3"), new PayloadCandidate("RM4", "RD4")));
+        try (Connection c = DriverManager.getConnection("jdbc:h2:mem:refdb;DB_CLOSE_DELAY=-1", "sa", "");
+             Statement st = c.createStatement()) {
+            st.executeUpdate("UPDATE SENDER_STAGE SET status = '" + TERMINAL + "' WHERE site = 'RETAIN_SITE' AND metadata_id <> 'RM4'");
+        }
+
+        LoadSession session = sessionRepo.save(new LoadSession("tester", "RETAIN_SITE", "qa", 11, "test"));
+        LoadSessionPayload done1 = new LoadSessionPayload(session, "RM1,RD1");
+        LoadSessionPayload done2 = new LoadSessionPayload(session, "RM2,RD2");
+        LoadSessionPayload open = new LoadSessionPayload(session, "RM4,RD4");
+        for (LoadSessionPayload p : List.of(done1, done2)) {
+            p.setStatus(TERMINAL);
+            p.setUpdatedAt(Instant.now().minus(2, ChronoUnit.DAYS));
+        }
+        payloadRepo.saveAll(List.of(done1, done2, open));
+
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("app.retention.window", "")
+                .withProperty("app.retention.batch-size", "2")
+                .withProperty("app.retention.pause-ms", "0")
+                .withProperty("app.retention.stage.statuses", TERMINAL)
+                .withProperty("app.retention.stage.age-days", "0")
+                .withProperty("app.retention.payloads.statuses", TERMINAL)
+                .withProperty("app.retention.payloads.age-days", "1");
+        RetentionService retention = new RetentionService(refDbService, payloadRepo, coordinator, versions, env);
+
+        RetentionService.RetentionRun run = retention.run(false);
+        assertEquals(3, run.stageRows());
+        assertEquals(2, run.payloadRows());
+        // stage: 2 + 1 (short batch ends the phase); payloads: 2 + 0
+        assertEquals(4, run.batches());
+
+        // Hot tables keep only the open rows; archives hold the rest
+        assertEquals(1, refDbService.countRecords("RETAIN_SITE", 11, null));
+        try (Connection c = DriverManager.getConnection("jdbc:h2:mem:refdb;DB_CLOSE_DELAY=-1", "sa", "");
+             Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM SENDER_STAGE_ARCHIVE WHERE site = 'RETAIN_SITE' AND archived_at IS NOT NULL")) {
+            rs.next();
+            assertEquals(3, rs.getLong(1));
+        }
+        assertEquals(List.of("RM4,RD4"), payloadRepo.findBySessionId(session.getId()).stream().map(LoadSessionPayload::getPayloadId).toList());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM load_session_payload_archive WHERE session_id = ?", Integer.class, session.getId()));
+
+        // Totals still include purged rows
+        StageStatus status = refDbService.fetchStatusesFor("RETAIN_SITE", 11).get(0);
+        assertEquals(4, status.total());
+        assertEquals(2, sessionRepo.findById(session.getId()).orElseThrow().getArchivedPayloadCount());
+
+        // Nothing left to do
+        RetentionService.RetentionRun again = retention.run(false);
+        assertEquals(0, again.stageRows() + again.payloadRows());
+    }
+
+    @Test
+    public void stageBacklogDoesNotStarvePayloadPurge() throws Exception {
+        String terminal = "RETAIN_BOTH";
+        refDbService.stagePayloads("RETAIN_BOTH_SITE", 12, List.of(new PayloadCandidate("BM1", "BD1"), new PayloadCandidate("BM2", "BD2"),
+                new PayloadCandidate("BM3", "BD3")));
+        try (Connection c = DriverManager.getConnection("jdbc:h2:mem:refdb;DB_CLOSE_DELAY=-1", "sa", "");
+             Statement st = c.createStatement()) {
+            st.executeUpdate("UPDATE SENDER_STAGE SET status = '" + terminal + "' WHERE site = 'RETAIN_BOTH_SITE'");
+        }
+        LoadSession session = sessionRepo.save(new LoadSession("tester", "RETAIN_BOTH_SITE", "qa", 12, "test"));
+        LoadSessionPayload done1 = new LoadSessionPayload(session, "BM1,BD1");
+        LoadSessionPayload done2 = new LoadSessionPayload(session, "BM2,BD2");
+        for (LoadSessionPayload p : List.of(done1, done2)) {
+            p.setStatus(terminal);
+            p.setUpdatedAt(Instant.now().minus(2, ChronoUnit.DAYS));
+        }
+        payloadRepo.saveAll(List.of(done1, done2));
+
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("app.retention.window", "")
+                .withProperty("app.retention.batch-size", "1")
+                .withProperty("app.retention.pause-ms", "0")
+                .withProperty("app.retention.max-batches-per-run", "2")
+                .withProperty("app.retention.stage.statuses", terminal)
+                .withProperty("app.retention.stage.age-days", "0")
+                .withProperty("app.retention.payloads.statuses", terminal)
+                .withProperty("app.retention.payloads.age-days", "1");
+        RetentionService retention = new RetentionService(refDbService, payloadRepo, coordinator, versions, env);
+
+        // Both backlogs outlast the budget: each purge gets a batch instead of the stage purge taking both
+        RetentionService.RetentionRun run = retention.run(false);
+        assertEquals(1, run.stageRows());
+        assertEquals(1, run.payloadRows());
+        assertEquals(2, run.batches());
+
+        run = retention.run(false);
+        assertEquals(1, run.stageRows());
+        assertEquals(1, run.payloadRows());
+
+        run = retention.run(false);
+        assertEquals(1, run.stageRows());
+        assertEquals(0, run.payloadRows());
+        assertEquals(0, payloadRepo.findBySessionId(session.getId()).size());
+    }
+
+    @Test
+    public void windowMayWrapPastMidnight() {
+        assertTrue(RetentionService.inWindow("01:00-05:00", LocalTime.of(3, 0)));
+        assertFalse(RetentionService.inWindow("01:00-05:00", LocalTime.of(5, 0)));
+        assertTrue(RetentionService.inWindow("22:00-04:00", LocalTime.of(23, 30)));
+        assertTrue(RetentionService.inWindow("22:00-04:00", LocalTime.of(1, 0)));
+        assertFalse(RetentionService.inWindow("22:00-04:00", LocalTime.of(12, 0)));
+        assertTrue(RetentionService.inWindow("", LocalTime.NOON));
+    }
+}
@@ -27,4 +27,19 @@ public class SenderServiceDuplicateHandlingTest {
         assertThat(second.enqueuedCount).isEqualTo(0);
         assertThat(second.skippedPayloads).containsExactlyInAnyOrderElementsOf(payloads);
     }
+
+    @Test
+    public void testLargeEnqueueIsChunkedAndSkipsExistingAndRepeatedPayloads() {
+        List<String> firstHalf = new java.util.ArrayList<>();
+        for (int i = 0; i < 1500; i++) firstHalf.add("BULK-" + i);
+        assertThat(senderService.enqueuePayloadsWithResult(98, firstHalf, "test_source").enqueuedCount).isEqualTo(1500);
+
+        // 1500 already queued, 1500 new, plus a repeat inside the request
+        List<String> all = new java.util.ArrayList<>();
+        for (int i = 0; i < 3000; i++) all.add("BULK-" + i);
+        all.add(" BULK-2999 ");
+        SenderService.EnqueueResultHolder second = senderService.enqueuePayloadsWithResult(98, all, "test_source");
+        assertThat(second.enqueuedCount).isEqualTo(1500);
+        assertThat(second.skippedPayloads).hasSize(1501);
+    }
 }
@@ -0,0 +1,75 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.SenderQueueEntry;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.SenderQueueRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "reloader.jwt.secret=0123456789abcdef0123456789abcdef",
+        "app.sender.batch-size=100",
+        "app.sender.min-batch-size=10",
+        "app.sender.max-batch-size=400"
+})
+public class SenderServiceProcessBatchTest {
+
+    @Autowired
+    private SenderService senderService;
+
+    @Autowired
+    private SenderQueueRepository repository;
+
+    @Test
+    public void processBatchClaimsOldestEntriesAndMarksThemSent() {
+        // The in-memory database is shared with other test classes, so assert on transitions rather than sender rows
+        senderService.enqueuePayloadsWithResult(77, List.of("B1", "B2", "B3", "B4", "B5"), "test_source");
+        long newBefore = repository.countByStatus("NEW");
+        long sentBefore = repository.countByStatus("SENT");
+
+        assertThat(senderService.processBatch(3)).isEqualTo(3);
+        assertThat(repository.countByStatus("NEW")).isEqualTo(newBefore - 3);
+        assertThat(repository.countByStatus("SENT")).isEqualTo(sentBefore + 3);
+        assertThat(repository.countByStatus("PROCESSING")).isZero();
+
+        List<SenderQueueEntry> sent = repository.findAll().stream().filter(e -> "SENT".equals(e.getStatus())).toList();
+        assertThat(sent).allSatisfy(e -> {
+            assertThat(e.getProcessedAt()).isNotNull();
+            assertThat(e.getClaimToken()).isNull();
+        });
+    }
+
+    @Test
+    public void staleClaimsAreReturnedToNew() {
+        senderService.enqueuePayloadsWithResult(78, List.of("STALE1", "STALE2"), "test_source");
+        // A run that died after claiming: rows stay PROCESSING with an old claim
+        List<SenderQueueEntry> claimed = repository.claimNew("dead-run", 1000);
+        assertThat(claimed).allSatisfy(e -> assertThat(e.getClaimedAt()).isNotNull());
+        assertThat(repository.reclaimStale(java.time.Instant.now().minusSeconds(60))).isZero();
+
+        assertThat(repository.reclaimStale(java.time.Instant.now().plusSeconds(1))).isEqualTo(claimed.size());
+        assertThat(repository.countByStatus("PROCESSING")).isZero();
+        List<SenderQueueEntry> stale = repository.findAll().stream().filter(e -> e.getPayloadId().startsWith("STALE")).toList();
+        assertThat(stale).hasSize(2).allSatisfy(e -> {
+            assertThat(e.getStatus()).isEqualTo("NEW");
+            assertThat(e.getClaimToken()).isNull();
+        });
+    }
+
+    @Test
+    public void batchSizeGrowsWhenFastAndShrinksWhenSlow() {
+        int start = senderService.currentBatchSize();
+        senderService.adaptBatchSize(start, start, 10);
+        assertThat(senderService.currentBatchSize()).isEqualTo(Math.min(400, start * 2));
+        senderService.adaptBatchSize(400, 400, 10);
+        assertThat(senderService.currentBatchSize()).isEqualTo(400);
+        senderService.adaptBatchSize(400, 400, 60_000);
+        assertThat(senderService.currentBatchSize()).isEqualTo(200);
+        senderService.adaptBatchSize(10, 3, 60_000);
+        assertThat(senderService.currentBatchSize()).isEqualTo(10);
+    }
+}
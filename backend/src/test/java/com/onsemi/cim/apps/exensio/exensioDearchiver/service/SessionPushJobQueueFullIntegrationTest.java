@@ -0,0 +1,92 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalDbConfig;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.LoadSession;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.LoadSessionPayload;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionPayloadRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto.SessionPushJobStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@TestPropertySource(properties={"reloader.use-h2-external=true","external-db.allow-writes=true","app.session-push.chunk-size=2",
+        "refdb.dispatch.max-queue-size=4","refdb.dispatch.depth-max-age-ms=100",
+        "app.session-push.queue-full-backoff-ms=50","app.session-push.queue-full-max-backoff-ms=200"})
+public class SessionPushJobQueueFullIntegrationTest {
+
+    private static final int SENDER = 4501;
+
+    @Autowired
+    LoadSessionRepository sessionRepo;
+
+    @Autowired
+    LoadSessionPayloadRepository payloadRepo;
+
+    @Autowired
+    SessionPushJobService pushJobs;
+
+    @Autowired
+    ExternalDbConfig externalDbConfig;
+
+    @Test
+    public void testJobWaitsForFullQueueToDrain() throws Exception {
+        try (Connection c = externalDbConfig.getConnection("EXAMPLE_SITE");
+             PreparedStatement ps = c.prepareStatement("insert into DTP_SENDER_QUEUE_ITEM (id_metadata, id_data, id_sender, record_created) values (?, ?, ?, ?)")) {
+            for (int i = 0; i < 4; i++) {
+                ps.setString(1, "FULL_M" + i);
+                ps.setString(2, "FULL_D" + i);
+                ps.setInt(3, SENDER);
+                ps.setTimestamp(4, Timestamp.from(Instant.now()));
+                ps.executeUpdate();
+            }
+        }
+        LoadSession s = new LoadSession();
+        s.setSenderId(SENDER);
+        s.setSite("EXAMPLE_SITE");
+        s.setSource("test");
+        s.setStatus("NEW");
+        sessionRepo.save(s);
+        payloadRepo.saveAll(List.of(new LoadSessionPayload(s, "QM1,QD1"), new LoadSessionPayload(s, "QM2,QD2"),
+                new LoadSessionPayload(s, "QM3,QD3")));
+
+        SessionPushJobStatus status = pushJobs.submit(s.getId());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"WAITING".equals(status.state()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            status = pushJobs.get(status.jobId());
+        }
+        assertEquals("WAITING", status.state());
+        // Well past the contention give-up (about 1.2 s): the job must still be waiting, not PARTIAL
+        Thread.sleep(1500);
+        status = pushJobs.get(status.jobId());
+        assertEquals("WAITING", status.state());
+        assertEquals(0, status.claimed());
+
+        // The remote sender drains its queue
+        try (Connection c = externalDbConfig.getConnection("EXAMPLE_SITE");
+             PreparedStatement ps = c.prepareStatement("delete from DTP_SENDER_QUEUE_ITEM where id_sender = ? and id_metadata like 'FULL_%'")) {
+            ps.setInt(1, SENDER);
+            ps.executeUpdate();
+        }
+
+        deadline = System.currentTimeMillis() + 15000;
+        while (status.finishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            status = pushJobs.get(status.jobId());
+        }
+        assertEquals("COMPLETED", status.state());
+        assertEquals(3, status.pushed());
+        assertEquals(3, payloadRepo.countBySessionIdAndStatus(s.getId(), "PUSHED"));
+    }
+}
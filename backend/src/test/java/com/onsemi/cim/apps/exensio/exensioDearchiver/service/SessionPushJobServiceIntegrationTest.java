@@ -0,0 +1,93 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.service;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.LoadSession;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.LoadSessionPayload;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionPayloadRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto.SessionPushJobStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@TestPropertySource(properties={"reloader.use-h2-external=true","external-db.allow-writes=true","app.session-push.chunk-size=2"})
+public class SessionPushJobServiceIntegrationTest {
+
+    @Autowired
+    LoadSessionRepository sessionRepo;
+
+    @Autowired
+    LoadSessionPayloadRepository payloadRepo;
+
+    @Autowired
+    SessionPushJobService pushJobs;
+
+    @Test
+    public void testPushRunsInChunksAndReportsProgress() throws Exception {
+        LoadSession s = new LoadSession();
+        s.setSenderId(43);
+        s.setSite("EXAMPLE_SITE");
+        s.setSource("test");
+        s.setStatus("NEW");
+        s.setTotalPayloads(5);
+        sessionRepo.save(s);
+        payloadRepo.saveAll(List.of(new LoadSessionPayload(s, "JM1,JD1"), new LoadSessionPayload(s, "JM2,JD2"),
+                new LoadSessionPayload(s, "JM3,JD3"), new LoadSessionPayload(s, "invalid"), new LoadSessionPayload(s, "JM5,JD5")));
+
+        SessionPushJobStatus submitted = pushJobs.submit(s.getId());
+        assertNotNull(submitted);
+        assertEquals(5, submitted.pending());
+
+        SessionPushJobStatus status = submitted;
+        long deadline = System.currentTimeMillis() + 15000;
+        while (status.finishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            status = pushJobs.get(submitted.jobId());
+        }
+
+        assertEquals("COMPLETED", status.state());
+        assertEquals(5, status.claimed());
+        assertEquals(4, status.pushed());
+        assertEquals(1, status.failed());
+        // 5 payloads in chunks of 2
+        assertEquals(3, status.chunks().size());
+        assertEquals(4, payloadRepo.countBySessionIdAndStatus(s.getId(), "PUSHED"));
+        assertEquals("COMPLETED", sessionRepo.findById(s.getId()).orElseThrow().getStatus());
+        assertEquals(4, sessionRepo.findById(s.getId()).orElseThrow().getPushedRemoteCount());
+    }
+
+    @Test
+    public void testSessionWithOnlyFailedPayloadsIsNotCompleted() throws Exception {
+        LoadSession s = new LoadSession();
+        s.setSenderId(44);
+        s.setSite("EXAMPLE_SITE");
+        s.setSource("test");
+        s.setStatus("NEW");
+        sessionRepo.save(s);
+        payloadRepo.saveAll(List.of(new LoadSessionPayload(s, "invalid-1"), new LoadSessionPayload(s, "invalid-2")));
+
+        SessionPushJobStatus status = pushJobs.submit(s.getId());
+        long deadline = System.currentTimeMillis() + 15000;
+        while (status.finishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            status = pushJobs.get(status.jobId());
+        }
+
+        assertEquals("FAILED", status.state());
+        assertEquals(2, status.failed());
+        assertEquals("FAILED", sessionRepo.findById(s.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    public void testUnknownSessionAndJob() {
+        assertNull(pushJobs.submit(-1L));
+        assertNull(pushJobs.get("missing"));
+    }
+}
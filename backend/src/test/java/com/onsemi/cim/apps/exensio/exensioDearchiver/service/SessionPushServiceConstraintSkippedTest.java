@@ -81,7 +81,7 @@ public class SessionPushServiceConstraintSkippedTest {
                 connHandler
         );
 
-        doReturn(connProxy).when(externalDbConfig).getConnection(s.getSite());
+        doReturn(connProxy).when(externalDbConfig).getConnection(s.getSite(), null, com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload.DISPATCH);
 
         int pushed = pushService.pushSessionBatch(s.getId(), 10);
         assertEquals(0, pushed);
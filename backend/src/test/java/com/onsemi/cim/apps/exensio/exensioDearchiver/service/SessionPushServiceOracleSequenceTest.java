@@ -104,7 +104,7 @@ public class SessionPushServiceOracleSequenceTest {
         );
 
         // stub the ExternalDbConfig to return our proxy connection
-        doReturn(connProxy).when(externalDbConfig).getConnection(s.getSite());
+        doReturn(connProxy).when(externalDbConfig).getConnection(s.getSite(), null, com.onsemi.cim.apps.exensio.exensioDearchiver.config.ExternalWorkload.DISPATCH);
 
         int pushed = pushService.pushSessionBatch(s.getId(), 10);
         assertEquals(1, pushed);
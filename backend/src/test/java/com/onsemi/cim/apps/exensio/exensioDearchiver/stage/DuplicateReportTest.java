@@ -0,0 +1,45 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.stage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DuplicateReportTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void keepsSamplesInMemoryUntilTheCapThenSpillsEverything() throws Exception {
+        Path spill = tempDir.resolve("dups.txt");
+        try (DuplicateReport report = new DuplicateReport(3, spill, d -> d.metadataId() + "," + d.dataId())) {
+            report.addAll(List.of(dup(1), dup(2), dup(3)));
+            assertNull(report.spillFile());
+            assertFalse(Files.exists(spill));
+
+            for (int i = 4; i <= 1000; i++) {
+                report.add(dup(i));
+            }
+            assertEquals(1000, report.count());
+            assertEquals(3, report.samples().size());
+            assertNotNull(report.spillFile());
+        }
+        List<String> lines = Files.readAllLines(spill, StandardCharsets.UTF_8);
+        assertEquals(1000, lines.size());
+        assertEquals("M1,D1", lines.get(0));
+        assertEquals("M1000,D1000", lines.get(999));
+    }
+
+    private static DuplicatePayload dup(int i) {
+        return new DuplicatePayload("M" + i, "D" + i, "COMPLETED", null, null, null, null, null, false);
+    }
+}
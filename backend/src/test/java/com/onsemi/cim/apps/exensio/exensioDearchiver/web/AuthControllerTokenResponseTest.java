@@ -40,7 +40,8 @@ public class AuthControllerTokenResponseTest {
         when(ats.createPasswordResetToken("testuser")).thenReturn(prt);
 
         // construct controller with returnTokensInResponse = false
-        AuthController ctrl = new AuthController(am, jwt, rts, ats, repo, encoder, mail, "", false);
+        AuthController ctrl = new AuthController(am, jwt, rts, ats, repo, encoder, mail, "", false,
+                Mockito.mock(com.onsemi.cim.apps.exensio.exensioDearchiver.security.AuthorityCache.class));
 
         var resp = ctrl.requestReset(Map.of("username", "testuser"));
         assertEquals(200, resp.getStatusCodeValue());
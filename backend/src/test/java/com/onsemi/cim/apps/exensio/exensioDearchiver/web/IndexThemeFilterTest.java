@@ -0,0 +1,77 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IndexThemeFilterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void indexIsServedFromCachedVariantsWithEtag() throws Exception {
+        Path index = dir.resolve("index.html");
+        Files.writeString(index, "<!doctype html><html lang=\"en\"><body>v1</body></html>", StandardCharsets.UTF_8);
+        IndexThemeFilter filter = new IndexThemeFilter(List.of(new FileSystemResource(index)), 0L);
+
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletResponse plain = get(filter, chain, null, null);
+        assertEquals(200, plain.getStatus());
+        assertEquals("<!doctype html><html lang=\"en\"><body>v1</body></html>", plain.getContentAsString());
+        assertEquals("no-cache", plain.getHeader("Cache-Control"));
+        String plainEtag = plain.getHeader("ETag");
+        assertNotNull(plainEtag);
+
+        MockHttpServletResponse themed = get(filter, chain, "andromeda", null);
+        assertEquals("<!doctype html><html data-theme=\"andromeda\" lang=\"en\"><body>v1</body></html>", themed.getContentAsString());
+        assertNotEquals(plainEtag, themed.getHeader("ETag"));
+
+        MockHttpServletResponse revalidated = get(filter, chain, "andromeda", themed.getHeader("ETag"));
+        assertEquals(304, revalidated.getStatus());
+        assertEquals(0, revalidated.getContentAsByteArray().length);
+
+        // Index requests never reach the chain
+        verify(chain, never()).doFilter(any(), any());
+
+        // A new deployment of index.html produces a new variant and ETag
+        Files.writeString(index, "<!doctype html><html><body>version two</body></html>", StandardCharsets.UTF_8);
+        index.toFile().setLastModified(System.currentTimeMillis() + 2000);
+        MockHttpServletResponse updated = get(filter, chain, null, plainEtag);
+        assertEquals(200, updated.getStatus());
+        assertTrue(updated.getContentAsString().contains("version two"));
+    }
+
+    @Test
+    void fallsBackToBufferedRewriteWithoutIndexResource() throws Exception {
+        IndexThemeFilter filter = new IndexThemeFilter(List.of(new FileSystemResource(dir.resolve("missing.html"))), 0L);
+        FilterChain chain = (req, res) -> {
+            res.setContentType("text/html");
+            res.getWriter().write("<html><body>from chain</body></html>");
+        };
+        MockHttpServletResponse resp = get(filter, chain, "andromeda", null);
+        assertEquals("<html data-theme=\"andromeda\"><body>from chain</body></html>", resp.getContentAsString());
+    }
+
+    private static MockHttpServletResponse get(IndexThemeFilter filter, FilterChain chain, String theme, String ifNoneMatch) throws Exception {
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/");
+        req.addHeader("Accept", "text/html,application/xhtml+xml");
+        if (theme != null) req.setCookies(new Cookie("app-theme", theme));
+        if (ifNoneMatch != null) req.addHeader("If-None-Match", ifNoneMatch);
+        MockHttpServletResponse resp = new MockHttpServletResponse();
+        filter.doFilter(req, resp, chain);
+        return resp;
+    }
+}
@@ -0,0 +1,75 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.web;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.LoadSession;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.service.RefDbService;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.PayloadCandidate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Without the time-based rollover the ETag only changes with the counters
+@SpringBootTest(properties = {"reloader.jwt.secret=0123456789abcdef0123456789abcdef", "app.etag.max-age-ms=0"})
+public class PollingEtagTest {
+
+    @Autowired
+    private SessionsController sessionsController;
+
+    @Autowired
+    private StageController stageController;
+
+    @Autowired
+    private LoadSessionRepository sessionRepo;
+
+    @Autowired
+    private RefDbService refDbService;
+
+    @Test
+    public void sessionPollsAreNotModifiedUntilTheSessionChanges() {
+        LoadSession session = sessionRepo.save(new LoadSession("tester", "SITE", "qa", 1, "test"));
+
+        ResponseEntity<LoadSession> first = sessionsController.getSession(session.getId(), null);
+        String etag = first.getHeaders().getETag();
+        assertThat(first.getStatusCode().value()).isEqualTo(200);
+        assertThat(etag).isNotNull();
+        assertThat(first.getHeaders().getCacheControl()).isEqualTo("no-cache");
+
+        ResponseEntity<LoadSession> unchanged = sessionsController.getSession(session.getId(), etag);
+        assertThat(unchanged.getStatusCode().value()).isEqualTo(304);
+        assertThat(unchanged.getBody()).isNull();
+
+        session.setStatus("COMPLETED");
+        sessionRepo.save(session);
+        ResponseEntity<LoadSession> changed = sessionsController.getSession(session.getId(), etag);
+        assertThat(changed.getStatusCode().value()).isEqualTo(200);
+        assertThat(changed.getBody().getStatus()).isEqualTo("COMPLETED");
+        assertThat(changed.getHeaders().getETag()).isNotEqualTo(etag);
+    }
+
+    @AfterEach
+    public void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void stageRecordPollsAreNotModifiedUntilStagingChanges() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("tester", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        String etag = stageController.list("ETAG_SITE", null, null, 0, 50, null).getHeaders().getETag();
+        assertThat(stageController.list("ETAG_SITE", null, null, 0, 50, etag).getStatusCode().value()).isEqualTo(304);
+
+        refDbService.stagePayloads("ETAG_SITE", 5, List.of(new PayloadCandidate("ETAG_M1", "ETAG_D1")));
+        ResponseEntity<?> changed = stageController.list("ETAG_SITE", null, null, 0, 50, etag);
+        assertThat(changed.getStatusCode().value()).isEqualTo(200);
+        assertThat(changed.getHeaders().getETag()).isNotEqualTo(etag);
+    }
+}
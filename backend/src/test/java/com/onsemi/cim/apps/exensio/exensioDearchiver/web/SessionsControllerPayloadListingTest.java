@@ -0,0 +1,55 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.web;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.LoadSession;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.entity.LoadSessionPayload;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionPayloadRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.repository.LoadSessionRepository;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.web.dto.SessionPayloadPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "reloader.jwt.secret=0123456789abcdef0123456789abcdef")
+public class SessionsControllerPayloadListingTest {
+
+    @Autowired
+    private SessionsController controller;
+
+    @Autowired
+    private LoadSessionRepository sessionRepo;
+
+    @Autowired
+    private LoadSessionPayloadRepository payloadRepo;
+
+    @Test
+    public void payloadsArePagedByKeysetAndStreamedAsNdjson() throws Exception {
+        LoadSession session = sessionRepo.save(new LoadSession("tester", "SITE", "qa", 5, "test"));
+        for (int i = 0; i < 7; i++) {
+            LoadSessionPayload p = new LoadSessionPayload(session, "M" + i + ",D" + i);
+            if (i % 2 == 1) p.markFailed("boom");
+            payloadRepo.save(p);
+        }
+
+        SessionPayloadPage first = controller.getPayloads(session.getId(), null, null, 3);
+        assertThat(first.items()).extracting(r -> r.payloadId()).containsExactly("M0,D0", "M1,D1", "M2,D2");
+        SessionPayloadPage second = controller.getPayloads(session.getId(), null, first.nextAfterId(), 3);
+        assertThat(second.items()).extracting(r -> r.payloadId()).containsExactly("M3,D3", "M4,D4", "M5,D5");
+        SessionPayloadPage last = controller.getPayloads(session.getId(), null, second.nextAfterId(), 3);
+        assertThat(last.items()).hasSize(1);
+        assertThat(last.nextAfterId()).isNull();
+
+        SessionPayloadPage failed = controller.getPayloads(session.getId(), "failed", null, 10);
+        assertThat(failed.items()).hasSize(3).allSatisfy(r -> assertThat(r.error()).isEqualTo("boom"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        controller.streamPayloads(session.getId(), "NEW").getBody().writeTo(out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(4);
+        assertThat(lines[0]).contains("\"payloadId\":\"M0,D0\"").contains("\"status\":\"NEW\"");
+    }
+}
@@ -0,0 +1,99 @@
+package com.onsemi.cim.apps.exensio.exensioDearchiver.web;
+
+import com.onsemi.cim.apps.exensio.exensioDearchiver.service.RefDbService;
+import com.onsemi.cim.apps.exensio.exensioDearchiver.stage.PayloadCandidate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "reloader.jwt.secret=0123456789abcdef0123456789abcdef")
+public class StageExportTest {
+
+    @Autowired
+    private StageController stageController;
+
+    @Autowired
+    private RefDbService refDbService;
+
+    @BeforeEach
+    public void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("tester", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @AfterEach
+    public void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void exportsCsvAndGzippedNdjson() throws Exception {
+        refDbService.stagePayloads("EXPORT_SITE", 7, List.of(
+                new PayloadCandidate("EXP_M1", "EXP_D1"),
+                new PayloadCandidate("EXP_M2", "EXP_D,2")));
+        refDbService.stagePayloads("EXPORT_SITE", 8, List.of(new PayloadCandidate("EXP_M3", "EXP_D3")));
+
+        ResponseEntity<StreamingResponseBody> csv = stageController.export("EXPORT_SITE", 7, null, null, null, "csv", false);
+        assertThat(csv.getHeaders().getContentDisposition().getFilename()).isEqualTo("stage-records-EXPORT_SITE.csv");
+        String[] lines = new String(write(csv.getBody()), StandardCharsets.UTF_8).split("\r\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("id,site,senderId,metadataId,dataId,status");
+        assertThat(lines[1]).contains(",EXPORT_SITE,7,EXP_M1,EXP_D1,");
+        assertThat(lines[2]).contains(",EXP_M2,\"EXP_D,2\",");
+
+        ResponseEntity<StreamingResponseBody> ndjson = stageController.export("EXPORT_SITE", null, null, "2000-01-01", null, "ndjson", true);
+        assertThat(ndjson.getHeaders().getContentDisposition().getFilename()).isEqualTo("stage-records-EXPORT_SITE.ndjson.gz");
+        byte[] compressed = write(ndjson.getBody());
+        String text = new String(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes(), StandardCharsets.UTF_8);
+        List<String> rows = text.lines().toList();
+        assertThat(rows).hasSize(3);
+        assertThat(rows.get(2)).contains("\"dataId\":\"EXP_D3\"").contains("\"senderId\":8");
+
+        // Range entirely in the past matches nothing but still yields a valid (header-only) document
+        ResponseEntity<StreamingResponseBody> empty = stageController.export("EXPORT_SITE", null, null, null, "2000-01-01T00:00:00Z", "csv", false);
+        assertThat(new String(write(empty.getBody()), StandardCharsets.UTF_8).split("\r\n")).hasSize(1);
+    }
+
+    @Test
+    public void capsConcurrentExports() throws Exception {
+        // refdb.export.max-concurrent defaults to 2; a slot is held until the body has been written
+        ResponseEntity<StreamingResponseBody> first = stageController.export("EXPORT_SITE", null, null, null, null, "csv", false);
+        ResponseEntity<StreamingResponseBody> second = stageController.export("EXPORT_SITE", null, null, null, null, "csv", false);
+        ResponseEntity<StreamingResponseBody> third = stageController.export("EXPORT_SITE", null, null, null, null, "csv", false);
+        assertThat(third.getStatusCode().value()).isEqualTo(429);
+        assertThat(third.getHeaders().getFirst("Retry-After")).isEqualTo("30");
+
+        write(first.getBody());
+        ResponseEntity<StreamingResponseBody> retry = stageController.export("EXPORT_SITE", null, null, null, null, "csv", false);
+        assertThat(retry.getStatusCode().value()).isEqualTo(200);
+        write(second.getBody());
+        write(retry.getBody());
+    }
+
+    @Test
+    public void rejectsUnknownFormatAndBadDates() {
+        assertThat(stageController.export("EXPORT_SITE", null, null, null, null, "xml", false).getStatusCode().value()).isEqualTo(400);
+        assertThat(stageController.export("EXPORT_SITE", null, null, "yesterday", null, "csv", false).getStatusCode().value()).isEqualTo(400);
+    }
+
+    private static byte[] write(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -38,6 +38,8 @@ export interface DiscoveryPreviewRequest {
   location?: string | null;
   page: number;
   size: number;
+  // 'exact' or 'fast' (capped count); server default when omitted
+  countMode?: 'exact' | 'fast' | null;
 }
 
 export interface DiscoveryPreviewRow {
@@ -53,6 +55,8 @@ export interface DiscoveryPreviewResponse {
   page: number;
   size: number;
   debugSql?: string;
+  // true when total is a lower bound ("10,000+")
+  totalCapped?: boolean;
 }
 
 export interface StagePayloadRequestBody {
@@ -64,6 +64,7 @@ export class StepperComponent implements OnInit, OnDestroy {
   previewLoading = false;
   previewRows: DiscoveryPreviewRow[] = [];
   previewTotal = 0;
+  previewTotalCapped = false;
   previewPage = 0;
   previewSize = 25;
   previewSizes = [25, 50, 100];
@@ -492,6 +493,7 @@ export class StepperComponent implements OnInit, OnDestroy {
         this.previewLoaded = true;
         this.previewRows = response?.items ?? [];
         this.previewTotal = response?.total ?? 0;
+        this.previewTotalCapped = !!response?.totalCapped;
         this.previewPage = response?.page ?? page;
         this.previewSize = response?.size ?? this.previewSize;
         const rawSql = response?.debugSql ?? null;
@@ -723,6 +725,7 @@ export class StepperComponent implements OnInit, OnDestroy {
     this.previewRowCache.clear();
     this.previewSelectedKeys.clear();
     this.previewTotal = 0;
+    this.previewTotalCapped = false;
     this.previewPage = 0;
     this.previewLoaded = false;
     this.selectedCount = 0;
@@ -930,7 +933,12 @@ export class StepperComponent implements OnInit, OnDestroy {
 
   get previewLastPage(): number {
     if (this.previewTotal <= 0 || this.previewSize <= 0) return -1;
-    return Math.max(Math.ceil(this.previewTotal / this.previewSize) - 1, 0);
+    const last = Math.max(Math.ceil(this.previewTotal / this.previewSize) - 1, 0);
+    // A capped total only says "at least"; keep paging forward while pages come back full
+    if (this.previewTotalCapped && this.previewRows.length === this.previewSize) {
+      return Math.max(last, this.previewPage + 1);
+    }
+    return last;
   }
 
   get stageRecordsLastPage(): number {